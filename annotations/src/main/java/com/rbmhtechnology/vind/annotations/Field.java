@@ -30,4 +30,12 @@ public @interface Field {
      */
     boolean stored() default true;
 
+    /**
+     * <strong>EXPERT:</strong>
+     * Mark this field as {@code inPlace}. In place fields are neither indexed nor stored and can be updated without
+     * reindexing the document. Only allowed on single valued numeric fields.
+     * @return boolean flag whether the field is updated in place or not. Default false.
+     */
+    boolean inPlace() default false;
+
 }
@@ -0,0 +1,14 @@
+package com.rbmhtechnology.vind;
+
+/**
+ * Thrown if the backend rejects a request as invalid, e.g. with a HTTP status 4xx. Unlike a failing backend, retrying
+ * the same request will fail again.
+ *
+ * @since 2.4.0
+ */
+public class InvalidRequestException extends SearchServerException {
+
+    public InvalidRequestException(String m, Throwable t) {
+        super(m, t);
+    }
+}
@@ -111,7 +111,7 @@ public class AnnotationUtil {
      * @param pojoClass  Class from which it is wanted to know the type.
      * @return String describing the type of the class if the @Type annotation empty.If not the simple name of the class
      */
-    private static String getType(Class<?> pojoClass) {
+    public static String getType(Class<?> pojoClass) {
         String typeVal;
         final Type type = pojoClass.getAnnotation(Type.class);
         if (type != null && StringUtils.isNotBlank(type.name())) {
@@ -253,6 +253,7 @@ public class AnnotationUtil {
         if (f != null) {
             builder.setStored(f.stored());
             builder.setIndexed(f.indexed());
+            builder.setInPlace(f.inPlace());
         } else {
             //Should not be needed, it has this value as default
             builder.setStored(true);
@@ -0,0 +1,375 @@
+package com.rbmhtechnology.vind.api;
+
+import com.rbmhtechnology.vind.annotations.AnnotationUtil;
+import com.rbmhtechnology.vind.api.metrics.Instrumentation;
+import com.rbmhtechnology.vind.api.metrics.Operation;
+import com.rbmhtechnology.vind.api.query.FulltextSearch;
+import com.rbmhtechnology.vind.api.query.delete.Delete;
+import com.rbmhtechnology.vind.api.query.get.RealTimeGet;
+import com.rbmhtechnology.vind.api.query.suggestion.ExecutableSuggestionSearch;
+import com.rbmhtechnology.vind.api.query.update.Update;
+import com.rbmhtechnology.vind.api.result.*;
+import com.rbmhtechnology.vind.model.DocumentFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * Search server wrapper sending identical concurrent searches and suggestions only once to the backend
+ * (single-flight). Requests are identical if the operation, the document factory and the normalized raw query are
+ * equal. Callers sending a request while an identical one is in flight wait for its response instead of sending their
+ * own. Every caller gets its own copy of the result, with copies of the documents and bound to the search of the
+ * caller, so the callers do not share mutable state. No results are cached: once a request is done, the next identical
+ * request is sent again. Searches with documents which cannot be copied (see
+ * {@link DocumentFactory#isCopyable(com.rbmhtechnology.vind.api.Document)}) are not shared: the joined requests are sent
+ * again once the request in flight is done.
+ * <p>
+ * Factories are compared by identity: callers should share their factories to be coalesced. The factories of annotated
+ * classes are created once per class by this server.
+ * <p>
+ * The requests joining another one are reported as hits of the cache <code>coalescing</code> to the
+ * {@link Instrumentation}.
+ *
+ * @since 2.4.0
+ */
+public class CoalescingSearchServer extends SearchServer {
+
+    public static final String CACHE_NAME = "coalescing";
+
+    private final SearchServer backend;
+    private final ConcurrentMap<List<Object>, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final ConcurrentMap<Class<?>, DocumentFactory> factories = new ConcurrentHashMap<>();
+
+    public CoalescingSearchServer(SearchServer backend) {
+        this.backend = backend;
+    }
+
+    /**
+     * @return the number of requests which have joined an identical request in flight.
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    /**
+     * @return the number of distinct requests currently in flight.
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private static List<Object> key(Operation operation, String rawQuery, DocumentFactory... factories) {
+        //the order of the parameters does not change the query
+        final String normalized = Arrays.stream(rawQuery.split("&")).sorted().collect(Collectors.joining("&"));
+        //factories do not implement equals, so the key holds the factory instances to compare them by identity
+        final List<Object> key = new ArrayList<>(Arrays.asList(operation, normalized));
+        key.addAll(Arrays.asList(factories));
+        return key;
+    }
+
+    private DocumentFactory factory(Class<?> c) {
+        return factories.computeIfAbsent(c, AnnotationUtil::createDocumentFactory);
+    }
+
+    /**
+     * Sends a request or joins the identical request in flight.
+     * @param key the key of the request.
+     * @param call the call sending the request to the backend.
+     * @param view the view creating the copy of the shared result for a caller, returning null if the result cannot be
+     *             copied.
+     * @param <T> type of the result.
+     * @return the result for the caller.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T coalesce(List<Object> key, Supplier<T> call, UnaryOperator<T> view) {
+        final CompletableFuture<T> flight = new CompletableFuture<>();
+        final CompletableFuture<T> running = (CompletableFuture<T>) inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            coalesced.incrementAndGet();
+            Instrumentation.recordCache(CACHE_NAME, true);
+            log.debug("Joining request in flight: {}", key);
+            final T copy;
+            try {
+                copy = view.apply(running.join());
+            } catch (CompletionException e) {
+                throw unwrap(e);
+            }
+            if (copy != null) {
+                return copy;
+            }
+            log.debug("Result of request in flight cannot be shared, sending request: {}", key);
+            return call.get();
+        }
+
+        Instrumentation.recordCache(CACHE_NAME, false);
+        try {
+            final T result = call.get();
+            flight.complete(result);
+            //the result shared with the joined requests must not be changed
+            final T copy = view.apply(result);
+            return copy != null ? copy : result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Sends an asynchronous request or joins the identical request in flight.
+     * @param key the key of the request.
+     * @param call the call sending the request to the backend.
+     * @param view the view creating the copy of the shared result for a caller, returning null if the result cannot be
+     *             copied.
+     * @param <T> type of the result.
+     * @return the future result for the caller.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> coalesceAsync(List<Object> key, Supplier<CompletableFuture<T>> call, UnaryOperator<T> view) {
+        final CompletableFuture<T> flight = new CompletableFuture<>();
+        final CompletableFuture<T> running = (CompletableFuture<T>) inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            coalesced.incrementAndGet();
+            Instrumentation.recordCache(CACHE_NAME, true);
+            log.debug("Joining request in flight: {}", key);
+            return running.thenCompose(result -> {
+                final T copy = view.apply(result);
+                if (copy != null) {
+                    return CompletableFuture.completedFuture(copy);
+                }
+                log.debug("Result of request in flight cannot be shared, sending request: {}", key);
+                return call.get();
+            });
+        }
+
+        Instrumentation.recordCache(CACHE_NAME, false);
+        try {
+            call.get().whenComplete((result, t) -> {
+                inFlight.remove(key, flight);
+                if (t == null) {
+                    flight.complete(result);
+                } else {
+                    flight.completeExceptionally(t instanceof CompletionException && t.getCause() != null ? t.getCause() : t);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+        return flight.thenApply(result -> {
+            //the result shared with the joined requests must not be changed
+            final T copy = view.apply(result);
+            return copy != null ? copy : result;
+        });
+    }
+
+    /**
+     * Copies a search result for a caller.
+     * @param result the shared result.
+     * @param search the search of the caller.
+     * @param factory the factory of the caller.
+     * @return the copy, or null if the result cannot be copied.
+     */
+    private static SearchResult copy(SearchResult result, FulltextSearch search, DocumentFactory factory) {
+        final boolean copyable = result.getResults().stream().allMatch(DocumentFactory::isCopyable) &&
+                result.getGroups().stream().allMatch(group ->
+                        (group.getHead() == null || DocumentFactory.isCopyable(group.getHead())) &&
+                        group.getExpanded().stream().allMatch(DocumentFactory::isCopyable));
+        if (copyable && result instanceof PageResult) {
+            return ((PageResult) result).copy(search, factory);
+        } else if (copyable && result instanceof SliceResult) {
+            return ((SliceResult) result).copy(search, factory);
+        }
+        return null;
+    }
+
+    private static RuntimeException unwrap(CompletionException e) {
+        final Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return e;
+    }
+
+    @Override
+    public Object getBackend() {
+        return backend.getBackend();
+    }
+
+    @Override
+    public StatusResult getBackendStatus() {
+        return backend.getBackendStatus();
+    }
+
+    @Override
+    public IndexResult index(Document... docs) {
+        return backend.index(docs);
+    }
+
+    @Override
+    public IndexResult index(List<Document> docs) {
+        return backend.index(docs);
+    }
+
+    @Override
+    public IndexResult indexWithin(Document doc, int withinMs) {
+        return backend.indexWithin(doc, withinMs);
+    }
+
+    @Override
+    public IndexResult indexWithin(List<Document> doc, int withinMs) {
+        return backend.indexWithin(doc, withinMs);
+    }
+
+    @Override
+    public DeleteResult delete(Document doc) {
+        return backend.delete(doc);
+    }
+
+    @Override
+    public DeleteResult deleteWithin(Document doc, int withinMs) {
+        return backend.deleteWithin(doc, withinMs);
+    }
+
+    @Override
+    public boolean execute(Update update, DocumentFactory factory) {
+        return backend.execute(update, factory);
+    }
+
+    @Override
+    public boolean execute(List<Update> updates, DocumentFactory factory) {
+        return backend.execute(updates, factory);
+    }
+
+    @Override
+    public DeleteResult execute(Delete delete, DocumentFactory factory) {
+        return backend.execute(delete, factory);
+    }
+
+    @Override
+    public void commit(boolean optimize) {
+        backend.commit(optimize);
+    }
+
+    @Override
+    public <T> BeanSearchResult<T> execute(FulltextSearch search, Class<T> c) {
+        final SearchResult result = execute(search, factory(c));
+        return result.toPojoResult(result, c);
+    }
+
+    @Override
+    public SearchResult execute(FulltextSearch search, DocumentFactory factory) {
+        return coalesce(key(Operation.Search, backend.getRawQuery(search, factory), factory),
+                () -> backend.execute(search, factory), result -> copy(result, search, factory));
+    }
+
+    @Override
+    public long count(FulltextSearch search, DocumentFactory factory) {
+        return coalesce(key(Operation.Count, backend.getRawQuery(search, factory), factory),
+                () -> backend.count(search, factory), UnaryOperator.identity());
+    }
+
+    @Override
+    public FacetResults facets(FulltextSearch search, DocumentFactory factory) {
+        return backend.facets(search, factory);
+    }
+
+    @Override
+    public String getRawQuery(FulltextSearch search, DocumentFactory factory) {
+        return backend.getRawQuery(search, factory);
+    }
+
+    @Override
+    public <T> String getRawQuery(FulltextSearch search, Class<T> c) {
+        return backend.getRawQuery(search, c);
+    }
+
+    @Override
+    public <T> SuggestionResult execute(ExecutableSuggestionSearch search, Class<T> c) {
+        return execute(search, factory(c));
+    }
+
+    @Override
+    public SuggestionResult execute(ExecutableSuggestionSearch search, DocumentFactory assets) {
+        return coalesce(key(Operation.Suggest, backend.getRawQuery(search, assets), assets),
+                () -> backend.execute(search, assets), result -> result.copy(assets));
+    }
+
+    @Override
+    public SuggestionResult execute(ExecutableSuggestionSearch search, DocumentFactory assets, DocumentFactory childFactory) {
+        return coalesce(key(Operation.Suggest, backend.getRawQuery(search, assets, childFactory), assets, childFactory),
+                () -> backend.execute(search, assets, childFactory), result -> result.copy(assets));
+    }
+
+    @Override
+    public String getRawQuery(ExecutableSuggestionSearch search, DocumentFactory factory) {
+        return backend.getRawQuery(search, factory);
+    }
+
+    @Override
+    public String getRawQuery(ExecutableSuggestionSearch search, DocumentFactory factory, DocumentFactory childFactory) {
+        return backend.getRawQuery(search, factory, childFactory);
+    }
+
+    @Override
+    public <T> String getRawQuery(ExecutableSuggestionSearch search, Class<T> c) {
+        return backend.getRawQuery(search, c);
+    }
+
+    @Override
+    public <T> BeanGetResult<T> execute(RealTimeGet search, Class<T> c) {
+        return backend.execute(search, c);
+    }
+
+    @Override
+    public GetResult execute(RealTimeGet search, DocumentFactory assets) {
+        return backend.execute(search, assets);
+    }
+
+    @Override
+    public void clearIndex() {
+        backend.clearIndex();
+    }
+
+    @Override
+    public void close() {
+        backend.close();
+    }
+
+    @Override
+    public Class<ServiceProvider> getServiceProviderClass() {
+        return backend.getServiceProviderClass();
+    }
+
+    @Override
+    public CompletableFuture<IndexResult> indexAsync(Executor executor, List<Document> docs) {
+        return backend.indexAsync(executor, docs);
+    }
+
+    @Override
+    public CompletableFuture<SearchResult> executeAsync(FulltextSearch search, DocumentFactory factory, Executor executor) {
+        return coalesceAsync(key(Operation.Search, backend.getRawQuery(search, factory), factory),
+                () -> backend.executeAsync(search, factory, executor), result -> copy(result, search, factory));
+    }
+
+    @Override
+    public CompletableFuture<SuggestionResult> executeAsync(ExecutableSuggestionSearch search, DocumentFactory assets, Executor executor) {
+        return coalesceAsync(key(Operation.Suggest, backend.getRawQuery(search, assets), assets),
+                () -> backend.executeAsync(search, assets, executor), result -> result.copy(assets));
+    }
+}
@@ -11,6 +11,7 @@ import com.rbmhtechnology.vind.configure.SearchConfiguration;
 import com.rbmhtechnology.vind.model.DocumentFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
@@ -42,7 +43,23 @@ public class CompletableSearchServer extends SearchServer {
     }
 
     public CompletableSearchServer(SearchServer backend) {
-        this(backend, Executors.newFixedThreadPool(SearchConfiguration.get(SearchConfiguration.APPLICATION_EXECUTOR_THREADS,16)), true);
+        this(backend, createDefaultExecutor(), true);
+    }
+
+    /**
+     * Creates the executor configured by {@link SearchConfiguration#APPLICATION_EXECUTOR}: a fixed thread pool of
+     * {@link SearchConfiguration#APPLICATION_EXECUTOR_THREADS} threads, or one virtual thread per task if set to
+     * <code>virtual</code> and running on Java 21 or newer.
+     */
+    static ExecutorService createDefaultExecutor() {
+        if ("virtual".equals(SearchConfiguration.get(SearchConfiguration.APPLICATION_EXECUTOR, "fixed"))) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                log.warn("Virtual threads are not supported by this Java runtime, using a fixed thread pool instead.");
+            }
+        }
+        return Executors.newFixedThreadPool(SearchConfiguration.get(SearchConfiguration.APPLICATION_EXECUTOR_THREADS,16));
     }
 
     public <T> CompletableFuture<BeanSearchResult<T>> executeAsync(FulltextSearch search, Class<T> c) {
@@ -50,7 +67,9 @@ public class CompletableSearchServer extends SearchServer {
     }
 
     public <T> CompletableFuture<BeanSearchResult<T>> executeAsync(FulltextSearch search, Class<T> c, Executor executor) {
-        return CompletableFuture.supplyAsync(() -> this.execute(search, c), executor);
+        final DocumentFactory factory = AnnotationUtil.createDocumentFactory(c);
+        return executeAsync(search, factory, executor)
+                .thenApply(result -> result.toPojoResult(result, c));
     }
 
     @Deprecated
@@ -112,15 +131,16 @@ public class CompletableSearchServer extends SearchServer {
     }
 
     public CompletableFuture<IndexResult> indexAsync(Executor executor, Document ... docs) {
-        return CompletableFuture.supplyAsync(() -> this.index(docs), executor);
+        return indexAsync(executor, Arrays.asList(docs));
     }
 
     public CompletableFuture<IndexResult> indexAsync(List<Document> docs) {
         return indexAsync(executor, docs);
     }
 
+    @Override
     public CompletableFuture<IndexResult> indexAsync(Executor executor,List<Document> docs) {
-        return CompletableFuture.supplyAsync(() -> this.index(docs), executor);
+        return backend.indexAsync(executor, docs);
     }
 
     @Deprecated
@@ -177,8 +197,25 @@ public class CompletableSearchServer extends SearchServer {
         return executeAsync(search, factory, executor);
     }
 
+    @Override
     public CompletableFuture<SearchResult> executeAsync(FulltextSearch search, DocumentFactory factory, Executor executor) {
-        return CompletableFuture.supplyAsync(() -> this.execute(search, factory), executor);
+        return backend.executeAsync(search, factory, executor);
+    }
+
+    public CompletableFuture<Long> countAsync(FulltextSearch search, DocumentFactory factory) {
+        return countAsync(search, factory, executor);
+    }
+
+    public CompletableFuture<Long> countAsync(FulltextSearch search, DocumentFactory factory, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> this.count(search, factory), executor);
+    }
+
+    public CompletableFuture<FacetResults> facetsAsync(FulltextSearch search, DocumentFactory factory) {
+        return facetsAsync(search, factory, executor);
+    }
+
+    public CompletableFuture<FacetResults> facetsAsync(FulltextSearch search, DocumentFactory factory, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> this.facets(search, factory), executor);
     }
 
     public <T> CompletableFuture<SuggestionResult> executeAsync(ExecutableSuggestionSearch search, Class<T> c) {
@@ -186,15 +223,16 @@ public class CompletableSearchServer extends SearchServer {
     }
 
     public <T> CompletableFuture<SuggestionResult> executeAsync(ExecutableSuggestionSearch search, Class<T> c, Executor executor) {
-        return CompletableFuture.supplyAsync(() -> this.execute(search, c), executor);
+        return executeAsync(search, AnnotationUtil.createDocumentFactory(c), executor);
     }
 
     public CompletableFuture<SuggestionResult> executeAsync(ExecutableSuggestionSearch search, DocumentFactory assets) {
         return executeAsync(search, assets, executor);
     }
 
+    @Override
     public CompletableFuture<SuggestionResult> executeAsync(ExecutableSuggestionSearch search, DocumentFactory assets, Executor executor) {
-        return CompletableFuture.supplyAsync(() -> this.execute(search, assets), executor);
+        return backend.executeAsync(search, assets, executor);
     }
 
     public static CompletableSearchServer getInstance(Executor executor) {
@@ -242,6 +280,11 @@ public class CompletableSearchServer extends SearchServer {
         return backend.execute(update, factory);
     }
 
+    @Override
+    public boolean execute(List<Update> updates, DocumentFactory factory) {
+        return backend.execute(updates, factory);
+    }
+
     @Override
     public DeleteResult execute(Delete delete, DocumentFactory factory) {
         return backend.execute(delete, factory);
@@ -272,6 +315,16 @@ public class CompletableSearchServer extends SearchServer {
         return backend.execute(search, factory);
     }
 
+    @Override
+    public long count(FulltextSearch search, DocumentFactory factory) {
+        return backend.count(search, factory);
+    }
+
+    @Override
+    public FacetResults facets(FulltextSearch search, DocumentFactory factory) {
+        return backend.facets(search, factory);
+    }
+
     @Override
     public String getRawQuery(FulltextSearch search, DocumentFactory factory) {
         return backend.getRawQuery(search,factory);
@@ -0,0 +1,227 @@
+package com.rbmhtechnology.vind.api;
+
+import com.rbmhtechnology.vind.annotations.AnnotationUtil;
+import com.rbmhtechnology.vind.api.guard.QueryGuard;
+import com.rbmhtechnology.vind.api.guard.QueryRejectedException;
+import com.rbmhtechnology.vind.api.metrics.Operation;
+import com.rbmhtechnology.vind.api.metrics.SearchMetrics;
+import com.rbmhtechnology.vind.api.query.FulltextSearch;
+import com.rbmhtechnology.vind.api.query.delete.Delete;
+import com.rbmhtechnology.vind.api.query.get.RealTimeGet;
+import com.rbmhtechnology.vind.api.query.suggestion.ExecutableSuggestionSearch;
+import com.rbmhtechnology.vind.api.query.update.Update;
+import com.rbmhtechnology.vind.api.result.*;
+import com.rbmhtechnology.vind.model.DocumentFactory;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Search server wrapper checking all fulltext searches with a {@link QueryGuard} before they are sent to the backend.
+ * Searches exceeding a limit are clamped or rejected with a {@link QueryRejectedException}, depending on the policy of
+ * the guard. Every intervention is recorded to the {@link SearchMetrics}, tagged by the rule and the action taken.
+ * <p>
+ * The guard is configured with the SearchConfiguration parameters <code>search.guard.*</code>.
+ *
+ * @since 2.4.0
+ */
+public class GuardedSearchServer extends SearchServer {
+
+    private final SearchServer backend;
+    private final QueryGuard guard;
+    private final SearchMetrics metrics;
+
+    public GuardedSearchServer(SearchServer backend) {
+        this(backend, QueryGuard.fromConfiguration(), SearchMetrics.getInstance());
+    }
+
+    public GuardedSearchServer(SearchServer backend, QueryGuard guard, SearchMetrics metrics) {
+        this.backend = backend;
+        this.guard = guard;
+        this.metrics = metrics;
+    }
+
+    public QueryGuard getGuard() {
+        return guard;
+    }
+
+    public SearchMetrics getMetrics() {
+        return metrics;
+    }
+
+    private FulltextSearch guard(Operation operation, String type, FulltextSearch search) {
+        final QueryGuard.Result result;
+        try {
+            result = guard.check(search);
+        } catch (QueryRejectedException e) {
+            metrics.recordIntervention(operation, type, e.getRule().name(), QueryGuard.Policy.Reject.name());
+            log.warn("Rejected {} on {}: {}", operation, type, e.getMessage());
+            throw e;
+        }
+        for (QueryGuard.Rule rule : result.getClamped()) {
+            metrics.recordIntervention(operation, type, rule.name(), QueryGuard.Policy.Clamp.name());
+        }
+        return result.getSearch();
+    }
+
+    @Override
+    public Object getBackend() {
+        return backend.getBackend();
+    }
+
+    @Override
+    public StatusResult getBackendStatus() {
+        return backend.getBackendStatus();
+    }
+
+    @Override
+    public IndexResult index(Document... docs) {
+        return backend.index(docs);
+    }
+
+    @Override
+    public IndexResult index(List<Document> docs) {
+        return backend.index(docs);
+    }
+
+    @Override
+    public IndexResult indexWithin(Document doc, int withinMs) {
+        return backend.indexWithin(doc, withinMs);
+    }
+
+    @Override
+    public IndexResult indexWithin(List<Document> doc, int withinMs) {
+        return backend.indexWithin(doc, withinMs);
+    }
+
+    @Override
+    public DeleteResult delete(Document doc) {
+        return backend.delete(doc);
+    }
+
+    @Override
+    public DeleteResult deleteWithin(Document doc, int withinMs) {
+        return backend.deleteWithin(doc, withinMs);
+    }
+
+    @Override
+    public boolean execute(Update update, DocumentFactory factory) {
+        return backend.execute(update, factory);
+    }
+
+    @Override
+    public boolean execute(List<Update> updates, DocumentFactory factory) {
+        return backend.execute(updates, factory);
+    }
+
+    @Override
+    public DeleteResult execute(Delete delete, DocumentFactory factory) {
+        return backend.execute(delete, factory);
+    }
+
+    @Override
+    public void commit(boolean optimize) {
+        backend.commit(optimize);
+    }
+
+    @Override
+    public <T> BeanSearchResult<T> execute(FulltextSearch search, Class<T> c) {
+        return backend.execute(guard(Operation.Search, AnnotationUtil.getType(c), search), c);
+    }
+
+    @Override
+    public SearchResult execute(FulltextSearch search, DocumentFactory factory) {
+        return backend.execute(guard(Operation.Search, factory.getType(), search), factory);
+    }
+
+    @Override
+    public long count(FulltextSearch search, DocumentFactory factory) {
+        return backend.count(guard(Operation.Count, factory.getType(), search), factory);
+    }
+
+    @Override
+    public FacetResults facets(FulltextSearch search, DocumentFactory factory) {
+        return backend.facets(guard(Operation.Facets, factory.getType(), search), factory);
+    }
+
+    @Override
+    public String getRawQuery(FulltextSearch search, DocumentFactory factory) {
+        return backend.getRawQuery(guard.check(search).getSearch(), factory);
+    }
+
+    @Override
+    public <T> String getRawQuery(FulltextSearch search, Class<T> c) {
+        return backend.getRawQuery(guard.check(search).getSearch(), c);
+    }
+
+    @Override
+    public <T> SuggestionResult execute(ExecutableSuggestionSearch search, Class<T> c) {
+        return backend.execute(search, c);
+    }
+
+    @Override
+    public SuggestionResult execute(ExecutableSuggestionSearch search, DocumentFactory assets) {
+        return backend.execute(search, assets);
+    }
+
+    @Override
+    public SuggestionResult execute(ExecutableSuggestionSearch search, DocumentFactory assets, DocumentFactory childFactory) {
+        return backend.execute(search, assets, childFactory);
+    }
+
+    @Override
+    public String getRawQuery(ExecutableSuggestionSearch search, DocumentFactory factory) {
+        return backend.getRawQuery(search, factory);
+    }
+
+    @Override
+    public String getRawQuery(ExecutableSuggestionSearch search, DocumentFactory factory, DocumentFactory childFactory) {
+        return backend.getRawQuery(search, factory, childFactory);
+    }
+
+    @Override
+    public <T> String getRawQuery(ExecutableSuggestionSearch search, Class<T> c) {
+        return backend.getRawQuery(search, c);
+    }
+
+    @Override
+    public <T> BeanGetResult<T> execute(RealTimeGet search, Class<T> c) {
+        return backend.execute(search, c);
+    }
+
+    @Override
+    public GetResult execute(RealTimeGet search, DocumentFactory assets) {
+        return backend.execute(search, assets);
+    }
+
+    @Override
+    public void clearIndex() {
+        backend.clearIndex();
+    }
+
+    @Override
+    public void close() {
+        backend.close();
+    }
+
+    @Override
+    public Class<ServiceProvider> getServiceProviderClass() {
+        return backend.getServiceProviderClass();
+    }
+
+    @Override
+    public CompletableFuture<IndexResult> indexAsync(Executor executor, List<Document> docs) {
+        return backend.indexAsync(executor, docs);
+    }
+
+    @Override
+    public CompletableFuture<SearchResult> executeAsync(FulltextSearch search, DocumentFactory factory, Executor executor) {
+        return backend.executeAsync(guard(Operation.Search, factory.getType(), search), factory, executor);
+    }
+
+    @Override
+    public CompletableFuture<SuggestionResult> executeAsync(ExecutableSuggestionSearch search, DocumentFactory assets, Executor executor) {
+        return backend.executeAsync(search, assets, executor);
+    }
+}
@@ -0,0 +1,286 @@
+package com.rbmhtechnology.vind.api;
+
+import com.rbmhtechnology.vind.annotations.AnnotationUtil;
+import com.rbmhtechnology.vind.api.metrics.InMemorySearchMetrics;
+import com.rbmhtechnology.vind.api.metrics.Instrumentation;
+import com.rbmhtechnology.vind.api.metrics.MetricsSnapshot;
+import com.rbmhtechnology.vind.api.metrics.Operation;
+import com.rbmhtechnology.vind.api.metrics.Phase;
+import com.rbmhtechnology.vind.api.metrics.SearchMetrics;
+import com.rbmhtechnology.vind.api.query.FulltextSearch;
+import com.rbmhtechnology.vind.api.query.delete.Delete;
+import com.rbmhtechnology.vind.api.query.get.RealTimeGet;
+import com.rbmhtechnology.vind.api.query.suggestion.ExecutableSuggestionSearch;
+import com.rbmhtechnology.vind.api.query.update.Update;
+import com.rbmhtechnology.vind.api.result.*;
+import com.rbmhtechnology.vind.model.DocumentFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Search server wrapper measuring the operations of the backend. For every operation the total latency, the number of
+ * results and the errors are recorded, tagged by the operation and the type of the {@link DocumentFactory}. Backends
+ * supporting it, like the Solr backend, additionally report the latency of the single phases, e.g. building the query,
+ * the request and mapping the results, and the size of the responses through {@link Instrumentation}.
+ * <p>
+ * The measurements are passed to a {@link SearchMetrics} implementation, by default the one registered for the
+ * ServiceLoader or an {@link InMemorySearchMetrics}, which can be read with {@link #snapshot()}:
+ * <pre>
+ * InstrumentedSearchServer server = new InstrumentedSearchServer(SearchServer.getInstance());
+ * server.execute(Search.fulltext("hello"), factory);
+ * server.snapshot().getLatency(Operation.Search, Phase.Total, factory.getType()).getValueAtPercentile(99);
+ * </pre>
+ *
+ * @since 2.4.0
+ */
+public class InstrumentedSearchServer extends SearchServer {
+
+    private static final String UNKNOWN_TYPE = "unknown";
+
+    private final SearchServer backend;
+    private final SearchMetrics metrics;
+
+    public InstrumentedSearchServer(SearchServer backend) {
+        this(backend, SearchMetrics.getInstance());
+    }
+
+    public InstrumentedSearchServer(SearchServer backend, SearchMetrics metrics) {
+        this.backend = backend;
+        this.metrics = metrics;
+    }
+
+    public SearchMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return a copy of the recorded values.
+     * @throws IllegalStateException if the metrics are not kept in memory by an {@link InMemorySearchMetrics}.
+     */
+    public MetricsSnapshot snapshot() {
+        if (!(metrics instanceof InMemorySearchMetrics)) {
+            throw new IllegalStateException("Metrics are recorded by " + metrics.getClass().getName() + " and cannot be read");
+        }
+        return ((InMemorySearchMetrics) metrics).snapshot();
+    }
+
+    private <T> T measure(Operation operation, String type, Supplier<T> call, ToLongFunction<T> results) {
+        final long start = System.nanoTime();
+        try (Instrumentation.Context ignored = Instrumentation.begin(metrics, operation, type)) {
+            final T result = call.get();
+            metrics.recordLatency(operation, Phase.Total, type, System.nanoTime() - start);
+            if (results != null && result != null) {
+                metrics.recordResults(operation, type, results.applyAsLong(result));
+            }
+            return result;
+        } catch (RuntimeException e) {
+            metrics.recordError(operation, type, e);
+            throw e;
+        }
+    }
+
+    private void measure(Operation operation, String type, Runnable call) {
+        measure(operation, type, () -> {
+            call.run();
+            return null;
+        }, null);
+    }
+
+    private <T> CompletableFuture<T> measureAsync(Operation operation, String type, Supplier<CompletableFuture<T>> call, ToLongFunction<T> results) {
+        final long start = System.nanoTime();
+        final CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            metrics.recordError(operation, type, e);
+            throw e;
+        }
+        return future.whenComplete((result, t) -> {
+            if (t == null) {
+                metrics.recordLatency(operation, Phase.Total, type, System.nanoTime() - start);
+                if (result != null) {
+                    metrics.recordResults(operation, type, results.applyAsLong(result));
+                }
+            } else {
+                metrics.recordError(operation, type, t.getCause() != null ? t.getCause() : t);
+            }
+        });
+    }
+
+    private static String typeOf(DocumentFactory factory) {
+        return factory != null ? factory.getType() : UNKNOWN_TYPE;
+    }
+
+    private static String typeOf(Class<?> c) {
+        return c != null ? AnnotationUtil.getType(c) : UNKNOWN_TYPE;
+    }
+
+    private static String typeOf(List<Document> docs) {
+        return docs != null && !docs.isEmpty() && docs.get(0) != null ? docs.get(0).getType() : UNKNOWN_TYPE;
+    }
+
+    @Override
+    public Object getBackend() {
+        return backend.getBackend();
+    }
+
+    @Override
+    public StatusResult getBackendStatus() {
+        return backend.getBackendStatus();
+    }
+
+    @Override
+    public IndexResult index(Document... docs) {
+        return measure(Operation.Index, typeOf(Arrays.asList(docs)), () -> backend.index(docs), r -> docs.length);
+    }
+
+    @Override
+    public IndexResult index(List<Document> docs) {
+        return measure(Operation.Index, typeOf(docs), () -> backend.index(docs), r -> docs.size());
+    }
+
+    @Override
+    public IndexResult indexWithin(Document doc, int withinMs) {
+        return measure(Operation.Index, typeOf(Arrays.asList(doc)), () -> backend.indexWithin(doc, withinMs), r -> 1);
+    }
+
+    @Override
+    public IndexResult indexWithin(List<Document> doc, int withinMs) {
+        return measure(Operation.Index, typeOf(doc), () -> backend.indexWithin(doc, withinMs), r -> doc.size());
+    }
+
+    @Override
+    public DeleteResult delete(Document doc) {
+        return measure(Operation.Delete, typeOf(Arrays.asList(doc)), () -> backend.delete(doc), null);
+    }
+
+    @Override
+    public DeleteResult deleteWithin(Document doc, int withinMs) {
+        return measure(Operation.Delete, typeOf(Arrays.asList(doc)), () -> backend.deleteWithin(doc, withinMs), null);
+    }
+
+    @Override
+    public boolean execute(Update update, DocumentFactory factory) {
+        return measure(Operation.Update, typeOf(factory), () -> backend.execute(update, factory), r -> 1);
+    }
+
+    @Override
+    public boolean execute(List<Update> updates, DocumentFactory factory) {
+        return measure(Operation.Update, typeOf(factory), () -> backend.execute(updates, factory), r -> updates.size());
+    }
+
+    @Override
+    public DeleteResult execute(Delete delete, DocumentFactory factory) {
+        return measure(Operation.Delete, typeOf(factory), () -> backend.execute(delete, factory), null);
+    }
+
+    @Override
+    public void commit(boolean optimize) {
+        measure(Operation.Commit, UNKNOWN_TYPE, () -> backend.commit(optimize));
+    }
+
+    @Override
+    public <T> BeanSearchResult<T> execute(FulltextSearch search, Class<T> c) {
+        return measure(Operation.Search, typeOf(c), () -> backend.execute(search, c), r -> r.getResults().size());
+    }
+
+    @Override
+    public SearchResult execute(FulltextSearch search, DocumentFactory factory) {
+        return measure(Operation.Search, typeOf(factory), () -> backend.execute(search, factory), r -> r.getResults().size());
+    }
+
+    @Override
+    public long count(FulltextSearch search, DocumentFactory factory) {
+        return measure(Operation.Count, typeOf(factory), () -> backend.count(search, factory), null);
+    }
+
+    @Override
+    public FacetResults facets(FulltextSearch search, DocumentFactory factory) {
+        return measure(Operation.Facets, typeOf(factory), () -> backend.facets(search, factory), null);
+    }
+
+    @Override
+    public String getRawQuery(FulltextSearch search, DocumentFactory factory) {
+        return backend.getRawQuery(search, factory);
+    }
+
+    @Override
+    public <T> String getRawQuery(FulltextSearch search, Class<T> c) {
+        return backend.getRawQuery(search, c);
+    }
+
+    @Override
+    public <T> SuggestionResult execute(ExecutableSuggestionSearch search, Class<T> c) {
+        return measure(Operation.Suggest, typeOf(c), () -> backend.execute(search, c), SuggestionResult::size);
+    }
+
+    @Override
+    public SuggestionResult execute(ExecutableSuggestionSearch search, DocumentFactory assets) {
+        return measure(Operation.Suggest, typeOf(assets), () -> backend.execute(search, assets), SuggestionResult::size);
+    }
+
+    @Override
+    public SuggestionResult execute(ExecutableSuggestionSearch search, DocumentFactory assets, DocumentFactory childFactory) {
+        return measure(Operation.Suggest, typeOf(assets), () -> backend.execute(search, assets, childFactory), SuggestionResult::size);
+    }
+
+    @Override
+    public String getRawQuery(ExecutableSuggestionSearch search, DocumentFactory factory) {
+        return backend.getRawQuery(search, factory);
+    }
+
+    @Override
+    public String getRawQuery(ExecutableSuggestionSearch search, DocumentFactory factory, DocumentFactory childFactory) {
+        return backend.getRawQuery(search, factory, childFactory);
+    }
+
+    @Override
+    public <T> String getRawQuery(ExecutableSuggestionSearch search, Class<T> c) {
+        return backend.getRawQuery(search, c);
+    }
+
+    @Override
+    public <T> BeanGetResult<T> execute(RealTimeGet search, Class<T> c) {
+        return measure(Operation.Get, typeOf(c), () -> backend.execute(search, c), r -> r.getResults().size());
+    }
+
+    @Override
+    public GetResult execute(RealTimeGet search, DocumentFactory assets) {
+        return measure(Operation.Get, typeOf(assets), () -> backend.execute(search, assets), r -> r.getResults().size());
+    }
+
+    @Override
+    public void clearIndex() {
+        measure(Operation.Delete, UNKNOWN_TYPE, backend::clearIndex);
+    }
+
+    @Override
+    public void close() {
+        backend.close();
+    }
+
+    @Override
+    public Class<ServiceProvider> getServiceProviderClass() {
+        return backend.getServiceProviderClass();
+    }
+
+    @Override
+    public CompletableFuture<IndexResult> indexAsync(Executor executor, List<Document> docs) {
+        return measureAsync(Operation.Index, typeOf(docs), () -> backend.indexAsync(executor, docs), r -> docs.size());
+    }
+
+    @Override
+    public CompletableFuture<SearchResult> executeAsync(FulltextSearch search, DocumentFactory factory, Executor executor) {
+        return measureAsync(Operation.Search, typeOf(factory), () -> backend.executeAsync(search, factory, executor), r -> r.getResults().size());
+    }
+
+    @Override
+    public CompletableFuture<SuggestionResult> executeAsync(ExecutableSuggestionSearch search, DocumentFactory assets, Executor executor) {
+        return measureAsync(Operation.Suggest, typeOf(assets), () -> backend.executeAsync(search, assets, executor), SuggestionResult::size);
+    }
+}
@@ -0,0 +1,339 @@
+package com.rbmhtechnology.vind.api;
+
+import com.rbmhtechnology.vind.InvalidRequestException;
+import com.rbmhtechnology.vind.api.guard.QueryRejectedException;
+import com.rbmhtechnology.vind.api.limit.AdaptiveLimiter;
+import com.rbmhtechnology.vind.api.limit.CircuitBreaker;
+import com.rbmhtechnology.vind.api.limit.LimitAlgorithm;
+import com.rbmhtechnology.vind.api.limit.RejectedRequestException;
+import com.rbmhtechnology.vind.api.query.FulltextSearch;
+import com.rbmhtechnology.vind.api.query.delete.Delete;
+import com.rbmhtechnology.vind.api.query.get.RealTimeGet;
+import com.rbmhtechnology.vind.api.query.suggestion.ExecutableSuggestionSearch;
+import com.rbmhtechnology.vind.api.query.update.Update;
+import com.rbmhtechnology.vind.api.result.*;
+import com.rbmhtechnology.vind.configure.SearchConfiguration;
+import com.rbmhtechnology.vind.model.DocumentFactory;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Search server wrapper protecting the backend from overload. Every type of operation has its own
+ * {@link AdaptiveLimiter}, which adapts the number of concurrent requests to the observed latencies and rejects
+ * requests with a {@link RejectedRequestException} if no slot gets free within the configured wait time. All
+ * operations share a {@link CircuitBreaker}, which rejects requests immediately while the backend keeps failing.
+ * Invalid requests, rejected by the backend with an {@link InvalidRequestException} or before with an
+ * {@link IllegalArgumentException}, are answers of the backend and not counted as failures.
+ * Asynchronous requests do not block the calling thread: they wait for a free slot on their executor and are
+ * rejected with a failed future.
+ * <p>
+ * The limits are configured with the SearchConfiguration parameters <code>server.limit.*</code> and
+ * <code>server.circuit.*</code>.
+ *
+ * @since 2.4.0
+ */
+public class LimitingSearchServer extends SearchServer {
+
+    public enum Operation {
+        Search, Suggest, Index, Get
+    }
+
+    private final SearchServer backend;
+    private final Map<Operation, AdaptiveLimiter> limiters = new EnumMap<>(Operation.class);
+    private final CircuitBreaker circuitBreaker;
+
+    public LimitingSearchServer(SearchServer backend) {
+        this(backend,
+                operation -> new AdaptiveLimiter(LimitAlgorithm.fromConfiguration(),
+                        SearchConfiguration.get(SearchConfiguration.SERVER_LIMIT_WAIT, 100), TimeUnit.MILLISECONDS),
+                new CircuitBreaker(SearchConfiguration.get(SearchConfiguration.SERVER_CIRCUIT_FAILURES, 10),
+                        SearchConfiguration.get(SearchConfiguration.SERVER_CIRCUIT_OPEN, 30000), TimeUnit.MILLISECONDS));
+    }
+
+    public LimitingSearchServer(SearchServer backend, Function<Operation, AdaptiveLimiter> limiterFactory, CircuitBreaker circuitBreaker) {
+        this.backend = backend;
+        for (Operation operation : Operation.values()) {
+            this.limiters.put(operation, limiterFactory.apply(operation));
+        }
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public AdaptiveLimiter getLimiter(Operation operation) {
+        return limiters.get(operation);
+    }
+
+    public long getRejectedCount(Operation operation) {
+        return limiters.get(operation).getRejectedCount();
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    private AdaptiveLimiter.Permit acquire(Operation operation) {
+        final AdaptiveLimiter limiter = limiters.get(operation);
+        return allow(operation, limiter.acquire().orElseThrow(() -> {
+            log.debug("Rejected {} request, concurrency limit {} exhausted", operation, limiter.getLimit());
+            return new RejectedRequestException("Concurrency limit of " + operation + " requests exhausted");
+        }));
+    }
+
+    private AdaptiveLimiter.Permit allow(Operation operation, AdaptiveLimiter.Permit permit) {
+        if (!circuitBreaker.allowRequest()) {
+            permit.reject();
+            log.debug("Rejected {} request, circuit breaker is open", operation);
+            throw new RejectedRequestException("Circuit breaker is open, backend is failing");
+        }
+        return permit;
+    }
+
+    private void onSuccess(AdaptiveLimiter.Permit permit) {
+        permit.success();
+        circuitBreaker.onSuccess();
+    }
+
+    private void onFailure(AdaptiveLimiter.Permit permit, Throwable t) {
+        if (t instanceof IllegalArgumentException || t instanceof InvalidRequestException || t instanceof QueryRejectedException) {
+            //invalid requests do not indicate a failing backend, but the backend has answered
+            onSuccess(permit);
+        } else {
+            permit.dropped();
+            circuitBreaker.onFailure();
+        }
+    }
+
+    private <T> T limit(Operation operation, Supplier<T> call) {
+        final AdaptiveLimiter.Permit permit = acquire(operation);
+        Throwable failure = null;
+        try {
+            return call.get();
+        } catch (RuntimeException | Error e) {
+            failure = e;
+            throw e;
+        } finally {
+            //the permit has to be released in any case, a half open circuit waits for the outcome of its probe
+            if (failure == null) {
+                onSuccess(permit);
+            } else {
+                onFailure(permit, failure);
+            }
+        }
+    }
+
+    private void limit(Operation operation, Runnable call) {
+        limit(operation, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    private <T> CompletableFuture<T> limitAsync(Operation operation, Executor executor, Supplier<CompletableFuture<T>> call) {
+        final Optional<AdaptiveLimiter.Permit> free = limiters.get(operation).tryAcquire();
+        if (free.isPresent()) {
+            final AdaptiveLimiter.Permit permit;
+            try {
+                permit = allow(operation, free.get());
+            } catch (RejectedRequestException e) {
+                return failedFuture(e);
+            }
+            return limitAsync(permit, call);
+        }
+        //wait for a free slot on the executor instead of blocking the calling thread
+        return CompletableFuture.supplyAsync(() -> acquire(operation), executor)
+                .thenCompose(permit -> limitAsync(permit, call));
+    }
+
+    private <T> CompletableFuture<T> limitAsync(AdaptiveLimiter.Permit permit, Supplier<CompletableFuture<T>> call) {
+        final CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            onFailure(permit, e);
+            return failedFuture(e);
+        } catch (Error e) {
+            onFailure(permit, e);
+            throw e;
+        }
+        return future.whenComplete((result, t) -> {
+            if (t == null) {
+                onSuccess(permit);
+            } else {
+                onFailure(permit, t.getCause() != null ? t.getCause() : t);
+            }
+        });
+    }
+
+    private static <T> CompletableFuture<T> failedFuture(Throwable t) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(t);
+        return future;
+    }
+
+    @Override
+    public Object getBackend() {
+        return backend.getBackend();
+    }
+
+    @Override
+    public StatusResult getBackendStatus() {
+        return backend.getBackendStatus();
+    }
+
+    @Override
+    public IndexResult index(Document... docs) {
+        return limit(Operation.Index, () -> backend.index(docs));
+    }
+
+    @Override
+    public IndexResult index(List<Document> docs) {
+        return limit(Operation.Index, () -> backend.index(docs));
+    }
+
+    @Override
+    public IndexResult indexWithin(Document doc, int withinMs) {
+        return limit(Operation.Index, () -> backend.indexWithin(doc, withinMs));
+    }
+
+    @Override
+    public IndexResult indexWithin(List<Document> doc, int withinMs) {
+        return limit(Operation.Index, () -> backend.indexWithin(doc, withinMs));
+    }
+
+    @Override
+    public DeleteResult delete(Document doc) {
+        return limit(Operation.Index, () -> backend.delete(doc));
+    }
+
+    @Override
+    public DeleteResult deleteWithin(Document doc, int withinMs) {
+        return limit(Operation.Index, () -> backend.deleteWithin(doc, withinMs));
+    }
+
+    @Override
+    public boolean execute(Update update, DocumentFactory factory) {
+        return limit(Operation.Index, () -> backend.execute(update, factory));
+    }
+
+    @Override
+    public boolean execute(List<Update> updates, DocumentFactory factory) {
+        return limit(Operation.Index, () -> backend.execute(updates, factory));
+    }
+
+    @Override
+    public DeleteResult execute(Delete delete, DocumentFactory factory) {
+        return limit(Operation.Index, () -> backend.execute(delete, factory));
+    }
+
+    @Override
+    public void commit(boolean optimize) {
+        limit(Operation.Index, () -> backend.commit(optimize));
+    }
+
+    @Override
+    public <T> BeanSearchResult<T> execute(FulltextSearch search, Class<T> c) {
+        return limit(Operation.Search, () -> backend.execute(search, c));
+    }
+
+    @Override
+    public SearchResult execute(FulltextSearch search, DocumentFactory factory) {
+        return limit(Operation.Search, () -> backend.execute(search, factory));
+    }
+
+    @Override
+    public long count(FulltextSearch search, DocumentFactory factory) {
+        return limit(Operation.Search, () -> backend.count(search, factory));
+    }
+
+    @Override
+    public FacetResults facets(FulltextSearch search, DocumentFactory factory) {
+        return limit(Operation.Search, () -> backend.facets(search, factory));
+    }
+
+    @Override
+    public String getRawQuery(FulltextSearch search, DocumentFactory factory) {
+        return backend.getRawQuery(search, factory);
+    }
+
+    @Override
+    public <T> String getRawQuery(FulltextSearch search, Class<T> c) {
+        return backend.getRawQuery(search, c);
+    }
+
+    @Override
+    public <T> SuggestionResult execute(ExecutableSuggestionSearch search, Class<T> c) {
+        return limit(Operation.Suggest, () -> backend.execute(search, c));
+    }
+
+    @Override
+    public SuggestionResult execute(ExecutableSuggestionSearch search, DocumentFactory assets) {
+        return limit(Operation.Suggest, () -> backend.execute(search, assets));
+    }
+
+    @Override
+    public SuggestionResult execute(ExecutableSuggestionSearch search, DocumentFactory assets, DocumentFactory childFactory) {
+        return limit(Operation.Suggest, () -> backend.execute(search, assets, childFactory));
+    }
+
+    @Override
+    public String getRawQuery(ExecutableSuggestionSearch search, DocumentFactory factory) {
+        return backend.getRawQuery(search, factory);
+    }
+
+    @Override
+    public String getRawQuery(ExecutableSuggestionSearch search, DocumentFactory factory, DocumentFactory childFactory) {
+        return backend.getRawQuery(search, factory, childFactory);
+    }
+
+    @Override
+    public <T> String getRawQuery(ExecutableSuggestionSearch search, Class<T> c) {
+        return backend.getRawQuery(search, c);
+    }
+
+    @Override
+    public <T> BeanGetResult<T> execute(RealTimeGet search, Class<T> c) {
+        return limit(Operation.Get, () -> backend.execute(search, c));
+    }
+
+    @Override
+    public GetResult execute(RealTimeGet search, DocumentFactory assets) {
+        return limit(Operation.Get, () -> backend.execute(search, assets));
+    }
+
+    @Override
+    public void clearIndex() {
+        limit(Operation.Index, backend::clearIndex);
+    }
+
+    @Override
+    public void close() {
+        backend.close();
+    }
+
+    @Override
+    public Class<ServiceProvider> getServiceProviderClass() {
+        return backend.getServiceProviderClass();
+    }
+
+    @Override
+    public CompletableFuture<IndexResult> indexAsync(Executor executor, List<Document> docs) {
+        return limitAsync(Operation.Index, executor, () -> backend.indexAsync(executor, docs));
+    }
+
+    @Override
+    public CompletableFuture<SearchResult> executeAsync(FulltextSearch search, DocumentFactory factory, Executor executor) {
+        return limitAsync(Operation.Search, executor, () -> backend.executeAsync(search, factory, executor));
+    }
+
+    @Override
+    public CompletableFuture<SuggestionResult> executeAsync(ExecutableSuggestionSearch search, DocumentFactory assets, Executor executor) {
+        return limitAsync(Operation.Suggest, executor, () -> backend.executeAsync(search, assets, executor));
+    }
+}
@@ -0,0 +1,269 @@
+package com.rbmhtechnology.vind.api;
+
+import com.rbmhtechnology.vind.api.limit.AdaptiveLimiter;
+import com.rbmhtechnology.vind.api.limit.AimdLimit;
+import com.rbmhtechnology.vind.api.limit.BulkThrottle;
+import com.rbmhtechnology.vind.api.limit.CircuitBreaker;
+import com.rbmhtechnology.vind.api.query.delete.Delete;
+import com.rbmhtechnology.vind.api.query.update.Update;
+import com.rbmhtechnology.vind.api.result.DeleteResult;
+import com.rbmhtechnology.vind.api.result.IndexResult;
+import com.rbmhtechnology.vind.configure.SearchConfiguration;
+import com.rbmhtechnology.vind.model.DocumentFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Completable search server separating interactive requests from bulk traffic, like a re-index. Each {@link Lane} has
+ * its own {@link LimitingSearchServer} and executor, and, if created with two backends, its own connections, so a
+ * large bulk load cannot take the threads and connections needed by the searches. Writes on the bulk lane are slowed
+ * down by a {@link BulkThrottle}, by rate or while the searches get slow.
+ * <p>
+ * The server itself is the interactive lane, the bulk lane is used through the view returned by {@link #forBulk()}:
+ * <pre>
+ * PrioritySearchServer server = PrioritySearchServer.getInstance();
+ * server.execute(Search.fulltext("hello"), factory);
+ * server.forBulk().index(documents);
+ * </pre>
+ *
+ * @since 2.4.0
+ */
+public class PrioritySearchServer extends CompletableSearchServer {
+
+    /** Time after which the latency of the last searches is no longer considered by the throttle. */
+    private static final long LATENCY_MAX_AGE_SECONDS = 5;
+
+    public enum Lane {
+        Interactive, Bulk
+    }
+
+    private final LimitingSearchServer interactive;
+    private final LimitingSearchServer bulk;
+    private final BulkLane bulkLane;
+    private final BulkThrottle throttle;
+
+    private final SearchServer interactiveBackend;
+    private final SearchServer bulkBackend;
+    private final List<ExecutorService> ownedExecutors = new ArrayList<>();
+
+    /**
+     * Creates a priority server with separate limits and executors on a shared backend, e.g. an embedded server.
+     * @param backend {@link SearchServer} used by both lanes.
+     */
+    public PrioritySearchServer(SearchServer backend) {
+        this(backend, backend);
+    }
+
+    /**
+     * Creates a priority server with a backend per lane, so that the lanes do not share connections. The limits and
+     * the throttle are configured with the SearchConfiguration parameters <code>server.limit.*</code> for the
+     * interactive lane and <code>server.lane.bulk.*</code> for the bulk lane.
+     * @param interactiveBackend {@link SearchServer} of the interactive lane.
+     * @param bulkBackend {@link SearchServer} of the bulk lane.
+     */
+    public PrioritySearchServer(SearchServer interactiveBackend, SearchServer bulkBackend) {
+        this(interactiveBackend, bulkBackend, createDefaultExecutor(),
+                Executors.newFixedThreadPool(SearchConfiguration.get(SearchConfiguration.SERVER_LANE_BULK_THREADS, 2)), true);
+    }
+
+    /**
+     * Creates a priority server with a backend and an executor per lane. The executors are not shut down on close.
+     */
+    public PrioritySearchServer(SearchServer interactiveBackend, Executor interactiveExecutor, SearchServer bulkBackend, Executor bulkExecutor) {
+        this(interactiveBackend, bulkBackend, interactiveExecutor, bulkExecutor, false);
+    }
+
+    private PrioritySearchServer(SearchServer interactiveBackend, SearchServer bulkBackend, Executor interactiveExecutor, Executor bulkExecutor, boolean ownExecutors) {
+        this(interactiveBackend, new LimitingSearchServer(interactiveBackend), bulkBackend, createBulkLimits(bulkBackend),
+                interactiveExecutor, bulkExecutor, null);
+        if (ownExecutors) {
+            ownedExecutors.add((ExecutorService) interactiveExecutor);
+            ownedExecutors.add((ExecutorService) bulkExecutor);
+        }
+    }
+
+    private PrioritySearchServer(SearchServer interactiveBackend, LimitingSearchServer interactive,
+                                 SearchServer bulkBackend, LimitingSearchServer bulk,
+                                 Executor interactiveExecutor, Executor bulkExecutor, BulkThrottle throttle) {
+        super(interactive, interactiveExecutor);
+        this.interactiveBackend = interactiveBackend;
+        this.bulkBackend = bulkBackend;
+        this.interactive = interactive;
+        this.bulk = bulk;
+        this.throttle = throttle != null ? throttle : new BulkThrottle(
+                SearchConfiguration.get(SearchConfiguration.SERVER_LANE_BULK_RATE, 0),
+                () -> interactive.getLimiter(LimitingSearchServer.Operation.Search).getLatency(LATENCY_MAX_AGE_SECONDS, SECONDS),
+                SearchConfiguration.get(SearchConfiguration.SERVER_LANE_BULK_LATENCY, 0),
+                10, SECONDS);
+        this.bulkLane = new BulkLane(bulk, bulkExecutor, this.throttle);
+    }
+
+    /**
+     * Creates a priority server with full control over the limits, executors and the throttle of the lanes. The
+     * executors are not shut down on close.
+     * @param interactive {@link LimitingSearchServer} of the interactive lane.
+     * @param interactiveExecutor {@link Executor} of the interactive lane.
+     * @param bulk {@link LimitingSearchServer} of the bulk lane.
+     * @param bulkExecutor {@link Executor} of the bulk lane.
+     * @param throttle {@link BulkThrottle} for the writes on the bulk lane.
+     */
+    public PrioritySearchServer(LimitingSearchServer interactive, Executor interactiveExecutor,
+                                LimitingSearchServer bulk, Executor bulkExecutor, BulkThrottle throttle) {
+        this(interactive, interactive, bulk, bulk, interactiveExecutor, bulkExecutor, throttle);
+    }
+
+    private static LimitingSearchServer createBulkLimits(SearchServer backend) {
+        final int concurrency = SearchConfiguration.get(SearchConfiguration.SERVER_LANE_BULK_CONCURRENCY, 2);
+        //bulk requests rather wait than fail
+        return new LimitingSearchServer(backend,
+                operation -> new AdaptiveLimiter(new AimdLimit(concurrency, 1, concurrency), 1, TimeUnit.MINUTES),
+                new CircuitBreaker(SearchConfiguration.get(SearchConfiguration.SERVER_CIRCUIT_FAILURES, 10),
+                        SearchConfiguration.get(SearchConfiguration.SERVER_CIRCUIT_OPEN, 30000), TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Creates a priority server with both lanes on a single backend of the configured provider. Backends of separate
+     * {@link SearchServer#getInstance()} calls do not necessarily share an index, e.g. with an embedded server, so the
+     * lanes only get their own connections if created with two backends explicitly.
+     * @return a new priority server on the configured {@link SearchServer}.
+     */
+    public static PrioritySearchServer getInstance() {
+        return new PrioritySearchServer(SearchServer.getInstance());
+    }
+
+    /**
+     * @return the view of the bulk lane. It must not be used after this server has been closed.
+     */
+    public CompletableSearchServer forBulk() {
+        return bulkLane;
+    }
+
+    /**
+     * @param lane the {@link Lane} to be used.
+     * @return this server for the interactive lane, or the view of the bulk lane.
+     */
+    public CompletableSearchServer forLane(Lane lane) {
+        return lane == Lane.Bulk ? bulkLane : this;
+    }
+
+    /**
+     * @param lane the {@link Lane}.
+     * @return the {@link LimitingSearchServer} of the lane, giving access to the limiters and the circuit breaker.
+     */
+    public LimitingSearchServer getLimits(Lane lane) {
+        return lane == Lane.Bulk ? bulk : interactive;
+    }
+
+    public BulkThrottle getThrottle() {
+        return throttle;
+    }
+
+    @Override
+    public void close() {
+        try {
+            ownedExecutors.forEach(ExecutorService::shutdown);
+            for (ExecutorService executor : ownedExecutors) {
+                // wait for running requests to complete
+                executor.awaitTermination(60, SECONDS);
+            }
+        } catch (InterruptedException e) {
+            log.warn("Got interrupted while waiting for running requests to complete.", e);
+            // restore interrupted flag
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                super.close();
+            } finally {
+                if (bulkBackend != interactiveBackend) {
+                    bulk.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * View of the bulk lane, throttling all writes. It is closed with the priority server.
+     */
+    private static class BulkLane extends CompletableSearchServer {
+
+        private final BulkThrottle throttle;
+
+        private BulkLane(SearchServer backend, Executor executor, BulkThrottle throttle) {
+            super(backend, executor);
+            this.throttle = throttle;
+        }
+
+        @Override
+        public IndexResult index(Document... docs) {
+            throttle.acquire(docs.length);
+            return super.index(docs);
+        }
+
+        @Override
+        public IndexResult index(List<Document> docs) {
+            throttle.acquire(docs.size());
+            return super.index(docs);
+        }
+
+        @Override
+        public IndexResult indexWithin(Document doc, int withinMs) {
+            throttle.acquire(1);
+            return super.indexWithin(doc, withinMs);
+        }
+
+        @Override
+        public IndexResult indexWithin(List<Document> doc, int withinMs) {
+            throttle.acquire(doc.size());
+            return super.indexWithin(doc, withinMs);
+        }
+
+        @Override
+        public CompletableFuture<IndexResult> indexAsync(Executor executor, List<Document> docs) {
+            return CompletableFuture.runAsync(() -> throttle.acquire(docs.size()), executor)
+                    .thenCompose(v -> super.indexAsync(executor, docs));
+        }
+
+        @Override
+        public boolean execute(Update update, DocumentFactory factory) {
+            throttle.acquire(1);
+            return super.execute(update, factory);
+        }
+
+        @Override
+        public boolean execute(List<Update> updates, DocumentFactory factory) {
+            throttle.acquire(updates.size());
+            return super.execute(updates, factory);
+        }
+
+        @Override
+        public DeleteResult execute(Delete delete, DocumentFactory factory) {
+            throttle.acquire(1);
+            return super.execute(delete, factory);
+        }
+
+        @Override
+        public DeleteResult delete(Document doc) {
+            throttle.acquire(1);
+            return super.delete(doc);
+        }
+
+        @Override
+        public DeleteResult deleteWithin(Document doc, int withinMs) {
+            throttle.acquire(1);
+            return super.deleteWithin(doc, withinMs);
+        }
+
+        @Override
+        public void close() {
+            //closed with the priority server
+        }
+    }
+}
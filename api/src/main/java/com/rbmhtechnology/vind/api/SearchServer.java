@@ -19,6 +19,8 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ServiceLoader;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Abstract class  which offers a common set of methods to be implemented by the specific server implementations
@@ -232,6 +234,22 @@ public abstract class SearchServer implements Closeable {
      */
     public abstract boolean execute(Update update, DocumentFactory factory);
 
+    /**
+     * Changes several documents in the index, based on the modifications described by the {@link Update}s. Each
+     * document should be updated at most once per call.
+     * @param updates List of {@link Update} modifications to do on specific documents in the index.
+     * @param factory {@link DocumentFactory} factory with the document schema.
+     * @return true if all the updates have been applied, false otherwise.
+     * @throws SearchServerException if not possible to execute the updates.
+     */
+    public boolean execute(List<Update> updates, DocumentFactory factory) {
+        boolean updated = true;
+        for (Update update : updates) {
+            updated &= execute(update, factory);
+        }
+        return updated;
+    }
+
     /**
      * Deletes Documents which match the {@link Delete} filter configuration.
      * @param delete A Delete filter configured.
@@ -274,6 +292,30 @@ public abstract class SearchServer implements Closeable {
      */
     public abstract SearchResult execute(FulltextSearch search, DocumentFactory factory);
 
+    /**
+     * Counts the documents matching a fulltext search based on an {@link DocumentFactory}, without retrieving them.
+     * Facets, sorting and paging of the search are ignored.
+     * @param search {@link FulltextSearch} search query configuration object.
+     * @param factory {@link DocumentFactory} mapping the index documents.
+     * @return number of documents matching the search.
+     * @throws SearchServerException if not possible to execute the full text search.
+     */
+    public long count(FulltextSearch search, DocumentFactory factory) {
+        return execute(search, factory).getNumOfResults();
+    }
+
+    /**
+     * Calculates the facets of a fulltext search based on an {@link DocumentFactory}, without retrieving the
+     * matching documents. Sorting and paging of the search are ignored.
+     * @param search {@link FulltextSearch} search query configuration object.
+     * @param factory {@link DocumentFactory} mapping the index documents.
+     * @return {@link FacetResults} storing the facet results of the search.
+     * @throws SearchServerException if not possible to execute the full text search.
+     */
+    public FacetResults facets(FulltextSearch search, DocumentFactory factory) {
+        return execute(search, factory).getFacetResults();
+    }
+
     /**
      * Return the raw query sent produced by the server implementation.
      * @param search {@link FulltextSearch} search query configuration object.
@@ -377,4 +419,41 @@ public abstract class SearchServer implements Closeable {
 
     public abstract Class<ServiceProvider> getServiceProviderClass();
 
+    /**
+     * Indexes the documents without blocking the calling thread. Backends supporting non-blocking requests complete
+     * the future from their I/O callbacks, the default runs the blocking {@link #index(List)} on the executor.
+     * @param executor {@link Executor} running the blocking call or the mapping of the response.
+     * @param docs List of {@link Document} to be indexed.
+     * @return {@link CompletableFuture} of the {@link IndexResult}.
+     */
+    public CompletableFuture<IndexResult> indexAsync(Executor executor, List<Document> docs) {
+        return CompletableFuture.supplyAsync(() -> this.index(docs), executor);
+    }
+
+    /**
+     * Executes the fulltext search without blocking the calling thread. Backends supporting non-blocking requests
+     * complete the future from their I/O callbacks, the default runs the blocking
+     * {@link #execute(FulltextSearch, DocumentFactory)} on the executor.
+     * @param search {@link FulltextSearch} search query configuration object.
+     * @param factory {@link DocumentFactory} mapping the index documents.
+     * @param executor {@link Executor} running the blocking call or the mapping of the response.
+     * @return {@link CompletableFuture} of the {@link SearchResult}.
+     */
+    public CompletableFuture<SearchResult> executeAsync(FulltextSearch search, DocumentFactory factory, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> this.execute(search, factory), executor);
+    }
+
+    /**
+     * Executes the suggestion search without blocking the calling thread. Backends supporting non-blocking requests
+     * complete the future from their I/O callbacks, the default runs the blocking
+     * {@link #execute(ExecutableSuggestionSearch, DocumentFactory)} on the executor.
+     * @param search {@link ExecutableSuggestionSearch} object with the query configuration.
+     * @param assets {@link DocumentFactory} mapping the index documents.
+     * @param executor {@link Executor} running the blocking call or the mapping of the response.
+     * @return {@link CompletableFuture} of the {@link SuggestionResult}.
+     */
+    public CompletableFuture<SuggestionResult> executeAsync(ExecutableSuggestionSearch search, DocumentFactory assets, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> this.execute(search, assets), executor);
+    }
+
 }
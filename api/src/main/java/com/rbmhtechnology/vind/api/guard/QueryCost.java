@@ -0,0 +1,85 @@
+package com.rbmhtechnology.vind.api.guard;
+
+/**
+ * Estimated cost of a search, in abstract units roughly proportional to the work of the backend. The estimate is made
+ * of the number of documents to be collected and ranked (offset plus page size), the buckets of the facets, the terms
+ * of the filters, the block joins of the children searches and the term enumerations of leading wildcards.
+ *
+ * @since 2.4.0
+ */
+public class QueryCost {
+
+    static final long CHILDREN_SEARCH_COST = 1000;
+    static final long FILTER_TERM_COST = 10;
+    static final long LEADING_WILDCARD_COST = 10000;
+
+    private final long offset;
+    private final long rows;
+    private final long facetBuckets;
+    private final long filterTerms;
+    private final int childrenSearches;
+    private final int leadingWildcards;
+
+    QueryCost(long offset, long rows, long facetBuckets, long filterTerms, int childrenSearches, int leadingWildcards) {
+        this.offset = offset;
+        this.rows = rows;
+        this.facetBuckets = facetBuckets;
+        this.filterTerms = filterTerms;
+        this.childrenSearches = childrenSearches;
+        this.leadingWildcards = leadingWildcards;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * @return the max. number of facet buckets to be calculated, nested facets multiplied by their parents.
+     */
+    public long getFacetBuckets() {
+        return facetBuckets;
+    }
+
+    /**
+     * @return the number of terms of all filters, i.e. the fan-out of the filter trees.
+     */
+    public long getFilterTerms() {
+        return filterTerms;
+    }
+
+    public int getChildrenSearches() {
+        return childrenSearches;
+    }
+
+    public int getLeadingWildcards() {
+        return leadingWildcards;
+    }
+
+    /**
+     * @return the total cost of the search.
+     */
+    public long getTotal() {
+        return offset + rows
+                + facetBuckets
+                + filterTerms * FILTER_TERM_COST
+                + childrenSearches * CHILDREN_SEARCH_COST
+                + leadingWildcards * LEADING_WILDCARD_COST;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryCost{" +
+                "total=" + getTotal() +
+                ", offset=" + offset +
+                ", rows=" + rows +
+                ", facetBuckets=" + facetBuckets +
+                ", filterTerms=" + filterTerms +
+                ", childrenSearches=" + childrenSearches +
+                ", leadingWildcards=" + leadingWildcards +
+                '}';
+    }
+}
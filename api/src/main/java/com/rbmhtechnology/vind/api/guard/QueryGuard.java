@@ -0,0 +1,435 @@
+package com.rbmhtechnology.vind.api.guard;
+
+import com.rbmhtechnology.vind.api.query.FulltextSearch;
+import com.rbmhtechnology.vind.api.query.division.Page;
+import com.rbmhtechnology.vind.api.query.division.ResultSubset;
+import com.rbmhtechnology.vind.api.query.division.Slice;
+import com.rbmhtechnology.vind.api.query.facet.Facet;
+import com.rbmhtechnology.vind.api.query.facet.TermFacetOption;
+import com.rbmhtechnology.vind.api.query.filter.Filter;
+import com.rbmhtechnology.vind.configure.SearchConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Inspects searches before they are sent to the backend and stops those which could stall it: deep offsets, unlimited
+ * facets, huge filter trees, many children searches and leading wildcards. Every {@link Rule} has a limit and a
+ * {@link Policy} deciding whether a search exceeding the limit is allowed, clamped to the limit or rejected with a
+ * {@link QueryRejectedException}. Additionally a search is rejected if its estimated {@link QueryCost} is above the
+ * limit of {@link Rule#Cost}.
+ * <p>
+ * Clamping never modifies the given search but a copy of it:
+ * <ul>
+ *     <li>{@link Rule#Offset}: the last page, or slice, within the max. offset is returned.</li>
+ *     <li>{@link Rule#FacetLimit}: unlimited and larger facet limits are set to the max. limit.</li>
+ *     <li>{@link Rule#LeadingWildcard}: the leading wildcards of the search terms are removed.</li>
+ * </ul>
+ * The other rules cannot be clamped.
+ *
+ * @since 2.4.0
+ */
+public class QueryGuard {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryGuard.class);
+
+    /**
+     * Facet buckets assumed for a facet without limit.
+     */
+    static final long UNLIMITED_FACET_BUCKETS = 100000;
+
+    private static final Pattern LEADING_WILDCARD = Pattern.compile("(^|[\\s(+\\-])[*?]+(?=[^\\s*?:)])");
+
+    private static final Set<Rule> CLAMPABLE = EnumSet.of(Rule.Offset, Rule.FacetLimit, Rule.LeadingWildcard);
+
+    public enum Rule {
+        /** Offset of the first result. */
+        Offset,
+        /** Number of terms returned by a facet. */
+        FacetLimit,
+        /** Number of terms of all filters. */
+        FilterTerms,
+        /** Number of children searches, inline children included. */
+        ChildrenSearches,
+        /** Number of search terms starting with a wildcard. */
+        LeadingWildcard,
+        /** Estimated {@link QueryCost#getTotal()}. */
+        Cost
+    }
+
+    public enum Policy {
+        Allow, Clamp, Reject
+    }
+
+    private final Map<Rule, Long> limits = Collections.synchronizedMap(new EnumMap<>(Rule.class));
+    private final Map<Rule, Policy> policies = Collections.synchronizedMap(new EnumMap<>(Rule.class));
+
+    /**
+     * Creates a guard rejecting offsets above 10000, more than 1024 filter terms and more than 10 children searches,
+     * and clamping facet limits to 1000 and removing leading wildcards. The cost is not limited.
+     */
+    public QueryGuard() {
+        configure(Rule.Offset, 10000, Policy.Reject);
+        configure(Rule.FacetLimit, 1000, Policy.Clamp);
+        configure(Rule.FilterTerms, 1024, Policy.Reject);
+        configure(Rule.ChildrenSearches, 10, Policy.Reject);
+        configure(Rule.LeadingWildcard, 0, Policy.Clamp);
+        configure(Rule.Cost, Long.MAX_VALUE, Policy.Allow);
+    }
+
+    /**
+     * Creates a guard configured with the SearchConfiguration parameters <code>search.guard.*</code>, falling back to
+     * the defaults of {@link #QueryGuard()}.
+     */
+    public static QueryGuard fromConfiguration() {
+        final QueryGuard guard = new QueryGuard();
+        configure(guard, Rule.Offset, SearchConfiguration.SEARCH_GUARD_OFFSET_MAX, SearchConfiguration.SEARCH_GUARD_OFFSET_POLICY);
+        configure(guard, Rule.FacetLimit, SearchConfiguration.SEARCH_GUARD_FACET_LIMIT_MAX, SearchConfiguration.SEARCH_GUARD_FACET_LIMIT_POLICY);
+        configure(guard, Rule.FilterTerms, SearchConfiguration.SEARCH_GUARD_FILTER_TERMS_MAX, SearchConfiguration.SEARCH_GUARD_FILTER_TERMS_POLICY);
+        configure(guard, Rule.ChildrenSearches, SearchConfiguration.SEARCH_GUARD_CHILDREN_MAX, SearchConfiguration.SEARCH_GUARD_CHILDREN_POLICY);
+        configure(guard, Rule.LeadingWildcard, SearchConfiguration.SEARCH_GUARD_WILDCARD_MAX, SearchConfiguration.SEARCH_GUARD_WILDCARD_POLICY);
+        configure(guard, Rule.Cost, SearchConfiguration.SEARCH_GUARD_COST_MAX, null);
+        return guard;
+    }
+
+    private static void configure(QueryGuard guard, Rule rule, String limitKey, String policyKey) {
+        final String limit = SearchConfiguration.get(limitKey);
+        if (Objects.nonNull(limit)) {
+            guard.setLimit(rule, Long.parseLong(limit.trim()));
+            if (rule == Rule.Cost) {
+                guard.setPolicy(rule, Policy.Reject);
+            }
+        }
+        final String policy = policyKey != null ? SearchConfiguration.get(policyKey) : null;
+        if (Objects.nonNull(policy)) {
+            try {
+                guard.setPolicy(rule, Policy.valueOf(policy.trim().substring(0, 1).toUpperCase() + policy.trim().substring(1).toLowerCase()));
+            } catch (IllegalArgumentException e) {
+                log.error("Invalid guard policy '{}' for {}: use allow, clamp or reject", policy, rule);
+                throw new IllegalArgumentException("Invalid guard policy '" + policy + "' for " + rule, e);
+            }
+        }
+    }
+
+    private void configure(Rule rule, long limit, Policy policy) {
+        limits.put(rule, limit);
+        policies.put(rule, policy);
+    }
+
+    /**
+     * Changes the limit of a rule.
+     * @param rule {@link Rule} to be changed.
+     * @param limit max. allowed value.
+     * @return this {@link QueryGuard}.
+     */
+    public QueryGuard setLimit(Rule rule, long limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must not be negative");
+        }
+        limits.put(rule, limit);
+        return this;
+    }
+
+    public long getLimit(Rule rule) {
+        return limits.get(rule);
+    }
+
+    /**
+     * Changes the policy of a rule.
+     * @param rule {@link Rule} to be changed.
+     * @param policy {@link Policy} applied to searches exceeding the limit.
+     * @return this {@link QueryGuard}.
+     */
+    public QueryGuard setPolicy(Rule rule, Policy policy) {
+        if (policy == Policy.Clamp && !CLAMPABLE.contains(rule)) {
+            throw new IllegalArgumentException("Rule " + rule + " cannot be clamped");
+        }
+        policies.put(rule, Objects.requireNonNull(policy));
+        return this;
+    }
+
+    public Policy getPolicy(Rule rule) {
+        return policies.get(rule);
+    }
+
+    /**
+     * Estimates the cost of a search.
+     * @param search {@link FulltextSearch} to be estimated.
+     * @return the {@link QueryCost}.
+     */
+    public QueryCost estimate(FulltextSearch search) {
+        final ResultSubset resultSet = search.getResultSet();
+        final long offset = getOffset(resultSet);
+        final long rows = resultSet instanceof Page ? ((Page) resultSet).getPagesize() : ((Slice) resultSet).getSliceSize();
+
+        long facetBuckets = 0;
+        for (Facet facet : search.getFacets().values()) {
+            facetBuckets += countBuckets(facet, search.getFacetLimit());
+        }
+
+        long filterTerms = countFilterTerms(search);
+        int leadingWildcards = countLeadingWildcards(search.getSearchString());
+        int childrenSearches = search.hasInlineChildren() ? 1 : 0;
+        if (search.isChildrenSearchEnabled()) {
+            for (FulltextSearch childrenSearch : search.getChildrenSearches()) {
+                childrenSearches++;
+                filterTerms += countFilterTerms(childrenSearch);
+                leadingWildcards += countLeadingWildcards(childrenSearch.getSearchString());
+            }
+        }
+        return new QueryCost(offset, rows, facetBuckets, filterTerms, childrenSearches, leadingWildcards);
+    }
+
+    /**
+     * Checks a search against all rules.
+     * @param search {@link FulltextSearch} to be checked.
+     * @return the {@link Result} with the search to be executed, which is a clamped copy if a rule has been clamped.
+     * @throws QueryRejectedException if a rule with {@link Policy#Reject} has been violated.
+     */
+    public Result check(FulltextSearch search) {
+        final QueryCost cost = estimate(search);
+        final List<Rule> clamped = new ArrayList<>();
+
+        check(Rule.Offset, cost.getOffset(), clamped);
+        check(Rule.FacetLimit, getMaxFacetLimit(search), clamped);
+        check(Rule.FilterTerms, cost.getFilterTerms(), clamped);
+        check(Rule.ChildrenSearches, cost.getChildrenSearches(), clamped);
+        check(Rule.LeadingWildcard, cost.getLeadingWildcards(), clamped);
+
+        if (clamped.isEmpty()) {
+            check(Rule.Cost, cost.getTotal(), clamped);
+            return new Result(search, cost, clamped);
+        }
+
+        final FulltextSearch copy = search.copy();
+        for (Rule rule : clamped) {
+            clamp(rule, copy);
+        }
+        final QueryCost clampedCost = estimate(copy);
+        check(Rule.Cost, clampedCost.getTotal(), clamped);
+        return new Result(copy, clampedCost, clamped);
+    }
+
+    private void check(Rule rule, long value, List<Rule> clamped) {
+        final long limit = getLimit(rule);
+        if (value <= limit) {
+            return;
+        }
+        switch (getPolicy(rule)) {
+            case Clamp:
+                log.debug("Clamping search, {} of {} exceeds the limit of {}", rule, value, limit);
+                clamped.add(rule);
+                break;
+            case Reject:
+                log.debug("Rejecting search, {} of {} exceeds the limit of {}", rule, value, limit);
+                throw new QueryRejectedException(rule, "Search rejected: " + rule + " of " + value + " exceeds the limit of " + limit);
+            default:
+                break;
+        }
+    }
+
+    private void clamp(Rule rule, FulltextSearch search) {
+        switch (rule) {
+            case Offset: {
+                final int maxOffset = (int) Math.min(Integer.MAX_VALUE, getLimit(Rule.Offset));
+                final ResultSubset resultSet = search.getResultSet();
+                if (resultSet instanceof Page) {
+                    final int pagesize = ((Page) resultSet).getPagesize();
+                    search.page(pagesize > 0 ? maxOffset / pagesize + 1 : 1, pagesize);
+                } else {
+                    search.slice(maxOffset, ((Slice) resultSet).getSliceSize());
+                }
+                break;
+            }
+            case FacetLimit: {
+                final int maxLimit = (int) Math.min(Integer.MAX_VALUE, getLimit(Rule.FacetLimit));
+                if (exceeds(search.getFacetLimit(), maxLimit)) {
+                    search.setFacetLimit(maxLimit);
+                }
+                search.getFacets().values().forEach(facet -> clampFacetLimit(facet, maxLimit));
+                break;
+            }
+            case LeadingWildcard: {
+                search.text(removeLeadingWildcards(search.getSearchString()));
+                if (search.isChildrenSearchEnabled()) {
+                    search.getChildrenSearches().forEach(s -> s.text(removeLeadingWildcards(s.getSearchString())));
+                }
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Rule " + rule + " cannot be clamped");
+        }
+    }
+
+    private static void clampFacetLimit(Facet facet, int maxLimit) {
+        if (facet instanceof Facet.TermFacet) {
+            final TermFacetOption option = ((Facet.TermFacet<?>) facet).getOption();
+            if (Objects.nonNull(option) && Objects.nonNull(option.getLimit()) && exceeds(option.getLimit(), maxLimit)) {
+                option.setLimit(maxLimit);
+            }
+        }
+        facet.getSubFacets().values().forEach(subFacet -> clampFacetLimit(subFacet, maxLimit));
+    }
+
+    private static boolean exceeds(int facetLimit, long maxLimit) {
+        return facetLimit < 0 || facetLimit > maxLimit;
+    }
+
+    private static long getOffset(ResultSubset resultSet) {
+        return resultSet instanceof Page ? (long) (((Page) resultSet).getPage() - 1) * ((Page) resultSet).getPagesize()
+                : ((Slice) resultSet).getOffset();
+    }
+
+    private static long getMaxFacetLimit(FulltextSearch search) {
+        long max = 0;
+        for (Facet facet : search.getFacets().values()) {
+            max = Math.max(max, getMaxFacetLimit(facet, search.getFacetLimit()));
+        }
+        return max;
+    }
+
+    private static long getMaxFacetLimit(Facet facet, int defaultLimit) {
+        long max = 0;
+        if (facet instanceof Facet.TermFacet || facet instanceof Facet.PivotFacet) {
+            max = toBuckets(getFacetLimit(facet, defaultLimit));
+        }
+        for (Facet subFacet : facet.getSubFacets().values()) {
+            max = Math.max(max, getMaxFacetLimit(subFacet, defaultLimit));
+        }
+        return max;
+    }
+
+    private static int getFacetLimit(Facet facet, int defaultLimit) {
+        if (facet instanceof Facet.TermFacet) {
+            final TermFacetOption option = ((Facet.TermFacet<?>) facet).getOption();
+            if (Objects.nonNull(option) && Objects.nonNull(option.getLimit())) {
+                return option.getLimit();
+            }
+        }
+        return defaultLimit;
+    }
+
+    private static long toBuckets(int facetLimit) {
+        return facetLimit < 0 ? UNLIMITED_FACET_BUCKETS : facetLimit;
+    }
+
+    private static long countBuckets(Facet facet, int defaultLimit) {
+        final long buckets;
+        if (facet instanceof Facet.TermFacet) {
+            buckets = toBuckets(getFacetLimit(facet, defaultLimit));
+        } else if (facet instanceof Facet.PivotFacet) {
+            final long limit = toBuckets(defaultLimit);
+            buckets = (long) Math.min(Long.MAX_VALUE / 2, Math.pow(limit, ((Facet.PivotFacet) facet).getFieldDescriptors().size()));
+        } else {
+            buckets = 1;
+        }
+        long subBuckets = 0;
+        for (Facet subFacet : facet.getSubFacets().values()) {
+            subBuckets += countBuckets(subFacet, defaultLimit);
+        }
+        return buckets + Math.min(Long.MAX_VALUE / 2, buckets * subBuckets);
+    }
+
+    private static long countFilterTerms(FulltextSearch search) {
+        long terms = 0;
+        if (search.hasFilter()) {
+            terms += countFilterTerms(search.getFilter());
+        }
+        for (Filter filter : search.getTaggedFilters().values()) {
+            terms += countFilterTerms(filter);
+        }
+        if (Objects.nonNull(search.getInlineChildrenFilter())) {
+            terms += countFilterTerms(search.getInlineChildrenFilter());
+        }
+        return terms;
+    }
+
+    private static long countFilterTerms(Filter filter) {
+        if (filter instanceof Filter.AndFilter) {
+            return countFilterTerms(((Filter.AndFilter) filter).getChildren());
+        } else if (filter instanceof Filter.OrFilter) {
+            return countFilterTerms(((Filter.OrFilter) filter).getChildren());
+        } else if (filter instanceof Filter.NotFilter) {
+            return countFilterTerms(((Filter.NotFilter) filter).getDelegate());
+        } else if (filter instanceof Filter.TermsQueryFilter) {
+            return ((Filter.TermsQueryFilter<?>) filter).getTerm().size();
+        }
+        return 1;
+    }
+
+    private static long countFilterTerms(Collection<Filter> filters) {
+        long terms = 0;
+        for (Filter filter : filters) {
+            terms += countFilterTerms(filter);
+        }
+        return terms;
+    }
+
+    static int countLeadingWildcards(String text) {
+        if (Objects.isNull(text)) {
+            return 0;
+        }
+        int count = 0;
+        final Matcher matcher = LEADING_WILDCARD.matcher(text);
+        while (matcher.find()) {
+            count++;
+        }
+        return count;
+    }
+
+    static String removeLeadingWildcards(String text) {
+        return Objects.isNull(text) ? null : LEADING_WILDCARD.matcher(text).replaceAll("$1");
+    }
+
+    /**
+     * Result of a successful check.
+     */
+    public static class Result {
+
+        private final FulltextSearch search;
+        private final QueryCost cost;
+        private final List<Rule> clamped;
+
+        private Result(FulltextSearch search, QueryCost cost, List<Rule> clamped) {
+            this.search = search;
+            this.cost = cost;
+            this.clamped = Collections.unmodifiableList(clamped);
+        }
+
+        /**
+         * @return the search to be executed, the checked search or a clamped copy of it.
+         */
+        public FulltextSearch getSearch() {
+            return search;
+        }
+
+        /**
+         * @return the {@link QueryCost} of the search to be executed.
+         */
+        public QueryCost getCost() {
+            return cost;
+        }
+
+        /**
+         * @return the rules clamped.
+         */
+        public List<Rule> getClamped() {
+            return clamped;
+        }
+
+        public boolean isClamped() {
+            return !clamped.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.rbmhtechnology.vind.api.guard;
+
+import com.rbmhtechnology.vind.SearchServerException;
+
+/**
+ * Thrown if a search is not sent to the backend, because it violates a guardrail of the {@link QueryGuard}. Unlike
+ * an overloaded backend, retrying the same search will fail again.
+ *
+ * @since 2.4.0
+ */
+public class QueryRejectedException extends SearchServerException {
+
+    private final QueryGuard.Rule rule;
+
+    public QueryRejectedException(QueryGuard.Rule rule, String m) {
+        super(m);
+        this.rule = rule;
+    }
+
+    /**
+     * @return the violated {@link QueryGuard.Rule}.
+     */
+    public QueryGuard.Rule getRule() {
+        return rule;
+    }
+}
@@ -0,0 +1,214 @@
+package com.rbmhtechnology.vind.api.limit;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of concurrent requests to a limit adapted by a {@link LimitAlgorithm} on every completed request.
+ * Requests exceeding the limit wait up to the configured time for a free slot and are rejected afterwards, so a slow
+ * backend sheds load instead of piling up waiting threads.
+ *
+ * @since 2.4.0
+ */
+public class AdaptiveLimiter {
+
+    private static final double LATENCY_WEIGHT = 0.2;
+
+    private final LimitAlgorithm algorithm;
+    private final long maxWaitNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    private int limit;
+    private int inflight;
+    private double latency;
+    private long lastSampleNanos;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public AdaptiveLimiter(LimitAlgorithm algorithm, long maxWait, TimeUnit unit) {
+        this.algorithm = algorithm;
+        this.maxWaitNanos = unit.toNanos(maxWait);
+        this.limit = algorithm.getInitialLimit();
+    }
+
+    /**
+     * Acquires a slot, waiting up to the configured time if the limit is reached.
+     * @return the {@link Permit} to be released when the request is completed, or empty if the request is rejected.
+     */
+    public Optional<Permit> acquire() {
+        lock.lock();
+        try {
+            long remaining = maxWaitNanos;
+            while (inflight >= limit) {
+                if (remaining <= 0) {
+                    rejected.incrementAndGet();
+                    return Optional.empty();
+                }
+                remaining = released.awaitNanos(remaining);
+            }
+            inflight++;
+            accepted.incrementAndGet();
+            return Optional.of(new Permit(System.nanoTime()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejected.incrementAndGet();
+            return Optional.empty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Acquires a slot if one is free, without waiting. A failed attempt is not counted as rejected, so the caller may
+     * still wait for a slot with {@link #acquire()}, e.g. on another thread.
+     * @return the {@link Permit} to be released when the request is completed, or empty if the limit is reached.
+     */
+    public Optional<Permit> tryAcquire() {
+        lock.lock();
+        try {
+            if (inflight >= limit) {
+                return Optional.empty();
+            }
+            inflight++;
+            accepted.incrementAndGet();
+            return Optional.of(new Permit(System.nanoTime()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(long startNanos, boolean dropped, boolean sample) {
+        final long rtt = System.nanoTime() - startNanos;
+        lock.lock();
+        try {
+            if (sample) {
+                limit = algorithm.update(limit, rtt, inflight, dropped);
+                if (!dropped) {
+                    final double millis = rtt / 1_000_000d;
+                    latency = latency == 0 ? millis : LATENCY_WEIGHT * millis + (1 - LATENCY_WEIGHT) * latency;
+                    lastSampleNanos = System.nanoTime();
+                }
+            }
+            inflight--;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInflight() {
+        lock.lock();
+        try {
+            return inflight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the moving average of the latency of the successful requests in milliseconds.
+     */
+    public double getLatency() {
+        lock.lock();
+        try {
+            return latency;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param maxAge max. time since the last successful request.
+     * @param unit {@link TimeUnit} of the max. age.
+     * @return the moving average of the latency of the successful requests in milliseconds, or 0 if no request has
+     * completed successfully within the max. age, so that a past spike is not reported while there is no traffic.
+     */
+    public double getLatency(long maxAge, TimeUnit unit) {
+        lock.lock();
+        try {
+            if (latency == 0 || System.nanoTime() - lastSampleNanos > unit.toNanos(maxAge)) {
+                return 0;
+            }
+            return latency;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getAcceptedCount() {
+        return accepted.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveLimiter{" +
+                "limit=" + getLimit() +
+                ", inflight=" + getInflight() +
+                ", accepted=" + accepted +
+                ", rejected=" + rejected +
+                '}';
+    }
+
+    /**
+     * Slot of an accepted request. Releasing it more than once has no effect.
+     */
+    public class Permit {
+
+        private final long startNanos;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * Releases the slot after the request has been completed successfully.
+         */
+        public void success() {
+            if (released.compareAndSet(false, true)) {
+                release(startNanos, false, true);
+            }
+        }
+
+        /**
+         * Releases the slot after the request has failed.
+         */
+        public void dropped() {
+            if (released.compareAndSet(false, true)) {
+                release(startNanos, true, true);
+            }
+        }
+
+        /**
+         * Releases the slot of a request that has not been sent, e.g. because it was rejected by an open
+         * {@link CircuitBreaker}. The request is counted as rejected and does not change the limit.
+         */
+        public void reject() {
+            if (released.compareAndSet(false, true)) {
+                accepted.decrementAndGet();
+                rejected.incrementAndGet();
+                release(startNanos, false, false);
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.rbmhtechnology.vind.api.limit;
+
+import com.google.common.util.concurrent.RateLimiter;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Slows down bulk writes, so that they do not affect the latency of interactive requests. Writes are limited to a rate
+ * of documents per second and are paused while the observed latency of the interactive searches is above a threshold.
+ * A single write is paused at most for the configured time, so bulk traffic does not stall if there are no searches
+ * updating the latency.
+ *
+ * @since 2.4.0
+ */
+public class BulkThrottle {
+
+    private static final long PAUSE_MILLIS = 50;
+
+    private final DoubleSupplier interactiveLatency;
+    private final long maxPauseMillis;
+
+    private volatile RateLimiter rateLimiter;
+    private volatile double maxLatency;
+
+    private final AtomicLong pauses = new AtomicLong();
+
+    /**
+     * @param rate max. documents per second, 0 for no limit.
+     * @param interactiveLatency supplier of the current latency of interactive requests in milliseconds.
+     * @param maxLatency latency in milliseconds above which the bulk writes are paused, 0 to disable.
+     * @param maxPause max. time a single write is paused.
+     * @param unit {@link TimeUnit} of the max. pause.
+     */
+    public BulkThrottle(double rate, DoubleSupplier interactiveLatency, double maxLatency, long maxPause, TimeUnit unit) {
+        this.interactiveLatency = Objects.requireNonNull(interactiveLatency);
+        this.maxPauseMillis = unit.toMillis(maxPause);
+        setRate(rate);
+        setMaxLatency(maxLatency);
+    }
+
+    /**
+     * Creates a throttle not limiting the writes.
+     */
+    public static BulkThrottle unlimited() {
+        return new BulkThrottle(0, () -> 0, 0, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Changes the max. documents per second, 0 for no limit.
+     */
+    public synchronized void setRate(double rate) {
+        if (rate < 0) {
+            throw new IllegalArgumentException("Rate must not be negative");
+        }
+        if (rate == 0) {
+            this.rateLimiter = null;
+        } else if (this.rateLimiter == null) {
+            this.rateLimiter = RateLimiter.create(rate);
+        } else {
+            this.rateLimiter.setRate(rate);
+        }
+    }
+
+    public double getRate() {
+        final RateLimiter limiter = this.rateLimiter;
+        return limiter != null ? limiter.getRate() : 0;
+    }
+
+    /**
+     * Changes the interactive latency in milliseconds above which the bulk writes are paused, 0 to disable.
+     */
+    public void setMaxLatency(double maxLatency) {
+        if (maxLatency < 0) {
+            throw new IllegalArgumentException("Latency must not be negative");
+        }
+        this.maxLatency = maxLatency;
+    }
+
+    public double getMaxLatency() {
+        return maxLatency;
+    }
+
+    /**
+     * Blocks until the given number of documents may be written.
+     * @param documents number of documents to be written.
+     */
+    public void acquire(int documents) {
+        final RateLimiter limiter = this.rateLimiter;
+        if (limiter != null && documents > 0) {
+            limiter.acquire(documents);
+        }
+
+        final double threshold = this.maxLatency;
+        if (threshold > 0 && interactiveLatency.getAsDouble() > threshold) {
+            pauses.incrementAndGet();
+            final long deadline = System.currentTimeMillis() + maxPauseMillis;
+            while (interactiveLatency.getAsDouble() > threshold && System.currentTimeMillis() < deadline) {
+                try {
+                    Thread.sleep(Math.min(PAUSE_MILLIS, maxPauseMillis));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of writes paused because of the interactive latency.
+     */
+    public long getPauseCount() {
+        return pauses.get();
+    }
+
+    @Override
+    public String toString() {
+        return "BulkThrottle{" +
+                "rate=" + getRate() +
+                ", maxLatency=" + maxLatency +
+                ", pauses=" + pauses +
+                '}';
+    }
+}
@@ -0,0 +1,92 @@
+package com.rbmhtechnology.vind.api.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Stops sending requests to a failing backend. After the configured number of consecutive failures the circuit opens
+ * and all requests are rejected immediately. Once the open duration has passed a single probe request is let through:
+ * if it succeeds the circuit closes again, otherwise it stays open for another period.
+ *
+ * @since 2.4.0
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        Closed, Open, HalfOpen
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier clock;
+
+    private State state = State.Closed;
+    private int failures;
+    private long openedAt;
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    public CircuitBreaker(int failureThreshold, long openDuration, TimeUnit unit) {
+        this(failureThreshold, openDuration, unit, System::nanoTime);
+    }
+
+    CircuitBreaker(int failureThreshold, long openDuration, TimeUnit unit, LongSupplier clock) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("Failure threshold must be at least 1");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openNanos = unit.toNanos(openDuration);
+        this.clock = clock;
+    }
+
+    /**
+     * @return true if the request may be sent to the backend, false if it has to be rejected.
+     */
+    public synchronized boolean allowRequest() {
+        switch (state) {
+            case Closed:
+                return true;
+            case Open:
+                if (clock.getAsLong() - openedAt >= openNanos) {
+                    state = State.HalfOpen;
+                    return true;
+                }
+                break;
+            case HalfOpen:
+                //only the single probe request is let through
+                break;
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    public synchronized void onSuccess() {
+        failures = 0;
+        state = State.Closed;
+    }
+
+    public synchronized void onFailure() {
+        failures++;
+        if (state == State.HalfOpen || failures >= failureThreshold) {
+            state = State.Open;
+            openedAt = clock.getAsLong();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    @Override
+    public String toString() {
+        return "CircuitBreaker{" +
+                "state=" + getState() +
+                ", rejected=" + rejected +
+                '}';
+    }
+}
@@ -0,0 +1,56 @@
+package com.rbmhtechnology.vind.api.limit;
+
+/**
+ * Gradient based limit: compares the latency of each request with the long term average latency. While the latency is
+ * stable the limit grows by a small queue allowance, rising latencies shrink it proportionally, as they indicate
+ * requests queueing up in the backend. Failed requests are counted as twice the average latency.
+ *
+ * @since 2.4.0
+ */
+public class GradientLimit implements LimitAlgorithm {
+
+    private static final double SMOOTHING = 0.2;
+    private static final double LONG_TERM_WINDOW = 100;
+
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+
+    private double estimatedLimit;
+    private double longRtt = -1;
+
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max");
+        }
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.estimatedLimit = initialLimit;
+    }
+
+    @Override
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    @Override
+    public int update(int limit, long rttNanos, int inflight, boolean dropped) {
+        if (longRtt < 0) {
+            longRtt = rttNanos;
+        }
+        final double rtt = dropped ? longRtt * 2 : Math.max(1, rttNanos);
+        longRtt += (rtt - longRtt) / LONG_TERM_WINDOW;
+
+        //the limit is not increased as long as it is not used
+        if (!dropped && inflight * 2 < estimatedLimit) {
+            return limit;
+        }
+
+        final double gradient = Math.max(0.5, Math.min(1.0, longRtt / rtt));
+        final double queueSize = Math.sqrt(estimatedLimit);
+        final double newLimit = estimatedLimit * gradient + queueSize;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, (1 - SMOOTHING) * estimatedLimit + SMOOTHING * newLimit));
+        return (int) estimatedLimit;
+    }
+}
@@ -0,0 +1,49 @@
+package com.rbmhtechnology.vind.api.limit;
+
+import com.rbmhtechnology.vind.configure.SearchConfiguration;
+
+/**
+ * Algorithm computing the concurrency limit of an {@link AdaptiveLimiter} from the observed request latencies.
+ * Implementations may keep state between samples and are always called while holding the lock of the limiter.
+ *
+ * @since 2.4.0
+ */
+public interface LimitAlgorithm {
+
+    String AIMD = "aimd";
+    String GRADIENT = "gradient";
+
+    /**
+     * @return the limit to start with.
+     */
+    int getInitialLimit();
+
+    /**
+     * Computes the new limit after a request has been completed.
+     * @param limit the current limit.
+     * @param rttNanos the latency of the request in nanoseconds.
+     * @param inflight the number of requests in flight when the request was completed, including itself.
+     * @param dropped true if the request failed, e.g. because the backend timed out.
+     * @return the new limit.
+     */
+    int update(int limit, long rttNanos, int inflight, boolean dropped);
+
+    /**
+     * Creates the algorithm configured by {@link SearchConfiguration#SERVER_LIMIT_ALGORITHM}, {@link AimdLimit} by
+     * default.
+     */
+    static LimitAlgorithm fromConfiguration() {
+        final int initial = SearchConfiguration.get(SearchConfiguration.SERVER_LIMIT_INITIAL, 20);
+        final int min = SearchConfiguration.get(SearchConfiguration.SERVER_LIMIT_MIN, 1);
+        final int max = SearchConfiguration.get(SearchConfiguration.SERVER_LIMIT_MAX, 200);
+        final String algorithm = SearchConfiguration.get(SearchConfiguration.SERVER_LIMIT_ALGORITHM, AIMD);
+        switch (algorithm) {
+            case AIMD:
+                return new AimdLimit(initial, min, max);
+            case GRADIENT:
+                return new GradientLimit(initial, min, max);
+            default:
+                throw new IllegalArgumentException("Unknown limit algorithm '" + algorithm + "'");
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.rbmhtechnology.vind.api.limit;
+
+import com.rbmhtechnology.vind.SearchServerException;
+
+/**
+ * Thrown if a request is not sent to the backend, because the concurrency limit is exhausted or the circuit breaker
+ * is open. The request may be retried later.
+ *
+ * @since 2.4.0
+ */
+public class RejectedRequestException extends SearchServerException {
+
+    public RejectedRequestException(String m) {
+        super(m);
+    }
+}
@@ -0,0 +1,90 @@
+package com.rbmhtechnology.vind.api.metrics;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link SearchMetrics} keeping histograms and counters in memory, to be read with {@link #snapshot()}. Latencies are
+ * recorded in microseconds.
+ *
+ * @since 2.4.0
+ */
+public class InMemorySearchMetrics implements SearchMetrics {
+
+    private final Map<MetricsSnapshot.Key, Histogram> latencies = new ConcurrentHashMap<>();
+    private final Map<MetricsSnapshot.Key, Histogram> payloads = new ConcurrentHashMap<>();
+    private final Map<MetricsSnapshot.Key, Histogram> results = new ConcurrentHashMap<>();
+    private final Map<MetricsSnapshot.Key, LongAdder> cacheHits = new ConcurrentHashMap<>();
+    private final Map<MetricsSnapshot.Key, LongAdder> cacheMisses = new ConcurrentHashMap<>();
+    private final Map<MetricsSnapshot.Key, LongAdder> errors = new ConcurrentHashMap<>();
+    private final Map<MetricsSnapshot.Key, LongAdder> interventions = new ConcurrentHashMap<>();
+
+    @Override
+    public void recordLatency(Operation operation, Phase phase, String type, long nanos) {
+        latencies.computeIfAbsent(new MetricsSnapshot.Key(operation, type, phase.name()), k -> new Histogram())
+                .record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    @Override
+    public void recordPayload(Operation operation, String type, long bytes) {
+        payloads.computeIfAbsent(new MetricsSnapshot.Key(operation, type, null), k -> new Histogram()).record(bytes);
+    }
+
+    @Override
+    public void recordResults(Operation operation, String type, long count) {
+        results.computeIfAbsent(new MetricsSnapshot.Key(operation, type, null), k -> new Histogram()).record(count);
+    }
+
+    @Override
+    public void recordCache(Operation operation, String type, String cache, boolean hit) {
+        (hit ? cacheHits : cacheMisses).computeIfAbsent(new MetricsSnapshot.Key(operation, type, cache), k -> new LongAdder())
+                .increment();
+    }
+
+    @Override
+    public void recordError(Operation operation, String type, Throwable error) {
+        errors.computeIfAbsent(new MetricsSnapshot.Key(operation, type, error.getClass().getName()), k -> new LongAdder())
+                .increment();
+    }
+
+    @Override
+    public void recordIntervention(Operation operation, String type, String rule, String action) {
+        interventions.computeIfAbsent(new MetricsSnapshot.Key(operation, type, rule + "." + action), k -> new LongAdder())
+                .increment();
+    }
+
+    /**
+     * @return a copy of the current values.
+     */
+    public MetricsSnapshot snapshot() {
+        return new MetricsSnapshot(
+                MetricsSnapshot.copy(latencies, Histogram::snapshot),
+                MetricsSnapshot.copy(payloads, Histogram::snapshot),
+                MetricsSnapshot.copy(results, Histogram::snapshot),
+                MetricsSnapshot.copy(cacheHits, LongAdder::sum),
+                MetricsSnapshot.copy(cacheMisses, LongAdder::sum),
+                MetricsSnapshot.copy(errors, LongAdder::sum),
+                MetricsSnapshot.copy(interventions, LongAdder::sum));
+    }
+
+    /**
+     * Removes all recorded values.
+     */
+    public void reset() {
+        latencies.clear();
+        payloads.clear();
+        results.clear();
+        cacheHits.clear();
+        cacheMisses.clear();
+        errors.clear();
+        interventions.clear();
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toString(snapshot());
+    }
+}
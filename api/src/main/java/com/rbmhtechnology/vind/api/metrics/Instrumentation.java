@@ -0,0 +1,97 @@
+package com.rbmhtechnology.vind.api.metrics;
+
+import java.util.function.Supplier;
+
+/**
+ * Bridge between the {@link com.rbmhtechnology.vind.api.InstrumentedSearchServer} and the backends: while an operation
+ * is instrumented, the measurements of the backend on the calling thread are passed to its {@link SearchMetrics},
+ * tagged with the operation and document type. Without an instrumented operation all methods are no-ops.
+ * <p>
+ * Work done on other threads, e.g. by the non-blocking backend requests, is not attributed to a phase.
+ *
+ * @since 2.4.0
+ */
+public final class Instrumentation {
+
+    private static final ThreadLocal<Context> CURRENT = new ThreadLocal<>();
+
+    private Instrumentation() {
+    }
+
+    /**
+     * Starts recording the measurements of the current thread for an operation.
+     * @return the {@link Context} to be closed when the operation is done.
+     */
+    public static Context begin(SearchMetrics metrics, Operation operation, String type) {
+        final Context context = new Context(metrics, operation, type, CURRENT.get());
+        CURRENT.set(context);
+        return context;
+    }
+
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    public static void recordPhase(Phase phase, long nanos) {
+        final Context context = CURRENT.get();
+        if (context != null) {
+            context.metrics.recordLatency(context.operation, phase, context.type, nanos);
+        }
+    }
+
+    public static void recordPayload(long bytes) {
+        final Context context = CURRENT.get();
+        if (context != null) {
+            context.metrics.recordPayload(context.operation, context.type, bytes);
+        }
+    }
+
+    public static void recordCache(String cache, boolean hit) {
+        final Context context = CURRENT.get();
+        if (context != null) {
+            context.metrics.recordCache(context.operation, context.type, cache, hit);
+        }
+    }
+
+    /**
+     * Runs the call and records its latency as the given phase.
+     */
+    public static <T> T time(Phase phase, Supplier<T> call) {
+        if (!isActive()) {
+            return call.get();
+        }
+        final long start = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            recordPhase(phase, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Instrumented operation of the current thread.
+     */
+    public static class Context implements AutoCloseable {
+
+        private final SearchMetrics metrics;
+        private final Operation operation;
+        private final String type;
+        private final Context previous;
+
+        private Context(SearchMetrics metrics, Operation operation, String type, Context previous) {
+            this.metrics = metrics;
+            this.operation = operation;
+            this.type = type;
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.rbmhtechnology.vind.api.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Immutable copy of the values of an {@link InMemorySearchMetrics}. Besides the typed getters, {@link #toMap()}
+ * exports all values as flat, sorted key value pairs, e.g. <code>latency.Search.asset.Total.p99</code>.
+ *
+ * @since 2.4.0
+ */
+public class MetricsSnapshot {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final Map<Key, Histogram.Snapshot> latencies;
+    private final Map<Key, Histogram.Snapshot> payloads;
+    private final Map<Key, Histogram.Snapshot> results;
+    private final Map<Key, Long> cacheHits;
+    private final Map<Key, Long> cacheMisses;
+    private final Map<Key, Long> errors;
+    private final Map<Key, Long> interventions;
+
+    MetricsSnapshot(Map<Key, Histogram.Snapshot> latencies, Map<Key, Histogram.Snapshot> payloads,
+                    Map<Key, Histogram.Snapshot> results, Map<Key, Long> cacheHits, Map<Key, Long> cacheMisses,
+                    Map<Key, Long> errors, Map<Key, Long> interventions) {
+        this.latencies = latencies;
+        this.payloads = payloads;
+        this.results = results;
+        this.cacheHits = cacheHits;
+        this.cacheMisses = cacheMisses;
+        this.errors = errors;
+        this.interventions = interventions;
+    }
+
+    static <V, S> Map<Key, S> copy(Map<Key, V> values, Function<V, S> snapshot) {
+        final Map<Key, S> copy = new LinkedHashMap<>();
+        values.forEach((key, value) -> copy.put(key, snapshot.apply(value)));
+        return Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * @return the latencies in microseconds, or null if nothing has been recorded.
+     */
+    public Histogram.Snapshot getLatency(Operation operation, Phase phase, String type) {
+        return latencies.get(new Key(operation, type, phase.name()));
+    }
+
+    /**
+     * @return the response sizes in bytes, or null if nothing has been recorded.
+     */
+    public Histogram.Snapshot getPayload(Operation operation, String type) {
+        return payloads.get(new Key(operation, type, null));
+    }
+
+    /**
+     * @return the result counts, or null if nothing has been recorded.
+     */
+    public Histogram.Snapshot getResults(Operation operation, String type) {
+        return results.get(new Key(operation, type, null));
+    }
+
+    public long getCacheHits(Operation operation, String type, String cache) {
+        return cacheHits.getOrDefault(new Key(operation, type, cache), 0L);
+    }
+
+    public long getCacheMisses(Operation operation, String type, String cache) {
+        return cacheMisses.getOrDefault(new Key(operation, type, cache), 0L);
+    }
+
+    public long getErrors(Operation operation, String type, Class<? extends Throwable> error) {
+        return errors.getOrDefault(new Key(operation, type, error.getName()), 0L);
+    }
+
+    /**
+     * @return the number of queries changed or rejected by the given guardrail rule and action.
+     */
+    public long getInterventions(Operation operation, String type, String rule, String action) {
+        return interventions.getOrDefault(new Key(operation, type, rule + "." + action), 0L);
+    }
+
+    /**
+     * @return all values as flat key value pairs, sorted by key.
+     */
+    public Map<String, Number> toMap() {
+        final Map<String, Number> map = new TreeMap<>();
+        latencies.forEach((key, histogram) -> export(map, key.name("latency"), histogram));
+        payloads.forEach((key, histogram) -> export(map, key.name("payload"), histogram));
+        results.forEach((key, histogram) -> export(map, key.name("results"), histogram));
+        cacheHits.forEach((key, count) -> map.put(key.name("cache") + ".hits", count));
+        cacheMisses.forEach((key, count) -> map.put(key.name("cache") + ".misses", count));
+        errors.forEach((key, count) -> map.put(key.name("errors"), count));
+        interventions.forEach((key, count) -> map.put(key.name("guard"), count));
+        return map;
+    }
+
+    private static void export(Map<String, Number> map, String name, Histogram.Snapshot histogram) {
+        map.put(name + ".count", histogram.getCount());
+        map.put(name + ".mean", histogram.getMean());
+        map.put(name + ".max", histogram.getMax());
+        for (double percentile : PERCENTILES) {
+            map.put(name + ".p" + String.valueOf(percentile).replace(".0", "").replace(".", "_"),
+                    histogram.getValueAtPercentile(percentile));
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        toMap().forEach((key, value) -> builder.append(key).append('=').append(value).append('\n'));
+        return builder.toString();
+    }
+
+    static class Key {
+
+        private final Operation operation;
+        private final String type;
+        private final String name;
+
+        Key(Operation operation, String type, String name) {
+            this.operation = operation;
+            this.type = type;
+            this.name = name;
+        }
+
+        private String name(String metric) {
+            final StringBuilder builder = new StringBuilder(metric).append('.').append(operation).append('.').append(type);
+            if (name != null) {
+                builder.append('.').append(name);
+            }
+            return builder.toString();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final Key key = (Key) o;
+            return operation == key.operation && Objects.equals(type, key.type) && Objects.equals(name, key.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(operation, type, name);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.rbmhtechnology.vind.api.metrics;
+
+/**
+ * Types of search server operations recorded by the {@link SearchMetrics}.
+ *
+ * @since 2.4.0
+ */
+public enum Operation {
+    Search, Count, Facets, Suggest, Get, Index, Update, Delete, Commit
+}
@@ -0,0 +1,25 @@
+package com.rbmhtechnology.vind.api.metrics;
+
+/**
+ * Phases of a search server operation measured by the {@link Instrumentation}.
+ *
+ * @since 2.4.0
+ */
+public enum Phase {
+    /** The whole operation, as seen by the caller. */
+    Total,
+    /** Building the backend query from the Vind search. */
+    QueryBuilding,
+    /** Sending the request and receiving the response, including the server time. */
+    Request,
+    /** Time spent by the backend server, e.g. the Solr QTime. */
+    Server,
+    /** Reading and parsing the response. */
+    ResponseParsing,
+    /** Mapping the result documents. */
+    ResultMapping,
+    /** Mapping the facets. */
+    FacetMapping,
+    /** Converting the result documents to POJOs. */
+    PojoConversion
+}
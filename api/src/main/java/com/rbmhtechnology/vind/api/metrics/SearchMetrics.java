@@ -0,0 +1,87 @@
+package com.rbmhtechnology.vind.api.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.ServiceLoader;
+
+/**
+ * Service provider interface receiving the measurements of the {@link com.rbmhtechnology.vind.api.InstrumentedSearchServer}.
+ * All measurements are tagged with the operation and the type of the {@link com.rbmhtechnology.vind.model.DocumentFactory}.
+ * Implementations have to be thread safe and fast, as they are called on every request.
+ *
+ * @since 2.4.0
+ */
+public interface SearchMetrics {
+
+    /**
+     * Records the latency of a phase of an operation.
+     * @param operation {@link Operation} type.
+     * @param phase measured {@link Phase}.
+     * @param type document type.
+     * @param nanos latency in nanoseconds.
+     */
+    void recordLatency(Operation operation, Phase phase, String type, long nanos);
+
+    /**
+     * Records the size of a response received from the backend.
+     * @param operation {@link Operation} type.
+     * @param type document type.
+     * @param bytes size in bytes.
+     */
+    void recordPayload(Operation operation, String type, long bytes);
+
+    /**
+     * Records the number of documents returned or written by an operation.
+     * @param operation {@link Operation} type.
+     * @param type document type.
+     * @param count number of documents.
+     */
+    void recordResults(Operation operation, String type, long count);
+
+    /**
+     * Records a lookup in a client side cache.
+     * @param operation {@link Operation} type.
+     * @param type document type.
+     * @param cache name of the cache.
+     * @param hit true if the value has been found in the cache.
+     */
+    void recordCache(Operation operation, String type, String cache, boolean hit);
+
+    /**
+     * Records a failed operation.
+     * @param operation {@link Operation} type.
+     * @param type document type.
+     * @param error the error thrown by the operation.
+     */
+    void recordError(Operation operation, String type, Throwable error);
+
+    /**
+     * Records a query changed or rejected by a guardrail before it has been sent to the backend.
+     * @param operation {@link Operation} type.
+     * @param type document type.
+     * @param rule name of the guardrail rule.
+     * @param action the action taken, e.g. <code>Clamp</code> or <code>Reject</code>.
+     */
+    default void recordIntervention(Operation operation, String type, String rule, String action) {
+    }
+
+    /**
+     * Gets the first {@link SearchMetrics} implementation registered for the ServiceLoader, or a new
+     * {@link InMemorySearchMetrics} if there is none.
+     * @return {@link SearchMetrics} implementation.
+     */
+    static SearchMetrics getInstance() {
+        final Iterator<SearchMetrics> it = ServiceLoader.load(SearchMetrics.class).iterator();
+        if (it.hasNext()) {
+            final SearchMetrics metrics = it.next();
+            if (it.hasNext()) {
+                final Logger log = LoggerFactory.getLogger(SearchMetrics.class);
+                log.warn("Multiple bindings for SearchMetrics found, using {}", metrics.getClass().getName());
+            }
+            return metrics;
+        }
+        return new InMemorySearchMetrics();
+    }
+}
@@ -1,5 +1,6 @@
 package com.rbmhtechnology.vind.api.query;
 
+import com.rbmhtechnology.vind.api.query.collapse.Collapse;
 import com.rbmhtechnology.vind.api.query.distance.Distance;
 import com.rbmhtechnology.vind.api.query.division.Page;
 import com.rbmhtechnology.vind.api.query.division.ResultSubset;
@@ -8,6 +9,7 @@ import com.rbmhtechnology.vind.api.query.facet.Facet;
 import com.rbmhtechnology.vind.api.query.facet.Facets;
 import com.rbmhtechnology.vind.api.query.facet.TermFacetOption;
 import com.rbmhtechnology.vind.api.query.filter.Filter;
+import com.rbmhtechnology.vind.api.query.rerank.Rerank;
 import com.rbmhtechnology.vind.api.query.sort.Sort;
 import com.rbmhtechnology.vind.configure.SearchConfiguration;
 import com.rbmhtechnology.vind.model.DocumentFactory;
@@ -31,6 +33,7 @@ public class FulltextSearch {
 
     private String searchString = null;
     private Filter filter = null;
+    private Map<String,Filter> taggedFilters = new LinkedHashMap<>();
     private List<Sort> sorting = new ArrayList<>();
     private int facetMinCount =  SearchConfiguration.get(SearchConfiguration.SEARCH_RESULT_FACET_INCLUDE_EMPTY, false)? 0 : 1;
     private int facetLimit = SearchConfiguration.get(SearchConfiguration.SEARCH_RESULT_FACET_LENGTH, 4);
@@ -45,6 +48,11 @@ public class FulltextSearch {
     private String minimumShouldMatch = "1";
     private String searchContext = null;
     private boolean strict = true;
+    private Collapse collapse = null;
+    private Rerank rerank = null;
+    private DocumentFactory inlineChildrenFactory = null;
+    private int inlineChildrenLimit = 10;
+    private Filter inlineChildrenFilter = null;
 
     /**
      * Creates a new basic full text search query object.
@@ -59,6 +67,44 @@ public class FulltextSearch {
      * @return A new {@link FulltextSearch} instance.
      */
     public FulltextSearch copy() {
+        final FulltextSearch copy = this.copyQuery();
+
+        copy.facetMinCount = this.facetMinCount;
+        copy.facetLimit = this.facetLimit;
+        copy.childrenSearch = this.childrenSearch;
+        copy.childrenSearchOperator = this.childrenSearchOperator;
+        copy.childrenSearchString = this.childrenSearchString.stream().map(FulltextSearch::copy).collect(Collectors.toList());
+        copy.childrenFactory = this.childrenFactory;
+        copy.timeZone = this.timeZone;
+        copy.geoDistance = this.geoDistance;
+        copy.minimumShouldMatch = this.minimumShouldMatch;
+        copy.searchContext = this.searchContext;
+        copy.strict = this.strict;
+
+        if (Objects.nonNull(this.collapse)) {
+            copy.collapse = this.collapse.copy();
+        }
+
+        if (Objects.nonNull(this.rerank)) {
+            copy.rerank = this.rerank.copy();
+        }
+
+        copy.inlineChildrenFactory = this.inlineChildrenFactory;
+        copy.inlineChildrenLimit = this.inlineChildrenLimit;
+        if (Objects.nonNull(this.inlineChildrenFilter)) {
+            copy.inlineChildrenFilter = this.inlineChildrenFilter.clone();
+        }
+
+        return copy;
+    }
+
+    /**
+     * Creates a clone of the query, filters, tagged filters, facets, sorting and result set of the actual fulltext
+     * search, to be used as search on the nested documents. All other settings, e.g. collapse, rerank and inline
+     * children, keep their defaults.
+     * @return A new {@link FulltextSearch} instance without children search.
+     */
+    private FulltextSearch copyQuery() {
         final FulltextSearch copy = new FulltextSearch();
 
         copy.searchString = new String(this.searchString);
@@ -69,6 +115,8 @@ public class FulltextSearch {
         copy.sorting = this.getSorting().stream().map( s -> s.clone()).collect(Collectors.toList());
 
 
+        this.getTaggedFilters().forEach((tag, f) -> copy.taggedFilters.put(tag, f.clone()));
+
         this.getFacets().keySet().stream().forEach(k -> copy.facets.put(k,this.getFacets().get(k).clone()));
 
         return copy;
@@ -104,7 +152,7 @@ public class FulltextSearch {
         this.childrenSearch = true;
         this.childrenSearchOperator = Operators.OR;
         this.childrenSearchString.clear();
-        this.childrenSearchString.add(this.copy());
+        this.childrenSearchString.add(this.copyQuery());
         this.childrenFactory = childrenFactory;
         return this;
     }
@@ -149,7 +197,7 @@ public class FulltextSearch {
         this.childrenSearch = true;
         this.childrenSearchOperator = Operators.AND;
         this.childrenSearchString.clear();
-        this.childrenSearchString.add(this.copy());
+        this.childrenSearchString.add(this.copyQuery());
         this.childrenFactory = childrenFactory;
         return this;
     }
@@ -211,12 +259,33 @@ public class FulltextSearch {
         return this;
     }
 
+    /**
+     * Adds a tagged {@link Filter} to the search query. Tagged filters restrict the search results as any other filter,
+     * but can be ignored by facets declaring the tag in {@link Facet#setExcludeTags(String...)}. Filters added with
+     * the same tag are combined with AND.
+     * @param filter {@link Filter} filter to be added to the query.
+     * @param tag String tag of the filter, not blank and without spaces or commas.
+     * @return This {@link FulltextSearch} instance with the new filter added.
+     */
+    public FulltextSearch filter(Filter filter, String tag) {
+        if (tag == null) {
+            return filter(filter);
+        }
+        if (filter == null) {
+            this.taggedFilters.remove(tag);
+        } else {
+            this.taggedFilters.merge(tag, filter, (f1, f2) -> and(f1, f2));
+        }
+        return this;
+    }
+
     /**
      * Removes all the filters of the fulltext search query.
      * @return This {@link FulltextSearch} instance without the filters.
      */
     public FulltextSearch clearFilter() {
         filter = null;
+        taggedFilters.clear();
         return this;
     }
 
@@ -492,6 +561,85 @@ public class FulltextSearch {
         return this;
     }
 
+    /**
+     * Collapses the results by the value of the given field, returning only the best ranked document per value.
+     * @param field {@link FieldDescriptor} single valued field to collapse on.
+     * @return This {@link FulltextSearch} instance
+     */
+    public FulltextSearch collapse(FieldDescriptor<?> field) {
+        return collapse(new Collapse(field));
+    }
+
+    /**
+     * Collapses the results by the value of the given field, returning only the best ranked document per value.
+     * @param field String name of the single valued field to collapse on.
+     * @return This {@link FulltextSearch} instance
+     */
+    public FulltextSearch collapse(String field) {
+        return collapse(new Collapse(field));
+    }
+
+    /**
+     * Collapses the results as defined by the given configuration.
+     * @param collapse {@link Collapse} configuration, or null to remove the collapsing.
+     * @return This {@link FulltextSearch} instance
+     */
+    public FulltextSearch collapse(Collapse collapse) {
+        this.collapse = collapse;
+        return this;
+    }
+
+    /**
+     * Reranks the top documents of the result with a more expensive scoring function or model, keeping the cost of
+     * the second phase independent of the number of hits.
+     * @param rerank {@link Rerank} configuration, or null to remove the reranking.
+     * @return This {@link FulltextSearch} instance
+     */
+    public FulltextSearch rerank(Rerank rerank) {
+        this.rerank = rerank;
+        return this;
+    }
+
+    /**
+     * Returns the children of the result documents together with their parents, so no further request per parent is
+     * needed to get them. At most 10 children are returned per parent.
+     * @param childrenFactory {@link DocumentFactory} defining the type of the children documents.
+     * @return This {@link FulltextSearch} instance
+     */
+    public FulltextSearch withChildren(DocumentFactory childrenFactory) {
+        return withChildren(childrenFactory, this.inlineChildrenLimit);
+    }
+
+    /**
+     * Returns the children of the result documents together with their parents, so no further request per parent is
+     * needed to get them.
+     * @param childrenFactory {@link DocumentFactory} defining the type of the children documents.
+     * @param limit int maximum number of children returned per parent.
+     * @return This {@link FulltextSearch} instance
+     */
+    public FulltextSearch withChildren(DocumentFactory childrenFactory, int limit) {
+        return withChildren(childrenFactory, limit, null);
+    }
+
+    /**
+     * Returns the children of the result documents matching the given filter together with their parents, so no
+     * further request per parent is needed to get them.
+     * @param childrenFactory {@link DocumentFactory} defining the type of the children documents, or null to not
+     *                        return any children.
+     * @param limit int maximum number of children returned per parent.
+     * @param childrenFilter {@link Filter} on the children fields, or null to return all children.
+     * @return This {@link FulltextSearch} instance
+     */
+    public FulltextSearch withChildren(DocumentFactory childrenFactory, int limit, Filter childrenFilter) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("The children limit must be positive: " + limit);
+        }
+        this.inlineChildrenFactory = childrenFactory;
+        this.inlineChildrenLimit = limit;
+        this.inlineChildrenFilter = childrenFilter;
+        return this;
+    }
+
     /**
      * Gets the text of the search query.
      * @return String containing the query target.
@@ -569,6 +717,22 @@ public class FulltextSearch {
     public boolean hasFilter() {
         return filter != null;
     }
+    /**
+     * Gets the tagged filters configured for this search query.
+     * @return A map of {@link Filter} having as key the filter tags.
+     */
+    public Map<String, Filter> getTaggedFilters() {
+        return taggedFilters;
+    }
+
+    /**
+     * Checks if the search has any tagged filter configured.
+     * @return Boolean value, true if it has tagged filters false otherwise.
+     */
+    public boolean hasTaggedFilters() {
+        return !taggedFilters.isEmpty();
+    }
+
     /**
      * Gets the sortins configured for this search query.
      * @return {@link Sort} instances.
@@ -606,6 +770,70 @@ public class FulltextSearch {
         return this.facets;
     }
 
+    /**
+     * Gets the collapse configuration of this search.
+     * @return {@link Collapse} instance or null if the results are not collapsed.
+     */
+    public Collapse getCollapse() {
+        return collapse;
+    }
+
+    /**
+     * Checks if the search collapses the results.
+     * @return Boolean value, true if it is collapsed false otherwise.
+     */
+    public boolean hasCollapse() {
+        return collapse != null;
+    }
+
+    /**
+     * Gets the rerank configuration of this search.
+     * @return {@link Rerank} instance or null if the results are not reranked.
+     */
+    public Rerank getRerank() {
+        return rerank;
+    }
+
+    /**
+     * Checks if the search reranks the top results.
+     * @return Boolean value, true if it is reranked false otherwise.
+     */
+    public boolean hasRerank() {
+        return rerank != null;
+    }
+
+    /**
+     * Checks if the children are returned together with the result documents.
+     * @return Boolean value, true if the children are returned false otherwise.
+     */
+    public boolean hasInlineChildren() {
+        return inlineChildrenFactory != null;
+    }
+
+    /**
+     * Gets the factory of the children returned together with the result documents.
+     * @return {@link DocumentFactory} of the children or null if no children are returned.
+     */
+    public DocumentFactory getInlineChildrenFactory() {
+        return inlineChildrenFactory;
+    }
+
+    /**
+     * Gets the maximum number of children returned per result document.
+     * @return int children limit.
+     */
+    public int getInlineChildrenLimit() {
+        return inlineChildrenLimit;
+    }
+
+    /**
+     * Gets the filter of the children returned together with the result documents.
+     * @return {@link Filter} on the children or null if all children are returned.
+     */
+    public Filter getInlineChildrenFilter() {
+        return inlineChildrenFilter;
+    }
+
     /**
      * Gets the configured Time Zone for this search.
      * @return {@link String} with the configured Time zone.
@@ -657,6 +885,7 @@ public class FulltextSearch {
                 "{" +
                 "\"q\":\"%s\"," +
                 "\"filter\":\"%s\"," +
+                "\"taggedFilters\":{%s}," +
                 "\"timeZone\":\"%s\"," +
                 "\"sort\":%s," +
                 "\"result\":%s," +
@@ -670,12 +899,16 @@ public class FulltextSearch {
                 "\"facet\":{%s}," +
                 "\"geoDistance\":%s," +
                 "\"searchContext\":\"%s\"," +
-                "\"strictFlag\":%s" +
+                "\"strictFlag\":%s," +
+                "\"collapse\":%s," +
+                "\"rerank\":%s," +
+                "\"inlineChildren\":{\"factory\":%s,\"limit\":%s,\"filter\":\"%s\"}" +
                 "}";
 
         return String.format(searchString,
                 this.searchString,
                 this.filter,
+                this.taggedFilters.entrySet().stream().map(e -> "\"" + e.getKey() + "\":\"" + e.getValue() + "\"").collect(Collectors.joining(",")),
                 this.timeZone,
                 CollectionUtils.isNotEmpty(this.sorting) ? "[" + this.sorting.stream().map(f -> f.toString()).collect(Collectors.joining(", ")) +"]": "[]",
                 this.resultSet,
@@ -689,7 +922,12 @@ public class FulltextSearch {
                 this.facets.entrySet().stream().map(e -> e.getValue().toString()).collect(Collectors.joining(",")),
                 this.geoDistance,
                 this.searchContext,
-                this.strict);
+                this.strict,
+                this.collapse,
+                this.rerank,
+                this.inlineChildrenFactory,
+                this.inlineChildrenLimit,
+                this.inlineChildrenFilter);
     }
     public enum Operators {
         AND, OR
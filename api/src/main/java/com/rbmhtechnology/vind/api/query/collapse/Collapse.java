@@ -0,0 +1,112 @@
+package com.rbmhtechnology.vind.api.query.collapse;
+
+import com.rbmhtechnology.vind.model.FieldDescriptor;
+
+/**
+ * Configuration to collapse the results of a search by the value of a single valued field, returning just one
+ * document (the best ranked one) per distinct value. Optionally the rest of the documents of each group can be
+ * expanded.
+ */
+public class Collapse {
+
+    /**
+     * Defines what to do with the documents having no value for the collapse field.
+     */
+    public enum NullPolicy {
+        /**
+         * Documents without value are removed from the result.
+         */
+        ignore,
+        /**
+         * Each document without value is kept as its own group.
+         */
+        expand,
+        /**
+         * All documents without value are collapsed into a single group.
+         */
+        collapse
+    }
+
+    private final String fieldName;
+    private FieldDescriptor<?> field;
+    private NullPolicy nullPolicy = NullPolicy.ignore;
+    private int expandSize = 0;
+
+    /**
+     * Creates a new collapse configuration on the given field.
+     * @param field {@link FieldDescriptor} single valued field to collapse on.
+     */
+    public Collapse(FieldDescriptor<?> field) {
+        this.field = field;
+        this.fieldName = field.getName();
+    }
+
+    /**
+     * Creates a new collapse configuration on the field with the given name.
+     * @param fieldName String name of a single valued field to collapse on.
+     */
+    public Collapse(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    public FieldDescriptor<?> getField() {
+        return field;
+    }
+
+    public NullPolicy getNullPolicy() {
+        return nullPolicy;
+    }
+
+    /**
+     * Sets the policy for documents without value on the collapse field. Default is {@link NullPolicy#ignore}.
+     * @param nullPolicy {@link NullPolicy} to apply.
+     * @return This {@link Collapse} instance.
+     */
+    public Collapse setNullPolicy(NullPolicy nullPolicy) {
+        this.nullPolicy = nullPolicy;
+        return this;
+    }
+
+    public int getExpandSize() {
+        return expandSize;
+    }
+
+    /**
+     * Checks whether the collapsed documents of each group should be retrieved.
+     * @return true if the groups are expanded, false otherwise.
+     */
+    public boolean isExpand() {
+        return expandSize > 0;
+    }
+
+    /**
+     * Sets the number of collapsed documents to be retrieved for each group. By default groups are not expanded.
+     * @param size maximum number of collapsed documents per group, 0 to disable the expansion.
+     * @return This {@link Collapse} instance.
+     */
+    public Collapse expand(int size) {
+        this.expandSize = size;
+        return this;
+    }
+
+    public Collapse copy() {
+        final Collapse copy = field != null ? new Collapse(field) : new Collapse(fieldName);
+        copy.nullPolicy = this.nullPolicy;
+        copy.expandSize = this.expandSize;
+        return copy;
+    }
+
+    @Override
+    public String toString(){
+        final String collapseString = "{" +
+                "\"field\":\"%s\"," +
+                "\"nullPolicy\":\"%s\"," +
+                "\"expand\":%s" +
+                "}";
+        return String.format(collapseString, this.fieldName, this.nullPolicy, this.expandSize);
+    }
+}
@@ -22,6 +22,7 @@ public class DateMathExpression {
     public static final String NOW = "NOW";
     private RootTime root;
     private TimeUnit unit;
+    private Rounding rounding = Rounding.DOWN;
     private List<DateMathOperation> add = new ArrayList<>();
     private List<DateMathOperation> sub = new ArrayList<>();
 
@@ -47,6 +48,23 @@ public class DateMathExpression {
         this.unit = unit;
     }
 
+    /**
+     * Rounds the resulting date of the expression to the given unit. Rounded dates resolve to the same value for
+     * all the requests done within the same unit of time, which makes the filters using them cacheable.
+     * @param unit {@link TimeUnit} to round the date to.
+     * @param rounding {@link Rounding} direction.
+     * @return This {@link DateMathExpression} instance.
+     */
+    public DateMathExpression round(TimeUnit unit, Rounding rounding) {
+        this.unit = unit;
+        this.rounding = Objects.requireNonNull(rounding);
+        return this;
+    }
+
+    public Rounding getRounding() {
+        return rounding;
+    }
+
     public void setRootUnit(TimeUnit unit) {
         this.root.setUnit(unit);
     }
@@ -194,12 +212,29 @@ public class DateMathExpression {
             output += OP_SUB + sub.stream().map(Object::toString).collect(Collectors.joining("-"));
         }
         if(unit!=null) {
-            output+= OP_UNIT + unit;
+            output+= roundingString(unit, rounding);
         }
 
         return output;
     }
 
+    /**
+     * Serializes the expression rounding it to the given unit, unless the expression defines its own rounding.
+     * @param defaultUnit {@link TimeUnit} to round the date to, or null to not round it.
+     * @param defaultRounding {@link Rounding} direction.
+     * @return the String representation of the rounded expression.
+     */
+    public String toString(TimeUnit defaultUnit, Rounding defaultRounding) {
+        if (unit != null || defaultUnit == null) {
+            return toString();
+        }
+        return toString() + roundingString(defaultUnit, defaultRounding);
+    }
+
+    private static String roundingString(TimeUnit unit, Rounding rounding) {
+        return OP_UNIT + unit + (rounding == Rounding.UP ? OP_ADD + 1 + unit : "");
+    }
+
     public class RootTime {
         private final boolean relative;
         private ZonedDateTime fixedTime;
@@ -266,6 +301,20 @@ public class DateMathExpression {
             return String.valueOf(quantity) + unit;
         }
     }
+    /**
+     * Direction in which a date is rounded to a {@link TimeUnit}.
+     */
+    public enum Rounding {
+        /**
+         * Rounds to the start of the unit, e.g. 10:42 is rounded to 10:00 by hour.
+         */
+        DOWN,
+        /**
+         * Rounds to the start of the next unit, e.g. 10:42 is rounded to 11:00 by hour.
+         */
+        UP
+    }
+
     public enum TimeUnit {
         YEAR,MONTH,DAY,HOUR,MINUTE,SECOND,MILLI,MILLISECOND,YEARS,MONTHS,DAYS,HOURS,MINUTES,SECONDS,MILLIS,MILLISECONDS
     }
@@ -0,0 +1,126 @@
+package com.rbmhtechnology.vind.api.query.facet;
+
+import com.rbmhtechnology.vind.model.FieldDescriptor;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Metric calculated on a field for the documents of a facet bucket, e.g. the average price per category. Aggregations
+ * are attached to a {@link Facet} with {@link Facet#aggregate(Aggregation...)} and their results are available by
+ * name on each bucket of the facet result.
+ */
+public class Aggregation {
+
+    /**
+     * Aggregation functions supported.
+     */
+    public enum Function {
+        avg, sum, sumsq, min, max, unique, hll, percentile, variance, stddev
+    }
+
+    private final String name;
+    private final Function function;
+    private final FieldDescriptor<?> field;
+    private final Double[] percentiles;
+
+    /**
+     * Creates a new instance of {@link Aggregation}.
+     * @param name String name of the aggregation, used as key of its result. It should be alphanumeric.
+     * @param function {@link Function} to calculate.
+     * @param field {@link FieldDescriptor} to calculate the function on.
+     * @param percentiles percentiles to calculate, only used by {@link Function#percentile}.
+     */
+    public Aggregation(String name, Function function, FieldDescriptor<?> field, Double ... percentiles) {
+        this.name = Objects.requireNonNull(name, "Aggregation name must not be null");
+        this.function = Objects.requireNonNull(function, "Aggregation function must not be null");
+        this.field = Objects.requireNonNull(field, "Aggregation field must not be null");
+        this.percentiles = percentiles != null ? percentiles : new Double[0];
+        if (function == Function.percentile && this.percentiles.length == 0) {
+            throw new IllegalArgumentException("Percentile aggregation '" + name + "' needs at least one percentile");
+        }
+    }
+
+    public static Aggregation avg(String name, FieldDescriptor<?> field) {
+        return new Aggregation(name, Function.avg, field);
+    }
+
+    public static Aggregation sum(String name, FieldDescriptor<?> field) {
+        return new Aggregation(name, Function.sum, field);
+    }
+
+    public static Aggregation sumsq(String name, FieldDescriptor<?> field) {
+        return new Aggregation(name, Function.sumsq, field);
+    }
+
+    public static Aggregation min(String name, FieldDescriptor<?> field) {
+        return new Aggregation(name, Function.min, field);
+    }
+
+    public static Aggregation max(String name, FieldDescriptor<?> field) {
+        return new Aggregation(name, Function.max, field);
+    }
+
+    /**
+     * Exact number of distinct values of the field.
+     * @param name String name of the aggregation.
+     * @param field {@link FieldDescriptor} to count the distinct values of.
+     * @return a new {@link Aggregation}.
+     */
+    public static Aggregation unique(String name, FieldDescriptor<?> field) {
+        return new Aggregation(name, Function.unique, field);
+    }
+
+    /**
+     * Approximated number of distinct values of the field, cheaper than {@link #unique(String, FieldDescriptor)} for
+     * high cardinality fields.
+     * @param name String name of the aggregation.
+     * @param field {@link FieldDescriptor} to count the distinct values of.
+     * @return a new {@link Aggregation}.
+     */
+    public static Aggregation hll(String name, FieldDescriptor<?> field) {
+        return new Aggregation(name, Function.hll, field);
+    }
+
+    public static Aggregation percentile(String name, FieldDescriptor<?> field, Double ... percentiles) {
+        return new Aggregation(name, Function.percentile, field, percentiles);
+    }
+
+    public static Aggregation variance(String name, FieldDescriptor<?> field) {
+        return new Aggregation(name, Function.variance, field);
+    }
+
+    public static Aggregation stddev(String name, FieldDescriptor<?> field) {
+        return new Aggregation(name, Function.stddev, field);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Function getFunction() {
+        return function;
+    }
+
+    public FieldDescriptor<?> getField() {
+        return field;
+    }
+
+    public Double[] getPercentiles() {
+        return percentiles;
+    }
+
+    @Override
+    public String toString(){
+        final String serializeAggregation = "" +
+                "\"%s\":{" +
+                "\"function\":\"%s\"," +
+                "\"field\":\"%s\"" +
+                "%s" +
+                "}";
+        final String percentilesString = percentiles.length > 0 ?
+                ",\"percentiles\":[" + Arrays.stream(percentiles).map(String::valueOf).collect(Collectors.joining(",")) + "]" : "";
+        return String.format(serializeAggregation, this.name, this.function, this.field.getName(), percentilesString);
+    }
+}
@@ -6,6 +6,7 @@ import com.google.common.collect.Sets;
 import com.rbmhtechnology.vind.api.query.datemath.DateMathExpression;
 import com.rbmhtechnology.vind.api.query.filter.Filter;
 import com.rbmhtechnology.vind.model.*;
+import com.rbmhtechnology.vind.model.value.LatLng;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,8 +14,11 @@ import org.slf4j.LoggerFactory;
 import java.io.Serializable;
 import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -37,6 +41,9 @@ public abstract class Facet {
     protected String name;
     protected String[] tagedPivots = new String[0];
     protected String facetName;
+    protected String[] excludeTags = new String[0];
+    protected Map<String, Facet> subFacets = new LinkedHashMap<>();
+    protected Map<String, Aggregation> aggregations = new LinkedHashMap<>();
 
     public String getType() {
         return this.getClass().getSimpleName();
@@ -87,6 +94,89 @@ public abstract class Facet {
         return facetName;
     }
 
+    /**
+     * Returns the tags of the search filters which are ignored when calculating this facet.
+     * @return String array of filter tags.
+     */
+    public String[] getExcludeTags() {
+        return excludeTags;
+    }
+
+    /**
+     * Sets the tags of the search filters to be ignored when calculating this facet, so the facet counts are not
+     * restricted by the active selection on it (multi-select faceting).
+     * @param excludeTags tags given to filters with {@link com.rbmhtechnology.vind.api.query.FulltextSearch#filter(Filter, String)}.
+     * @return Returns the instance of this Facet with the new exclusions.
+     */
+    public Facet setExcludeTags(String ... excludeTags) {
+        this.excludeTags = excludeTags != null ? excludeTags : new String[0];
+        return this;
+    }
+
+    /**
+     * Returns the facets calculated for each bucket of this facet.
+     * @return Map of nested facets by facet name.
+     */
+    public Map<String, Facet> getSubFacets() {
+        return Collections.unmodifiableMap(subFacets);
+    }
+
+    /**
+     * Adds facets to be calculated for each bucket of this facet, e.g. a date range per term of a category field.
+     * Sub facets can be nested at any depth and are calculated together with their parent in a single request.
+     * Only {@link TermFacet}, {@link TypeFacet}, {@link QueryFacet}, {@link NumericRangeFacet},
+     * {@link DateRangeFacet} and {@link HeatmapFacet} support nesting.
+     * @param facets facets to calculate per bucket.
+     * @return Returns the instance of this Facet with the new sub facets.
+     */
+    public Facet subFacet(Facet ... facets) {
+        for (Facet facet : facets) {
+            this.subFacets.put(facet.getFacetName(), facet);
+        }
+        return this;
+    }
+
+    /**
+     * Returns the aggregations calculated for each bucket of this facet.
+     * @return Map of {@link Aggregation} by name.
+     */
+    public Map<String, Aggregation> getAggregations() {
+        return Collections.unmodifiableMap(aggregations);
+    }
+
+    /**
+     * Adds aggregations to be calculated for each bucket of this facet, e.g. the average price per category.
+     * @param aggregations {@link Aggregation} to calculate per bucket.
+     * @return Returns the instance of this Facet with the new aggregations.
+     */
+    public Facet aggregate(Aggregation ... aggregations) {
+        for (Aggregation aggregation : aggregations) {
+            this.aggregations.put(aggregation.getName(), aggregation);
+        }
+        return this;
+    }
+
+    /**
+     * Checks whether sub facets or aggregations are calculated for the buckets of this facet.
+     * @return true if the facet has nested sub facets or aggregations.
+     */
+    public boolean isNested() {
+        return !subFacets.isEmpty() || !aggregations.isEmpty();
+    }
+
+    /**
+     * Copies the configuration shared by all facet types into a newly cloned facet.
+     * @param copy Facet created by {@link #clone()}.
+     * @return The given copy.
+     */
+    protected Facet copyCommonOptions(Facet copy) {
+        copy.excludeTags = this.excludeTags.clone();
+        copy.subFacets = new LinkedHashMap<>();
+        this.subFacets.forEach((name, facet) -> copy.subFacets.put(name, facet.clone()));
+        copy.aggregations = new LinkedHashMap<>(this.aggregations);
+        return copy;
+    }
+
 
     /**
      * This class allows to perform the basic term facet query on one field.
@@ -161,10 +251,10 @@ public abstract class Facet {
 
         @Override
         public Facet clone() {
-            final TermFacet<T> copy = new TermFacet<>(this.fieldName);
+            final TermFacet<T> copy = new TermFacet<>(this.option != null ? this.option.copy() : null, this.fieldName);
             copy.setScope(this.scope);
             copy.fieldDescriptor = this.fieldDescriptor;
-            return copy;
+            return copyCommonOptions(copy);
         }
     }
 
@@ -193,7 +283,7 @@ public abstract class Facet {
             final TypeFacet copy = new TypeFacet();
             copy.setScope(this.scope);
 
-            return copy;
+            return copyCommonOptions(copy);
         }
     }
 
@@ -220,7 +310,7 @@ public abstract class Facet {
         public Facet clone() {
             final SubdocumentFacet copy = new SubdocumentFacet(new DocumentFactoryBuilder(this.facetName).build());
             copy.setScope(this.scope);
-            return copy;
+            return copyCommonOptions(copy);
         }
     }
 
@@ -322,7 +412,7 @@ public abstract class Facet {
         public Facet clone() {
             final NumericRangeFacet copy = new NumericRangeFacet(this.facetName,this.fieldDescriptor,this.start, this.end, this.gap, this.tagedPivots);
             copy.setScope(this.scope);
-            return copy;
+            return copyCommonOptions(copy);
         }
     }
 
@@ -450,7 +540,7 @@ public abstract class Facet {
 
             @Override
             public Facet clone() {
-                return new ZoneDateRangeFacet<ZonedDateTime>(this.facetName,this.fieldDescriptor, (ZonedDateTime)this.start, (ZonedDateTime)this.end, Duration.ofMillis(this.gap), this.tagedPivots);
+                return copyCommonOptions(new ZoneDateRangeFacet<ZonedDateTime>(this.facetName,this.fieldDescriptor, (ZonedDateTime)this.start, (ZonedDateTime)this.end, Duration.ofMillis(this.gap), this.tagedPivots));
             }
         }
 
@@ -494,7 +584,7 @@ public abstract class Facet {
 
             @Override
             public Facet clone() {
-                return new UtilDateRangeFacet<Date>(this.facetName,this.fieldDescriptor, (Date)this.start, (Date)this.end, this.gap, this.gapUnits, this.tagedPivots);
+                return copyCommonOptions(new UtilDateRangeFacet<Date>(this.facetName,this.fieldDescriptor, (Date)this.start, (Date)this.end, this.gap, this.gapUnits, this.tagedPivots));
             }
         }
 
@@ -591,7 +681,7 @@ public abstract class Facet {
                 copy.end = this.end;
                 copy.gap = this.gap;
                 copy.tagedPivots = this.tagedPivots;
-                return copy;
+                return copyCommonOptions(copy);
             }
         }
 
@@ -676,7 +766,7 @@ public abstract class Facet {
             copy.name = this.name;
             copy.scope = this.scope;
             copy.intervals = this.intervals; //FIXME clone intervals
-            return copy;
+            return copyCommonOptions(copy);
         }
     }
 
@@ -713,7 +803,7 @@ public abstract class Facet {
                 copy.facetName = this.facetName;
                 copy.scope = this.scope;
                 copy.intervals = this.intervals; //FIXME clone intervals
-                return copy;
+                return copyCommonOptions(copy);
             }
 
         }
@@ -747,7 +837,7 @@ public abstract class Facet {
                 copy.facetName = this.facetName;
                 copy.scope = this.scope;
                 copy.intervals = this.intervals; //FIXME clone intervals
-                return copy;
+                return copyCommonOptions(copy);
             }
         }
 
@@ -779,7 +869,7 @@ public abstract class Facet {
                 copy.facetName = this.facetName;
                 copy.scope = this.scope;
                 copy.intervals = this.intervals; //FIXME clone intervals
-                return copy;
+                return copyCommonOptions(copy);
             }
 
         }
@@ -812,7 +902,7 @@ public abstract class Facet {
                 copy.facetName = this.facetName;
                 copy.scope = this.scope;
                 copy.intervals = this.intervals; //FIXME clone intervals
-                return copy;
+                return copyCommonOptions(copy);
             }
         }
     }
@@ -861,7 +951,7 @@ public abstract class Facet {
 
         @Override
         public Facet clone() {
-            return new PivotFacet(this.facetName, this.fieldDescriptors.toArray(new FieldDescriptor<?>[this.fieldDescriptors.size()]));
+            return copyCommonOptions(new PivotFacet(this.facetName, this.fieldDescriptors.toArray(new FieldDescriptor<?>[this.fieldDescriptors.size()])));
         }
     }
 
@@ -910,7 +1000,89 @@ public abstract class Facet {
 
         @Override
         public Facet clone() {
-            return new QueryFacet(this.facetName, this.filter.clone(),this.tagedPivots);
+            return copyCommonOptions(new QueryFacet(this.facetName, this.filter.clone(),this.tagedPivots));
+        }
+    }
+
+    /**
+     * Allows to configure a spatial heatmap facet on a location field. A heatmap facet divides the given bounding box
+     * in a grid of cells and counts the documents located in each of them, so maps can render clusters of documents
+     * without retrieving them.
+     */
+    public static class HeatmapFacet extends Facet {
+
+        private final FieldDescriptor<? extends LatLng> fieldDescriptor;
+        private final LatLng upperLeft;
+        private final LatLng lowerRight;
+        private final Integer gridLevel;
+
+        /**
+         * Creates a new instance of {@link HeatmapFacet}.
+         * @param name String with a custom name for the new instance.
+         * @param fieldDescriptor location {@link FieldDescriptor} to calculate the heatmap on.
+         * @param upperLeft {@link LatLng} upper left corner of the bounding box.
+         * @param lowerRight {@link LatLng} lower right corner of the bounding box.
+         * @param gridLevel Integer precision of the grid, higher levels produce smaller cells. If null the level is
+         *                  calculated by the server based on the size of the bounding box.
+         */
+        public HeatmapFacet(String name, FieldDescriptor<? extends LatLng> fieldDescriptor, LatLng upperLeft, LatLng lowerRight, Integer gridLevel) {
+            this.facetName = name;
+            // Backwards compatibility
+            this.name = name;
+            this.fieldDescriptor = fieldDescriptor;
+            this.upperLeft = upperLeft;
+            this.lowerRight = lowerRight;
+            this.gridLevel = gridLevel;
+        }
+
+        /**
+         * Get the {@link FieldDescriptor} used to do the facet query.
+         * @return {@link FieldDescriptor} describing the location field of the heatmap.
+         */
+        public FieldDescriptor<? extends LatLng> getFieldDescriptor() {
+            return fieldDescriptor;
+        }
+
+        public LatLng getUpperLeft() {
+            return upperLeft;
+        }
+
+        public LatLng getLowerRight() {
+            return lowerRight;
+        }
+
+        public Integer getGridLevel() {
+            return gridLevel;
+        }
+
+        @Override
+        public String toString(){
+            final String serializeFacet = "" +
+                    "\"%s\":{" +
+                    "\"type\":\"%s\","+
+                    "\"field\":\"%s\","+
+                    "\"upperLeft\":\"%s\","+
+                    "\"lowerRight\":\"%s\","+
+                    "\"gridLevel\":%s"+
+                    "}";
+            return String.format(serializeFacet,
+                    this.facetName,
+                    this.getClass().getSimpleName(),
+                    this.fieldDescriptor.getName(),
+                    this.upperLeft,
+                    this.lowerRight,
+                    this.gridLevel
+            );
+        }
+
+        @Override
+        public Facet clone() {
+            final HeatmapFacet copy = new HeatmapFacet(this.facetName, this.fieldDescriptor,
+                    new LatLng(this.upperLeft.getLat(), this.upperLeft.getLng()),
+                    new LatLng(this.lowerRight.getLat(), this.lowerRight.getLng()),
+                    this.gridLevel);
+            copy.scope = this.scope;
+            return copyCommonOptions(copy);
         }
     }
 
@@ -934,6 +1106,8 @@ public abstract class Facet {
         protected Boolean distinctValues = false;
         protected Boolean countDistinct = false;
         protected Boolean cardinality = false;
+        protected Double percentilesCompression = null;
+        protected Double cardinalityAccuracy = null;
 
         /**
          * Create a new instance of {@link StatsFacet}.
@@ -1123,6 +1297,37 @@ public abstract class Facet {
             return cardinality;
         }
 
+        /**
+         * Gets the t-digest compression used to calculate the percentiles, null meaning the backend default.
+         * @return Double compression of the percentiles digest.
+         */
+        public Double getPercentilesCompression() {
+            return percentilesCompression;
+        }
+
+        /**
+         * Gets the accuracy of the HyperLogLog cardinality estimation, null meaning the backend default.
+         * @return Double accuracy between 0 and 1.
+         */
+        public Double getCardinalityAccuracy() {
+            return cardinalityAccuracy;
+        }
+
+        protected void setPercentilesCompression(double compression) {
+            if (compression <= 0) {
+                throw new IllegalArgumentException("Percentiles compression must be a positive number: " + compression);
+            }
+            this.percentilesCompression = compression;
+        }
+
+        protected void setCardinalityAccuracy(double accuracy) {
+            if (accuracy <= 0 || accuracy > 1) {
+                throw new IllegalArgumentException("Cardinality accuracy must be a number between 0 and 1: " + accuracy);
+            }
+            this.cardinality = true;
+            this.cardinalityAccuracy = accuracy;
+        }
+
         @Override
         public String toString(){
             final String serializeFacet = "" +
@@ -1153,7 +1358,9 @@ public abstract class Facet {
             copy.distinctValues = this.distinctValues;
             copy.countDistinct = this.countDistinct;
             copy.cardinality = this.cardinality;
-            return copy;
+            copy.percentilesCompression = this.percentilesCompression;
+            copy.cardinalityAccuracy = this.cardinalityAccuracy;
+            return copyCommonOptions(copy);
         }
 
         @Override
@@ -1319,6 +1526,17 @@ public abstract class Facet {
             return this;
         }
 
+        /**
+         * Activate the cardinality statistics with a custom accuracy of the HyperLogLog estimation. Higher values give
+         * a more accurate approximation at the cost of more memory.
+         * @param accuracy Double between 0 and 1.
+         * @return {@link StatsFacet} with the cardinality statistics enabled.
+         */
+        public StatsNumericFacet<T> cardinality(double accuracy) {
+            this.setCardinalityAccuracy(accuracy);
+            return this;
+        }
+
         /**
          * Activate the sum statistics, which will give as result the addition of all values for the specified field
          * @return {@link StatsFacet} with the sum statistics enabled.
@@ -1404,6 +1622,17 @@ public abstract class Facet {
             return this;
         }
 
+        /**
+         * Set the compression of the t-digest used to approximate the percentiles. Higher compression values give more
+         * accurate percentiles at the cost of more memory.
+         * @param compression positive double compression of the digest.
+         * @return {@link StatsFacet} with the percentiles compression set.
+         */
+        public StatsNumericFacet<T> percentilesCompression(double compression) {
+            this.setPercentilesCompression(compression);
+            return this;
+        }
+
         @Override
         public StatsNumericFacet<T> setScope(Scope scope) {
             this.scope = scope;
@@ -1530,6 +1759,17 @@ public abstract class Facet {
             return this;
         }
 
+        /**
+         * Activate the cardinality statistics with a custom accuracy of the HyperLogLog estimation. Higher values give
+         * a more accurate approximation at the cost of more memory.
+         * @param accuracy Double between 0 and 1.
+         * @return {@link StatsFacet} with the cardinality statistics enabled.
+         */
+        public StatsDateFacet<T> cardinality(double accuracy) {
+            this.setCardinalityAccuracy(accuracy);
+            return this;
+        }
+
         /**
          * Activate the sum statistics, which will give as result the addition of all values for the specified field
          * @return {@link StatsFacet} with the sum statistics enabled.
@@ -1729,6 +1969,17 @@ public abstract class Facet {
             return this;
         }
 
+        /**
+         * Activate the cardinality statistics with a custom accuracy of the HyperLogLog estimation. Higher values give
+         * a more accurate approximation at the cost of more memory.
+         * @param accuracy Double between 0 and 1.
+         * @return {@link StatsUtilDateFacet} with the cardinality statistics enabled.
+         */
+        public StatsUtilDateFacet<T> cardinality(double accuracy) {
+            this.setCardinalityAccuracy(accuracy);
+            return this;
+        }
+
         /**
          * Activate the sum statistics, which will give as result the addition of all values for the specified field
          * @return {@link StatsUtilDateFacet} with the sum statistics enabled.
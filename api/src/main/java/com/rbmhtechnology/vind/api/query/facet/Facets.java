@@ -13,6 +13,7 @@ import com.rbmhtechnology.vind.model.ComplexFieldDescriptor;
 import com.rbmhtechnology.vind.model.FieldDescriptor;
 import com.rbmhtechnology.vind.model.MultiValueFieldDescriptor;
 import com.rbmhtechnology.vind.model.SingleValueFieldDescriptor;
+import com.rbmhtechnology.vind.model.value.LatLng;
 
 import java.time.Duration;
 import java.time.ZonedDateTime;
@@ -475,6 +476,32 @@ public class Facets {
         return new Facet.PivotFacet(name, fieldDescriptors).setScope(scope);
     }
 
+    /**
+     * Creates a spatial heatmap facet, counting the documents located in each cell of a grid over the bounding box.
+     * The precision of the grid is calculated by the server based on the size of the bounding box.
+     * @param name String with a custom name for the new instance.
+     * @param descriptor location {@link FieldDescriptor} to calculate the heatmap on.
+     * @param upperLeft {@link LatLng} upper left corner of the bounding box.
+     * @param lowerRight {@link LatLng} lower right corner of the bounding box.
+     * @return {@link Facet.HeatmapFacet} object.
+     */
+    public static Facet heatmap(String name, FieldDescriptor<? extends LatLng> descriptor, LatLng upperLeft, LatLng lowerRight) {
+        return new Facet.HeatmapFacet(name, descriptor, upperLeft, lowerRight, null);
+    }
+
+    /**
+     * Creates a spatial heatmap facet, counting the documents located in each cell of a grid over the bounding box.
+     * @param name String with a custom name for the new instance.
+     * @param descriptor location {@link FieldDescriptor} to calculate the heatmap on.
+     * @param upperLeft {@link LatLng} upper left corner of the bounding box.
+     * @param lowerRight {@link LatLng} lower right corner of the bounding box.
+     * @param gridLevel precision of the grid, higher levels produce smaller cells.
+     * @return {@link Facet.HeatmapFacet} object.
+     */
+    public static Facet heatmap(String name, FieldDescriptor<? extends LatLng> descriptor, LatLng upperLeft, LatLng lowerRight, int gridLevel) {
+        return new Facet.HeatmapFacet(name, descriptor, upperLeft, lowerRight, gridLevel);
+    }
+
     /**
      * Creates a query facet. A query facet restricts the facet results based on a group of filters.
      * @param name String with a custom name for the new instance.
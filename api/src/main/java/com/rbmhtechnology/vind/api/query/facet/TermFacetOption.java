@@ -3,7 +3,11 @@
  */
 package com.rbmhtechnology.vind.api.query.facet;
 
+import com.rbmhtechnology.vind.api.query.sort.Sort;
+
 /**
+ * Per facet options of a {@link Facet.TermFacet}, allowing to page through, filter and tune the calculation of the
+ * terms of high cardinality fields.
  * Created on 05.11.18.
  */
 public class TermFacetOption {
@@ -48,6 +52,17 @@ public class TermFacetOption {
         return this;
     }
 
+    /**
+     * Sets the order of the facet terms.
+     * @param sort {@link FacetSort} criteria to sort the terms by.
+     * @param direction {@link Sort.Direction} of the sorting.
+     * @return this {@link TermFacetOption}.
+     */
+    public TermFacetOption setSort(FacetSort sort, Sort.Direction direction) {
+        this.sort = sort.name().toLowerCase() + " " + direction.name().toLowerCase();
+        return this;
+    }
+
     public Integer getOverrequest() {
         return overrequest;
     }
@@ -129,7 +144,38 @@ public class TermFacetOption {
         return this;
     }
 
-    enum FacetMethod {
+    /**
+     * Creates a copy of the options.
+     * @return A new {@link TermFacetOption} instance.
+     */
+    public TermFacetOption copy() {
+        final TermFacetOption copy = new TermFacetOption();
+        copy.offset = this.offset;
+        copy.limit = this.limit;
+        copy.sort = this.sort;
+        copy.overrequest = this.overrequest;
+        copy.refine = this.refine;
+        copy.overrefine = this.overrefine;
+        copy.mincount = this.mincount;
+        copy.missing = this.missing;
+        copy.numBuckets = this.numBuckets;
+        copy.allBuckets = this.allBuckets;
+        copy.prefix = this.prefix;
+        copy.method = this.method;
+        return copy;
+    }
+
+    /**
+     * Algorithm hints to calculate the facet terms. SMART lets the backend choose the best one for the field.
+     */
+    public enum FacetMethod {
         DV, UIF, DVHASH, ENUM, STREAM, SMART
     }
+
+    /**
+     * Criteria to sort the facet terms by: number of documents or term value.
+     */
+    public enum FacetSort {
+        COUNT, INDEX
+    }
 }
@@ -0,0 +1,219 @@
+package com.rbmhtechnology.vind.api.query.rerank;
+
+import com.rbmhtechnology.vind.api.query.sort.Sort;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Second phase ranking of a search: the documents are first ranked by the cheap fulltext query and only the top
+ * {@link #getDocs()} documents are scored again by a more expensive function or model. Backends implement the
+ * reranking for the subclasses they know about and reject the rest.
+ */
+public abstract class Rerank {
+
+    public static final int DEFAULT_RERANK_DOCS = 200;
+
+    protected int docs = DEFAULT_RERANK_DOCS;
+    protected double weight = 1.0;
+
+    /**
+     * Reranks the top documents by a backend specific function expression.
+     * @param function String function to calculate the second phase score.
+     * @return a new {@link FunctionRerank}.
+     */
+    public static FunctionRerank function(String function) {
+        return new FunctionRerank(function);
+    }
+
+    /**
+     * Reranks the top documents by the boost functions of the given special sorts, e.g.
+     * {@link Sort.SpecialSort.ScoredDate}, instead of applying them to every matching document.
+     * @param sorts {@link Sort.SpecialSort} defining the boost functions.
+     * @return a new {@link SortRerank}.
+     */
+    public static SortRerank sort(Sort.SpecialSort... sorts) {
+        return new SortRerank(sorts);
+    }
+
+    /**
+     * Reranks the top documents by a learning to rank model deployed in the backend.
+     * @param model String name of the model.
+     * @return a new {@link ModelRerank}.
+     */
+    public static ModelRerank model(String model) {
+        return new ModelRerank(model);
+    }
+
+    public int getDocs() {
+        return docs;
+    }
+
+    /**
+     * Sets the number of top documents to be reranked. Default is {@value #DEFAULT_RERANK_DOCS}.
+     * @param docs positive number of documents.
+     * @return This {@link Rerank} instance.
+     */
+    public Rerank docs(int docs) {
+        if (docs <= 0) {
+            throw new IllegalArgumentException("Number of documents to rerank must be positive: " + docs);
+        }
+        this.docs = docs;
+        return this;
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    /**
+     * Sets the factor the second phase score is multiplied by before being added to the first phase score. Default
+     * is 1. Models calculate the final score themselves and do not support it, see {@link ModelRerank#weight(double)}.
+     * @param weight double factor of the second phase score.
+     * @return This {@link Rerank} instance.
+     */
+    public Rerank weight(double weight) {
+        this.weight = weight;
+        return this;
+    }
+
+    public abstract Rerank copy();
+
+    protected <R extends Rerank> R copyCommonOptions(R copy) {
+        copy.docs = this.docs;
+        copy.weight = this.weight;
+        return copy;
+    }
+
+    /**
+     * Reranking by a function expression in the syntax of the backend.
+     */
+    public static class FunctionRerank extends Rerank {
+
+        private final String function;
+
+        public FunctionRerank(String function) {
+            this.function = Objects.requireNonNull(function, "Rerank function must not be null");
+        }
+
+        public String getFunction() {
+            return function;
+        }
+
+        @Override
+        public FunctionRerank copy() {
+            return copyCommonOptions(new FunctionRerank(function));
+        }
+
+        @Override
+        public String toString() {
+            return String.format("{\"function\":\"%s\",\"docs\":%s,\"weight\":%s}", function, docs, weight);
+        }
+    }
+
+    /**
+     * Reranking by the boost functions of special sorts.
+     */
+    public static class SortRerank extends Rerank {
+
+        private final List<Sort> sorts;
+
+        public SortRerank(Sort.SpecialSort... sorts) {
+            this(Arrays.asList(sorts));
+        }
+
+        private SortRerank(List<? extends Sort> sorts) {
+            if (sorts.isEmpty()) {
+                throw new IllegalArgumentException("Sort rerank needs at least one sort");
+            }
+            this.sorts = Collections.unmodifiableList(sorts.stream().map(Sort::clone).collect(Collectors.toList()));
+        }
+
+        public List<Sort> getSorts() {
+            return sorts;
+        }
+
+        @Override
+        public SortRerank copy() {
+            return copyCommonOptions(new SortRerank(sorts));
+        }
+
+        @Override
+        public String toString() {
+            return String.format("{\"sort\":[%s],\"docs\":%s,\"weight\":%s}",
+                    sorts.stream().map(Sort::toString).collect(Collectors.joining(",")), docs, weight);
+        }
+    }
+
+    /**
+     * Reranking by a learning to rank model. Feature values which depend on the request, like the user query, are
+     * passed as external features.
+     */
+    public static class ModelRerank extends Rerank {
+
+        private final String model;
+        private final Map<String, Object> features = new LinkedHashMap<>();
+
+        public ModelRerank(String model) {
+            this.model = Objects.requireNonNull(model, "Rerank model must not be null");
+        }
+
+        public String getModel() {
+            return model;
+        }
+
+        public Map<String, Object> getFeatures() {
+            return Collections.unmodifiableMap(features);
+        }
+
+        /**
+         * Adds an external feature value to be used by the model.
+         * @param name String name of the feature.
+         * @param value value of the feature.
+         * @return This {@link ModelRerank} instance.
+         */
+        public ModelRerank feature(String name, Object value) {
+            this.features.put(name, value);
+            return this;
+        }
+
+        @Override
+        public ModelRerank docs(int docs) {
+            super.docs(docs);
+            return this;
+        }
+
+        /**
+         * Models calculate the final score themselves, so the second phase score cannot be weighted.
+         * @param weight double factor, only the default 1 is accepted.
+         * @return This {@link ModelRerank} instance.
+         * @throws IllegalArgumentException if the weight is not 1.
+         */
+        @Override
+        public ModelRerank weight(double weight) {
+            if (weight != 1.0) {
+                throw new IllegalArgumentException("Model rerank does not support a weight, the model calculates the final score: " + weight);
+            }
+            return this;
+        }
+
+        @Override
+        public ModelRerank copy() {
+            final ModelRerank copy = new ModelRerank(model);
+            copy.features.putAll(features);
+            return copyCommonOptions(copy);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("{\"model\":\"%s\",\"features\":{%s},\"docs\":%s}", model,
+                    features.entrySet().stream().map(e -> "\"" + e.getKey() + "\":\"" + e.getValue() + "\"").collect(Collectors.joining(",")),
+                    docs);
+        }
+    }
+}
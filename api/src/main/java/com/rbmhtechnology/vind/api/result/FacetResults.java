@@ -25,6 +25,7 @@ public class FacetResults {
     private HashMap<String, StatsFacetResult<?>> statsFacets;
     private HashMap<String, List<PivotFacetResult<?>>> pivotFacets;
     private Collection<SubdocumentFacetResult> subdocumentFacets;
+    private HashMap<String, HeatmapFacetResult> heatmapFacets;
 
     private DocumentFactory factory;
 
@@ -56,6 +57,32 @@ public class FacetResults {
         this.statsFacets = statsFacets;
         this.pivotFacets = pivotFacets;
         this.subdocumentFacets = subDocumentFacets;
+        this.heatmapFacets = new HashMap<>();
+    }
+
+    /**
+     * Creates a new instance of {@link FacetResults}.
+     * @param factory document factory configured with a document schema.
+     * @param termFacets term facet query results.
+     * @param typeFacet type facet query results.
+     * @param queryFacets query facet query results.
+     * @param rangeFacets range facet query results.
+     * @param statsFacets statistics facet query results.
+     * @param pivotFacets picot facet query results.
+     * @param heatmapFacets heatmap facet query results.
+     */
+    public FacetResults(DocumentFactory factory,
+                        HashMap<FieldDescriptor, TermFacetResult<?>> termFacets,
+                        TermFacetResult<String> typeFacet,
+                        HashMap<String, QueryFacetResult<?>> queryFacets,
+                        HashMap<String, RangeFacetResult<?>> rangeFacets,
+                        HashMap<String, IntervalFacetResult> intervalFacets,
+                        HashMap<String, StatsFacetResult<?>> statsFacets,
+                        HashMap<String, List<PivotFacetResult<?>>> pivotFacets,
+                        Collection<SubdocumentFacetResult> subDocumentFacets,
+                        HashMap<String, HeatmapFacetResult> heatmapFacets) {
+        this(factory, termFacets, typeFacet, queryFacets, rangeFacets, intervalFacets, statsFacets, pivotFacets, subDocumentFacets);
+        this.heatmapFacets = heatmapFacets;
     }
 
     /**
@@ -189,4 +216,21 @@ public class FacetResults {
     public Collection<SubdocumentFacetResult> getSubdocumentFacets() {
         return subdocumentFacets;
     }
+
+    /**
+     * Gets a heatmap facet query result by facet name.
+     * @param name String name of the heatmap facet.
+     * @return A {@link HeatmapFacetResult}.
+     */
+    public HeatmapFacetResult getHeatmapFacet(String name) {
+        return heatmapFacets.get(name);
+    }
+
+    /**
+     * Gets all the heatmap facet results.
+     * @return A map of name of facet and heatmap facet result.
+     */
+    public HashMap<String, HeatmapFacetResult> getHeatmapFacets() {
+        return heatmapFacets;
+    }
 }
@@ -0,0 +1,65 @@
+package com.rbmhtechnology.vind.api.result;
+
+import com.rbmhtechnology.vind.api.Document;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Group of documents sharing the same value of the collapse field of a search. The group head is the document
+ * included in the search results, while the expanded documents are the ones collapsed into it.
+ */
+public class ResultGroup {
+
+    private final Object value;
+    private final Document head;
+    private final List<Document> expanded;
+    private final long numOfExpanded;
+
+    /**
+     * Creates a new instance of {@link ResultGroup}.
+     * @param value the value of the collapse field shared by the documents of the group.
+     * @param head the document representing the group in the search results.
+     * @param expanded the retrieved collapsed documents of the group.
+     * @param numOfExpanded the total number of collapsed documents of the group.
+     */
+    public ResultGroup(Object value, Document head, List<Document> expanded, long numOfExpanded) {
+        this.value = value;
+        this.head = head;
+        this.expanded = expanded;
+        this.numOfExpanded = numOfExpanded;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public Document getHead() {
+        return head;
+    }
+
+    /**
+     * Gets the collapsed documents of the group retrieved with the search, not including the head.
+     * @return A list of documents, empty if the search does not expand the groups.
+     */
+    public List<Document> getExpanded() {
+        return Collections.unmodifiableList(expanded);
+    }
+
+    /**
+     * Gets the total number of documents collapsed into the head of the group.
+     * @return Number of collapsed documents.
+     */
+    public long getNumOfExpanded() {
+        return numOfExpanded;
+    }
+
+    @Override
+    public String toString() {
+        return "ResultGroup{" +
+                "value=" + value +
+                ", head=" + head +
+                ", expanded=" + expanded +
+                '}';
+    }
+}
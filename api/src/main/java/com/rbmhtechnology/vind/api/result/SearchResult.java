@@ -9,6 +9,9 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 /**
  * This class stores the search result documents as instances of {@link Document}.
@@ -25,6 +28,7 @@ public abstract class SearchResult {
     protected final SearchServer server;
     protected final Long queryTime;
     private Long elapsedTime;
+    private List<ResultGroup> groups = Collections.emptyList();
 
     /**
      * DEPRECATED: use the signature providing the time the query took.{@link SearchResult#SearchResult(long, long, List, FulltextSearch, FacetResults, SearchServer, DocumentFactory)}
@@ -97,6 +101,24 @@ public abstract class SearchResult {
                 '}';
     }
 
+    /**
+     * Gets the groups of the results when the search collapses them, in the same order as the results.
+     * @return A list of {@link ResultGroup}, empty if the search is not collapsed.
+     */
+    public List<ResultGroup> getGroups() {
+        return Collections.unmodifiableList(groups);
+    }
+
+    /**
+     * Sets the groups of the results of a collapsed search.
+     * @param groups A list of {@link ResultGroup} in the same order as the results.
+     * @return this instance of {@link SearchResult} with the given groups.
+     */
+    public SearchResult setGroups(List<ResultGroup> groups) {
+        this.groups = groups;
+        return this;
+    }
+
     /**
      * Gets the query faceted results.
      * @return {@link FacetResults} onject containing the different facets.
@@ -114,6 +136,36 @@ public abstract class SearchResult {
      */
     public abstract  <P> BeanSearchResult<P> toPojoResult(SearchResult searchResult, Class<P> clazz) ;
 
+    /**
+     * Copies documents, reusing the copies of documents already copied.
+     * @param documents the documents to be copied.
+     * @param copies the copies by document, updated with the new copies.
+     * @return the list of copied documents.
+     */
+    protected static List<Document> copyDocuments(List<Document> documents, Map<Document, Document> copies) {
+        return documents.stream()
+                .map(document -> copies.computeIfAbsent(document, DocumentFactory::copy))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Copies the elapsed time and the groups of this result to a copy.
+     * @param copy the copy of this result.
+     * @param copies the copies by document of the results.
+     * @param <R> type of the result.
+     * @return the given copy.
+     */
+    protected <R extends SearchResult> R copyTo(R copy, Map<Document, Document> copies) {
+        copy.setElapsedTime(this.elapsedTime);
+        copy.setGroups(this.groups.stream()
+                .map(group -> new ResultGroup(group.getValue(),
+                        Objects.nonNull(group.getHead()) ? copies.computeIfAbsent(group.getHead(), DocumentFactory::copy) : null,
+                        copyDocuments(group.getExpanded(), copies),
+                        group.getNumOfExpanded()))
+                .collect(Collectors.toList()));
+        return copy;
+    }
+
     /**
      * Gets the time the query took in the backend to be performed.
      * @return a number of milliseconds.
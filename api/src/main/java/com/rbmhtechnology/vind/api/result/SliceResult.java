@@ -8,7 +8,10 @@ import com.rbmhtechnology.vind.api.query.division.ResultSubset;
 import com.rbmhtechnology.vind.api.query.division.Slice;
 import com.rbmhtechnology.vind.model.DocumentFactory;
 
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
@@ -85,4 +88,33 @@ public class SliceResult extends SearchResult {
                 clazz
         ).setElapsedTime(searchResult.getElapsedTime());
     }
+
+    /**
+     * Creates a copy of the result with copies of the documents, so it can be used and changed independently of this
+     * result.
+     * @return A new {@link SliceResult} instance.
+     * @throws IllegalArgumentException if the documents of the result cannot be copied, see
+     * {@link DocumentFactory#isCopyable(Document)}.
+     */
+    public SliceResult copy() {
+        return copy(this.query, this.factory);
+    }
+
+    /**
+     * Creates a copy of the result with copies of the documents for another caller of an identical search, so paging
+     * and mapping of the copy are done with the search and factory of that caller.
+     * @param searchQuery The fulltext query of the caller, resulting in the same documents as the query of this result.
+     * @param docFactory document factory of the caller.
+     * @return A new {@link SliceResult} instance.
+     * @throws IllegalArgumentException if the documents of the result cannot be copied, see
+     * {@link DocumentFactory#isCopyable(Document)}.
+     */
+    public SliceResult copy(FulltextSearch searchQuery, DocumentFactory docFactory) {
+        final Map<Document, Document> copies = new IdentityHashMap<>();
+        final List<Document> documents = copyDocuments(this.results, copies);
+        final SliceResult copy = Objects.nonNull(this.queryTime) ?
+                new SliceResult(this.numOfResults, this.queryTime, documents, searchQuery, this.facetResults, this.server, docFactory) :
+                new SliceResult(this.numOfResults, documents, searchQuery, this.facetResults, this.server, docFactory);
+        return copyTo(copy, copies);
+    }
 }
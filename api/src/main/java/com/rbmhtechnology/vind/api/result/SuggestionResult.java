@@ -122,4 +122,24 @@ public class SuggestionResult {
         this.elapsedTime = elapsedTime;
         return this;
     }
+
+    /**
+     * Creates a copy of the result, which can be changed independently of this result.
+     * @return A new {@link SuggestionResult} instance.
+     */
+    public SuggestionResult copy() {
+        return copy(this.factory);
+    }
+
+    /**
+     * Creates a copy of the result for another caller of an identical suggestion search.
+     * @param factory document factory of the caller.
+     * @return A new {@link SuggestionResult} instance.
+     */
+    public SuggestionResult copy(DocumentFactory factory) {
+        final SuggestionResult copy = new SuggestionResult(new HashMap<>(this.suggestions), this.spellcheck, factory);
+        copy.queryTime = this.queryTime;
+        copy.elapsedTime = this.elapsedTime;
+        return copy;
+    }
 }
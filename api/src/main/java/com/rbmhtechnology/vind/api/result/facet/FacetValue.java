@@ -1,5 +1,8 @@
 package com.rbmhtechnology.vind.api.result.facet;
 
+import java.util.Collections;
+import java.util.Map;
+
 /**
  * Generic facet value.
  * @author Thomas Kurz (tkurz@apache.org)
@@ -9,6 +12,8 @@ public class FacetValue<T> {
 
     private T value;
     private long count;
+    private Map<String, Object> aggregations = Collections.emptyMap();
+    private Map<String, FacetResult<?>> subFacets = Collections.emptyMap();
 
     /**
      * Creates a new instance of {@link FacetValue}.
@@ -20,6 +25,20 @@ public class FacetValue<T> {
         this.count = count;
     }
 
+    /**
+     * Creates a new instance of {@link FacetValue} with the results of the nested facets of the bucket.
+     * @param value Faceted value of type T.
+     * @param count Count of documents grouped in this facet.
+     * @param aggregations Aggregation results of the bucket by aggregation name.
+     * @param subFacets Sub facet results of the bucket by facet name.
+     */
+    public FacetValue(T value, long count, Map<String, Object> aggregations, Map<String, FacetResult<?>> subFacets) {
+        this.value = value;
+        this.count = count;
+        this.aggregations = aggregations;
+        this.subFacets = subFacets;
+    }
+
     /**
      * Gets the faceted value.
      * @return T value of the facet.
@@ -36,11 +55,48 @@ public class FacetValue<T> {
         return count;
     }
 
+    /**
+     * Gets the results of the aggregations calculated on the documents of this facet value.
+     * @return Map of aggregation results by name: numbers, or a list of numbers for percentiles.
+     */
+    public Map<String, Object> getAggregations() {
+        return Collections.unmodifiableMap(aggregations);
+    }
+
+    /**
+     * Gets the result of an aggregation calculated on the documents of this facet value.
+     * @param name String name of the aggregation.
+     * @return The aggregation result or null if there is no aggregation with such name.
+     */
+    public Object getAggregation(String name) {
+        return aggregations.get(name);
+    }
+
+    /**
+     * Gets the results of the sub facets calculated on the documents of this facet value.
+     * @return Map of {@link FacetResult} by facet name.
+     */
+    public Map<String, FacetResult<?>> getSubFacets() {
+        return Collections.unmodifiableMap(subFacets);
+    }
+
+    /**
+     * Gets the result of a sub facet calculated on the documents of this facet value.
+     * @param name String name of the sub facet.
+     * @param <F> Specific type of the facet result.
+     * @return The {@link FacetResult} or null if there is no sub facet with such name.
+     */
+    public <F extends FacetResult<?>> F getSubFacet(String name) {
+        return (F) subFacets.get(name);
+    }
+
     @Override
     public String toString() {
         return "FacetValue{" +
                 "value=" + value +
                 ", count=" + count +
+                (aggregations.isEmpty() ? "" : ", aggregations=" + aggregations) +
+                (subFacets.isEmpty() ? "" : ", subFacets=" + subFacets) +
                 '}';
     }
 }
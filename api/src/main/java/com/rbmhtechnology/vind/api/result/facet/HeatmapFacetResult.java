@@ -0,0 +1,88 @@
+package com.rbmhtechnology.vind.api.result.facet;
+
+import com.rbmhtechnology.vind.model.value.LatLng;
+
+/**
+ * Class to store the heatmap facet response: a grid of document counts over a bounding box. Rows go from north to
+ * south and columns from west to east.
+ */
+public class HeatmapFacetResult implements FacetResult<LatLng> {
+
+    private final int gridLevel;
+    private final int rows;
+    private final int columns;
+    private final LatLng upperLeft;
+    private final LatLng lowerRight;
+    private final int[][] counts;
+
+    /**
+     * Creates a new instance of {@link HeatmapFacetResult}.
+     * @param gridLevel precision level of the grid.
+     * @param rows number of rows of the grid.
+     * @param columns number of columns of the grid.
+     * @param upperLeft {@link LatLng} upper left corner of the grid, which may exceed the requested bounding box as
+     *                  it is aligned to the grid cells.
+     * @param lowerRight {@link LatLng} lower right corner of the grid.
+     * @param counts document counts per row and column. Rows without documents may be null.
+     */
+    public HeatmapFacetResult(int gridLevel, int rows, int columns, LatLng upperLeft, LatLng lowerRight, int[][] counts) {
+        this.gridLevel = gridLevel;
+        this.rows = rows;
+        this.columns = columns;
+        this.upperLeft = upperLeft;
+        this.lowerRight = lowerRight;
+        this.counts = counts;
+    }
+
+    public int getGridLevel() {
+        return gridLevel;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public LatLng getUpperLeft() {
+        return upperLeft;
+    }
+
+    public LatLng getLowerRight() {
+        return lowerRight;
+    }
+
+    /**
+     * Gets the raw count grid. Rows without documents are null to keep the result compact.
+     * @return document counts per row and column.
+     */
+    public int[][] getCounts() {
+        return counts;
+    }
+
+    /**
+     * Gets the number of documents located in a cell of the grid.
+     * @param row row of the cell, 0 being the northernmost.
+     * @param column column of the cell, 0 being the westernmost.
+     * @return number of documents in the cell.
+     */
+    public int getCount(int row, int column) {
+        if (row < 0 || row >= rows || column < 0 || column >= columns) {
+            throw new IndexOutOfBoundsException("Cell [" + row + "," + column + "] is out of the " + rows + "x" + columns + " grid");
+        }
+        return counts[row] != null ? counts[row][column] : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "HeatmapFacetResult{" +
+                "gridLevel=" + gridLevel +
+                ", rows=" + rows +
+                ", columns=" + columns +
+                ", upperLeft=" + upperLeft +
+                ", lowerRight=" + lowerRight +
+                '}';
+    }
+}
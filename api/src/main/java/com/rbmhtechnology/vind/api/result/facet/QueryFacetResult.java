@@ -2,6 +2,9 @@ package com.rbmhtechnology.vind.api.result.facet;
 
 import com.rbmhtechnology.vind.api.query.filter.Filter;
 
+import java.util.Collections;
+import java.util.Map;
+
 /**
  * Class to store the query facet response.
  *
@@ -12,6 +15,8 @@ public class QueryFacetResult<T> implements FacetResult<T> {
 
     private Filter filter;
     private int count;
+    private Map<String, Object> aggregations = Collections.emptyMap();
+    private Map<String, FacetResult<?>> subFacets = Collections.emptyMap();
 
     /**
      * Creates a new instance of{@link  QueryFacetResult}.
@@ -24,6 +29,19 @@ public class QueryFacetResult<T> implements FacetResult<T> {
         this.count = count;
     }
 
+    /**
+     * Creates a new instance of{@link  QueryFacetResult} with the results of its nested facets.
+     * @param filter {@link Filter} query to apply to the facet search.
+     * @param count  number of documents being by the query.
+     * @param aggregations Aggregation results by aggregation name.
+     * @param subFacets Sub facet results by facet name.
+     */
+    public QueryFacetResult(Filter filter, int count, Map<String, Object> aggregations, Map<String, FacetResult<?>> subFacets) {
+        this(filter, count);
+        this.aggregations = aggregations;
+        this.subFacets = subFacets;
+    }
+
     /**
      * Get the configured {@link Filter}.
      * @return {@link Filter}.
@@ -39,4 +57,20 @@ public class QueryFacetResult<T> implements FacetResult<T> {
     public int getCount() {
         return count;
     }
+
+    /**
+     * Gets the results of the aggregations calculated on the documents matching the query.
+     * @return Map of aggregation results by name: numbers, or a list of numbers for percentiles.
+     */
+    public Map<String, Object> getAggregations() {
+        return Collections.unmodifiableMap(aggregations);
+    }
+
+    /**
+     * Gets the results of the sub facets calculated on the documents matching the query.
+     * @return Map of {@link FacetResult} by facet name.
+     */
+    public Map<String, FacetResult<?>> getSubFacets() {
+        return Collections.unmodifiableMap(subFacets);
+    }
 }
@@ -141,6 +141,14 @@ public class StatsFacetResult<T> implements FacetResult<T> {
     public Map<Double, Double> getPercentiles() {
         return percentiles;
     }
+    /**
+     * Gets the approximated value of a percentile requested in the query.
+     * @param percentile percentage of sample requested.
+     * @return value of the percentile or null if it was not requested.
+     */
+    public Double getPercentile(double percentile) {
+        return percentiles != null ? percentiles.get(percentile) : null;
+    }
     /**
      * Gets the List of distinct values on the field.
      * @return List of distinct values on the field.
@@ -11,6 +11,7 @@ import java.util.List;
 public class TermFacetResult<T> implements FacetResult<T> {
 
     private List<FacetValue<T>> values;
+    private Long numBuckets;
 
     /**
      * Creates a new instance of {@link TermFacetResult}.
@@ -27,6 +28,16 @@ public class TermFacetResult<T> implements FacetResult<T> {
         this.values = values;
     }
 
+    /**
+     * Creates a new instance of {@link TermFacetResult}.
+     * @param values List of {@link FacetValue} containing the term facet results.
+     * @param numBuckets total number of distinct terms of the facet, or null if it was not requested.
+     */
+    public TermFacetResult(List<FacetValue<T>> values, Long numBuckets) {
+        this.values = values;
+        this.numBuckets = numBuckets;
+    }
+
     /**
      * Gets the list of {@link FacetValue}.
      * @return List of {@link FacetValue}.
@@ -35,6 +46,15 @@ public class TermFacetResult<T> implements FacetResult<T> {
         return values;
     }
 
+    /**
+     * Gets the total number of distinct terms of the facet, useful to page through the terms. It is only available
+     * when requested with {@link com.rbmhtechnology.vind.api.query.facet.TermFacetOption#setNumBuckets(Boolean)}.
+     * @return total number of terms or null if not requested.
+     */
+    public Long getNumBuckets() {
+        return numBuckets;
+    }
+
     public TermFacetResult<T> addFacetValue(FacetValue<T> value) {
         values.add(value);
         return this;
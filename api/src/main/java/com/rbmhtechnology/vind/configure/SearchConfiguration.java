@@ -27,12 +27,41 @@ public class SearchConfiguration {
     public static final String SERVER_SOLR_HOST = "server.solr.host";
     @Deprecated
     public static final String SERVER_SOLR_PROVIDER = "server.solr.provider";
-
+    public static final String SERVER_SOLR_VIND_HANDLER = "server.solr.vind.handler";
+    public static final String SERVER_SOLR_ASYNC_CONNECTIONS = "server.solr.async.connections";
+    public static final String SERVER_SOLR_REPLICAS = "server.solr.replicas";
+    public static final String SERVER_SOLR_REPLICA_ROUTING = "server.solr.replica.routing";
+    public static final String SERVER_SOLR_HEDGING = "server.solr.hedging";
+    public static final String SERVER_LIMIT_ALGORITHM = "server.limit.algorithm";
+    public static final String SERVER_LIMIT_INITIAL = "server.limit.initial";
+    public static final String SERVER_LIMIT_MIN = "server.limit.min";
+    public static final String SERVER_LIMIT_MAX = "server.limit.max";
+    public static final String SERVER_LIMIT_WAIT = "server.limit.wait";
+    public static final String SERVER_CIRCUIT_FAILURES = "server.circuit.failures";
+    public static final String SERVER_CIRCUIT_OPEN = "server.circuit.open";
+    public static final String SERVER_LANE_BULK_THREADS = "server.lane.bulk.threads";
+    public static final String SERVER_LANE_BULK_CONCURRENCY = "server.lane.bulk.concurrency";
+    public static final String SERVER_LANE_BULK_RATE = "server.lane.bulk.rate";
+    public static final String SERVER_LANE_BULK_LATENCY = "server.lane.bulk.latency";
+
+    public static final String APPLICATION_EXECUTOR = "application.executor";
     public static final String APPLICATION_EXECUTOR_THREADS = "application.executor.threads";
     public static final String SEARCH_RESULT_PAGESIZE = "search.result.pagesize";
     public static final String SEARCH_RESULT_SHOW_SCORE = "search.result.showScore";
     public static final String SEARCH_RESULT_FACET_INCLUDE_EMPTY = "search.result.facet.includeEmpty";
     public static final String SEARCH_RESULT_FACET_LENGTH = "search.result.facet.length";
+    public static final String SEARCH_FILTER_DATE_ROUNDING = "search.filter.date.rounding";
+    public static final String SEARCH_GUARD_OFFSET_MAX = "search.guard.offset.max";
+    public static final String SEARCH_GUARD_OFFSET_POLICY = "search.guard.offset.policy";
+    public static final String SEARCH_GUARD_FACET_LIMIT_MAX = "search.guard.facet.limit.max";
+    public static final String SEARCH_GUARD_FACET_LIMIT_POLICY = "search.guard.facet.limit.policy";
+    public static final String SEARCH_GUARD_FILTER_TERMS_MAX = "search.guard.filter.terms.max";
+    public static final String SEARCH_GUARD_FILTER_TERMS_POLICY = "search.guard.filter.terms.policy";
+    public static final String SEARCH_GUARD_CHILDREN_MAX = "search.guard.children.max";
+    public static final String SEARCH_GUARD_CHILDREN_POLICY = "search.guard.children.policy";
+    public static final String SEARCH_GUARD_WILDCARD_MAX = "search.guard.wildcard.max";
+    public static final String SEARCH_GUARD_WILDCARD_POLICY = "search.guard.wildcard.policy";
+    public static final String SEARCH_GUARD_COST_MAX = "search.guard.cost.max";
 
     private static Logger log = LoggerFactory.getLogger(SearchConfiguration.class);
 
@@ -144,6 +173,10 @@ public class SearchConfiguration {
         set(key, String.valueOf(value));
     }
 
+    public static void remove(String key) {
+        PROPERTIES.remove(key);
+    }
+
     private static List<String> getResourceFiles(String path) throws IOException {
         List<String> filenames = new ArrayList<>();
 
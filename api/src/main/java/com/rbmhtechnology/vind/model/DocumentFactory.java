@@ -102,6 +102,31 @@ public class DocumentFactory {
         return updatable;
     }
 
+    /**
+     * Checks whether a document can be copied with {@link #copy(Document)}, which is the case for documents created by
+     * a document factory, having only children created by a document factory.
+     * @param document the document to check.
+     * @return true if the document can be copied, false otherwise.
+     */
+    public static boolean isCopyable(Document document) {
+        return document instanceof DocumentImpl &&
+                ((DocumentImpl) document).children.stream().allMatch(DocumentFactory::isCopyable);
+    }
+
+    /**
+     * Creates a deep copy of a document, including its values and children, which can be changed independently of the
+     * given document.
+     * @param document the document to copy, created by a document factory.
+     * @return A new {@link Document} instance.
+     * @throws IllegalArgumentException if the document cannot be copied, see {@link #isCopyable(Document)}.
+     */
+    public static Document copy(Document document) {
+        if (!isCopyable(document)) {
+            throw new IllegalArgumentException("Document of type " + document.getClass().getName() + " cannot be copied");
+        }
+        return ((DocumentImpl) document).copy();
+    }
+
     @Override
     public String toString(){
         final String serialiceString = "{" +
@@ -756,6 +781,34 @@ public class DocumentFactory {
             return collect;
         }
 
+        private DocumentImpl copy() {
+            final DocumentImpl copy = new DocumentImpl(this.id, this.type);
+            this.values.forEach((field, contextValues) -> {
+                final Map<String, Object> copiedValues = new HashMap<>();
+                contextValues.forEach((context, value) -> copiedValues.put(context, copyValue(value)));
+                copy.values.put(field, copiedValues);
+            });
+            copy.context.putAll(this.context);
+            this.children.forEach(child -> copy.children.add(((DocumentImpl) child).copy()));
+            copy.score = this.score;
+            copy.distance = this.distance;
+            copy.childCount = this.childCount;
+            return copy;
+        }
+
+        private Object copyValue(Object value) {
+            if (value instanceof List) {
+                return new ArrayList<>((List<?>) value);
+            } else if (value instanceof Set) {
+                return new LinkedHashSet<>((Set<?>) value);
+            } else if (value instanceof Collection) {
+                return new ArrayList<>((Collection<?>) value);
+            } else if (value instanceof Date) {
+                return ((Date) value).clone();
+            }
+            return value;
+        }
+
         @Override
         public String toString() {
             return "DocumentImpl{" +
@@ -55,6 +55,7 @@ public abstract class FieldDescriptor<T> {
     private boolean suggest;
     protected boolean sort;
     private boolean contextualized;
+    private boolean inPlace;
 
     protected FieldDescriptor(String fieldName, Class<T> type) {
         if (!checkFieldType(type)) {
@@ -227,6 +228,19 @@ public abstract class FieldDescriptor<T> {
         this.update = update;
     }
 
+    protected void setInPlace(boolean inPlace) {
+        this.inPlace = inPlace;
+    }
+
+    /**
+     * Checks if the field is updated in place. In place fields are neither indexed nor stored, their values are kept
+     * in a column store which can be updated without reindexing the document.
+     * @return True if it is configured to be updated in place.
+     */
+    public boolean isInPlace() {
+        return inPlace;
+    }
+
     public boolean isContextualized() {
         return contextualized;
     }
@@ -20,6 +20,8 @@ import java.util.function.Function;
  * - facet: whether the field can be used for faceting or not.
  * - suggest: whether the field can be used for suggestions or not.
  *
+ * Single valued numeric fields can also be configured to be updated in place.
+ *
  * The field can also have metadata properties defined by the user.
  * By default a new field is stored and indexed with no language and a boost of 1 (no boosting).
  *
@@ -34,6 +36,7 @@ public class FieldDescriptorBuilder<T> {
     private float boost = 1;
     private boolean facet = false;
     private boolean suggest = false;
+    private boolean inPlace = false;
     private Map<String,String> metadata = new HashMap<>();
 
     /**
@@ -42,6 +45,7 @@ public class FieldDescriptorBuilder<T> {
      * @return A multivalued date field descriptor.
      */
     public MultiValueFieldDescriptor.DateFieldDescriptor<ZonedDateTime> buildMultivaluedDateField (String field){
+        checkNotInPlace(field);
         MultiValueFieldDescriptor.DateFieldDescriptor<ZonedDateTime> dateFieldDescriptor = new MultiValueFieldDescriptor.DateFieldDescriptor<>(field, ZonedDateTime.class);
         dateFieldDescriptor.setStored(stored);
         dateFieldDescriptor.setIndexed(indexed);
@@ -71,6 +75,7 @@ public class FieldDescriptorBuilder<T> {
      * @return A multivalued date field descriptor.
      */
     public MultiValueFieldDescriptor.DateFieldDescriptor<ZonedDateTime> buildSortableMultivaluedDateField (String field, Function<Collection<ZonedDateTime>,ZonedDateTime> sortLambda){
+        checkNotInPlace(field);
         MultiValueFieldDescriptor.DateFieldDescriptor<ZonedDateTime> dateFieldDescriptor = new MultiValueFieldDescriptor.DateFieldDescriptor<>(field, ZonedDateTime.class);
         dateFieldDescriptor.setStored(stored);
         dateFieldDescriptor.setIndexed(indexed);
@@ -91,6 +96,7 @@ public class FieldDescriptorBuilder<T> {
      * @return A multivalued date field descriptor.
      */
     public MultiValueFieldDescriptor.UtilDateFieldDescriptor<Date> buildMultivaluedUtilDateField (String field){
+        checkNotInPlace(field);
         MultiValueFieldDescriptor.UtilDateFieldDescriptor<Date> dateFieldDescriptor = new MultiValueFieldDescriptor.UtilDateFieldDescriptor<>(field, Date.class);
         dateFieldDescriptor.setStored(stored);
         dateFieldDescriptor.setIndexed(indexed);
@@ -120,6 +126,7 @@ public class FieldDescriptorBuilder<T> {
      * @return A multivalued date field descriptor.
      */
     public MultiValueFieldDescriptor.UtilDateFieldDescriptor<Date> buildSortableMultivaluedUtilDateField (String field, Function<Collection<Date>,Date> sortLambda){
+        checkNotInPlace(field);
         MultiValueFieldDescriptor.UtilDateFieldDescriptor<Date> dateFieldDescriptor = new MultiValueFieldDescriptor.UtilDateFieldDescriptor<>(field, Date.class);
         dateFieldDescriptor.setStored(stored);
         dateFieldDescriptor.setIndexed(indexed);
@@ -140,6 +147,7 @@ public class FieldDescriptorBuilder<T> {
      * @return A single-valued date field descriptor.
      */
     public SingleValueFieldDescriptor.DateFieldDescriptor<ZonedDateTime> buildDateField (String field){
+        checkNotInPlace(field);
         SingleValueFieldDescriptor.DateFieldDescriptor<ZonedDateTime> dateFieldDescriptor = new SingleValueFieldDescriptor.DateFieldDescriptor<>(field,ZonedDateTime.class);
         dateFieldDescriptor.setStored(stored);
         dateFieldDescriptor.setIndexed(indexed);
@@ -159,6 +167,7 @@ public class FieldDescriptorBuilder<T> {
      * @return A single-valued date field descriptor.
      */
     public SingleValueFieldDescriptor.UtilDateFieldDescriptor<Date> buildUtilDateField (String field){
+        checkNotInPlace(field);
         SingleValueFieldDescriptor.UtilDateFieldDescriptor<Date> dateFieldDescriptor = new SingleValueFieldDescriptor.UtilDateFieldDescriptor<>(field,Date.class);
         dateFieldDescriptor.setStored(stored);
         dateFieldDescriptor.setIndexed(indexed);
@@ -180,6 +189,7 @@ public class FieldDescriptorBuilder<T> {
      * @return A multivalued numeric field descriptor.
      */
     public <T extends Number> MultiValueFieldDescriptor.NumericFieldDescriptor<T> buildSortableMultivaluedNumericField (String field, Class<T> clazz, Function<Collection<T>,T> sortLambda){
+        checkNotInPlace(field);
         MultiValueFieldDescriptor.NumericFieldDescriptor<T> numericFieldDescriptor = new MultiValueFieldDescriptor.NumericFieldDescriptor<>(field, clazz);
         numericFieldDescriptor.setStored(stored);
         numericFieldDescriptor.setIndexed(indexed);
@@ -201,6 +211,7 @@ public class FieldDescriptorBuilder<T> {
      * @return A multivalued numeric field descriptor.
      */
     public <T extends Number> MultiValueFieldDescriptor.NumericFieldDescriptor<T> buildMultivaluedNumericField (String field, Class<T> clazz){
+        checkNotInPlace(field);
         MultiValueFieldDescriptor.NumericFieldDescriptor<T> numericFieldDescriptor = new MultiValueFieldDescriptor.NumericFieldDescriptor<T>(field, clazz);
         numericFieldDescriptor.setStored(stored);
         numericFieldDescriptor.setIndexed(indexed);
@@ -229,6 +240,7 @@ public class FieldDescriptorBuilder<T> {
      * @return A multivalued numeric field descriptor.
      */
     public <T extends Number> MultiValueFieldDescriptor.NumericFieldDescriptor<Number> buildMultivaluedNumericField (String field){
+        checkNotInPlace(field);
         return this.buildMultivaluedNumericField(field, Number.class);
     }
 
@@ -249,6 +261,7 @@ public class FieldDescriptorBuilder<T> {
         numericFieldDescriptor.setFacet(facet);
         numericFieldDescriptor.setSuggest(suggest);
         numericFieldDescriptor.setMetadata(metadata);
+        numericFieldDescriptor.setInPlace(inPlace);
         return numericFieldDescriptor;
     }
     /**
@@ -266,6 +279,7 @@ public class FieldDescriptorBuilder<T> {
      * @return A multivalued text field descriptor.
      */
     public MultiValueFieldDescriptor.TextFieldDescriptor<String> buildMultivaluedTextField (String field){
+        checkNotInPlace(field);
         MultiValueFieldDescriptor.TextFieldDescriptor<String> textFieldDescriptor = new MultiValueFieldDescriptor.TextFieldDescriptor<>(field, String.class);
         textFieldDescriptor.setStored(stored);
         textFieldDescriptor.setIndexed(indexed);
@@ -295,6 +309,7 @@ public class FieldDescriptorBuilder<T> {
      * @return A multivalued text field descriptor.
      */
     public MultiValueFieldDescriptor.TextFieldDescriptor<String> buildSortableMultivaluedTextField (String field, Function<Collection<String>, String> sortLambda){
+        checkNotInPlace(field);
         MultiValueFieldDescriptor.TextFieldDescriptor<String> textFieldDescriptor = new MultiValueFieldDescriptor.TextFieldDescriptor<>(field, String.class);
         textFieldDescriptor.setStored(stored);
         textFieldDescriptor.setIndexed(indexed);
@@ -315,6 +330,7 @@ public class FieldDescriptorBuilder<T> {
      * @return A single valued text field descriptor.
      */
     public SingleValueFieldDescriptor.TextFieldDescriptor<String> buildTextField (String field){
+        checkNotInPlace(field);
         SingleValueFieldDescriptor.TextFieldDescriptor<String> textFieldDescriptor = new SingleValueFieldDescriptor.TextFieldDescriptor<>(field, String.class);
         textFieldDescriptor.setStored(stored);
         textFieldDescriptor.setIndexed(indexed);
@@ -334,6 +350,7 @@ public class FieldDescriptorBuilder<T> {
      * @return A multivalued binary field descriptor.
      */
     public MultiValueFieldDescriptor.BinaryFieldDescriptor<ByteBuffer> buildMultivaluedBinaryField (String field){
+        checkNotInPlace(field);
         MultiValueFieldDescriptor.BinaryFieldDescriptor<ByteBuffer> binaryFieldDescriptor = new MultiValueFieldDescriptor.BinaryFieldDescriptor<>(field, ByteBuffer.class);
         binaryFieldDescriptor.setStored(true);
         binaryFieldDescriptor.setIndexed(false);
@@ -354,6 +371,7 @@ public class FieldDescriptorBuilder<T> {
      * @return A single valued binary field descriptor.
      */
     public SingleValueFieldDescriptor.BinaryFieldDescriptor<ByteBuffer> buildBinaryField (String field){
+        checkNotInPlace(field);
         SingleValueFieldDescriptor.BinaryFieldDescriptor<ByteBuffer> binaryFieldDescriptor = new SingleValueFieldDescriptor.BinaryFieldDescriptor<>(field, ByteBuffer.class);
         binaryFieldDescriptor.setStored(true);
         binaryFieldDescriptor.setIndexed(false);
@@ -369,6 +387,7 @@ public class FieldDescriptorBuilder<T> {
     }
 
     public SingleValueFieldDescriptor.LocationFieldDescriptor<LatLng> buildLocationField (String field){
+        checkNotInPlace(field);
         SingleValueFieldDescriptor.LocationFieldDescriptor<LatLng> locationFieldDescriptor = new SingleValueFieldDescriptor.LocationFieldDescriptor<>(field, LatLng.class);
         locationFieldDescriptor.setStored(stored);
         locationFieldDescriptor.setIndexed(indexed);
@@ -383,6 +402,7 @@ public class FieldDescriptorBuilder<T> {
     }
 
     public MultiValueFieldDescriptor.LocationFieldDescriptor<LatLng> buildMultivaluedLocationField (String field){
+        checkNotInPlace(field);
         MultiValueFieldDescriptor.LocationFieldDescriptor<LatLng> locationFieldDescriptor = new MultiValueFieldDescriptor.LocationFieldDescriptor<>(field, LatLng.class);
         locationFieldDescriptor.setStored(stored);
         locationFieldDescriptor.setIndexed(indexed);
@@ -466,6 +486,20 @@ public class FieldDescriptorBuilder<T> {
         return this;
     }
 
+    /**
+     * Sets the field to be updated in place or not. In place fields are neither indexed nor stored, but kept in a
+     * column store which can be updated without reindexing the whole document, which suits frequently changing values
+     * like counters. They can be retrieved, sorted, faceted and filtered on, also without being flagged as facet, but
+     * not searched by text nor suggested. Filters on in place fields are evaluated on the column store, which is slower
+     * than on indexed fields for large indexes. Only single valued numeric fields can be updated in place.
+     * @param inPlace True to configure the field to be updated in place.
+     * @return the {@link FieldDescriptorBuilder} with the new configuration.
+     */
+    public FieldDescriptorBuilder<T> setInPlace(boolean inPlace) {
+        this.inPlace = inPlace;
+        return this;
+    }
+
     /**
      * Add metadata to the field.
      * @param name metadata property name.
@@ -476,4 +510,10 @@ public class FieldDescriptorBuilder<T> {
         this.metadata.put(name, value);
         return this;
     }
+
+    private void checkNotInPlace(String field) {
+        if (inPlace) {
+            throw new IllegalArgumentException("Field '" + field + "' can not be updated in place: only single valued numeric fields are supported");
+        }
+    }
 }
@@ -0,0 +1,128 @@
+package com.rbmhtechnology.vind.api.guard;
+
+import com.rbmhtechnology.vind.api.query.FulltextSearch;
+import com.rbmhtechnology.vind.api.query.Search;
+import com.rbmhtechnology.vind.api.query.division.Page;
+import com.rbmhtechnology.vind.api.query.division.Slice;
+import com.rbmhtechnology.vind.api.query.facet.Facet;
+import com.rbmhtechnology.vind.api.query.facet.TermFacetOption;
+import com.rbmhtechnology.vind.api.query.filter.Filter;
+import com.rbmhtechnology.vind.model.FieldDescriptorBuilder;
+import com.rbmhtechnology.vind.model.SingleValueFieldDescriptor;
+import org.junit.Test;
+
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class QueryGuardTest {
+
+    @Test
+    public void testEstimate() {
+        final SingleValueFieldDescriptor.TextFieldDescriptor<String> tags = new FieldDescriptorBuilder().buildTextField("tags");
+        final FulltextSearch search = Search.fulltext("*ello world").slice(100, 20)
+                .filter(Filter.or(Filter.or(Filter.eq("a", "1"), Filter.eq("b", "2")), Filter.terms(tags, "x", "y", "z")))
+                .facet(new TermFacetOption().setLimit(-1), "category")
+                .facet("type");
+
+        final QueryCost cost = new QueryGuard().estimate(search);
+        assertEquals(100, cost.getOffset());
+        assertEquals(20, cost.getRows());
+        assertEquals(5, cost.getFilterTerms());
+        assertEquals(QueryGuard.UNLIMITED_FACET_BUCKETS + search.getFacetLimit(), cost.getFacetBuckets());
+        assertEquals(0, cost.getChildrenSearches());
+        assertEquals(1, cost.getLeadingWildcards());
+        assertEquals(120 + cost.getFacetBuckets() + 5 * QueryCost.FILTER_TERM_COST + QueryCost.LEADING_WILDCARD_COST,
+                cost.getTotal());
+    }
+
+    @Test
+    public void testAllowed() {
+        final FulltextSearch search = Search.fulltext("hello wor*").page(3, 10).facet("category");
+        final QueryGuard.Result result = new QueryGuard().check(search);
+
+        assertSame(search, result.getSearch());
+        assertFalse(result.isClamped());
+    }
+
+    @Test
+    public void testRejectOffset() {
+        final QueryGuard guard = new QueryGuard();
+        try {
+            guard.check(Search.fulltext().page(20000, 10));
+            fail("Expected rejection of deep offset");
+        } catch (QueryRejectedException e) {
+            assertEquals(QueryGuard.Rule.Offset, e.getRule());
+        }
+    }
+
+    @Test
+    public void testClamp() {
+        final QueryGuard guard = new QueryGuard()
+                .setPolicy(QueryGuard.Rule.Offset, QueryGuard.Policy.Clamp)
+                .setLimit(QueryGuard.Rule.FacetLimit, 100);
+
+        final TermFacetOption option = new TermFacetOption().setLimit(-1);
+        final FulltextSearch search = Search.fulltext("*ello AND ?orld *").page(20000, 30)
+                .facet(option, "category")
+                .setFacetLimit(500);
+
+        final QueryGuard.Result result = guard.check(search);
+        assertThat(result.getClamped(), contains(QueryGuard.Rule.Offset, QueryGuard.Rule.FacetLimit, QueryGuard.Rule.LeadingWildcard));
+
+        final FulltextSearch clamped = result.getSearch();
+        final Page page = (Page) clamped.getResultSet();
+        assertEquals(30, page.getPagesize());
+        assertTrue(page.getOffset() <= 10000);
+        assertTrue(page.getOffset() > 10000 - 30);
+        assertEquals(100, clamped.getFacetLimit());
+        assertEquals(100, (int) ((Facet.TermFacet<?>) clamped.getFacets().get("category")).getOption().getLimit());
+        assertEquals("ello AND orld *", clamped.getSearchString());
+
+        //the checked search is not changed
+        assertEquals(20000, ((Page) search.getResultSet()).getPage());
+        assertEquals(500, search.getFacetLimit());
+        assertEquals(-1, (int) option.getLimit());
+        assertEquals("*ello AND ?orld *", search.getSearchString());
+
+        final QueryGuard.Result slice = guard.check(Search.fulltext().slice(50000, 10));
+        assertEquals(10000, ((Slice) slice.getSearch().getResultSet()).getOffset());
+    }
+
+    @Test
+    public void testRejectFilterTermsAndCost() {
+        final Filter filter = IntStream.range(0, 2000).mapToObj(i -> Filter.eq("id", "id" + i)).reduce(Filter::or).get();
+        final FulltextSearch search = Search.fulltext().filter(filter);
+
+        try {
+            new QueryGuard().check(search);
+            fail("Expected rejection of huge filter");
+        } catch (QueryRejectedException e) {
+            assertEquals(QueryGuard.Rule.FilterTerms, e.getRule());
+        }
+
+        final QueryGuard guard = new QueryGuard()
+                .setPolicy(QueryGuard.Rule.FilterTerms, QueryGuard.Policy.Allow)
+                .setLimit(QueryGuard.Rule.Cost, 10000)
+                .setPolicy(QueryGuard.Rule.Cost, QueryGuard.Policy.Reject);
+        try {
+            guard.check(search);
+            fail("Expected rejection of expensive search");
+        } catch (QueryRejectedException e) {
+            assertEquals(QueryGuard.Rule.Cost, e.getRule());
+        }
+        assertThat(guard.check(Search.fulltext()).getClamped(), empty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testClampNotSupported() {
+        new QueryGuard().setPolicy(QueryGuard.Rule.Cost, QueryGuard.Policy.Clamp);
+    }
+}
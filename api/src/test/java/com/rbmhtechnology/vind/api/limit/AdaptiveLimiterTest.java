@@ -0,0 +1,113 @@
+package com.rbmhtechnology.vind.api.limit;
+
+import org.junit.Test;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveLimiterTest {
+
+    @Test
+    public void testRejectWhenLimitExhausted() {
+        final AdaptiveLimiter limiter = new AdaptiveLimiter(new AimdLimit(2, 1, 10), 0, TimeUnit.MILLISECONDS);
+
+        final Optional<AdaptiveLimiter.Permit> first = limiter.acquire();
+        final Optional<AdaptiveLimiter.Permit> second = limiter.acquire();
+        assertTrue(first.isPresent());
+        assertTrue(second.isPresent());
+        assertFalse(limiter.tryAcquire().isPresent());
+        assertEquals(0, limiter.getRejectedCount());
+        assertFalse(limiter.acquire().isPresent());
+        assertEquals(1, limiter.getRejectedCount());
+
+        first.get().success();
+        first.get().success();
+        assertEquals(1, limiter.getInflight());
+        assertTrue(limiter.acquire().isPresent());
+    }
+
+    @Test
+    public void testWaitForReleasedSlot() throws InterruptedException {
+        final AdaptiveLimiter limiter = new AdaptiveLimiter(new AimdLimit(1, 1, 1), 5, TimeUnit.SECONDS);
+        final AdaptiveLimiter.Permit permit = limiter.acquire().get();
+
+        final Thread releasing = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            permit.success();
+        });
+        releasing.start();
+
+        assertTrue(limiter.acquire().isPresent());
+        releasing.join();
+        assertEquals(0, limiter.getRejectedCount());
+    }
+
+    @Test
+    public void testLatencyAgesOut() throws InterruptedException {
+        final AdaptiveLimiter limiter = new AdaptiveLimiter(new AimdLimit(1, 1, 1), 0, TimeUnit.MILLISECONDS);
+        assertEquals(0, limiter.getLatency(1, TimeUnit.MINUTES), 0);
+
+        final AdaptiveLimiter.Permit permit = limiter.acquire().get();
+        Thread.sleep(20);
+        permit.success();
+        assertThat(limiter.getLatency(1, TimeUnit.MINUTES), greaterThan(0d));
+
+        Thread.sleep(20);
+        assertEquals(0, limiter.getLatency(10, TimeUnit.MILLISECONDS), 0);
+        assertThat(limiter.getLatency(), greaterThan(0d));
+    }
+
+    @Test
+    public void testAimdLimit() {
+        final AdaptiveLimiter limiter = new AdaptiveLimiter(new AimdLimit(10, 2, 11), 0, TimeUnit.MILLISECONDS);
+
+        //the limit grows only if it is used
+        limiter.acquire().get().success();
+        assertEquals(10, limiter.getLimit());
+
+        final AdaptiveLimiter.Permit[] permits = new AdaptiveLimiter.Permit[5];
+        for (int i = 0; i < permits.length; i++) {
+            permits[i] = limiter.acquire().get();
+        }
+        permits[0].success();
+        assertEquals(11, limiter.getLimit());
+        permits[1].success();
+        assertEquals(11, limiter.getLimit());
+
+        permits[2].dropped();
+        assertEquals(9, limiter.getLimit());
+
+        permits[3].reject();
+        assertEquals(9, limiter.getLimit());
+        assertEquals(1, limiter.getRejectedCount());
+    }
+
+    @Test
+    public void testGradientLimit() {
+        final GradientLimit algorithm = new GradientLimit(20, 1, 100);
+        final long rtt = TimeUnit.MILLISECONDS.toNanos(10);
+
+        int limit = algorithm.getInitialLimit();
+        for (int i = 0; i < 20; i++) {
+            limit = algorithm.update(limit, rtt, limit, false);
+        }
+        assertThat(limit, greaterThan(20));
+
+        final int stable = limit;
+        for (int i = 0; i < 20; i++) {
+            limit = algorithm.update(limit, rtt * 10, limit, false);
+        }
+        assertThat(limit, lessThan(stable));
+    }
+}
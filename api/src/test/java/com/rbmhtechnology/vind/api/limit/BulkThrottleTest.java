@@ -0,0 +1,48 @@
+package com.rbmhtechnology.vind.api.limit;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+public class BulkThrottleTest {
+
+    @Test
+    public void testRate() {
+        final BulkThrottle throttle = new BulkThrottle(100, () -> 0, 0, 0, TimeUnit.MILLISECONDS);
+
+        final long start = System.nanoTime();
+        throttle.acquire(10);
+        throttle.acquire(10);
+        throttle.acquire(10);
+        //the first request is free, the following ones pay for the previous
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), greaterThanOrEqualTo(150L));
+
+        throttle.setRate(0);
+        final long unlimited = System.nanoTime();
+        throttle.acquire(1000);
+        throttle.acquire(1000);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - unlimited), lessThan(100L));
+    }
+
+    @Test
+    public void testInteractiveLatency() {
+        final AtomicLong latency = new AtomicLong(500);
+        final BulkThrottle throttle = new BulkThrottle(0, latency::get, 100, 200, TimeUnit.MILLISECONDS);
+
+        //paused until the max. pause has passed
+        final long start = System.nanoTime();
+        throttle.acquire(1);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), greaterThanOrEqualTo(200L));
+        assertEquals(1, throttle.getPauseCount());
+
+        latency.set(50);
+        throttle.acquire(1);
+        assertEquals(1, throttle.getPauseCount());
+    }
+}
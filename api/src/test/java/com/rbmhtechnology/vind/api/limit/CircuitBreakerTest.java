@@ -0,0 +1,49 @@
+package com.rbmhtechnology.vind.api.limit;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CircuitBreakerTest {
+
+    @Test
+    public void testOpenAndClose() {
+        final AtomicLong clock = new AtomicLong();
+        final CircuitBreaker breaker = new CircuitBreaker(3, 1, TimeUnit.SECONDS, clock::get);
+
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.Closed, breaker.getState());
+        assertTrue(breaker.allowRequest());
+
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.Open, breaker.getState());
+        assertFalse(breaker.allowRequest());
+        assertEquals(1, breaker.getRejectedCount());
+
+        //a single probe after the open duration
+        clock.set(TimeUnit.SECONDS.toNanos(1));
+        assertTrue(breaker.allowRequest());
+        assertEquals(CircuitBreaker.State.HalfOpen, breaker.getState());
+        assertFalse(breaker.allowRequest());
+
+        //a failed probe opens the circuit again
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.Open, breaker.getState());
+        assertFalse(breaker.allowRequest());
+
+        clock.set(TimeUnit.SECONDS.toNanos(2));
+        assertTrue(breaker.allowRequest());
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.Closed, breaker.getState());
+        assertTrue(breaker.allowRequest());
+    }
+}
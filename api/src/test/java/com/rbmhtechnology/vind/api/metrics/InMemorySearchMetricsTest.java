@@ -0,0 +1,108 @@
+package com.rbmhtechnology.vind.api.metrics;
+
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class InMemorySearchMetricsTest {
+
+    @Test
+    public void testHistogram() {
+        final Histogram histogram = new Histogram();
+        for (long i = 1; i <= 10000; i++) {
+            histogram.record(i);
+        }
+
+        final Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(10000, snapshot.getCount());
+        assertEquals(10000, snapshot.getMax());
+        assertEquals(5000.5, snapshot.getMean(), 0.001);
+        assertThat((double) snapshot.getValueAtPercentile(50), closeTo(5000, 5000 * 0.04));
+        assertThat((double) snapshot.getValueAtPercentile(99), closeTo(9900, 9900 * 0.04));
+        assertEquals(10000, snapshot.getValueAtPercentile(100));
+
+        //small values are exact
+        final Histogram small = new Histogram();
+        small.record(3);
+        small.record(7);
+        assertEquals(3, small.snapshot().getValueAtPercentile(50));
+        assertEquals(0, new Histogram().snapshot().getValueAtPercentile(99));
+    }
+
+    @Test
+    public void testHistogramBuckets() {
+        for (long value : new long[]{0, 31, 32, 33, 1000, 123456789, Long.MAX_VALUE}) {
+            final long bucketValue = Histogram.value(Histogram.index(value));
+            assertThat((double) bucketValue, closeTo(value, value * 0.04));
+        }
+    }
+
+    @Test
+    public void testSnapshot() {
+        final InMemorySearchMetrics metrics = new InMemorySearchMetrics();
+        metrics.recordLatency(Operation.Search, Phase.Total, "asset", TimeUnit.MILLISECONDS.toNanos(10));
+        metrics.recordLatency(Operation.Search, Phase.Total, "asset", TimeUnit.MILLISECONDS.toNanos(20));
+        metrics.recordLatency(Operation.Search, Phase.Request, "asset", TimeUnit.MILLISECONDS.toNanos(8));
+        metrics.recordResults(Operation.Search, "asset", 10);
+        metrics.recordPayload(Operation.Search, "asset", 2048);
+        metrics.recordCache(Operation.Search, "asset", "results", true);
+        metrics.recordCache(Operation.Search, "asset", "results", false);
+        metrics.recordCache(Operation.Search, "asset", "results", true);
+        metrics.recordError(Operation.Index, "asset", new IllegalStateException());
+
+        final MetricsSnapshot snapshot = metrics.snapshot();
+        assertEquals(2, snapshot.getLatency(Operation.Search, Phase.Total, "asset").getCount());
+        assertEquals(20000, snapshot.getLatency(Operation.Search, Phase.Total, "asset").getMax());
+        assertEquals(1, snapshot.getLatency(Operation.Search, Phase.Request, "asset").getCount());
+        assertNull(snapshot.getLatency(Operation.Search, Phase.Total, "other"));
+        assertEquals(10, snapshot.getResults(Operation.Search, "asset").getMax());
+        assertEquals(2048, snapshot.getPayload(Operation.Search, "asset").getMax());
+        assertEquals(2, snapshot.getCacheHits(Operation.Search, "asset", "results"));
+        assertEquals(1, snapshot.getCacheMisses(Operation.Search, "asset", "results"));
+        assertEquals(1, snapshot.getErrors(Operation.Index, "asset", IllegalStateException.class));
+        assertEquals(0, snapshot.getErrors(Operation.Search, "asset", IllegalStateException.class));
+
+        final Map<String, Number> export = snapshot.toMap();
+        assertEquals(2L, export.get("latency.Search.asset.Total.count"));
+        assertTrue(export.containsKey("latency.Search.asset.Total.p99"));
+        assertTrue(export.containsKey("latency.Search.asset.Total.p99_9"));
+        assertEquals(2L, export.get("cache.Search.asset.results.hits"));
+        assertEquals(1L, export.get("errors.Index.asset.java.lang.IllegalStateException"));
+
+        //snapshots are not changed by later measurements
+        metrics.reset();
+        assertEquals(2, snapshot.getLatency(Operation.Search, Phase.Total, "asset").getCount());
+        assertTrue(metrics.snapshot().toMap().isEmpty());
+    }
+
+    @Test
+    public void testInstrumentation() {
+        final InMemorySearchMetrics metrics = new InMemorySearchMetrics();
+
+        //no-op without an instrumented operation
+        assertFalse(Instrumentation.isActive());
+        assertEquals("result", Instrumentation.time(Phase.ResultMapping, () -> "result"));
+        Instrumentation.recordPayload(100);
+
+        try (Instrumentation.Context ignored = Instrumentation.begin(metrics, Operation.Suggest, "asset")) {
+            assertTrue(Instrumentation.isActive());
+            assertEquals("result", Instrumentation.time(Phase.ResultMapping, () -> "result"));
+            Instrumentation.recordPayload(100);
+            Instrumentation.recordCache("suggestions", false);
+        }
+        assertFalse(Instrumentation.isActive());
+
+        final MetricsSnapshot snapshot = metrics.snapshot();
+        assertEquals(1, snapshot.getLatency(Operation.Suggest, Phase.ResultMapping, "asset").getCount());
+        assertEquals(1, snapshot.getPayload(Operation.Suggest, "asset").getCount());
+        assertEquals(1, snapshot.getCacheMisses(Operation.Suggest, "asset", "suggestions"));
+    }
+}
@@ -0,0 +1,96 @@
+package com.rbmhtechnology.vind.api.query;
+
+import com.rbmhtechnology.vind.api.query.division.Page;
+import com.rbmhtechnology.vind.api.query.collapse.Collapse;
+import com.rbmhtechnology.vind.api.query.filter.Filter;
+import com.rbmhtechnology.vind.model.DocumentFactory;
+import com.rbmhtechnology.vind.model.DocumentFactoryBuilder;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FulltextSearchTest {
+
+    private final DocumentFactory children = new DocumentFactoryBuilder("child").build();
+
+    @Test
+    public void testCopy() {
+        final FulltextSearch search = Search.fulltext("hello")
+                .context("de")
+                .timeZone("Europe/Vienna")
+                .setMinimumShouldMatch("2")
+                .setStrict(false)
+                .setFacetLimit(5)
+                .setFacetMinCount(2)
+                .filter(Filter.eq("title", "world"))
+                .collapse(new Collapse("title"))
+                .withChildren(children, 5)
+                .andChildrenSearch(children);
+
+        final FulltextSearch copy = search.copy();
+
+        assertEquals("hello", copy.getSearchString());
+        assertEquals("de", copy.getSearchContext());
+        assertEquals("Europe/Vienna", copy.getTimeZone());
+        assertEquals("2", copy.getMinimumShouldMatch());
+        assertFalse(copy.getStrict());
+        assertEquals(5, copy.getFacetLimit());
+        assertEquals(2, copy.getFacetMinCount());
+        assertTrue(copy.isChildrenSearchEnabled());
+        assertEquals(FulltextSearch.Operators.AND, copy.getChildrenSearchOperator());
+        assertSame(children, copy.getChildrenFactory());
+        assertEquals(1, copy.getChildrenSearches().size());
+        assertNotSame(search.getChildrenSearches().get(0), copy.getChildrenSearches().get(0));
+        assertEquals("title", copy.getCollapse().getFieldName());
+        assertNotSame(search.getCollapse(), copy.getCollapse());
+        assertSame(children, copy.getInlineChildrenFactory());
+        assertEquals(5, copy.getInlineChildrenLimit());
+
+        //paging a copy, as done by the results, does not change the search
+        copy.page(((Page) search.getResultSet()).next());
+        assertEquals(1, ((Page) search.getResultSet()).getPage());
+        assertEquals(2, ((Page) copy.getResultSet()).getPage());
+
+        copy.getChildrenSearches().clear();
+        assertEquals(1, search.getChildrenSearches().size());
+    }
+
+    @Test
+    public void testChildrenSearch() {
+        final FulltextSearch search = Search.fulltext("hello")
+                .context("de")
+                .setMinimumShouldMatch("2")
+                .filter(Filter.eq("title", "world"))
+                .collapse(new Collapse("title"))
+                .withChildren(children, 5)
+                .orChildrenSearch(children);
+
+        assertTrue(search.isChildrenSearchEnabled());
+        assertEquals(FulltextSearch.Operators.OR, search.getChildrenSearchOperator());
+        assertEquals(1, search.getChildrenSearches().size());
+
+        //the children search copies the query only
+        final FulltextSearch childrenSearch = search.getChildrenSearches().get(0);
+        assertEquals("hello", childrenSearch.getSearchString());
+        assertTrue(childrenSearch.hasFilter());
+        assertFalse(childrenSearch.isChildrenSearchEnabled());
+        assertTrue(childrenSearch.getChildrenSearches().isEmpty());
+        assertNull(childrenSearch.getChildrenFactory());
+        assertNull(childrenSearch.getSearchContext());
+        assertEquals("1", childrenSearch.getMinimumShouldMatch());
+        assertNull(childrenSearch.getCollapse());
+        assertNull(childrenSearch.getInlineChildrenFactory());
+
+        //a following children search replaces the previous one
+        search.andChildrenSearch(children);
+        assertEquals(FulltextSearch.Operators.AND, search.getChildrenSearchOperator());
+        assertEquals(1, search.getChildrenSearches().size());
+        assertFalse(search.getChildrenSearches().get(0).isChildrenSearchEnabled());
+        assertTrue(search.getChildrenSearches().get(0).getChildrenSearches().isEmpty());
+    }
+}
@@ -7,6 +7,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import java.lang.reflect.Proxy;
 import java.util.ArrayList;
 import java.util.Collection;
 
@@ -93,4 +94,31 @@ public class DocumentFactoryTest {
         doc.getValue("imaginaryField");
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void copyTest() {
+
+        Document doc = factory.createDoc("idTest");
+        doc.setValues("multipleStringField","1","2");
+        doc.setValue("singleStringField", "3");
+        doc.addChild(factory.createDoc("childTest"));
+
+        Assert.assertTrue(DocumentFactory.isCopyable(doc));
+        Document copy = DocumentFactory.copy(doc);
+        Assert.assertNotSame(doc, copy);
+        Assert.assertEquals("idTest", copy.getId());
+        Assert.assertEquals("3", copy.getValue("singleStringField"));
+        Assert.assertEquals(1, copy.getChildren().size());
+        Assert.assertNotSame(doc.getChildren().iterator().next(), copy.getChildren().iterator().next());
+
+        copy.addValue("multipleStringField", "4");
+        Assert.assertEquals(2, ((Collection<?>) doc.getValue("multipleStringField")).size());
+        Assert.assertEquals(3, ((Collection<?>) copy.getValue("multipleStringField")).size());
+
+        Document foreign = (Document) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{Document.class}, (proxy, method, args) -> null);
+        Assert.assertFalse(DocumentFactory.isCopyable(foreign));
+        exception.expect(IllegalArgumentException.class);
+        DocumentFactory.copy(foreign);
+    }
+}
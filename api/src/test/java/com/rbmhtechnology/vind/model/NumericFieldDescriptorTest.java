@@ -41,4 +41,16 @@ public class NumericFieldDescriptorTest {
 
     }
 
+
+    @Test
+    public void inPlaceTest(){
+        numericFD = factory.setInPlace(true).buildNumericField("views", Long.class);
+        Assert.assertTrue(numericFD.isInPlace());
+        Assert.assertFalse(new FieldDescriptorBuilder().buildNumericField("views").isInPlace());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void inPlaceMultivaluedTest(){
+        factory.setInPlace(true).buildMultivaluedNumericField("views", Long.class);
+    }
 }
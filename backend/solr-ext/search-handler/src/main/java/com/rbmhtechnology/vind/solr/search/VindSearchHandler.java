@@ -0,0 +1,124 @@
+package com.rbmhtechnology.vind.solr.search;
+
+import com.rbmhtechnology.vind.solr.search.params.VindSearchParams;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.params.ShardParams;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SimpleOrderedMap;
+import org.apache.solr.handler.component.SearchHandler;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.response.ResultContext;
+import org.apache.solr.response.SolrQueryResponse;
+import org.apache.solr.search.DocList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Search handler returning the result documents in a compact, columnar encoding: the field names are sent once per
+ * response and every document is a row of typed values. Together with field aliases in the <code>fl</code> parameter,
+ * which restrict the loaded fields and replace the long internal field names by short keys, this reduces the response
+ * size and the parsing effort of the client.
+ * <p>
+ * Everything but the documents, e.g. facets or stats, is returned unchanged. Shard requests are never compacted, so
+ * that they can be merged as usual.
+ */
+public class VindSearchHandler extends SearchHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(VindSearchHandler.class);
+
+    private static final String RESPONSE = "response";
+
+    @Override
+    public void handleRequestBody(SolrQueryRequest req, SolrQueryResponse rsp) throws Exception {
+        super.handleRequestBody(req, rsp);
+
+        final SolrParams params = req.getParams();
+        if (!params.getBool(VindSearchParams.COMPACT, false) || params.getBool(ShardParams.IS_SHARD, false)) {
+            return;
+        }
+
+        final Object response = rsp.getResponse();
+        final NamedList<Object> compact;
+        if (response instanceof ResultContext) {
+            final ResultContext context = (ResultContext) response;
+            final DocList docList = context.getDocList();
+            compact = encode(context.getProcessedDocuments());
+            compact.add(VindSearchParams.NUM_FOUND, (long) docList.matches());
+            compact.add(VindSearchParams.START, (long) docList.offset());
+            if (docList.hasScores()) {
+                compact.add(VindSearchParams.MAX_SCORE, docList.maxScore());
+            }
+        } else if (response instanceof SolrDocumentList) {
+            //distributed requests return the merged documents
+            final SolrDocumentList documents = (SolrDocumentList) response;
+            compact = encode(documents.iterator());
+            compact.add(VindSearchParams.NUM_FOUND, documents.getNumFound());
+            compact.add(VindSearchParams.START, documents.getStart());
+            if (documents.getMaxScore() != null) {
+                compact.add(VindSearchParams.MAX_SCORE, documents.getMaxScore());
+            }
+        } else {
+            log.debug("No result documents to encode in response of type {}", response != null ? response.getClass() : null);
+            return;
+        }
+
+        rsp.getValues().remove(RESPONSE);
+        rsp.add(VindSearchParams.RESPONSE, compact);
+    }
+
+    /**
+     * Encodes the documents as rows of values in the order of the field list. Fields missing in a document are null.
+     */
+    static NamedList<Object> encode(Iterator<SolrDocument> documents) {
+        final Map<String, Integer> columns = new LinkedHashMap<>();
+        final List<Object[]> rows = new ArrayList<>();
+
+        while (documents.hasNext()) {
+            final SolrDocument document = documents.next();
+            final Map<Integer, Object> values = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> field : document) {
+                values.put(column(columns, field.getKey()), field.getValue());
+            }
+            if (document.hasChildDocuments()) {
+                values.put(column(columns, VindSearchParams.CHILD_DOCUMENTS), encode(document.getChildDocuments().iterator()));
+            }
+            final Object[] row = new Object[columns.size()];
+            values.forEach((column, value) -> row[column] = value);
+            rows.add(row);
+        }
+
+        final List<Collection<Object>> docs = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            //rows encoded before a new column appeared are shorter
+            docs.add(Arrays.asList(Arrays.copyOf(row, columns.size())));
+        }
+
+        final NamedList<Object> compact = new SimpleOrderedMap<>();
+        compact.add(VindSearchParams.FIELDS, new ArrayList<>(columns.keySet()));
+        compact.add(VindSearchParams.DOCS, docs);
+        return compact;
+    }
+
+    private static int column(Map<String, Integer> columns, String name) {
+        return columns.computeIfAbsent(name, n -> columns.size());
+    }
+
+    @Override
+    public String getDescription() {
+        return "This handler returns the search results in a compact encoding";
+    }
+
+    public String getSource() {
+        return "no source";
+    }
+}
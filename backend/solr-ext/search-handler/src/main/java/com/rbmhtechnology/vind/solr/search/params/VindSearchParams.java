@@ -0,0 +1,20 @@
+package com.rbmhtechnology.vind.solr.search.params;
+
+/**
+ * Request parameters and response keys of the {@link com.rbmhtechnology.vind.solr.search.VindSearchHandler}.
+ */
+public class VindSearchParams {
+
+    /**
+     * Whether the result documents are returned in the compact encoding.
+     */
+    public static final String COMPACT = "vind.compact";
+
+    public static final String RESPONSE = "vind";
+    public static final String NUM_FOUND = "numFound";
+    public static final String START = "start";
+    public static final String MAX_SCORE = "maxScore";
+    public static final String FIELDS = "fields";
+    public static final String DOCS = "docs";
+    public static final String CHILD_DOCUMENTS = "_childDocuments_";
+}
@@ -0,0 +1,93 @@
+package com.rbmhtechnology.vind.solr.search;
+
+import io.redlink.utils.PathUtils;
+import io.redlink.utils.ResourceLoaderUtils;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.util.NamedList;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+public class VindSearchHandlerTest extends SolrTestCaseJ4 {
+
+    @ClassRule
+    public static TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+
+        System.setProperty("runtimeLib","false");
+
+        final File solrhome = temporaryFolder.newFolder("solrhome");
+        PathUtils.copyRecursive(ResourceLoaderUtils.getResourceAsPath("solrhome").toAbsolutePath(), solrhome.toPath());
+
+        initCore("solrconfig.xml", "schema.xml", solrhome.getAbsolutePath(), "core");
+
+        System.getProperties().remove("runtimeLib");
+    }
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        clearIndex();
+        assertU(adoc("_id_", "1",
+                "_type_", "Asset",
+                "dynamic_single_string_title", "Hello World",
+                "dynamic_multi_int_ratings", "3",
+                "dynamic_multi_int_ratings", "5"));
+        assertU(adoc("_id_", "2",
+                "_type_", "Asset",
+                "dynamic_single_string_title", "Hello Friends"));
+        assertU(commit());
+    }
+
+    @Test
+    public void testCompactResponse() {
+        assertQ("documents are encoded as rows of the requested fields",
+                req("qt", "/vind", "q", "*:*", "sort", "_id_ asc",
+                        "fl", "_id_,title:dynamic_single_string_title,ratings:dynamic_multi_int_ratings"),
+                "not(//result[@name='response'])",
+                "//lst[@name='vind']/long[@name='numFound'][.='2']",
+                "//lst[@name='vind']/arr[@name='fields']/str[1][.='_id_']",
+                "//lst[@name='vind']/arr[@name='fields']/str[2][.='title']",
+                "//lst[@name='vind']/arr[@name='fields']/str[3][.='ratings']",
+                "//lst[@name='vind']/arr[@name='docs']/arr[1]/str[2][.='Hello World']",
+                "//lst[@name='vind']/arr[@name='docs']/arr[1]/arr/int[2][.='5']",
+                "//lst[@name='vind']/arr[@name='docs']/arr[2]/str[2][.='Hello Friends']",
+                "//lst[@name='vind']/arr[@name='docs']/arr[2]/null"
+        );
+    }
+
+    @Test
+    public void testCompactDisabled() {
+        assertQ("the standard response is kept",
+                req("qt", "/vind", "q", "*:*", "vind.compact", "false", "fl", "_id_"),
+                "//result[@name='response'][@numFound='2']",
+                "not(//lst[@name='vind'])"
+        );
+    }
+
+    @Test
+    public void testEncode() {
+        final SolrDocument first = new SolrDocument();
+        first.setField("_id_", "1");
+        final SolrDocument second = new SolrDocument();
+        second.setField("_id_", "2");
+        second.setField("title", "Hello");
+
+        final NamedList<Object> compact = VindSearchHandler.encode(Arrays.asList(first, second).iterator());
+
+        assertEquals(Arrays.asList("_id_", "title"), compact.get("fields"));
+        final List<List<Object>> docs = (List<List<Object>>) compact.get("docs");
+        assertEquals(Arrays.asList("1", null), docs.get(0));
+        assertEquals(Arrays.asList("2", "Hello"), docs.get(1));
+    }
+}
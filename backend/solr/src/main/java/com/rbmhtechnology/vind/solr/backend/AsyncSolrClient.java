@@ -0,0 +1,242 @@
+package com.rbmhtechnology.vind.solr.backend;
+
+import com.rbmhtechnology.vind.configure.SearchConfiguration;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.solr.client.solrj.ResponseParser;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.impl.BinaryResponseParser;
+import org.apache.solr.client.solrj.impl.HttpClientUtil;
+import org.apache.solr.client.solrj.impl.HttpSolrClient;
+import org.apache.solr.client.solrj.impl.SolrHttpClientBuilder;
+import org.apache.solr.client.solrj.request.QueryRequest;
+import org.apache.solr.client.solrj.request.RequestWriter;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.NamedList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-blocking client for the requests to a single Solr core, based on the Apache HttpAsyncClient. The returned
+ * futures are completed by the I/O dispatcher threads as soon as the response has been received and parsed, so no
+ * thread is waiting while a request is in flight.
+ * <p>
+ * Requests either carry only parameters, which are sent form encoded, or stream their body with a
+ * {@link RequestWriter.ContentWriter}, like the {@link DocumentUpdateRequest}. Responses are read in the javabin format.
+ * <p>
+ * The HTTP configuration follows the one of the synchronous clients: the default request configuration, credentials,
+ * auth schemes and cookie specs are taken from the {@link SolrHttpClientBuilder} of the {@link HttpClientUtil}, where the
+ * Solr authentication plugins register them, and the timeouts are overridden by
+ * {@link SearchConfiguration#SERVER_CONNECTION_TIMEOUT} and {@link SearchConfiguration#SERVER_SO_TIMEOUT}. Created from
+ * a {@link HttpSolrClient}, the client adds its invariant parameters to every request. The basic auth credentials of a
+ * request are sent as by the synchronous clients. An {@link org.apache.http.client.HttpClient} given to the
+ * {@link HttpSolrClient.Builder} cannot be inspected, so interceptors, proxies and SSL settings of such clients do not
+ * apply to the asynchronous requests.
+ *
+ * @since 2.4.0
+ */
+public class AsyncSolrClient implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncSolrClient.class);
+
+    private static final int DEFAULT_MAX_CONNECTIONS = 256;
+
+    private final String baseUrl;
+    private final SolrParams invariantParams;
+    private final CloseableHttpAsyncClient httpClient;
+    private final ResponseParser parser = new BinaryResponseParser();
+
+    public AsyncSolrClient(String baseUrl) {
+        this(baseUrl, null, createHttpClient());
+    }
+
+    /**
+     * Creates a client sending the requests to the core of the given synchronous client, with its invariant parameters.
+     * @param client {@link HttpSolrClient} to be followed.
+     */
+    public AsyncSolrClient(HttpSolrClient client) {
+        this(client.getBaseURL(), client.getInvariantParams(), createHttpClient());
+    }
+
+    AsyncSolrClient(String baseUrl, SolrParams invariantParams, CloseableHttpAsyncClient httpClient) {
+        this.baseUrl = StringUtils.removeEnd(baseUrl, "/");
+        this.invariantParams = invariantParams;
+        this.httpClient = httpClient;
+        this.httpClient.start();
+    }
+
+    private static CloseableHttpAsyncClient createHttpClient() {
+        final RequestConfig.Builder requestConfig = HttpClientUtil.createDefaultRequestConfigBuilder();
+        final int connectionTimeout = SearchConfiguration.get(SearchConfiguration.SERVER_CONNECTION_TIMEOUT, -1);
+        if (connectionTimeout >= 0) {
+            requestConfig.setConnectTimeout(connectionTimeout);
+        }
+        final int soTimeout = SearchConfiguration.get(SearchConfiguration.SERVER_SO_TIMEOUT, -1);
+        if (soTimeout >= 0) {
+            requestConfig.setSocketTimeout(soTimeout);
+        }
+        final int maxConnections = SearchConfiguration.get(SearchConfiguration.SERVER_SOLR_ASYNC_CONNECTIONS, DEFAULT_MAX_CONNECTIONS);
+
+        final HttpAsyncClientBuilder builder = HttpAsyncClients.custom()
+                .setDefaultRequestConfig(requestConfig.build())
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections);
+
+        //the authentication plugins of the synchronous clients are registered in the shared builder
+        final SolrHttpClientBuilder solrBuilder = HttpClientUtil.getHttpClientBuilder();
+        if (Objects.nonNull(solrBuilder.getCredentialsProviderProvider())) {
+            builder.setDefaultCredentialsProvider(solrBuilder.getCredentialsProviderProvider().getCredentialsProvider());
+        }
+        if (Objects.nonNull(solrBuilder.getAuthSchemeRegistryProvider())) {
+            builder.setDefaultAuthSchemeRegistry(solrBuilder.getAuthSchemeRegistryProvider().getAuthSchemeRegistry());
+        }
+        if (Objects.nonNull(solrBuilder.getCookieSpecRegistryProvider())) {
+            builder.setDefaultCookieSpecRegistry(solrBuilder.getCookieSpecRegistryProvider().getCookieSpecRegistry());
+        }
+        return builder.build();
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    /**
+     * Sends a query to the request handler given by the <code>qt</code> parameter, or to <code>/select</code>.
+     * @param params {@link SolrParams} of the query.
+     * @return {@link CompletableFuture} of the {@link QueryResponse}.
+     */
+    public CompletableFuture<QueryResponse> query(SolrParams params) {
+        final long start = System.nanoTime();
+        return request(new QueryRequest(params, SolrRequest.METHOD.POST))
+                .thenApply(response -> {
+                    final QueryResponse queryResponse = new QueryResponse(response, null);
+                    queryResponse.setElapsedTime(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                    return queryResponse;
+                });
+    }
+
+    /**
+     * Sends a request. The future fails with a {@link HttpSolrClient.RemoteSolrException} if Solr answers with an
+     * error, or with a {@link SolrServerException} if Solr cannot be reached. Cancelling the future aborts the request.
+     * @param request {@link SolrRequest} to be sent.
+     * @return {@link CompletableFuture} of the raw response.
+     */
+    public CompletableFuture<NamedList<Object>> request(SolrRequest<?> request) {
+        final CompletableFuture<NamedList<Object>> future = new CompletableFuture<>();
+
+        final HttpPost post;
+        try {
+            post = buildPost(request);
+        } catch (IOException e) {
+            future.completeExceptionally(new SolrServerException("Cannot write request to " + baseUrl, e));
+            return future;
+        }
+
+        final Future<HttpResponse> httpFuture = httpClient.execute(post, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                try {
+                    future.complete(parseResponse(response));
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void failed(Exception e) {
+                future.completeExceptionally(new SolrServerException("IOException occurred when talking to server at: " + baseUrl, e));
+            }
+
+            @Override
+            public void cancelled() {
+                future.cancel(false);
+            }
+        });
+        //cancelling the returned future aborts the request
+        future.whenComplete((response, t) -> {
+            if (future.isCancelled()) {
+                httpFuture.cancel(true);
+            }
+        });
+        return future;
+    }
+
+    private HttpPost buildPost(SolrRequest<?> request) throws IOException {
+        final ModifiableSolrParams params = new ModifiableSolrParams(request.getParams());
+        if (Objects.nonNull(invariantParams)) {
+            params.add(invariantParams);
+        }
+        params.set(CommonParams.WT, parser.getWriterType());
+        params.set(CommonParams.VERSION, parser.getVersion());
+
+        final RequestWriter.ContentWriter contentWriter = request.getContentWriter(CommonParams.JAVABIN_MIME);
+        final HttpPost post;
+        if (Objects.nonNull(contentWriter)) {
+            post = new HttpPost(baseUrl + request.getPath() + params.toQueryString());
+            final ByteArrayOutputStream body = new ByteArrayOutputStream();
+            contentWriter.write(body);
+            post.setEntity(new ByteArrayEntity(body.toByteArray(), ContentType.parse(contentWriter.getContentType())));
+        } else {
+            post = new HttpPost(baseUrl + request.getPath());
+            post.setEntity(new StringEntity(StringUtils.removeStart(params.toQueryString(), "?"),
+                    ContentType.create("application/x-www-form-urlencoded", StandardCharsets.UTF_8)));
+        }
+        if (Objects.nonNull(request.getBasicAuthUser()) && Objects.nonNull(request.getBasicAuthPassword())) {
+            final String credentials = request.getBasicAuthUser() + ":" + request.getBasicAuthPassword();
+            post.setHeader(HttpHeaders.AUTHORIZATION,
+                    "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+        }
+        return post;
+    }
+
+    private NamedList<Object> parseResponse(HttpResponse response) throws IOException {
+        final int status = response.getStatusLine().getStatusCode();
+        try (InputStream in = response.getEntity().getContent()) {
+            if (status == HttpStatus.SC_OK) {
+                return parser.processResponse(in, null);
+            }
+
+            String message = response.getStatusLine().getReasonPhrase();
+            try {
+                final Object error = parser.processResponse(in, null).get("error");
+                if (error instanceof NamedList && ((NamedList<?>) error).get("msg") != null) {
+                    message = String.valueOf(((NamedList<?>) error).get("msg"));
+                }
+            } catch (RuntimeException e) {
+                log.debug("Cannot parse error response of {}", baseUrl, e);
+            }
+            throw new HttpSolrClient.RemoteSolrException(baseUrl, status, message, null);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+}
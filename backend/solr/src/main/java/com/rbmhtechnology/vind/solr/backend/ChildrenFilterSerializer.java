@@ -35,6 +35,8 @@ public class ChildrenFilterSerializer {
     private String searchContext;
     private final DocumentFactory childFactory;
     private final boolean childrenSearch;
+    private final SolrFilterSerializer parentSerializer;
+    private final SolrFilterSerializer childSerializer;
 
     public ChildrenFilterSerializer(DocumentFactory parentFactory, DocumentFactory childFactory, String searchContext, boolean strict, boolean childrenSearch){
         this.parentFactory = parentFactory;
@@ -42,6 +44,8 @@ public class ChildrenFilterSerializer {
         this.searchContext = searchContext;
         this.strict = strict;
         this.childrenSearch = childrenSearch;
+        this.parentSerializer = new SolrFilterSerializer(parentFactory, strict);
+        this.childSerializer = new SolrFilterSerializer(childFactory, strict);
     }
 
     public String serialize(Filter filter){
@@ -52,10 +56,10 @@ public class ChildrenFilterSerializer {
         else if (OrFilter.class.isAssignableFrom(normalizedFilter.getClass()))
             return serialize((OrFilter)normalizedFilter);
         else if (isHierarchicalFilter(normalizedFilter)) {
-             final String parentFilter =  new SolrFilterSerializer(parentFactory, strict).serialize(normalizedFilter,searchContext);
+             final String parentFilter =  parentSerializer.serialize(normalizedFilter,searchContext);
              return parentFilter;
         } else {
-            final String childFilter = new SolrFilterSerializer(childFactory, strict).serialize(normalizedFilter,searchContext);
+            final String childFilter = childSerializer.serialize(normalizedFilter,searchContext);
             return  String.format(CHILD_QUERY_TEMPLATE,
                     TYPE,
                     parentFactory.getType(),
@@ -70,14 +74,14 @@ public class ChildrenFilterSerializer {
         //Get the filters which apply to the parent
         final String parentFilters = filter.getChildren().stream()
                 .filter(f -> isHierarchicalFilter(f))
-                .map( f -> new SolrFilterSerializer(parentFactory, strict).serialize(f,searchContext))
+                .map( f -> parentSerializer.serialize(f,searchContext))
                 .filter(Objects::nonNull)
                 .collect(Collectors.joining(" AND "));
 
         //Get the filter which apply to the children
         final String childrenFilters = filter.getChildren().stream()
                 .filter(f -> !isHierarchicalFilter(f))
-                .map( f -> new SolrFilterSerializer(childFactory, strict).serialize(f,searchContext))
+                .map( f -> childSerializer.serialize(f,searchContext))
                 .filter(Objects::nonNull)
                 .collect(Collectors.joining(" AND "));
 
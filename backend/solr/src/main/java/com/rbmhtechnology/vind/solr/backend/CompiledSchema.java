@@ -0,0 +1,295 @@
+package com.rbmhtechnology.vind.solr.backend;
+
+import com.rbmhtechnology.vind.SearchServerException;
+import com.rbmhtechnology.vind.model.FieldDescriptor;
+import com.rbmhtechnology.vind.solr.backend.SolrUtils.Fieldname.UseCase;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.request.schema.SchemaRequest;
+import org.apache.solr.client.solrj.response.schema.SchemaResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Result of the {@link SolrSchemaCompiler}: the explicit field definitions for a set of document factories and the
+ * field names their descriptors resolve to. The definitions can be written into a <code>schema.xml</code> by
+ * {@link #toXml()} or pushed to a managed schema by {@link #push(SolrClient)}; once the Solr schema contains them,
+ * {@link SolrSearchServer#setCompiledSchema(CompiledSchema)} makes the server of that Solr collection use the compiled
+ * field names. Other servers of the process keep using the dynamic field names.
+ */
+public class CompiledSchema {
+
+    private static final Logger log = LoggerFactory.getLogger(CompiledSchema.class);
+
+    private final List<Field> fields;
+    private final Set<CopyField> copyFields;
+    private final Map<FieldDescriptor<?>, Map<UseCase, String>> fieldnames;
+
+    CompiledSchema(Collection<Field> fields, Set<CopyField> copyFields, Map<FieldDescriptor<?>, Map<UseCase, String>> fieldnames) {
+        this.fields = Collections.unmodifiableList(new ArrayList<>(fields));
+        this.copyFields = Collections.unmodifiableSet(new LinkedHashSet<>(copyFields));
+        this.fieldnames = Collections.unmodifiableMap(new LinkedHashMap<>(fieldnames));
+    }
+
+    public List<Field> getFields() {
+        return fields;
+    }
+
+    public Set<CopyField> getCopyFields() {
+        return copyFields;
+    }
+
+    /**
+     * Gets the compiled field name of a descriptor for a specific use case.
+     * @param descriptor {@link FieldDescriptor} to get the name for.
+     * @param useCase {@link UseCase} the field is used for.
+     * @return the compiled field name or null if the descriptor is not compiled or not configured for the use case.
+     */
+    public String getFieldname(FieldDescriptor<?> descriptor, UseCase useCase) {
+        final Map<UseCase, String> names = fieldnames.get(descriptor);
+        return Objects.nonNull(names) ? names.get(useCase) : null;
+    }
+
+    public boolean isCompiled(FieldDescriptor<?> descriptor) {
+        return fieldnames.containsKey(descriptor);
+    }
+
+    /**
+     * Serializes the field definitions to be included in a <code>schema.xml</code>.
+     * @return String containing a <code>field</code> element per field and a <code>copyField</code> element per copy
+     * field.
+     */
+    public String toXml() {
+        final StringBuilder xml = new StringBuilder();
+        fields.forEach(field -> xml.append(field.toXml()).append('\n'));
+        copyFields.forEach(copyField -> xml.append(copyField.toXml()).append('\n'));
+        return xml.toString();
+    }
+
+    /**
+     * Adds the fields, or replaces them if they already exist, and the missing copy fields by the Solr Schema API.
+     * Requires a managed schema.
+     * @param client {@link SolrClient} of the collection to update.
+     */
+    public void push(SolrClient client) {
+        try {
+            final Set<String> existingFields = new SchemaRequest.Fields().process(client).getFields().stream()
+                    .map(attributes -> String.valueOf(attributes.get("name")))
+                    .collect(Collectors.toSet());
+            final Set<CopyField> existingCopyFields = new SchemaRequest.CopyFields().process(client).getCopyFields().stream()
+                    .map(attributes -> new CopyField(String.valueOf(attributes.get("source")), String.valueOf(attributes.get("dest"))))
+                    .collect(Collectors.toSet());
+
+            final List<SchemaRequest.Update> updates = new ArrayList<>();
+            for (Field field : fields) {
+                updates.add(existingFields.contains(field.getName()) ?
+                        new SchemaRequest.ReplaceField(field.getAttributes()) :
+                        new SchemaRequest.AddField(field.getAttributes()));
+            }
+            copyFields.stream()
+                    .filter(copyField -> !existingCopyFields.contains(copyField))
+                    .forEach(copyField -> updates.add(new SchemaRequest.AddCopyField(copyField.getSource(), Collections.singletonList(copyField.getDest()))));
+
+            log.debug("Pushing {} schema updates", updates.size());
+            final SchemaResponse.UpdateResponse response = new SchemaRequest.MultiUpdate(updates).process(client);
+            final Object errors = response.getResponse().get("errors");
+            if (Objects.nonNull(errors)) {
+                log.error("Unable to push compiled schema: {}", errors);
+                throw new SearchServerException("Unable to push compiled schema: " + errors);
+            }
+        } catch (SolrServerException | IOException e) {
+            log.error("Unable to push compiled schema: {}", e.getMessage(), e);
+            throw new SearchServerException("Unable to push compiled schema", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledSchema{" +
+                "fields=" + fields.size() +
+                ", copyFields=" + copyFields.size() +
+                ", descriptors=" + fieldnames.size() +
+                '}';
+    }
+
+    /**
+     * Explicit Solr field definition.
+     */
+    public static class Field {
+
+        private final String name;
+        private final String type;
+        private final boolean multiValued;
+        private boolean indexed;
+        private boolean stored;
+        private boolean docValues;
+        private boolean useDocValuesAsStored;
+        private Boolean omitNorms;
+
+        Field(String name, String type, boolean multiValued) {
+            this.name = name;
+            this.type = type;
+            this.multiValued = multiValued;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public boolean isMultiValued() {
+            return multiValued;
+        }
+
+        public boolean isIndexed() {
+            return indexed;
+        }
+
+        Field setIndexed(boolean indexed) {
+            this.indexed = indexed;
+            return this;
+        }
+
+        public boolean isStored() {
+            return stored;
+        }
+
+        Field setStored(boolean stored) {
+            this.stored = stored;
+            return this;
+        }
+
+        public boolean isDocValues() {
+            return docValues;
+        }
+
+        Field setDocValues(boolean docValues) {
+            this.docValues = docValues;
+            return this;
+        }
+
+        public boolean isUseDocValuesAsStored() {
+            return useDocValuesAsStored;
+        }
+
+        Field setUseDocValuesAsStored(boolean useDocValuesAsStored) {
+            this.useDocValuesAsStored = useDocValuesAsStored;
+            return this;
+        }
+
+        /**
+         * @return whether the norms are omitted or null to keep the default of the field type.
+         */
+        public Boolean getOmitNorms() {
+            return omitNorms;
+        }
+
+        Field setOmitNorms(boolean omitNorms) {
+            this.omitNorms = omitNorms;
+            return this;
+        }
+
+        /**
+         * Combines two definitions of the same field into one satisfying both.
+         */
+        Field merge(Field other) {
+            if (!type.equals(other.type) || multiValued != other.multiValued) {
+                throw new IllegalArgumentException(String.format("Conflicting definitions of field %s: %s and %s", name, this, other));
+            }
+            final Field merged = new Field(name, type, multiValued)
+                    .setIndexed(indexed || other.indexed)
+                    .setStored(stored || other.stored)
+                    .setDocValues(docValues || other.docValues);
+            merged.setUseDocValuesAsStored(!merged.stored && (useDocValuesAsStored || other.useDocValuesAsStored));
+            if (Objects.nonNull(omitNorms) || Objects.nonNull(other.omitNorms)) {
+                merged.setOmitNorms(Boolean.TRUE.equals(omitNorms) && Boolean.TRUE.equals(other.omitNorms));
+            }
+            return merged;
+        }
+
+        public Map<String, Object> getAttributes() {
+            final Map<String, Object> attributes = new LinkedHashMap<>();
+            attributes.put("name", name);
+            attributes.put("type", type);
+            attributes.put("multiValued", multiValued);
+            attributes.put("indexed", indexed);
+            attributes.put("stored", stored);
+            attributes.put("docValues", docValues);
+            attributes.put("useDocValuesAsStored", useDocValuesAsStored);
+            if (Objects.nonNull(omitNorms)) {
+                attributes.put("omitNorms", omitNorms);
+            }
+            return attributes;
+        }
+
+        public String toXml() {
+            return getAttributes().entrySet().stream()
+                    .map(e -> String.format("%s=\"%s\"", e.getKey(), e.getValue()))
+                    .collect(Collectors.joining(" ", "<field ", "/>"));
+        }
+
+        @Override
+        public String toString() {
+            return toXml();
+        }
+    }
+
+    /**
+     * Explicit Solr copy field definition.
+     */
+    public static class CopyField {
+
+        private final String source;
+        private final String dest;
+
+        CopyField(String source, String dest) {
+            this.source = source;
+            this.dest = dest;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        public String getDest() {
+            return dest;
+        }
+
+        public String toXml() {
+            return String.format("<copyField source=\"%s\" dest=\"%s\"/>", source, dest);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final CopyField copyField = (CopyField) o;
+            return Objects.equals(source, copyField.source) && Objects.equals(dest, copyField.dest);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(source, dest);
+        }
+
+        @Override
+        public String toString() {
+            return toXml();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.rbmhtechnology.vind.solr.backend;
+
+import com.rbmhtechnology.vind.api.Document;
+import com.rbmhtechnology.vind.model.FieldDescriptor;
+import org.apache.solr.client.solrj.request.AbstractUpdateRequest;
+import org.apache.solr.client.solrj.request.RequestWriter;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.util.JavaBinCodec;
+import org.apache.solr.common.util.NamedList;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.rbmhtechnology.vind.solr.backend.SolrUtils.Fieldname.*;
+
+/**
+ * Update request which serializes Vind {@link Document}s straight into the javabin update format, without building
+ * an intermediate {@link org.apache.solr.common.SolrInputDocument} graph. Documents are written one after the other
+ * while the request body is streamed, so only the field list of the document currently written is held in memory.
+ *
+ * The produced bytes are the same Solr expects from {@link org.apache.solr.client.solrj.request.UpdateRequest}s sent
+ * with the {@link org.apache.solr.client.solrj.impl.BinaryRequestWriter}.
+ *
+ * @since 2.4.0
+ */
+public class DocumentUpdateRequest extends AbstractUpdateRequest {
+
+    private final List<Document> documents;
+    private final CompiledSchema schema;
+
+    public DocumentUpdateRequest(List<Document> documents) {
+        this(documents, null);
+    }
+
+    /**
+     * @param documents Vind documents to be indexed.
+     * @param schema {@link CompiledSchema} the field names are resolved with, or null for the dynamic field names.
+     */
+    public DocumentUpdateRequest(List<Document> documents, CompiledSchema schema) {
+        super(METHOD.POST, "/update");
+        this.documents = Collections.unmodifiableList(documents);
+        this.schema = schema;
+    }
+
+    public List<Document> getDocuments() {
+        return documents;
+    }
+
+    @Override
+    public RequestWriter.ContentWriter getContentWriter(String expectedType) {
+        return new RequestWriter.ContentWriter() {
+            @Override
+            public void write(OutputStream os) throws IOException {
+                final NamedList<Object> params = getParams() != null ? getParams().toNamedList() : new NamedList<>();
+                if (getCommitWithin() != -1) {
+                    params.add("commitWithin", getCommitWithin());
+                }
+                final NamedList<Object> body = new NamedList<>();
+                body.add("params", params);
+                body.add("delByQ", null);
+                body.add("docs", documents.iterator());
+
+                //the documents are serialized when the request is sent, possibly by another thread
+                try (JavaBinCodec codec = new JavaBinCodec(DocumentUpdateRequest::writeDocument);
+                     SchemaScope scope = useSchema(schema)) {
+                    codec.marshal(body, os);
+                }
+            }
+
+            @Override
+            public String getContentType() {
+                return CommonParams.JAVABIN_MIME;
+            }
+        };
+    }
+
+    private static Object writeDocument(Object o, JavaBinCodec codec) throws IOException {
+        if (!(o instanceof Document)) {
+            return o;
+        }
+        final Document doc = (Document) o;
+        final List<Object> fields = collectFields(doc);
+        final Collection<Document> children = doc.hasChildren() ? doc.getChildren() : Collections.emptyList();
+
+        codec.writeTag(JavaBinCodec.SOLRINPUTDOC, fields.size() / 2 + children.size());
+        //document boost, which is not used anymore but still part of the format
+        codec.writeFloat(1f);
+        for (int i = 0; i < fields.size(); i += 2) {
+            codec.writeExternString((String) fields.get(i));
+            codec.writeVal(fields.get(i + 1));
+        }
+        for (Document child : children) {
+            writeDocument(child, codec);
+        }
+        return null;
+    }
+
+    /**
+     * Resolves the solr fields of a document as a flat list of alternating field names and values. Every field name
+     * must occur only once: Solr reads the document with <code>setField</code>, so the last value of a repeated field
+     * name replaces the previous ones. Use cases sharing a solr field, like in place fields, are therefore written once.
+     * @param doc Vind document to resolve the fields of.
+     * @return List of alternating field names and SolrJ typed values.
+     */
+    static List<Object> collectFields(Document doc) {
+        final List<Object> fields = new ArrayList<>();
+        for (FieldDescriptor<?> descriptor : doc.listFieldDescriptors().values()) {
+            if (!doc.hasValue(descriptor)) {
+                continue;
+            }
+            for (String context : doc.getFieldContexts(descriptor)) {
+                final Object value = doc.getContextualizedValue(descriptor, context);
+                //in place fields share a single solr field among use cases
+                final Set<String> fieldnames = new HashSet<>();
+                for (UseCase useCase : UseCase.values()) {
+                    final String fieldname = getFieldname(descriptor, useCase, context);
+                    if (Objects.isNull(fieldname) || fieldnames.contains(fieldname)) {
+                        continue;
+                    }
+                    //a use case without a value does not claim the field name from the others sharing it
+                    final Object caseValue = SolrUtils.FieldValue.getFieldCaseValue(value, descriptor, useCase);
+                    if (Objects.nonNull(caseValue)) {
+                        fieldnames.add(fieldname);
+                        fields.add(fieldname);
+                        fields.add(SolrUtils.FieldValue.toSolrJType(caseValue));
+                    }
+                }
+            }
+        }
+        fields.add(ID);
+        fields.add(doc.getId());
+        fields.add(TYPE);
+        fields.add(doc.getType());
+        return fields;
+    }
+
+    @Override
+    public String toString() {
+        return "DocumentUpdateRequest{" +
+                "documents=" + documents.stream().map(Document::getId).collect(Collectors.toList()) +
+                '}';
+    }
+}
@@ -0,0 +1,93 @@
+package com.rbmhtechnology.vind.solr.backend;
+
+import com.rbmhtechnology.vind.api.metrics.Instrumentation;
+import com.rbmhtechnology.vind.api.metrics.Phase;
+import org.apache.solr.client.solrj.ResponseParser;
+import org.apache.solr.common.util.NamedList;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+/**
+ * Response parser reporting the time spent parsing and the size of the responses to the {@link Instrumentation} of
+ * the calling thread. The parsing itself is done by the wrapped parser.
+ *
+ * @since 2.4.0
+ */
+class InstrumentedResponseParser extends ResponseParser {
+
+    private final ResponseParser parser;
+
+    InstrumentedResponseParser(ResponseParser parser) {
+        this.parser = parser;
+    }
+
+    @Override
+    public String getWriterType() {
+        return parser.getWriterType();
+    }
+
+    @Override
+    public String getContentType() {
+        return parser.getContentType();
+    }
+
+    @Override
+    public String getVersion() {
+        return parser.getVersion();
+    }
+
+    @Override
+    public NamedList<Object> processResponse(InputStream body, String encoding) {
+        if (!Instrumentation.isActive()) {
+            return parser.processResponse(body, encoding);
+        }
+        final CountingInputStream counting = new CountingInputStream(body);
+        try {
+            return Instrumentation.time(Phase.ResponseParsing, () -> parser.processResponse(counting, encoding));
+        } finally {
+            Instrumentation.recordPayload(counting.count);
+        }
+    }
+
+    @Override
+    public NamedList<Object> processResponse(Reader reader) {
+        return Instrumentation.time(Phase.ResponseParsing, () -> parser.processResponse(reader));
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            final int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            final long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.rbmhtechnology.vind.solr.backend;
 
+import com.rbmhtechnology.vind.api.query.datemath.DateMathExpression;
 import com.rbmhtechnology.vind.api.query.filter.Filter;
+import com.rbmhtechnology.vind.configure.SearchConfiguration;
 import com.rbmhtechnology.vind.model.DocumentFactory;
 import com.rbmhtechnology.vind.model.FieldDescriptor;
 import org.apache.commons.collections.CollectionUtils;
@@ -25,10 +27,46 @@ public class SolrFilterSerializer {
 
     private DocumentFactory factory;
     private final boolean strict;
+    private final DateMathExpression.TimeUnit dateRoundingUnit;
 
     public SolrFilterSerializer(DocumentFactory factory, boolean strict) {
+        this(factory, strict, configuredDateRoundingUnit());
+    }
+
+    /**
+     * Creates a serializer which rounds the dates of date filters not defining their own rounding. Rounded dates
+     * resolve to the same value across requests, so the filters can be reused from the Solr caches. Lower bounds are
+     * rounded down and upper bounds up, so a rounded filter matches all documents of the filter and at most a unit more
+     * on each side.
+     * @param factory {@link DocumentFactory} of the filtered documents.
+     * @param strict whether the filter scopes are checked.
+     * @param dateRoundingUnit unit to round dates to, or null to not round them.
+     */
+    public SolrFilterSerializer(DocumentFactory factory, boolean strict, DateMathExpression.TimeUnit dateRoundingUnit) {
         this.factory = factory;
         this.strict = strict;
+        this.dateRoundingUnit = dateRoundingUnit;
+    }
+
+    private static DateMathExpression.TimeUnit configuredDateRoundingUnit() {
+        final String value = SearchConfiguration.get(SearchConfiguration.SEARCH_FILTER_DATE_ROUNDING);
+        if (StringUtils.isBlank(value)) {
+            return null;
+        }
+        try {
+            return DateMathExpression.TimeUnit.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid value '{}' for configuration property '{}'", value, SearchConfiguration.SEARCH_FILTER_DATE_ROUNDING);
+            throw new RuntimeException("Invalid value '" + value + "' for configuration property '" + SearchConfiguration.SEARCH_FILTER_DATE_ROUNDING + "'", e);
+        }
+    }
+
+    private String serializeLowerDate(DateMathExpression date) {
+        return date.toString(dateRoundingUnit, DateMathExpression.Rounding.DOWN);
+    }
+
+    private String serializeUpperDate(DateMathExpression date) {
+        return date.toString(dateRoundingUnit, DateMathExpression.Rounding.UP);
     }
 
     public String serialize(Filter filter, String searchContext) {
@@ -89,11 +127,11 @@ public class SolrFilterSerializer {
     }
 
     public String serialize(Filter.BeforeFilter filter, String searchContext) {
-        return String.format("%s:[* TO %s]", getFieldName(filter.getField(), searchContext, SolrUtils.Fieldname.UseCase.valueOf(filter.getFilterScope(filter.getField(),factory).toString())), filter.getDate());
+        return String.format("%s:[* TO %s]", getFieldName(filter.getField(), searchContext, SolrUtils.Fieldname.UseCase.valueOf(filter.getFilterScope(filter.getField(),factory).toString())), serializeUpperDate(filter.getDate()));
     }
 
     public String serialize(Filter.AfterFilter filter, String searchContext) {
-        return String.format("%s:[%s TO *]", getFieldName(filter.getField(), searchContext, SolrUtils.Fieldname.UseCase.valueOf(filter.getFilterScope(filter.getField(),factory).toString())), filter.getDate());
+        return String.format("%s:[%s TO *]", getFieldName(filter.getField(), searchContext, SolrUtils.Fieldname.UseCase.valueOf(filter.getFilterScope(filter.getField(),factory).toString())), serializeLowerDate(filter.getDate()));
     }
     public String serialize(Filter.LowerThanFilter filter, String searchContext) {
         return String.format("%s:[* TO %s]", getFieldName(filter.getField(), searchContext, SolrUtils.Fieldname.UseCase.valueOf(filter.getFilterScope(filter.getField(),factory).toString())), filter.getNumber());
@@ -102,7 +140,7 @@ public class SolrFilterSerializer {
         return String.format("%s:[%s TO *]", getFieldName(filter.getField(), searchContext, SolrUtils.Fieldname.UseCase.valueOf(filter.getFilterScope(filter.getField(),factory).toString())), filter.getNumber());
     }
     public String serialize(Filter.BetweenDatesFilter filter, String searchContext) {
-        return String.format("%s:[%s TO %s]", getFieldName(filter.getField(), searchContext, SolrUtils.Fieldname.UseCase.valueOf(filter.getFilterScope(filter.getField(),factory).toString())), filter.getStart(), filter.getEnd());
+        return String.format("%s:[%s TO %s]", getFieldName(filter.getField(), searchContext, SolrUtils.Fieldname.UseCase.valueOf(filter.getFilterScope(filter.getField(),factory).toString())), serializeLowerDate(filter.getStart()), serializeUpperDate(filter.getEnd()));
     }
     public String serialize(Filter.BetweenNumericFilter filter, String searchContext) {
         return String.format("%s:[%s TO %s]", getFieldName(filter.getField(), searchContext, SolrUtils.Fieldname.UseCase.valueOf(filter.getFilterScope(filter.getField(),factory).toString())), filter.getStart(), filter.getEnd());
@@ -19,6 +19,8 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -31,6 +33,8 @@ public class SolrSchemaChecker {
 
     private static Logger log = LoggerFactory.getLogger(SolrSchemaChecker.class);
 
+    private static final String VERSION_FIELD = "_version_";
+
     public static void checkSchema(Path solrSchemaPath, SchemaResponse response) throws IOException, SchemaValidationException {
         // read the local schema.xml
         final InputStream xml = Files.newInputStream(solrSchemaPath, StandardOpenOption.READ);
@@ -69,6 +73,24 @@ public class SolrSchemaChecker {
                 throw new SchemaValidationException(String.format("Missing <fieldType name='%s' />", fieldTypeName));
             }
         }
+
+        // check the _version_ field, which requires docValues for in place updates
+        final Map<String, Object> version = remote.getFields().stream()
+                .filter(field -> VERSION_FIELD.equals(field.get("name")))
+                .findAny()
+                .orElse(Collections.emptyMap());
+        final Object docValues = version.containsKey("docValues") ? version.get("docValues") :
+                remote.getFieldTypes().stream()
+                        .map(FieldTypeDefinition::getAttributes)
+                        .filter(m -> Objects.nonNull(m.get("name")) && m.get("name").equals(version.get("type")))
+                        .map(m -> m.get("docValues"))
+                        .filter(Objects::nonNull)
+                        .findAny()
+                        .orElse(false);
+        if (! Boolean.parseBoolean(String.valueOf(docValues))) {
+            throw new SchemaValidationException(String.format("Missing docValues on <field name='%s' />: the core has " +
+                    "to be reindexed with the current schema.xml", VERSION_FIELD));
+        }
     // TODO: check local -> remote.
 
     }
@@ -0,0 +1,146 @@
+package com.rbmhtechnology.vind.solr.backend;
+
+import com.rbmhtechnology.vind.model.ComplexFieldDescriptor;
+import com.rbmhtechnology.vind.model.DocumentFactory;
+import com.rbmhtechnology.vind.model.FieldDescriptor;
+import com.rbmhtechnology.vind.solr.backend.CompiledSchema.CopyField;
+import com.rbmhtechnology.vind.solr.backend.CompiledSchema.Field;
+import com.rbmhtechnology.vind.solr.backend.SolrUtils.Fieldname;
+import com.rbmhtechnology.vind.solr.backend.SolrUtils.Fieldname.UseCase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Compiles the field descriptors of a set of {@link DocumentFactory}s into explicit Solr field definitions.
+ * <p>
+ * The generic schema writes every descriptor into a separate field per use case. The compiled schema keeps a single
+ * docValues field per descriptor which serves retrieval, faceting and sorting at once, and picks the indexed, stored
+ * and docValues settings the descriptor actually needs. Only fulltext and suggestion, which need their own analysis,
+ * and the sort value of multivalued descriptors keep separate fields.
+ * <p>
+ * Complex, contextualized and in place descriptors are left to the dynamic fields of the generic schema.
+ */
+public class SolrSchemaCompiler {
+
+    private static final Logger log = LoggerFactory.getLogger(SolrSchemaCompiler.class);
+
+    private static final Set<String> NON_DOCVALUES_TYPES = new LinkedHashSet<>(Arrays.asList("boolean", "location", "binary"));
+
+    public static CompiledSchema compile(DocumentFactory... factories) {
+        return compile(Arrays.asList(factories));
+    }
+
+    public static CompiledSchema compile(Collection<DocumentFactory> factories) {
+        final Map<String, Field> fields = new LinkedHashMap<>();
+        final Set<CopyField> copyFields = new LinkedHashSet<>();
+        final Map<FieldDescriptor<?>, Map<UseCase, String>> fieldnames = new HashMap<>();
+
+        for (DocumentFactory factory : factories) {
+            for (FieldDescriptor<?> descriptor : factory.listFields()) {
+                if (!isCompilable(descriptor)) {
+                    log.debug("Field descriptor {} of type {} keeps its dynamic fields.", descriptor.getName(), factory.getType());
+                    continue;
+                }
+                if (!fieldnames.containsKey(descriptor)) {
+                    fieldnames.put(descriptor, compile(descriptor, fields, copyFields));
+                }
+            }
+        }
+        return new CompiledSchema(fields.values(), copyFields, fieldnames);
+    }
+
+    private static boolean isCompilable(FieldDescriptor<?> descriptor) {
+        return !ComplexFieldDescriptor.class.isAssignableFrom(descriptor.getClass())
+                && !descriptor.isContextualized()
+                && !descriptor.isInPlace();
+    }
+
+    private static Map<UseCase, String> compile(FieldDescriptor<?> descriptor, Map<String, Field> fields, Set<CopyField> copyFields) {
+        final Map<UseCase, String> fieldnames = new EnumMap<>(UseCase.class);
+        final String type = Fieldname.getFieldType(descriptor);
+        final boolean multiValue = descriptor.isMultiValue();
+        final boolean docValues = !NON_DOCVALUES_TYPES.contains(type);
+        final boolean sortOnValue = descriptor.isSort() && !multiValue;
+
+        //one field for retrieval, faceting and sorting
+        if (descriptor.isStored() || descriptor.isFacet() || sortOnValue) {
+            //named after its main use case, so that results and facets are mapped back to the descriptor as before
+            final UseCase mainUseCase = descriptor.isStored() ? UseCase.Stored : descriptor.isFacet() ? UseCase.Facet : UseCase.Sort;
+            final String name = Fieldname.getDynamicFieldname(descriptor, mainUseCase, null);
+            final boolean valueDocValues = docValues && (descriptor.isFacet() || sortOnValue);
+            //multivalued docValues lose the order and the duplicates of the values
+            final boolean docValuesAsStored = valueDocValues && descriptor.isStored() && !multiValue;
+            final Field field = new Field(name, type, multiValue)
+                    .setIndexed(descriptor.isFacet() || (!docValues && sortOnValue))
+                    .setStored(descriptor.isStored() && !docValuesAsStored)
+                    .setDocValues(valueDocValues)
+                    .setUseDocValuesAsStored(docValuesAsStored);
+            merge(fields, field);
+
+            if (descriptor.isStored()) {
+                fieldnames.put(UseCase.Stored, name);
+            }
+            if (descriptor.isFacet()) {
+                fieldnames.put(UseCase.Facet, name);
+                if (mainUseCase != UseCase.Facet) {
+                    //dynamic facet fields are already copied by the generic schema
+                    copyFields.add(new CopyField(name, Fieldname.FACETS));
+                }
+            }
+            if (sortOnValue) {
+                fieldnames.put(UseCase.Sort, name);
+            }
+        }
+
+        if (descriptor.isSort() && multiValue) {
+            final String name = Fieldname.getDynamicFieldname(descriptor, UseCase.Sort, null);
+            merge(fields, new Field(name, type, false)
+                    .setIndexed(!docValues)
+                    .setStored(false)
+                    .setDocValues(docValues)
+                    .setUseDocValuesAsStored(false));
+            fieldnames.put(UseCase.Sort, name);
+        }
+
+        if (descriptor.isFullText()) {
+            final String name = Fieldname.getDynamicFieldname(descriptor, UseCase.Fulltext, null);
+            final String language = descriptor.getLanguage().getLangCode();
+            merge(fields, new Field(name, Objects.nonNull(language) ? "text_" + language : "text_general", multiValue)
+                    .setIndexed(true)
+                    //partial updates rebuild the document from its stored values
+                    .setStored(descriptor.isUpdate())
+                    .setOmitNorms(false));
+            fieldnames.put(UseCase.Fulltext, name);
+        }
+
+        if (descriptor.isSuggest()) {
+            final String name = Fieldname.getDynamicFieldname(descriptor, UseCase.Suggest, null);
+            final boolean analyzed = "string".equals(type);
+            merge(fields, new Field(name, analyzed ? "string_suggest" : type, multiValue)
+                    .setIndexed(true)
+                    .setStored(descriptor.isUpdate())
+                    .setDocValues(docValues && !analyzed));
+            fieldnames.put(UseCase.Suggest, name);
+        }
+
+        return fieldnames;
+    }
+
+    /**
+     * Descriptors of different factories may share a field name, in which case the field has to satisfy all of them.
+     */
+    private static void merge(Map<String, Field> fields, Field field) {
+        final Field existing = fields.get(field.getName());
+        fields.put(field.getName(), Objects.isNull(existing) ? field : existing.merge(field));
+    }
+}
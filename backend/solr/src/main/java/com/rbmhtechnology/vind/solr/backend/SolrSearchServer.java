@@ -2,12 +2,16 @@ package com.rbmhtechnology.vind.solr.backend;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.io.Resources;
+import com.rbmhtechnology.vind.InvalidRequestException;
 import com.rbmhtechnology.vind.SearchServerException;
 import com.rbmhtechnology.vind.annotations.AnnotationUtil;
 import com.rbmhtechnology.vind.api.Document;
 import com.rbmhtechnology.vind.api.SearchServer;
 import com.rbmhtechnology.vind.api.ServiceProvider;
+import com.rbmhtechnology.vind.api.metrics.Instrumentation;
+import com.rbmhtechnology.vind.api.metrics.Phase;
 import com.rbmhtechnology.vind.api.query.FulltextSearch;
+import com.rbmhtechnology.vind.api.query.collapse.Collapse;
 import com.rbmhtechnology.vind.api.query.delete.Delete;
 import com.rbmhtechnology.vind.api.query.division.Page;
 import com.rbmhtechnology.vind.api.query.division.Slice;
@@ -24,7 +28,6 @@ import com.rbmhtechnology.vind.api.result.*;
 import com.rbmhtechnology.vind.configure.SearchConfiguration;
 import com.rbmhtechnology.vind.model.DocumentFactory;
 import com.rbmhtechnology.vind.model.FieldDescriptor;
-import com.rbmhtechnology.vind.model.value.LatLng;
 import com.rbmhtechnology.vind.utils.FileSystemUtils;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -36,11 +39,10 @@ import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.client.solrj.response.SolrPingResponse;
 import org.apache.solr.client.solrj.response.UpdateResponse;
 import org.apache.solr.client.solrj.response.schema.SchemaResponse;
-import org.apache.solr.client.solrj.util.ClientUtils;
 import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.common.params.*;
-import org.apache.solr.common.util.NamedList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -48,12 +50,16 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.nio.file.Path;
-import java.text.NumberFormat;
-import java.text.ParseException;
 import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -75,10 +81,12 @@ public class SolrSearchServer extends SearchServer {
 
     private ServiceProvider serviceProviderClass;
     private final SolrClient solrClient;
+    private volatile AsyncSolrClient asyncClient;
+    private volatile CompiledSchema compiledSchema;
 
     public SolrSearchServer() {
         // this is mainly used with the ServiceLoader infrastructure
-        this(getSolrServerProvider() != null ? getSolrServerProvider().getInstance() : null);
+        this(getSolrServerProvider() != null ? getSolrServerProvider().getInstance() : null, true, true);
         serviceProviderClass = getSolrServerProvider();
         final String clientClass = serviceProviderClass.getClass().getSimpleName();
         switch (clientClass) {
@@ -101,8 +109,28 @@ public class SolrSearchServer extends SearchServer {
      * @param check true to perform local schema validity check against remote schema, false otherwise.
      */
     protected SolrSearchServer(SolrClient client, boolean check) {
+        this(client, check, false);
+    }
+
+    /**
+     * Creates an instance of SolrSearch server optionally reporting the time spent parsing and the size of the
+     * responses to the instrumentation. This replaces the response parser of the client, so it is only done for the
+     * clients created by the server itself, unless enabled explicitly.
+     * @param client SolrClient to connect to.
+     * @param check true to perform local schema validity check against remote schema, false otherwise.
+     * @param instrumentResponses true to wrap the response parser of a {@link HttpSolrClient}, false otherwise.
+     */
+    public SolrSearchServer(SolrClient client, boolean check, boolean instrumentResponses) {
         solrClient = client;
 
+        //report parsing time and response size while the server is instrumented
+        if(instrumentResponses && client instanceof HttpSolrClient) {
+            final ResponseParser parser = ((HttpSolrClient) client).getParser();
+            if(parser != null && !(parser instanceof InstrumentedResponseParser)) {
+                ((HttpSolrClient) client).setParser(new InstrumentedResponseParser(parser));
+            }
+        }
+
         //In order to perform unit tests with mocked solrClient, we do not need to do the schema check.
         if(check && client != null) {
             try {
@@ -146,6 +174,67 @@ public class SolrSearchServer extends SearchServer {
         return solrClient;
     }
 
+    /**
+     * Makes this server resolve the descriptors of a {@link CompiledSchema} to the compiled field names. The Solr
+     * schema of the collection has to contain the compiled fields and documents indexed before have to be reindexed.
+     * @param compiledSchema {@link CompiledSchema} of the collection, or null to use the dynamic field names.
+     * @return This {@link SolrSearchServer} instance.
+     */
+    public SolrSearchServer setCompiledSchema(CompiledSchema compiledSchema) {
+        this.compiledSchema = compiledSchema;
+        return this;
+    }
+
+    public CompiledSchema getCompiledSchema() {
+        return compiledSchema;
+    }
+
+    /**
+     * Gets the non-blocking client for the core of a remote (non cloud) solr, which is created on first use.
+     * @return {@link AsyncSolrClient} or null if the solr client does not talk to a single core via HTTP.
+     */
+    protected AsyncSolrClient getAsyncClient() {
+        if (asyncClient == null && solrClient instanceof HttpSolrClient) {
+            synchronized (this) {
+                if (asyncClient == null) {
+                    asyncClient = new AsyncSolrClient((HttpSolrClient) solrClient);
+                }
+            }
+        }
+        return asyncClient;
+    }
+
+    private static <T> CompletableFuture<T> asyncResult(CompletableFuture<T> future, String errorMessage) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        future.whenComplete((value, e) -> {
+            if (e == null) {
+                result.complete(value);
+            } else {
+                final Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                log.error(errorMessage, cause);
+                if (cause instanceof SearchServerException) {
+                    result.completeExceptionally(cause);
+                } else if (cause instanceof SolrException) {
+                    result.completeExceptionally(invalidRequest(errorMessage, (SolrException) cause));
+                } else {
+                    result.completeExceptionally(new SearchServerException(errorMessage, cause));
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Wraps the errors of requests Solr rejects as invalid (status 4xx) into an {@link InvalidRequestException}, as the
+     * same request would fail again.
+     */
+    private static RuntimeException invalidRequest(String errorMessage, SolrException e) {
+        if (e.code() >= 400 && e.code() < 500) {
+            return new InvalidRequestException(errorMessage + ": " + e.getMessage(), e);
+        }
+        return new SearchServerException(errorMessage, e);
+    }
+
     @Override
     public StatusResult getBackendStatus() {
 
@@ -191,45 +280,51 @@ public class SolrSearchServer extends SearchServer {
         return this.indexMultipleDocuments(doc, withinMs);
     }
 
-    private IndexResult indexSingleDocument(Document doc, int withinMs) {
-        final SolrInputDocument document = createInputDocument(doc);
-        try {
-            if (solrClientLogger.isTraceEnabled()) {
-                solrClientLogger.debug(">>> add({}): {}", doc.getId(), ClientUtils.toXML(document));
-            } else {
-                solrClientLogger.debug(">>> add({})", doc.getId());
-            }
+    @Override
+    public CompletableFuture<IndexResult> indexAsync(Executor executor, List<Document> docs) {
+        final AsyncSolrClient asyncClient = getAsyncClient();
+        //documents becoming parents require their former version to be deleted first
+        if (Objects.isNull(asyncClient) || docs.stream().anyMatch(Document::hasChildren)) {
+            return super.indexAsync(executor, docs);
+        }
 
-            removeNonParentDocument(doc, withinMs);
-            final UpdateResponse response = withinMs < 0 ? this.solrClient.add(document) : this.solrClient.add(document, withinMs);
-            return new IndexResult(Long.valueOf(response.getQTime())).setElapsedTime(response.getElapsedTime());
+        final DocumentUpdateRequest request = new DocumentUpdateRequest(docs, compiledSchema);
+        solrClientLogger.debug(">>> async add({})", request);
+        final long start = System.nanoTime();
+        return asyncResult(asyncClient.request(request)
+                .thenApply(response -> {
+                    final UpdateResponse updateResponse = new UpdateResponse();
+                    updateResponse.setResponse(response);
+                    return new IndexResult(Long.valueOf(updateResponse.getQTime()))
+                            .setElapsedTime(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                }),
+                "Cannot index documents");
+    }
 
-        } catch (SolrServerException | IOException e) {
-            log.error("Cannot index document {}", document.getField(ID) , e);
-            throw new SearchServerException("Cannot index document", e);
-        }
+    private IndexResult indexSingleDocument(Document doc, int withinMs) {
+        return indexMultipleDocuments(Collections.singletonList(doc), withinMs);
     }
 
     private IndexResult indexMultipleDocuments(List<Document> docs, int withinMs) {
-        final List<SolrInputDocument> solrDocs = docs.parallelStream()
-                .map(doc -> createInputDocument(doc))
-                .collect(Collectors.toList());
+        final DocumentUpdateRequest request = new DocumentUpdateRequest(docs, compiledSchema);
+        if (withinMs >= 0) {
+            request.setCommitWithin(withinMs);
+        }
         try {
-            if (solrClientLogger.isTraceEnabled()) {
-                solrClientLogger.debug(">>> add({})", solrDocs);
-            } else {
-                solrClientLogger.debug(">>> add({})", solrDocs);
-            }
+            solrClientLogger.debug(">>> add({})", request);
             for(Document doc : docs){
                 removeNonParentDocument(doc, withinMs);
             }
 
-            final UpdateResponse response = withinMs < 0 ? this.solrClient.add(solrDocs) : this.solrClient.add(solrDocs, withinMs);
+            final UpdateResponse response = request.process(this.solrClient);
             return new IndexResult(Long.valueOf(response.getQTime())).setElapsedTime(response.getElapsedTime());
 
         } catch (SolrServerException | IOException e) {
-            log.error("Cannot index documents {}", solrDocs, e);
+            log.error("Cannot index documents {}", request, e);
             throw new SearchServerException("Cannot index documents", e);
+        } catch (SolrException e) {
+            log.error("Cannot index documents {}", request, e);
+            throw invalidRequest("Cannot index documents", e);
         }
     }
 
@@ -250,70 +345,6 @@ public class SolrSearchServer extends SearchServer {
         }
     }
 
-    private SolrInputDocument createInputDocument(Document doc) {
-        final SolrInputDocument document = new SolrInputDocument();
-        //add fields
-        doc.listFieldDescriptors()
-                .values()
-                .stream()
-                .filter(doc::hasValue)
-                //TODO: move again to an approach where we do not go through all the use cases but based on which flags the descriptor has set to true
-                .forEach(descriptor ->
-                        doc.getFieldContexts(descriptor).stream().forEach(context ->
-                                Stream.of(UseCase.values())
-                                        .forEach(useCase -> {
-                                                    final String fieldname = getFieldname(descriptor, useCase, context);
-                                                    if (Objects.nonNull(fieldname)) {
-                                                        final Object value = doc.getContextualizedValue(descriptor, context);
-                                                        final Object caseValue = SolrUtils.FieldValue.getFieldCaseValue(value, descriptor, useCase);
-                                                        if(Objects.nonNull(caseValue)) {
-                                                            document.addField(
-                                                                fieldname,
-                                                                toSolrJType(caseValue)
-                                                                //,descriptor.getBoost() TODO should we have index time boost?
-                                                            );
-                                                        }
-                                                    }
-                                                }
-                                        )));
-
-        //add subdocuments
-        if (doc.hasChildren()) {
-            doc.getChildren().forEach(childDocument ->
-                            document.addChildDocument(createInputDocument(childDocument))
-            );
-        }
-
-        document.addField(ID, doc.getId());
-        document.addField(TYPE, doc.getType());
-
-        return document;
-    }
-
-    private Object toSolrJType(Object value) {
-        if(value!=null) {
-            if(Object[].class.isAssignableFrom(value.getClass())){
-                return toSolrJType(Arrays.asList((Object[])value));
-            }
-            if(Collection.class.isAssignableFrom(value.getClass())){
-                return((Collection)value).stream()
-                        .map(o -> toSolrJType(o))
-                        .collect(Collectors.toList());
-            }
-            if(value instanceof ZonedDateTime) {
-                return Date.from(((ZonedDateTime) value).toInstant());
-            }
-            if(value instanceof LatLng) {
-                return value.toString();
-            }
-            if(value instanceof Date) {
-                //noinspection RedundantCast
-                return ((Date) value);
-            }
-        }
-        return value;
-    }
-
     @Override
     public void commit(boolean optimize) {
         try {
@@ -335,7 +366,7 @@ public class SolrSearchServer extends SearchServer {
 
         final SearchResult docResult = this.execute(search, factory);
 
-        return docResult.toPojoResult(docResult, c);
+        return Instrumentation.time(Phase.PojoConversion, () -> docResult.toPojoResult(docResult, c));
     }
 
     @Override
@@ -366,28 +397,130 @@ public class SolrSearchServer extends SearchServer {
 
     @Override
     public SearchResult execute(FulltextSearch search, DocumentFactory factory) {
-        final SolrQuery query = buildSolrQuery(search, factory);
+        final SolrQuery query = Instrumentation.time(Phase.QueryBuilding, () -> buildSearchQuery(search, factory));
         //query
         try {
             solrClientLogger.debug(">>> query({})", query.toString());
-            final QueryResponse response = solrClient.query(query, REQUEST_METHOD);
+            final QueryResponse response = executeQuery(query);
             if(response!=null){
+                return buildSearchResult(search, factory, response);
+            }else {
+                throw new SolrServerException("Null result from SolrClient");
+            }
 
-                final Map<String,Integer> childCounts = SolrUtils.getChildCounts(response);
+        } catch (SolrServerException | IOException e) {
+            throw new SearchServerException("Cannot issue query", e);
+        }
+    }
 
-                final List<Document> documents = SolrUtils.Result.buildResultList(response.getResults(), childCounts, factory, search.getSearchContext());
-                final FacetResults facetResults = SolrUtils.Result.buildFacetResult(response, factory, search.getChildrenFactory(), search.getFacets(),search.getSearchContext());
+    @Override
+    public CompletableFuture<SearchResult> executeAsync(FulltextSearch search, DocumentFactory factory, Executor executor) {
+        final AsyncSolrClient asyncClient = getAsyncClient();
+        if (Objects.isNull(asyncClient)) {
+            return super.executeAsync(search, factory, executor);
+        }
 
-                switch(search.getResultSet().getType()) {
-                    case page:{
-                        return new PageResult(response.getResults().getNumFound(), response.getQTime(), documents, search, facetResults, this, factory).setElapsedTime(response.getElapsedTime());
-                    }
-                    case slice: {
-                        return new SliceResult(response.getResults().getNumFound(), response.getQTime(), documents, search, facetResults, this, factory).setElapsedTime(response.getElapsedTime());
-                    }
-                    default:
-                        return new PageResult(response.getResults().getNumFound(), response.getQTime(), documents, search, facetResults, this, factory).setElapsedTime(response.getElapsedTime());
-                }
+        final SolrQuery query = buildSearchQuery(search, factory);
+        solrClientLogger.debug(">>> async query({})", query.toString());
+        return asyncResult(asyncClient.query(query)
+                .thenApplyAsync(response -> buildSearchResult(search, factory, response), executor),
+                "Cannot issue query");
+    }
+
+    private SolrQuery buildSearchQuery(FulltextSearch search, DocumentFactory factory) {
+        final SolrQuery query = buildSolrQuery(search, factory);
+        //use the compact encoding of the vind search handler if configured
+        final String vindHandler = SearchConfiguration.get(SearchConfiguration.SERVER_SOLR_VIND_HANDLER, null);
+        if(Objects.nonNull(vindHandler)) {
+            query.setRequestHandler(vindHandler);
+            query.set(SolrUtils.Query.VIND_COMPACT, true);
+            try (SchemaScope scope = useSchema(compiledSchema)) {
+                query.setFields(SolrUtils.Query.buildCompactFieldList(query.getFields(), factory, search.getSearchContext()));
+            }
+        }
+        return query;
+    }
+
+    private SearchResult buildSearchResult(FulltextSearch search, DocumentFactory factory, QueryResponse response) {
+        SolrUtils.Result.decodeCompactResponse(response);
+
+        final Map<String,Integer> childCounts = SolrUtils.getChildCounts(response);
+
+        final List<Document> documents = Instrumentation.time(Phase.ResultMapping, () ->
+                SolrUtils.Result.buildResultList(response.getResults(), childCounts, factory, search.getInlineChildrenFactory(), search.getSearchContext()));
+        final FacetResults facetResults = Instrumentation.time(Phase.FacetMapping, () ->
+                SolrUtils.Result.buildFacetResult(response, factory, search.getChildrenFactory(), search.getFacets(),search.getSearchContext()));
+
+        final SearchResult result;
+        switch(search.getResultSet().getType()) {
+            case page:{
+                result = new PageResult(response.getResults().getNumFound(), response.getQTime(), documents, search, facetResults, this, factory).setElapsedTime(response.getElapsedTime());
+                break;
+            }
+            case slice: {
+                result = new SliceResult(response.getResults().getNumFound(), response.getQTime(), documents, search, facetResults, this, factory).setElapsedTime(response.getElapsedTime());
+                break;
+            }
+            default:
+                result = new PageResult(response.getResults().getNumFound(), response.getQTime(), documents, search, facetResults, this, factory).setElapsedTime(response.getElapsedTime());
+        }
+        if(search.hasCollapse()) {
+            result.setGroups(SolrUtils.Result.buildResultGroups(response, documents, factory, search.getSearchContext()));
+        }
+        return result;
+    }
+
+    /**
+     * Issues a query, reporting the round trip and the time spent by Solr to the {@link Instrumentation}.
+     */
+    private QueryResponse executeQuery(SolrQuery query) throws SolrServerException, IOException {
+        final long start = System.nanoTime();
+        final QueryResponse response;
+        try {
+            response = solrClient.query(query, REQUEST_METHOD);
+        } catch (SolrException e) {
+            throw invalidRequest("Cannot issue query", e);
+        }
+        Instrumentation.recordPhase(Phase.Request, System.nanoTime() - start);
+        if(response != null) {
+            Instrumentation.recordPhase(Phase.Server, TimeUnit.MILLISECONDS.toNanos(response.getQTime()));
+        }
+        return response;
+    }
+
+    @Override
+    public long count(FulltextSearch search, DocumentFactory factory) {
+        final SolrQuery query = Instrumentation.time(Phase.QueryBuilding, () -> buildResultlessSolrQuery(search, factory));
+        //facets are not needed to count
+        query.setFacet(false);
+        query.remove("json.facet");
+        query.remove(StatsParams.STATS);
+        query.remove(StatsParams.STATS_FIELD);
+
+        try {
+            solrClientLogger.debug(">>> query({})", query.toString());
+            final QueryResponse response = executeQuery(query);
+            if(response!=null){
+                return response.getResults().getNumFound();
+            }else {
+                throw new SolrServerException("Null result from SolrClient");
+            }
+
+        } catch (SolrServerException | IOException e) {
+            throw new SearchServerException("Cannot issue query", e);
+        }
+    }
+
+    @Override
+    public FacetResults facets(FulltextSearch search, DocumentFactory factory) {
+        final SolrQuery query = Instrumentation.time(Phase.QueryBuilding, () -> buildResultlessSolrQuery(search, factory));
+
+        try {
+            solrClientLogger.debug(">>> query({})", query.toString());
+            final QueryResponse response = executeQuery(query);
+            if(response!=null){
+                return Instrumentation.time(Phase.FacetMapping, () ->
+                        SolrUtils.Result.buildFacetResult(response, factory, search.getChildrenFactory(), search.getFacets(),search.getSearchContext()));
             }else {
                 throw new SolrServerException("Null result from SolrClient");
             }
@@ -397,6 +530,24 @@ public class SolrSearchServer extends SearchServer {
         }
     }
 
+    /**
+     * Builds the query for a search whose documents are not retrieved: no rows are requested and, as no document is
+     * ranked, sorting, boosting and group expansion are dropped so Solr does not need to compute scores.
+     */
+    private SolrQuery buildResultlessSolrQuery(FulltextSearch search, DocumentFactory factory) {
+        final SolrQuery query = buildSolrQuery(search, factory);
+        query.setStart(0);
+        query.setRows(0);
+        query.set(CommonParams.FL, ID);
+        query.remove(CommonParams.SORT);
+        query.remove(DisMaxParams.BF);
+        query.remove(CommonParams.RQ);
+        query.remove(SolrUtils.Query.RERANK_QUERY);
+        query.remove(ExpandParams.EXPAND);
+        query.remove(ExpandParams.EXPAND_ROWS);
+        return query;
+    }
+
     @Override
     public String getRawQuery(FulltextSearch search, DocumentFactory factory) {
         final SolrQuery query = buildSolrQuery(search, factory);
@@ -411,6 +562,12 @@ public class SolrSearchServer extends SearchServer {
     }
 
     protected SolrQuery buildSolrQuery(FulltextSearch search, DocumentFactory factory) {
+        try (SchemaScope scope = useSchema(compiledSchema)) {
+            return createSolrQuery(search, factory);
+        }
+    }
+
+    private SolrQuery createSolrQuery(FulltextSearch search, DocumentFactory factory) {
         //build query
         final SolrQuery query = new SolrQuery();
         final String searchContext = search.getSearchContext();
@@ -437,6 +594,12 @@ public class SolrSearchServer extends SearchServer {
             }
         }
 
+        //children of the result documents
+        if(search.hasInlineChildren()) {
+            query.setParam(CommonParams.FL, query.get(CommonParams.FL) + "," + SolrUtils.Query.buildChildTransformer(search, factory));
+            query.setParam(SolrUtils.Query.CHILD_FILTER, SolrUtils.Query.buildChildFilter(search));
+        }
+
         Collection<FieldDescriptor<?>> fulltext = factory.listFields().stream().filter(FieldDescriptor::isFullText).collect(Collectors.toList());
         if(!fulltext.isEmpty()) {
             query.setParam(DisMaxParams.QF, SolrUtils.Query.buildQueryFieldString(fulltext, searchContext));
@@ -455,6 +618,15 @@ public class SolrSearchServer extends SearchServer {
             SolrUtils.Query.buildFilterString(search.getFilter(), factory,search.getChildrenFactory(),query, searchContext, search.getStrict());
         }
 
+        //tagged filters are kept apart from the other filter queries, so that facets can exclude them
+        final Map<String, String> taggedFilters = new LinkedHashMap<>();
+        search.getTaggedFilters().forEach((tag, filter) -> {
+            final String serialized = new ChildrenFilterSerializer(factory, search.getChildrenFactory(), searchContext, search.getStrict(), false).serialize(filter);
+            if (StringUtils.isNotBlank(serialized)) {
+                taggedFilters.put(tag, serialized);
+            }
+        });
+
         // fulltext search deep search
         if(search.isChildrenSearchEnabled()) {
             //append childCount facet
@@ -488,6 +660,14 @@ public class SolrSearchServer extends SearchServer {
                                     parentFilterQuery,
                                     search.getChildrenSearchOperator().name(),
                                     "(" + childrenFilterQuery + ")"));
+
+                    //the tagged filters are combined with the children filter like the other filters, as
+                    //(filters AND tagged) OR children equals (filters OR children) AND (tagged OR children)
+                    taggedFilters.replaceAll((tag, taggedFilter) ->
+                            String.join(" ",
+                                    "(" + taggedFilter + ")",
+                                    search.getChildrenSearchOperator().name(),
+                                    "(" + childrenFilterQuery + ")"));
                 }
 
                     }
@@ -497,22 +677,38 @@ public class SolrSearchServer extends SearchServer {
         }
 
 
+        taggedFilters.forEach((tag, taggedFilter) -> query.add(CommonParams.FQ, SolrUtils.Query.buildTaggedFilter(tag, taggedFilter)));
+
+        //collapsing, added after the children search as it rewrites the filter queries
+        if(search.hasCollapse()) {
+            final Collapse collapse = search.getCollapse();
+            final String collapseField = SolrUtils.Query.buildCollapseFieldName(collapse, factory, searchContext);
+            query.add(CommonParams.FQ, SolrUtils.Query.buildCollapseFilter(collapseField, collapse));
+            query.setParam(CommonParams.FL, query.get(CommonParams.FL) + "," + COLLAPSE + ":" + collapseField);
+            if(collapse.isExpand()) {
+                query.set(ExpandParams.EXPAND, true);
+                query.set(ExpandParams.EXPAND_ROWS, collapse.getExpandSize());
+            }
+        }
+
         if(search.hasFacet()) {
             query.setFacet(true);
 
             query.setFacetMinCount(search.getFacetMinCount());
             query.setFacetLimit(search.getFacetLimit());
 
-            //Query facets
+            //Query facets used by pivots, the rest are part of the JSON facet request
             search.getFacets().values().stream()
                     .filter(facet -> Facet.QueryFacet.class.isAssignableFrom(facet.getClass()))
+                    .filter(facet -> !SolrUtils.Query.isJsonFacet(facet))
                     .map(genericFacet -> (Facet.QueryFacet)genericFacet)
                     .forEach(queryFacet ->
                            query.addFacetQuery(StringUtils.join(SolrUtils.Query.buildSolrFacetCustomName(SolrUtils.Query.buildFilterString(queryFacet.getFilter(), factory, search.getChildrenFactory(), searchContext,search.getStrict()), queryFacet)))
                     );
-            //Numeric Range facet
+            //Numeric Range facet used by pivots
             search.getFacets().values().stream()
                     .filter(facet -> Facet.NumericRangeFacet.class.isAssignableFrom(facet.getClass()))
+                    .filter(facet -> !SolrUtils.Query.isJsonFacet(facet))
                     .map(genericFacet -> (Facet.NumericRangeFacet) genericFacet)
                     .forEach(numericRangeFacet -> {
                         final UseCase useCase = UseCase.valueOf(numericRangeFacet.getScope().name());
@@ -543,7 +739,7 @@ public class SolrSearchServer extends SearchServer {
                         final UseCase useCase = UseCase.valueOf(intervalFacet.getScope().name());
                         final String fieldName = getFieldname(intervalFacet.getFieldDescriptor(), useCase, searchContext);
 
-                        query.add(FacetParams.FACET_INTERVAL, SolrUtils.Query.buildSolrFacetKey(intervalFacet.getFacetName()) + fieldName);
+                        query.add(FacetParams.FACET_INTERVAL, SolrUtils.Query.buildSolrFacetKey(intervalFacet.getFacetName(), intervalFacet) + fieldName);
 
                         for(Object o : intervalFacet.getIntervals()) {
                             Interval i = (Interval) o; //TODO why is this necessary?
@@ -558,9 +754,10 @@ public class SolrSearchServer extends SearchServer {
                         }
                     });
 
-            //Date Range facet
+            //Date Range facet used by pivots
             search.getFacets().values().stream()
                     .filter(facet -> Facet.DateRangeFacet.class.isAssignableFrom(facet.getClass()))
+                    .filter(facet -> !SolrUtils.Query.isJsonFacet(facet))
                     .map(genericFacet -> (Facet.DateRangeFacet)genericFacet)
                     .forEach(dateRangeFacet ->
                                     generateDateRangeQuery(dateRangeFacet, query, searchContext)
@@ -587,11 +784,11 @@ public class SolrSearchServer extends SearchServer {
                                         .map(fieldDescriptor -> getFieldname(fieldDescriptor, UseCase.Facet, searchContext))
                                         .toArray(String[]::new);
 
-                        query.add(FacetParams.FACET_PIVOT,SolrUtils.Query.buildSolrPivotSubFacetName(pivotFacet.getFacetName(),fieldNames));
+                        query.add(FacetParams.FACET_PIVOT,SolrUtils.Query.buildSolrPivotSubFacetName(pivotFacet,fieldNames));
                     });
 
-            //facet fields
-            final ObjectNode jsonFacet = SolrUtils.Query.buildJsonTermFacet(search.getFacets(), search.getFacetLimit(), factory, search.getChildrenFactory(), searchContext);
+            //term, type, query and range facets with their nested sub facets and aggregations
+            final ObjectNode jsonFacet = SolrUtils.Query.buildJsonFacet(search, factory, searchContext);
             query.add("json.facet", jsonFacet.toString());
             //facet Subdocument count
             final String subdocumentFacetString = SolrUtils.Query.buildSubdocumentFacet(search, factory, searchContext);
@@ -613,6 +810,15 @@ public class SolrSearchServer extends SearchServer {
             query.set(DisMaxParams.BF, SolrUtils.Query.buildBoostFunction(search.getSorting(), searchContext));
         }
 
+        //reranking
+        if(search.hasRerank()) {
+            query.set(CommonParams.RQ, SolrUtils.Query.buildRerankQuery(search.getRerank()));
+            final String rerankFunction = SolrUtils.Query.buildRerankFunction(search.getRerank(), searchContext);
+            if(Objects.nonNull(rerankFunction)) {
+                query.set(SolrUtils.Query.RERANK_QUERY, rerankFunction);
+            }
+        }
+
         // paging
         switch(search.getResultSet().getType()) {
             case page:{
@@ -676,83 +882,158 @@ public class SolrSearchServer extends SearchServer {
     @Override
     public boolean execute(Update update,DocumentFactory factory) {
 
+        //In place updates just rewrite docValues, so there is no need to get or reindex the original document
+        if (isInPlaceUpdate(update)) {
+            return executeInPlace(update, factory);
+        }
+
+        return execute(Collections.singletonList(update), factory);
+    }
+
+    @Override
+    public boolean execute(List<Update> updates, DocumentFactory factory) {
+
+        final List<Update> blockUpdates = updates.stream()
+                .filter(update -> !isInPlaceUpdate(update))
+                .collect(Collectors.toList());
+
         //Check if document is updatable and all its fields are stored.
         final boolean isUpdatable = factory.isUpdatable() && factory.getFields().values().stream()
                                         .allMatch( descriptor -> descriptor.isUpdate());
-        if (isUpdatable) {
-
-            //Creates an atomic update solr document
-            final SolrInputDocument sdoc = getSolrUpdateDocument(update, factory.getType());
-
-            try {
+        if (!blockUpdates.isEmpty() && !isUpdatable) {
+            Exception e = new SearchServerException("It is not safe to execute solr partial update: Document contains non stored fields");
+            log.error("Unable to perform solr partial update on documents with ids {}", getUpdateIds(blockUpdates), e);
+            throw new RuntimeException("Can not execute solr partial update.", e);
+        }
 
-                if (solrClientLogger.isTraceEnabled()) {
-                    solrClientLogger.debug(">>> add({}): {}", update.getId(), sdoc);
-                } else {
-                    solrClientLogger.debug(">>> add({})", update.getId());
+        try {
+            //Get the original documents together with their nested documents in a single request
+            final Map<String, SolrDocument> originalDocs = getOriginalDocuments(blockUpdates, factory);
+
+            final List<SolrInputDocument> finalDocs = new ArrayList<>(updates.size());
+            for (Update update : updates) {
+                if (isInPlaceUpdate(update)) {
+                    finalDocs.add(getSolrInPlaceDocument(update, factory));
+                    continue;
                 }
 
-                SolrInputDocument finalDoc = sdoc;
-
-                //Get the original document
-                log.debug("Atomic Update - Get version of original document [{}].",update.getId());
-                final SolrDocument updatedDoc = solrClient.getById(update.getId());
+                //Creates an atomic update solr document
+                final SolrInputDocument sdoc = getSolrUpdateDocument(update, factory.getType());
 
+                final SolrDocument updatedDoc = originalDocs.get(update.getId());
                 if (updatedDoc == null){
                     throw new SearchServerException("Can not execute solr partial update for non existing document for update id " + update.getId());
                 }
 
                 //Setting the document version for optimistic concurrency
                 final Object version = updatedDoc.getFieldValue("_version_");
-                if (Objects.nonNull(version)) {
-                    finalDoc.setField("_version_", version);
-                } else {
+                if (Objects.isNull(version)) {
                     log.warn("Error updating document [{}]: " +
                             "Atomic updates in nested documents are not supported by Solr", updatedDoc.get(ID));
 
                     return false;
                 }
 
-                //Get the nested docs of the document if existing
-                log.debug("Atomic Update - Get nested documents of [{}].",update.getId());
-                final NamedList<Object> paramList = new NamedList<>();
-                paramList.add(CommonParams.Q, "!( _id_:"+ update.getId()+")&(_root_:"+ update.getId()+")");
-                final QueryResponse query = solrClient.query(paramList.toSolrParams(), REQUEST_METHOD);
-
                 //if the document has nested docs solr does not support atomic updates
-                if (CollectionUtils.isNotEmpty(query.getResults())) {
+                if (updatedDoc.hasChildDocuments()) {
                     log.debug("Update document [{}]: doc has {} nested documents, changing from partial update to full index.",
-                            finalDoc.getFieldValue(SolrUtils.Fieldname.ID), query.getResults().size());
-                    //Get the list of nested documents
-                    final List<SolrInputDocument> childDocs = query.getResults().stream()
-                            .map(nestedDoc -> SolrUtils.toSolrInputDocument(nestedDoc))
-                            .collect(Collectors.toList());
-
-                    finalDoc = this.getUpdatedSolrDocument(sdoc, updatedDoc, childDocs);
+                            update.getId(), updatedDoc.getChildDocumentCount());
+                    finalDocs.add(this.getUpdatedSolrDocument(sdoc, updatedDoc));
+                } else {
+                    sdoc.setField("_version_", version);
+                    finalDocs.add(sdoc);
                 }
+            }
+
+            if (solrClientLogger.isTraceEnabled()) {
+                solrClientLogger.debug(">>> add({}): {}", getUpdateIds(updates), finalDocs);
+            } else {
+                solrClientLogger.debug(">>> add({})", getUpdateIds(updates));
+            }
 
-                try {
-                    log.debug("Atomic Update - Updating document [{}]: current version [{}]", finalDoc.getFieldValue(SolrUtils.Fieldname.ID), version);
-                    final UpdateResponse response = solrClient.add(finalDoc);
-                    log.debug("Atomic Update - Solr update time: query time [{}] - elapsed time [{}]", response.getQTime(), response.getQTime());
-                    return true;
-                } catch (HttpSolrClient.RemoteSolrException e) {
-                    log.warn("Error updating document [{}]: [{}]", finalDoc.getFieldValue(ID),e.getMessage(), e);
+            try {
+                log.debug("Atomic Update - Updating {} documents", finalDocs.size());
+                final UpdateResponse response = solrClient.add(finalDocs);
+                log.debug("Atomic Update - Solr update time: query time [{}] - elapsed time [{}]", response.getQTime(), response.getElapsedTime());
+                return true;
+            } catch (SolrException e) {
+                if (e instanceof HttpSolrClient.RemoteSolrException || e.code() == SolrException.ErrorCode.CONFLICT.code) {
+                    log.warn("Error updating documents {}: [{}]", getUpdateIds(updates), e.getMessage(), e);
                     return false;
                 }
+                throw e;
+            }
 
-            } catch (SolrServerException | IOException e) {
-                log.error("Unable to perform solr partial update on document with id [{}]", update.getId(), e);
-                throw new SearchServerException("Can not execute solr partial update.", e);
+        } catch (SolrServerException | IOException e) {
+            log.error("Unable to perform solr partial update on documents with ids {}", getUpdateIds(updates), e);
+            throw new SearchServerException("Can not execute solr partial update.", e);
+        }
+    }
+
+    private Map<String, SolrDocument> getOriginalDocuments(List<Update> updates, DocumentFactory factory) throws SolrServerException, IOException {
+        if (updates.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        log.debug("Atomic Update - Get original documents {} with their nested documents.", getUpdateIds(updates));
+        final ModifiableSolrParams params = new ModifiableSolrParams();
+        params.set(CommonParams.FL, "*," + SolrUtils.Query.buildChildTransformer(factory, null, -1));
+
+        final Map<String, SolrDocument> originalDocs = new HashMap<>();
+        solrClient.getById(getUpdateIds(updates), params)
+                .forEach(doc -> originalDocs.put((String) doc.getFieldValue(ID), doc));
+        return originalDocs;
+    }
+
+    private static List<String> getUpdateIds(List<Update> updates) {
+        return updates.stream().map(Update::getId).distinct().collect(Collectors.toList());
+    }
+
+    private boolean isInPlaceUpdate(Update update) {
+        final HashMap<FieldDescriptor<?>, HashMap<String, SortedSet<UpdateOperation>>> updateOptions = update.getOptions();
+        return !updateOptions.isEmpty() && updateOptions.entrySet().stream()
+                .allMatch(option -> option.getKey().isInPlace() && option.getValue().values().stream()
+                        .flatMap(Collection::stream)
+                        .allMatch(operation -> operation.getType() == UpdateOperations.inc || operation.getType() == set));
+    }
+
+    private SolrInputDocument getSolrInPlaceDocument(Update update, DocumentFactory factory) {
+        final SolrInputDocument sdoc = getSolrUpdateDocument(update, factory.getType());
+        //any plain field value would force solr to reindex the full document
+        sdoc.removeField(TYPE);
+        //version 1 requires the document to exist without having to get its actual version
+        sdoc.setField("_version_", 1L);
+        return sdoc;
+    }
+
+    private boolean executeInPlace(Update update, DocumentFactory factory) {
+        final SolrInputDocument sdoc = getSolrInPlaceDocument(update, factory);
+
+        try {
+            log.debug("In place Update - Updating document [{}]", update.getId());
+            final UpdateResponse response = solrClient.add(sdoc);
+            log.debug("In place Update - Solr update time: query time [{}] - elapsed time [{}]", response.getQTime(), response.getElapsedTime());
+            return true;
+        } catch (SolrException e) {
+            if (e.code() == SolrException.ErrorCode.CONFLICT.code) {
+                log.warn("Error updating document [{}] in place: document does not exist", update.getId());
+                return false;
             }
-        } else {
-            Exception e = new SearchServerException("It is not safe to execute solr partial update: Document contains non stored fields");
-            log.error("Unable to perform solr partial update on document with id [{}]", update.getId(), e);
-            throw new RuntimeException("Can not execute solr partial update.", e);
+            log.error("Unable to perform solr in place update on document with id [{}]", update.getId(), e);
+            throw new SearchServerException("Can not execute solr in place update.", e);
+        } catch (SolrServerException | IOException e) {
+            log.error("Unable to perform solr in place update on document with id [{}]", update.getId(), e);
+            throw new SearchServerException("Can not execute solr in place update.", e);
         }
     }
 
     private SolrInputDocument getSolrUpdateDocument(Update update, String type) {
+        try (SchemaScope scope = useSchema(compiledSchema)) {
+            return createSolrUpdateDocument(update, type);
+        }
+    }
+
+    private SolrInputDocument createSolrUpdateDocument(Update update, String type) {
 
         final SolrInputDocument sdoc = new SolrInputDocument();
         sdoc.addField(ID, update.getId());
@@ -771,15 +1052,16 @@ public class SolrSearchServer extends SearchServer {
                                 //NOTE: Backwards compatibility
                                 final String updateContext = Objects.isNull(context)? update.getUpdateContext() : context;
                                 final String fieldName = getFieldname(fieldDescriptor, useCase, updateContext);
-                                if (fieldName != null) {
-                                    final Map<String, Object> fieldModifiers = new HashMap<>();
+                                //in place fields share a single solr field among use cases
+                                if (fieldName != null && !sdoc.containsKey(fieldName)) {
+                                    final Map<String, Object> fieldModifiers = new LinkedHashMap<>();
                                     updateOptions.get(fieldDescriptor).get(context).stream().forEach(entry -> {
                                         UpdateOperations opType = entry.getType();
                                         if(fieldName.startsWith("dynamic_single_") && useCase.equals(UseCase.Sort) && opType.equals(UpdateOperations.add)) {
                                             opType = set;
                                         }
                                         fieldModifiers.put(opType.name(),
-                                                toSolrJType(SolrUtils.FieldValue.getFieldCaseValue(entry.getValue(), fieldDescriptor, useCase)));
+                                                SolrUtils.FieldValue.toSolrJType(SolrUtils.FieldValue.getFieldCaseValue(entry.getValue(), fieldDescriptor, useCase)));
 
                                     });
                                     sdoc.addField(fieldName, fieldModifiers);
@@ -791,69 +1073,92 @@ public class SolrSearchServer extends SearchServer {
         return sdoc;
     }
 
-    private SolrInputDocument getUpdatedSolrDocument(SolrInputDocument sdoc, SolrDocument updatedDoc, List<SolrInputDocument> nestedDocs) {
+    private SolrInputDocument getUpdatedSolrDocument(SolrInputDocument sdoc, SolrDocument updatedDoc) {
 
-        //TODO:find a better way - non deprecated way
-        //Create an input document from the original doc to be updated
+        //Create an input document from the original doc, including its nested documents, to be updated
         final SolrInputDocument inputDoc = SolrUtils.toSolrInputDocument(updatedDoc);
 
         log.debug("Atomic Update - Manually update Document [{}].", sdoc.getField(ID).getValue());
 
-        //Add nested documents to the doc
-        inputDoc.addChildDocuments(nestedDocs);
-
-        //TODO: think about a cleaner solution
-        //Update the original document
+        //Apply the atomic update operations on the typed values of the original document
         sdoc.getFieldNames().stream()
-                .filter(fn -> !fn.equals(ID) && !fn.equals(TYPE) && !fn.equals("_version_") )//TODO: Add all the special fields or do the oposite check, whether it fits a dynamic Vind field
-                .forEach( fn -> {
-                    final ArrayList fieldOp = (ArrayList) sdoc.getFieldValues(fn);
-                    fieldOp.stream()
-                            .forEach( op -> {
-                                final Set<String> keys = ((HashMap<String, String>) op).keySet();
-                                keys.stream()
-                                        .forEach(k -> {
-                                            switch (UpdateOperations.valueOf(k)) {
-                                                case set:
-                                                    inputDoc.setField(fn, ((HashMap<String, String>) op).get(k) );
-                                                    break;
-                                                case add:
-                                                    inputDoc.addField(fn, ((HashMap<String, String>) op).get(k) );
-                                                    break;
-                                                case inc:
-                                                    final Number fieldValue;
-                                                    try {
-                                                        fieldValue = NumberFormat.getInstance().parse((String)inputDoc.getFieldValue(fn));
-
-                                                    } catch (ParseException e) {
-                                                        throw new RuntimeException();
-                                                    }
-                                                    inputDoc.setField(fn,String.valueOf(fieldValue.floatValue()+1));
-                                                    break;
-                                                case remove:
-                                                    inputDoc.removeField(fn);
-                                                    break;
-                                                case removeregex:
-                                                    final String fieldStringValue = (String)inputDoc.getFieldValue(fn);
-                                                    final String regex = ((HashMap<String, String>) op).get(k);
-                                                    if (regex.matches(fieldStringValue)) {
-                                                        inputDoc.removeField(fn);
-                                                    }
-                                                    break;
-                                            }
-                                        });
-                                }
-                            );
-
-                    }
-                );
+                .filter(fn -> !fn.equals(ID) && !fn.equals(TYPE) && !fn.equals("_version_"))
+                .forEach(fn -> sdoc.getFieldValues(fn).forEach(op ->
+                        ((Map<String, Object>) op).forEach((operation, value) ->
+                                applyUpdateOperation(inputDoc, fn, UpdateOperations.valueOf(operation), value))));
 
         return inputDoc;
     }
 
+    private static void applyUpdateOperation(SolrInputDocument doc, String fieldname, UpdateOperations operation, Object value) {
+        switch (operation) {
+            case set:
+                doc.removeField(fieldname);
+                if (Objects.nonNull(value)) {
+                    doc.addField(fieldname, value);
+                }
+                break;
+            case add:
+                doc.addField(fieldname, value);
+                break;
+            case inc:
+                doc.setField(fieldname, increment((Number) doc.getFieldValue(fieldname), (Number) value));
+                break;
+            case remove:
+                if (Objects.isNull(value)) {
+                    doc.removeField(fieldname);
+                } else {
+                    final Collection<?> values = value instanceof Collection ? (Collection<?>) value : Collections.singleton(value);
+                    removeFieldValues(doc, fieldname, values::contains);
+                }
+                break;
+            case removeregex:
+                final Collection<?> regexes = value instanceof Collection ? (Collection<?>) value : Collections.singleton(value);
+                final List<Pattern> patterns = regexes.stream()
+                        .map(regex -> Pattern.compile(String.valueOf(regex)))
+                        .collect(Collectors.toList());
+                removeFieldValues(doc, fieldname, fieldValue ->
+                        patterns.stream().anyMatch(pattern -> pattern.matcher(String.valueOf(fieldValue)).matches()));
+                break;
+        }
+    }
+
+    private static Number increment(Number fieldValue, Number increment) {
+        if (Objects.isNull(fieldValue)) {
+            return increment;
+        }
+        if (fieldValue instanceof Integer) {
+            return fieldValue.intValue() + increment.intValue();
+        }
+        if (fieldValue instanceof Long) {
+            return fieldValue.longValue() + increment.longValue();
+        }
+        if (fieldValue instanceof Float) {
+            return fieldValue.floatValue() + increment.floatValue();
+        }
+        return fieldValue.doubleValue() + increment.doubleValue();
+    }
+
+    private static void removeFieldValues(SolrInputDocument doc, String fieldname, Predicate<Object> filter) {
+        final Collection<Object> fieldValues = doc.getFieldValues(fieldname);
+        if (Objects.isNull(fieldValues)) {
+            return;
+        }
+        final List<Object> remaining = fieldValues.stream()
+                .filter(filter.negate())
+                .collect(Collectors.toList());
+        doc.removeField(fieldname);
+        if (!remaining.isEmpty()) {
+            doc.addField(fieldname, remaining);
+        }
+    }
+
     @Override
     public DeleteResult execute(Delete delete, DocumentFactory factory) {
-        String query = SolrUtils.Query.buildFilterString(delete.getQuery(), factory, delete.getUpdateContext(),true);
+        final String query;
+        try (SchemaScope scope = useSchema(compiledSchema)) {
+            query = SolrUtils.Query.buildFilterString(delete.getQuery(), factory, delete.getUpdateContext(), true);
+        }
         try {
             solrClientLogger.debug(">>> delete query({})", query);
 
@@ -886,15 +1191,30 @@ public class SolrSearchServer extends SearchServer {
         return execute(search,assets,null);
     }
 
+    @Override
+    public CompletableFuture<SuggestionResult> executeAsync(ExecutableSuggestionSearch search, DocumentFactory assets, Executor executor) {
+        final AsyncSolrClient asyncClient = getAsyncClient();
+        if (Objects.isNull(asyncClient)) {
+            return super.executeAsync(search, assets, executor);
+        }
+
+        final SolrQuery query = buildSolrQuery(search, assets, null);
+        log.debug(">>> async query({})", query.toString());
+        return asyncResult(asyncClient.query(query)
+                .thenApplyAsync(response -> SolrUtils.Result.buildSuggestionResult(response, assets, null, search.getSearchContext()), executor),
+                "Cannot execute suggestion query");
+    }
+
     @Override
     public SuggestionResult execute(ExecutableSuggestionSearch search, DocumentFactory assets,DocumentFactory childFactory) {
-        SolrQuery query = buildSolrQuery(search, assets, childFactory);
+        SolrQuery query = Instrumentation.time(Phase.QueryBuilding, () -> buildSolrQuery(search, assets, childFactory));
 
         try {
             log.debug(">>> query({})", query.toString());
-            QueryResponse response = solrClient.query(query, REQUEST_METHOD);
+            QueryResponse response = executeQuery(query);
             if(response!=null){
-                return SolrUtils.Result.buildSuggestionResult(response, assets, childFactory, search.getSearchContext());
+                return Instrumentation.time(Phase.ResultMapping, () ->
+                        SolrUtils.Result.buildSuggestionResult(response, assets, childFactory, search.getSearchContext()));
             }else {
                 log.error("Null result from SolrClient");
                 throw new SolrServerException("Null result from SolrClient");
@@ -926,6 +1246,12 @@ public class SolrSearchServer extends SearchServer {
     }
 
     protected SolrQuery buildSolrQuery(ExecutableSuggestionSearch search, DocumentFactory assets, DocumentFactory childFactory) {
+        try (SchemaScope scope = useSchema(compiledSchema)) {
+            return createSolrQuery(search, assets, childFactory);
+        }
+    }
+
+    private SolrQuery createSolrQuery(ExecutableSuggestionSearch search, DocumentFactory assets, DocumentFactory childFactory) {
         final String searchContext = search.getSearchContext();
 
         final SolrQuery query = new SolrQuery();
@@ -1006,18 +1332,18 @@ public class SolrSearchServer extends SearchServer {
     public <T> BeanGetResult<T> execute(RealTimeGet search, Class<T> c) {
         DocumentFactory documentFactory = AnnotationUtil.createDocumentFactory(c);
         final GetResult result = this.execute(search, documentFactory);
-        return result.toPojoResult(result,c);
+        return Instrumentation.time(Phase.PojoConversion, () -> result.toPojoResult(result,c));
     }
 
     @Override
     public GetResult execute(RealTimeGet search, DocumentFactory assets) {
-        SolrQuery query = buildSolrQuery(search, assets);
+        SolrQuery query = Instrumentation.time(Phase.QueryBuilding, () -> buildSolrQuery(search, assets));
 
         try {
             log.debug(">>> query({})", query.toString());
-            QueryResponse response = solrClient.query(query, REQUEST_METHOD);
+            QueryResponse response = executeQuery(query);
             if(response!=null){
-                return SolrUtils.Result.buildRealTimeGetResult(response, search, assets);
+                return Instrumentation.time(Phase.ResultMapping, () -> SolrUtils.Result.buildRealTimeGetResult(response, search, assets));
             }else {
                 log.error("Null result from SolrClient");
                 throw new SolrServerException("Null result from SolrClient");
@@ -1050,6 +1376,11 @@ public class SolrSearchServer extends SearchServer {
 
     @Override
     public void close() {
+        if (asyncClient != null) try {
+            asyncClient.close();
+        } catch (IOException e) {
+            log.warn("Cannot close non-blocking solr client", e);
+        }
         if (solrClient != null) try {
             solrClient.close();
         } catch (IOException e) {
@@ -4,14 +4,18 @@ import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.rbmhtechnology.vind.api.Document;
 import com.rbmhtechnology.vind.api.query.FulltextSearch;
+import com.rbmhtechnology.vind.api.query.collapse.Collapse;
 import com.rbmhtechnology.vind.api.query.datemath.DateMathExpression;
+import com.rbmhtechnology.vind.api.query.facet.Aggregation;
 import com.rbmhtechnology.vind.api.query.facet.Facet;
 import com.rbmhtechnology.vind.api.query.facet.TermFacetOption;
 import com.rbmhtechnology.vind.api.query.filter.Filter;
 import com.rbmhtechnology.vind.api.query.get.RealTimeGet;
+import com.rbmhtechnology.vind.api.query.rerank.Rerank;
 import com.rbmhtechnology.vind.api.query.sort.Sort;
 import com.rbmhtechnology.vind.api.result.FacetResults;
 import com.rbmhtechnology.vind.api.result.GetResult;
+import com.rbmhtechnology.vind.api.result.ResultGroup;
 import com.rbmhtechnology.vind.api.result.SuggestionResult;
 import com.rbmhtechnology.vind.api.result.facet.*;
 import com.rbmhtechnology.vind.model.*;
@@ -66,9 +70,9 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 public class SolrUtils {
     private static final Logger log = LoggerFactory.getLogger(SolrSearchServer.class);
 
-    private static final String INTERNAL_FIELD_PREFIX = String.format("%s(%s|%s)(%s|%s|%s|%s|%s|%s|%s|%s)",
+    private static final String INTERNAL_FIELD_PREFIX = String.format("%s(%s|%s|%s)(%s|%s|%s|%s|%s|%s|%s|%s)",
             Fieldname._DYNAMIC,
-            Fieldname._MULTI,Fieldname._SINGLE,
+            Fieldname._MULTI,Fieldname._SINGLE,Fieldname._INPLACE,
             Fieldname.Type.BOOLEAN.getName(), Fieldname.Type.DATE.getName(),
             Fieldname.Type.INTEGER.getName(), Fieldname.Type.LONG.getName(),Fieldname.Type.NUMBER.getName(),
             Fieldname.Type.STRING.getName(),Fieldname.Type.BINARY.getName(),Fieldname.Type.LOCATION.getName());
@@ -82,11 +86,12 @@ public class SolrUtils {
             Fieldname.Type.INTEGER.getName(), Fieldname.Type.LONG.getName(),Fieldname.Type.NUMBER.getName(),
             Fieldname.Type.STRING.getName(),Fieldname.Type.LOCATION.getName());
 
-    private static final String INTERNAL_SCOPE_FACET_FIELD_PREFIX = String.format("%s(%s|%s)(%s)?(%s|%s|%s)(%s|%s|%s|%s|%s|%s|%s)",
+    private static final String INTERNAL_SCOPE_FACET_FIELD_PREFIX = String.format("%s((%s|%s)(%s)?(%s|%s|%s)?|%s)(%s|%s|%s|%s|%s|%s|%s)",
             Fieldname._DYNAMIC,
             Fieldname._MULTI,Fieldname._SINGLE,
             Fieldname._STORED,
             Fieldname._FACET,Fieldname._SUGGEST,Fieldname._FILTER,
+            Fieldname._INPLACE,
             Fieldname.Type.BOOLEAN.getName(), Fieldname.Type.DATE.getName(),
             Fieldname.Type.INTEGER.getName(), Fieldname.Type.LONG.getName(),Fieldname.Type.NUMBER.getName(),
             Fieldname.Type.STRING.getName(),Fieldname.Type.LOCATION.getName());
@@ -167,6 +172,13 @@ public class SolrUtils {
 
     public static final class Query {
 
+        public static final String RERANK_QUERY = "rrq";
+        public static final String VIND_COMPACT = "vind.compact";
+        public static final String CHILD_FILTER = "childFilter";
+
+        private static final Pattern FIELD_ALIAS = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+        private static final Pattern INTERNAL_FIELD_ALIAS = Pattern.compile(INTERNAL_FIELD_PREFIX);
+
         public static String serializeFacetFilter(Filter filter, DocumentFactory factory, String searchContext, boolean strict) {
 
             final SolrFilterSerializer serializer = new SolrFilterSerializer(factory, strict);
@@ -203,6 +215,20 @@ public class SolrUtils {
             }
         }
 
+        /**
+         * @return the filter query of an already serialized filter, tagged to be excluded by facets.
+         */
+        public static String buildTaggedFilter(String tag, String serializedFilter) {
+            return String.format("{!tag=%s}%s", checkTag(tag), serializedFilter);
+        }
+
+        private static String checkTag(String tag) {
+            if(StringUtils.isBlank(tag) || StringUtils.containsAny(tag, " ,'}")) {
+                throw new RuntimeException("Filter tag '" + tag + "' may not be empty or contain blanks, commas, quotes or braces");
+            }
+            return tag;
+        }
+
         public static String buildSortString(FulltextSearch search, List<Sort> sortList, DocumentFactory factory) {
             return sortList.stream().map(sort -> {
                 if (sort instanceof Sort.SimpleSort) {
@@ -239,15 +265,167 @@ public class SolrUtils {
             }).collect(Collectors.joining(", "));
         }
 
+        /**
+         * Builds the <code>[child]</code> document transformer returning the children of the result documents
+         * together with their parents. The children filter is referenced as {@link #CHILD_FILTER} parameter, which
+         * is built by {@link #buildChildFilter(FulltextSearch)}.
+         * @param search {@link FulltextSearch} returning its children.
+         * @param factory {@link DocumentFactory} of the parent documents.
+         * @return the transformer to be added to the field list.
+         */
+        public static String buildChildTransformer(FulltextSearch search, DocumentFactory factory) {
+            return buildChildTransformer(factory, "$" + CHILD_FILTER, search.getInlineChildrenLimit());
+        }
+
+        /**
+         * Builds the <code>[child]</code> document transformer for the parent documents of the given factory.
+         * @param factory {@link DocumentFactory} of the parent documents.
+         * @param childFilter String children query, or null to return all children.
+         * @param limit int maximum number of children per parent, -1 to return all of them.
+         * @return the transformer to be added to the field list.
+         */
+        public static String buildChildTransformer(DocumentFactory factory, String childFilter, int limit) {
+            return String.format("[child parentFilter=%s:%s%s limit=%s]",
+                    Fieldname.TYPE, factory.getType(),
+                    Objects.nonNull(childFilter) ? " childFilter=" + childFilter : "",
+                    limit);
+        }
+
+        /**
+         * Builds the children query of the <code>[child]</code> transformer. The query is always restricted to the
+         * type of the inline children factory, so children of other types nested in the same block are not returned.
+         * @param search {@link FulltextSearch} with inline children.
+         * @return the children query.
+         */
+        public static String buildChildFilter(FulltextSearch search) {
+            final Filter childrenFilter = search.getInlineChildrenFilter();
+            final DocumentFactory childrenFactory = search.getInlineChildrenFactory();
+            final String typeFilterString = Fieldname.TYPE + ":" + childrenFactory.getType();
+            if (Objects.isNull(childrenFilter)) {
+                return typeFilterString;
+            }
+            final String serializedFilter = new SolrFilterSerializer(childrenFactory, search.getStrict())
+                    .serialize(childrenFilter, search.getSearchContext());
+            return serializedFilter.isEmpty() ?
+                    typeFilterString :
+                    "(" + typeFilterString + " AND (" + serializedFilter + "))";
+        }
+
+        public static String buildCollapseFieldName(Collapse collapse, DocumentFactory factory, String searchContext) {
+            final FieldDescriptor<?> descriptor = Objects.nonNull(collapse.getField()) ?
+                    collapse.getField() : factory.getField(collapse.getFieldName());
+            if (Objects.isNull(descriptor)) {
+                log.error("Cannot collapse on field '{}'. The field is not defined.", collapse.getFieldName());
+                throw new RuntimeException("Cannot collapse on field " + collapse.getFieldName());
+            }
+            if (descriptor.isMultiValue()) {
+                log.error("Cannot collapse on field '{}'. The field is multivalued.", collapse.getFieldName());
+                throw new RuntimeException("Cannot collapse on multivalued field " + collapse.getFieldName());
+            }
+            final Fieldname.Type type = Fieldname.Type.getFromClass(descriptor.getType());
+            if (type == Fieldname.Type.LONG || type == Fieldname.Type.DATE) {
+                //solr collapses on strings and 32 bit numbers only
+                log.error("Cannot collapse on field '{}'. The field is a 64 bit number or a date.", collapse.getFieldName());
+                throw new IllegalArgumentException("Cannot collapse on 64 bit numeric or date field " + collapse.getFieldName());
+            }
+            final String fieldname = ObjectUtils.firstNonNull(
+                    Fieldname.getFieldname(descriptor, Facet, searchContext),
+                    Fieldname.getFieldname(descriptor, Sort, searchContext));
+            if (Objects.isNull(fieldname)) {
+                log.error("Cannot collapse on field '{}'. The field is not defined as facet or sortable.", collapse.getFieldName());
+                throw new RuntimeException("The field '" + collapse.getFieldName() + "' is not set as facet or sortable");
+            }
+            return fieldname;
+        }
+
+        public static String buildCollapseFilter(String fieldname, Collapse collapse) {
+            return String.format("{!collapse field=%s nullPolicy=%s}", fieldname, collapse.getNullPolicy());
+        }
+
         //TODO sorting stuff is a mess
         public static String buildBoostFunction(List<Sort> sortList, String searchContext) {
-            //String bf =
+            return buildBoostFunctions(sortList, searchContext).collect(Collectors.joining(" "));
+        }
+
+        private static Stream<String> buildBoostFunctions(List<Sort> sortList, String searchContext) {
             return sortList.stream().map(sort -> {
                 if (sort instanceof Sort.SpecialSort.ScoredDate) {
                     Sort.SpecialSort.ScoredDate ssort = (Sort.SpecialSort.ScoredDate) sort;
                     return String.format("recip(abs(ms(NOW/HOUR,%s)),3.16e-11,1,.1)", Fieldname.getFieldname(ssort.getDescriptor(), Stored, searchContext));
                 } else return null;
-            }).filter(Objects::nonNull).collect(Collectors.joining(" "));
+            }).filter(Objects::nonNull);
+        }
+
+        public static String buildRerankQuery(Rerank rerank) {
+            if (rerank instanceof Rerank.ModelRerank) {
+                final Rerank.ModelRerank modelRerank = (Rerank.ModelRerank) rerank;
+                final String features = modelRerank.getFeatures().entrySet().stream()
+                        .map(feature -> String.format(" efi.%s='%s'", feature.getKey(), String.valueOf(feature.getValue()).replace("'", "\\'")))
+                        .collect(Collectors.joining());
+                return String.format("{!ltr model=%s reRankDocs=%s%s}", modelRerank.getModel(), rerank.getDocs(), features);
+            }
+            return String.format("{!rerank reRankQuery=$%s reRankDocs=%s reRankWeight=%s}", RERANK_QUERY, rerank.getDocs(), rerank.getWeight());
+        }
+
+        /**
+         * Builds the second phase query of a function based rerank, referenced by the rerank query as
+         * {@link #RERANK_QUERY} parameter.
+         * @param rerank {@link Rerank} configuration.
+         * @param searchContext String search context.
+         * @return the function query, or null if the rerank does not need one.
+         */
+        public static String buildRerankFunction(Rerank rerank, String searchContext) {
+            if (rerank instanceof Rerank.ModelRerank) {
+                return null;
+            }
+            if (rerank instanceof Rerank.FunctionRerank) {
+                return "{!func}" + ((Rerank.FunctionRerank) rerank).getFunction();
+            }
+            if (rerank instanceof Rerank.SortRerank) {
+                final List<String> functions = buildBoostFunctions(((Rerank.SortRerank) rerank).getSorts(), searchContext)
+                        .collect(Collectors.toList());
+                if (functions.isEmpty()) {
+                    log.error("Unable to build rerank query: none of the sorts {} defines a boost function", rerank);
+                    throw new RuntimeException("Unable to build rerank query: none of the sorts defines a boost function");
+                }
+                return "{!func}" + (functions.size() == 1 ? functions.get(0) : "sum(" + String.join(",", functions) + ")");
+            }
+            log.error("Unable to build rerank query: rerank type {} is not supported", rerank.getClass().getSimpleName());
+            throw new RuntimeException("Unable to build rerank query: rerank type " + rerank.getClass().getSimpleName() + " is not supported");
+        }
+
+        /**
+         * Builds the field list for the Vind search handler: the wildcard is replaced by the stored fields of the
+         * factory, aliased by their descriptor names where possible, so that only those are loaded and returned under
+         * short keys.
+         * @param fieldList String field list containing the wildcard.
+         * @param factory {@link DocumentFactory} of the result documents.
+         * @param searchContext String search context.
+         * @return the explicit field list.
+         */
+        public static String buildCompactFieldList(String fieldList, DocumentFactory factory, String searchContext) {
+            final Set<String> reserved = new HashSet<>(Arrays.asList(Fieldname.ID, Fieldname.TYPE, Fieldname.SCORE, Fieldname.DISTANCE));
+            final String fields = Stream.concat(
+                    Stream.of(Fieldname.ID, Fieldname.TYPE),
+                    factory.listFields().stream()
+                            .filter(FieldDescriptor::isStored)
+                            .flatMap(descriptor -> {
+                                //contextualized names are resolved by their context on parsing the result
+                                if (descriptor.isContextualized()) {
+                                    return Stream.of(Fieldname.getFieldname(descriptor, Stored, null),
+                                            Fieldname.getFieldname(descriptor, Stored, searchContext));
+                                }
+                                final String fieldname = Fieldname.getFieldname(descriptor, Stored, null);
+                                final boolean aliasable = Objects.nonNull(fieldname)
+                                        && !reserved.contains(descriptor.getName())
+                                        && FIELD_ALIAS.matcher(descriptor.getName()).matches()
+                                        && !INTERNAL_FIELD_ALIAS.matcher(descriptor.getName()).find();
+                                return Stream.of(aliasable ? descriptor.getName() + ":" + fieldname : fieldname);
+                            })
+                            .filter(Objects::nonNull)
+                            .distinct())
+                    .collect(Collectors.joining(","));
+            return fieldList.replaceFirst("^\\*", fields);
         }
 
         public static String buildQueryFieldString(Collection<FieldDescriptor<?>> fulltext, String searchContext) {
@@ -289,109 +467,214 @@ public class SolrUtils {
             return termFacetQuery.stream().toArray(String[]::new);
         }
 
-        public static ObjectNode buildJsonTermFacet(Map<String, Facet> facets, int facetLimit, DocumentFactory factory, DocumentFactory childFactory, String searchContext) {
+        /**
+         * Checks whether a facet is compiled into the JSON Facet request. Query and range facets referenced by pivots
+         * stay on the legacy faceting parameters, as pivots can only be combined with those.
+         * @param facet Facet to check.
+         * @return true if the facet is part of the JSON Facet request.
+         */
+        public static boolean isJsonFacet(Facet facet) {
+            if (facet instanceof TermFacet || facet instanceof TypeFacet || facet instanceof HeatmapFacet) {
+                return true;
+            }
+            return (facet instanceof QueryFacet || facet instanceof NumericRangeFacet || facet instanceof DateRangeFacet)
+                    && facet.getTagedPivots().length == 0;
+        }
+
+        public static ObjectNode buildJsonFacet(FulltextSearch search, DocumentFactory factory, String searchContext) {
 
             final ObjectNode jsonFacets = JsonNodeFactory.instance.objectNode();
 
-            final List<ObjectNode> termFacetQuery = facets.entrySet().stream()
-                    .filter(facet -> facet.getValue() instanceof TermFacet)
-                    //.map(facet -> facet.setValue((Facet.TermFacet) facet.getValue()))
-                    .map(facet -> {
-                        final ObjectNode termFacet = JsonNodeFactory.instance.objectNode();
-                        termFacet.put("type","terms");
-                        final TermFacet value = (TermFacet) facet.getValue();
-                        FieldDescriptor<?> field = factory.getField(value.getFieldName());
-                        if(Objects.isNull(field) && Objects.nonNull(childFactory)) {
-                            field = childFactory.getField(value.getFieldName());
-                            final ObjectNode domainObject = JsonNodeFactory.instance.objectNode();
-                            domainObject.set("blockChildren",
-                                    JsonNodeFactory.instance.objectNode().put(Fieldname.TYPE,factory.getType()));
-                            termFacet.set("domain", domainObject);
+            search.getFacets().values().stream()
+                    .filter(Query::isJsonFacet)
+                    .forEach(facet -> {
+                        final ObjectNode jsonFacet = buildJsonFacet(facet, search, factory, searchContext);
+                        if (Objects.nonNull(jsonFacet)) {
+                            //term facets are keyed by solr field name to resolve the field of the result
+                            final String key = facet instanceof TermFacet || facet instanceof TypeFacet ?
+                                    jsonFacet.get("field").asText() : facet.getFacetName();
+                            jsonFacets.set(key, jsonFacet);
                         }
+                    });
+            return jsonFacets;
+        }
 
-                        final UseCase useCase = UseCase.valueOf(facet.getValue().getScope().name());
-                        final String fieldName = Fieldname.getFieldname(field, useCase, searchContext);
+        private static ObjectNode buildJsonFacet(Facet facet, FulltextSearch search, DocumentFactory factory, String searchContext) {
+            final ObjectNode jsonFacet;
+            if (facet instanceof TermFacet) {
+                jsonFacet = buildJsonTermFacet((TermFacet) facet, search.getFacetLimit(), factory, search.getChildrenFactory(), searchContext);
+            } else if (facet instanceof TypeFacet) {
+                jsonFacet = JsonNodeFactory.instance.objectNode();
+                jsonFacet.put("type","terms");
+                jsonFacet.put("field", Fieldname.TYPE);
+                jsonFacet.put("limit", search.getFacetLimit());
+            } else if (facet instanceof QueryFacet) {
+                jsonFacet = JsonNodeFactory.instance.objectNode();
+                jsonFacet.put("type","query");
+                jsonFacet.put("q", buildFilterString(((QueryFacet) facet).getFilter(), factory, search.getChildrenFactory(), searchContext, search.getStrict()));
+            } else if (facet instanceof NumericRangeFacet) {
+                final NumericRangeFacet<?> rangeFacet = (NumericRangeFacet<?>) facet;
+                jsonFacet = buildJsonRangeFacet(rangeFacet, rangeFacet.getFieldDescriptor(), rangeFacet.getStart(), rangeFacet.getEnd(),
+                        rangeFacet.getGap().toString(), search.getFacetMinCount(), searchContext);
+            } else if (facet instanceof DateRangeFacet) {
+                final DateRangeFacet<?> rangeFacet = (DateRangeFacet<?>) facet;
+                jsonFacet = buildJsonRangeFacet(rangeFacet, rangeFacet.getFieldDescriptor(), rangeFacet.getStart(), rangeFacet.getEnd(),
+                        buildSolrTimeGap(rangeFacet.getGap()), search.getFacetMinCount(), searchContext);
+            } else if (facet instanceof HeatmapFacet) {
+                jsonFacet = buildJsonHeatmapFacet((HeatmapFacet) facet, searchContext);
+            } else {
+                log.error("Unable to build JSON facet '{}': facets of type {} can not be nested.", facet.getFacetName(), facet.getType());
+                throw new RuntimeException("Facets of type " + facet.getType() + " can not be nested");
+            }
 
-                        if(StringUtils.isEmpty(fieldName)) {
-                            log.warn("Field {} is not set for faceting", fieldName);
-                            return null;
-                        }
-                        termFacet.put("field", fieldName);
-                        termFacet.put("limit", facetLimit);
+            if (Objects.isNull(jsonFacet)) {
+                return null;
+            }
 
-                        if (Objects.nonNull(value.getOption())) {
-                            final TermFacetOption option = value.getOption();
-                            if(Objects.nonNull(option.getPrefix())) {
-                                termFacet.put("prefix", option.getPrefix());
+            if (facet.getExcludeTags().length > 0) {
+                final ObjectNode domainObject = jsonFacet.has("domain") ?
+                        (ObjectNode) jsonFacet.get("domain") : jsonFacet.putObject("domain");
+                domainObject.put("excludeTags", buildSolrExcludeTags(facet));
+            }
 
-                            }
-                            if(Objects.nonNull(option.getLimit())) {
-                                termFacet.put("limit", option.getLimit());
-                            }
+            if (facet.isNested()) {
+                final ObjectNode nestedFacets = jsonFacet.putObject("facet");
+                facet.getAggregations().values().forEach(aggregation ->
+                        nestedFacets.put(aggregation.getName(), buildSolrAggregation(aggregation, searchContext)));
+                facet.getSubFacets().values().forEach(subFacet -> {
+                    final ObjectNode jsonSubFacet = buildJsonFacet(subFacet, search, factory, searchContext);
+                    if (Objects.nonNull(jsonSubFacet)) {
+                        nestedFacets.set(subFacet.getFacetName(), jsonSubFacet);
+                    }
+                });
+            }
+            return jsonFacet;
+        }
 
-                            if(Objects.nonNull(option.getMethod())) {
-                                termFacet.put("method", String.valueOf(option.getMethod()).toLowerCase());
-                            }
+        private static ObjectNode buildJsonTermFacet(TermFacet value, int facetLimit, DocumentFactory factory, DocumentFactory childFactory, String searchContext) {
+            final ObjectNode termFacet = JsonNodeFactory.instance.objectNode();
+            termFacet.put("type","terms");
+            FieldDescriptor<?> field = factory.getField(value.getFieldName());
+            if(Objects.isNull(field) && Objects.nonNull(childFactory)) {
+                field = childFactory.getField(value.getFieldName());
+                termFacet.putObject("domain")
+                        .set("blockChildren", JsonNodeFactory.instance.objectNode().put(Fieldname.TYPE,factory.getType()));
+            }
 
-                            if(Objects.nonNull(option.getMincount())) {
-                                termFacet.put("mincount", option.getMincount());
-                            }
+            final UseCase useCase = UseCase.valueOf(value.getScope().name());
+            final String fieldName = Fieldname.getFieldname(field, useCase, searchContext);
 
-                            if(Objects.nonNull(option.getOffset())) {
-                                termFacet.put("offset", option.getOffset());
-                            }
+            if(StringUtils.isEmpty(fieldName)) {
+                log.warn("Field {} is not set for faceting", value.getFieldName());
+                return null;
+            }
+            termFacet.put("field", fieldName);
+            termFacet.put("limit", facetLimit);
 
-                            if(Objects.nonNull(option.getOverrefine())) {
-                                termFacet.put("overrefine", option.getOverrefine());
-                            }
+            if (Objects.nonNull(value.getOption())) {
+                final TermFacetOption option = value.getOption();
+                if(Objects.nonNull(option.getPrefix())) {
+                    termFacet.put("prefix", option.getPrefix());
 
-                            if(Objects.nonNull(option.getOverrequest())) {
-                                termFacet.put("overrequest", option.getOverrequest());
-                            }
+                }
+                if(Objects.nonNull(option.getLimit())) {
+                    termFacet.put("limit", option.getLimit());
+                }
 
-                            if(Objects.nonNull(option.getSort())) {
-                                termFacet.put("sort", option.getSort());
-                            }
+                if(Objects.nonNull(option.getMethod())) {
+                    termFacet.put("method", String.valueOf(option.getMethod()).toLowerCase());
+                }
 
-                            if(Objects.nonNull(option.isAllBuckets())) {
-                                termFacet.put("allBuckets", option.isAllBuckets());
-                            }
+                if(Objects.nonNull(option.getMincount())) {
+                    termFacet.put("mincount", option.getMincount());
+                }
 
-                            if(Objects.nonNull(option.isMissing())) {
-                                termFacet.put("missing", option.isMissing());
-                            }
+                if(Objects.nonNull(option.getOffset())) {
+                    termFacet.put("offset", option.getOffset());
+                }
 
-                            if(Objects.nonNull(option.isNumBuckets())) {
-                                termFacet.put("numBuckets", option.isNumBuckets());
-                            }
+                if(Objects.nonNull(option.getOverrefine())) {
+                    termFacet.put("overrefine", option.getOverrefine());
+                }
 
-                            if(Objects.nonNull(option.isRefine())) {
-                                termFacet.put("refine", option.isRefine());
-                            }
-                        }
+                if(Objects.nonNull(option.getOverrequest())) {
+                    termFacet.put("overrequest", option.getOverrequest());
+                }
 
-                        return termFacet;
-                    })
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
+                if(Objects.nonNull(option.getSort())) {
+                    termFacet.put("sort", option.getSort());
+                }
 
-            final List<ObjectNode> typeFacet = facets.values().stream()
-                    .filter(facet -> facet instanceof TypeFacet)
-                    .map(facet ->{
-                        final ObjectNode termFacet = JsonNodeFactory.instance.objectNode();
-                        termFacet.put("type","terms");
-                        termFacet.put("field", Fieldname.TYPE);
-                        termFacet.put("limit", facetLimit);
-                        return termFacet;
-                    })
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
+                if(Objects.nonNull(option.isAllBuckets())) {
+                    termFacet.put("allBuckets", option.isAllBuckets());
+                }
 
-            termFacetQuery.addAll(typeFacet);
+                if(Objects.nonNull(option.isMissing())) {
+                    termFacet.put("missing", option.isMissing());
+                }
+
+                if(Objects.nonNull(option.isNumBuckets())) {
+                    termFacet.put("numBuckets", option.isNumBuckets());
+                }
 
-            final ObjectNode jsonFieldFacet = JsonNodeFactory.instance.objectNode();
-            termFacetQuery.stream().forEach( facet -> jsonFieldFacet.set(facet.get("field").asText(),facet));
-            return jsonFieldFacet;
+                if(Objects.nonNull(option.isRefine())) {
+                    termFacet.put("refine", option.isRefine());
+                }
+            }
+
+            return termFacet;
+        }
+
+        private static ObjectNode buildJsonRangeFacet(Facet facet, FieldDescriptor<?> descriptor, Object start, Object end, String gap, int minCount, String searchContext) {
+            final UseCase useCase = UseCase.valueOf(facet.getScope().name());
+            final String fieldName = Fieldname.getFieldname(descriptor, useCase, searchContext);
+            if(StringUtils.isEmpty(fieldName)) {
+                log.error("Unable to build range facet '{}': the field '{}' is not set for faceting", facet.getFacetName(), descriptor.getName());
+                throw new RuntimeException("The field '" + descriptor.getName() + "' is not set for faceting");
+            }
+            final ObjectNode rangeFacet = JsonNodeFactory.instance.objectNode();
+            rangeFacet.put("type","range");
+            rangeFacet.put("field", fieldName);
+            rangeFacet.put("start", buildSolrQueryValue(start));
+            rangeFacet.put("end", buildSolrQueryValue(end));
+            rangeFacet.put("gap", gap);
+            rangeFacet.put("mincount", minCount);
+            return rangeFacet;
+        }
+
+        private static ObjectNode buildJsonHeatmapFacet(HeatmapFacet facet, String searchContext) {
+            final UseCase useCase = UseCase.valueOf(facet.getScope().name());
+            final String fieldName = Fieldname.getFieldname(facet.getFieldDescriptor(), useCase, searchContext);
+            if(StringUtils.isEmpty(fieldName)) {
+                log.error("Unable to build heatmap facet '{}': the field '{}' is not set for faceting", facet.getFacetName(), facet.getFieldDescriptor().getName());
+                throw new RuntimeException("The field '" + facet.getFieldDescriptor().getName() + "' is not set for faceting");
+            }
+            final ObjectNode heatmapFacet = JsonNodeFactory.instance.objectNode();
+            heatmapFacet.put("type","heatmap");
+            heatmapFacet.put("field", fieldName);
+            //rectangle given as ["minX minY" TO "maxX maxY"], with x being the longitude
+            heatmapFacet.put("geom", String.format(Locale.ROOT, "[\"%s %s\" TO \"%s %s\"]",
+                    facet.getUpperLeft().getLng(), facet.getLowerRight().getLat(),
+                    facet.getLowerRight().getLng(), facet.getUpperLeft().getLat()));
+            if (Objects.nonNull(facet.getGridLevel())) {
+                heatmapFacet.put("gridLevel", facet.getGridLevel());
+            }
+            heatmapFacet.put("format", "ints2D");
+            return heatmapFacet;
+        }
+
+        public static String buildSolrAggregation(Aggregation aggregation, String searchContext) {
+            final String fieldName = ObjectUtils.firstNonNull(
+                    Fieldname.getFieldname(aggregation.getField(), Facet, searchContext),
+                    Fieldname.getFieldname(aggregation.getField(), Sort, searchContext));
+            if (Objects.isNull(fieldName)) {
+                log.error("Unable to build aggregation '{}': the field '{}' is not defined as facet or sortable.", aggregation.getName(), aggregation.getField().getName());
+                throw new RuntimeException("The field '" + aggregation.getField().getName() + "' is not set as facet or sortable");
+            }
+            if (aggregation.getFunction() == Aggregation.Function.percentile) {
+                return String.format("percentile(%s,%s)", fieldName, StringUtils.join(aggregation.getPercentiles(), ','));
+            }
+            return String.format("%s(%s)", aggregation.getFunction(), fieldName);
         }
 
         public static String buildSolrQueryValue(Object o){
@@ -434,8 +717,26 @@ public class SolrUtils {
             return String.format("{!key=%s}",s);
         }
 
+        public static String buildSolrFacetKey(String s, Facet facet){
+            if(facet.getExcludeTags().length == 0) {
+                return buildSolrFacetKey(s);
+            }
+            if(s == null || s.contains(" ")) throw new RuntimeException("key string may not be empty or contain blanks");
+            return String.format("{!key=%s ex=%s}", s, buildSolrExcludeTags(facet));
+        }
+
+        public static String buildSolrExcludeTags(Facet facet){
+            return Arrays.stream(facet.getExcludeTags())
+                    .map(Query::checkTag)
+                    .collect(Collectors.joining(","));
+        }
+
+        private static String buildSolrLocalExcludeTags(Facet facet){
+            return facet.getExcludeTags().length > 0 ? "dt," + buildSolrExcludeTags(facet) : "dt";
+        }
+
         public static String buildSolrFacetCustomName(String field, Facet facet){
-            return StringUtils.join("{!",buildSolrFacetTags(facet.getTagedPivots())," ex=dt key='", facet.getFacetName(), "'}", field);
+            return StringUtils.join("{!",buildSolrFacetTags(facet.getTagedPivots())," ex=", buildSolrLocalExcludeTags(facet), " key='", facet.getFacetName(), "'}", field);
         }
 
         public static String buildSolarPivotCustomName(String name,String... fields){
@@ -447,6 +748,11 @@ public class SolrUtils {
             return StringUtils.join("{!query='", name,"' stats='", name,"' range='", name,"' ","ex=dt key='", name, "'}", StringUtils.join(fields,','));
         }
 
+        public static String buildSolrPivotSubFacetName(PivotFacet facet, String... fields){
+            final String name = facet.getFacetName();
+            return StringUtils.join("{!query='", name,"' stats='", name,"' range='", name,"' ","ex=", buildSolrLocalExcludeTags(facet), " key='", name, "'}", StringUtils.join(fields,','));
+        }
+
         public static <T> String buildSolrTermsQuery(List<T> values, FieldDescriptor<T> field, Scope scope, String context) {
             final String prefixQuery =
                     "{!terms f=" + Fieldname.getFieldname(field,UseCase.valueOf(scope.name()), context) + "}";
@@ -487,6 +793,9 @@ public class SolrUtils {
             if(stats.getPercentiles().length > 0) {
 
                 statsQuery += "percentiles='"+ StringUtils.join(stats.getPercentiles(),',')+"' ";
+                if(stats.getPercentilesCompression() != null) {
+                    statsQuery += "tdigestCompression=" + stats.getPercentilesCompression() + " ";
+                }
             }
             if(stats.getDistinctValues()) {
                 statsQuery += "distinctValues=true ";
@@ -495,7 +804,7 @@ public class SolrUtils {
                 statsQuery += "countDistinct=true ";
             }
             if(stats.getCardinality()) {
-                statsQuery += "cardinality=true ";
+                statsQuery += "cardinality=" + (stats.getCardinalityAccuracy() != null ? stats.getCardinalityAccuracy() : "true") + " ";
             }
 
             query = query.replace("{!", statsQuery);
@@ -674,12 +983,33 @@ public class SolrUtils {
             } else {
                 if (value != null && useCase.equals(Sort) && descriptor.isSort() && descriptor.isMultiValue()
                     && (Collection.class.isAssignableFrom(value.getClass()) || value instanceof Object[] )) {
-                    return  ((MultiValueFieldDescriptor)descriptor).getsortFunction().apply(value);
+                    return  ((MultiValueFieldDescriptor)descriptor).getsortFunction()
+                            .apply(value instanceof Object[] ? Arrays.asList((Object[]) value) : value);
                 } else {
                     return value;
                 }
             }
         }
+        public static Object toSolrJType(Object value) {
+            if(value!=null) {
+                if(Object[].class.isAssignableFrom(value.getClass())){
+                    return toSolrJType(Arrays.asList((Object[])value));
+                }
+                if(Collection.class.isAssignableFrom(value.getClass())){
+                    return((Collection<?>)value).stream()
+                            .map(o -> toSolrJType(o))
+                            .collect(Collectors.toList());
+                }
+                if(value instanceof ZonedDateTime) {
+                    return Date.from(((ZonedDateTime) value).toInstant());
+                }
+                if(value instanceof LatLng) {
+                    return value.toString();
+                }
+            }
+            return value;
+        }
+
         public static String getStringFieldValue(Object value, FieldDescriptor<?> field) {
             if (value instanceof ZonedDateTime) {
              return DateTimeFormatter.ISO_INSTANT.format((ZonedDateTime) value);
@@ -760,6 +1090,7 @@ public class SolrUtils {
         public static final String DISTANCE = "_distance_";
         public static final String TEXT = "text";
         public static final String FACETS = "facets";
+        public static final String COLLAPSE = "_collapse_";
 
         private static final String _DYNAMIC = "dynamic_";
         private static final String _STORED = "stored_";
@@ -768,9 +1099,12 @@ public class SolrUtils {
         private static final String _FACET = "facet_";
         private static final String _SUGGEST = "suggest_";
         private static final String _FILTER = "filter_";
+        private static final String _INPLACE = "inplace_";
 
         private static final String _SORT = "sort_";
 
+        private static final ThreadLocal<CompiledSchema> COMPILED_SCHEMA = new ThreadLocal<>();
+
         public static Set<String> getFieldnames(FieldDescriptor descriptor, String context) {
             Set<String> fieldsnames = new HashSet<>();
             for(UseCase useCase : UseCase.values()) {
@@ -786,6 +1120,51 @@ public class SolrUtils {
                 return null;
             }
 
+            final CompiledSchema schema = COMPILED_SCHEMA.get();
+            if (Objects.nonNull(schema) && !descriptor.isContextualized() && schema.isCompiled(descriptor)) {
+                return schema.getFieldname(descriptor, useCase);
+            }
+
+            return getDynamicFieldname(descriptor, useCase, context);
+        }
+
+        /**
+         * Makes the compiled descriptors resolve their field names through the mapping of a {@link CompiledSchema}
+         * instead of the generic dynamic field names, for the current thread until the returned scope is closed. The
+         * schema is owned by a {@link SolrSearchServer}, which opens the scope while it builds its requests.
+         * @param schema {@link CompiledSchema} to be used or null to use the dynamic field names.
+         * @return the {@link SchemaScope} restoring the schema used before.
+         */
+        static SchemaScope useSchema(CompiledSchema schema) {
+            final CompiledSchema previous = COMPILED_SCHEMA.get();
+            COMPILED_SCHEMA.set(schema);
+            return () -> {
+                if (Objects.nonNull(previous)) {
+                    COMPILED_SCHEMA.set(previous);
+                } else {
+                    COMPILED_SCHEMA.remove();
+                }
+            };
+        }
+
+        /**
+         * Use of a {@link CompiledSchema} on the current thread.
+         */
+        interface SchemaScope extends AutoCloseable {
+            @Override
+            void close();
+        }
+
+        /**
+         * Gets the name of the Solr field type the values of the descriptor are stored with.
+         */
+        static String getFieldType(FieldDescriptor<?> descriptor) {
+            final String typeName = Type.getFromClass(descriptor.getType()).getName();
+            return typeName.substring(0, typeName.length() - 1);
+        }
+
+        static String getDynamicFieldname(FieldDescriptor descriptor, UseCase useCase, String context) {
+
             final String contextPrefix;
             if (Objects.isNull(context) || !descriptor.isContextualized()) {
                 contextPrefix = "";
@@ -793,6 +1172,10 @@ public class SolrUtils {
                 contextPrefix = context + "_";
             }
 
+            if(descriptor.isInPlace()) {
+                return getInPlaceFieldname(descriptor, useCase, contextPrefix);
+            }
+
             String fieldName = _DYNAMIC;
 
             if(descriptor.isMultiValue()) {
@@ -895,18 +1278,99 @@ public class SolrUtils {
                 }
             }
         }
+
+        /**
+         * In place fields are kept in a single docValues only field which serves every use case but text search and
+         * suggestions. Filters are resolved to the docValues field as well, whatever the facet flag of the field, since
+         * filters without scope use the facet field.
+         */
+        private static String getInPlaceFieldname(FieldDescriptor descriptor, UseCase useCase, String contextPrefix) {
+            final String fieldName = _DYNAMIC + _INPLACE + Type.getFromClass(descriptor.getType()).getName() + contextPrefix + descriptor.getName();
+            switch (useCase) {
+                case Stored:
+                case Sort:
+                case Facet:
+                case Filter:
+                    return fieldName;
+                default: {
+                    log.debug("In place descriptor {} is not available for use case {}.", descriptor.getName(), useCase);
+                    return null;
+                }
+            }
+        }
     }
 
     public static final class Result {
 
         private static Logger log = LoggerFactory.getLogger(Result.class);
 
+        public static final String COMPACT_RESPONSE = "vind";
+        private static final String COMPACT_FIELDS = "fields";
+        private static final String COMPACT_DOCS = "docs";
+        private static final String COMPACT_CHILD_DOCUMENTS = "_childDocuments_";
+
+        private static final Pattern INTERNAL_FIELD_PATTERN = Pattern.compile(INTERNAL_FIELD_PREFIX);
+
+        /**
+         * Restores the result documents of a response of the Vind search handler, which are encoded as rows of values
+         * sharing a single field list, into the standard document list of the response.
+         * @param response {@link QueryResponse} to be decoded in place.
+         * @return the decoded response.
+         */
+        public static QueryResponse decodeCompactResponse(QueryResponse response) {
+            final NamedList<Object> values = response.getResponse();
+            final Object compact = Objects.nonNull(values) ? values.get(COMPACT_RESPONSE) : null;
+            if (compact instanceof NamedList) {
+                values.remove(COMPACT_RESPONSE);
+                values.add("response", decodeCompactDocuments((NamedList<Object>) compact));
+                response.setResponse(values);
+            }
+            return response;
+        }
+
+        private static SolrDocumentList decodeCompactDocuments(NamedList<Object> compact) {
+            final List<String> fields = (List<String>) compact.get(COMPACT_FIELDS);
+            final List<List<Object>> rows = (List<List<Object>>) compact.get(COMPACT_DOCS);
+
+            final SolrDocumentList documents = new SolrDocumentList();
+            documents.setNumFound(ObjectUtils.defaultIfNull((Long) compact.get("numFound"), (long) rows.size()));
+            documents.setStart(ObjectUtils.defaultIfNull((Long) compact.get("start"), 0L));
+            documents.setMaxScore((Float) compact.get("maxScore"));
+
+            for (List<Object> row : rows) {
+                final SolrDocument document = new SolrDocument();
+                for (int i = 0; i < row.size(); i++) {
+                    final Object value = row.get(i);
+                    if (Objects.isNull(value)) {
+                        continue;
+                    }
+                    if (COMPACT_CHILD_DOCUMENTS.equals(fields.get(i))) {
+                        document.addChildDocuments(decodeCompactDocuments((NamedList<Object>) value));
+                    } else {
+                        document.setField(fields.get(i), value);
+                    }
+                }
+                documents.add(document);
+            }
+            return documents;
+        }
+
         public static List<Document> buildResultList(SolrDocumentList results, Map<String,Integer> childCounts, DocumentFactory factory, String searchContext) {
+            return buildResultList(results, childCounts, factory, null, searchContext);
+        }
+
+        public static List<Document> buildResultList(List<SolrDocument> results, Map<String,Integer> childCounts, DocumentFactory factory, DocumentFactory childFactory, String searchContext) {
 
             return results.stream().map(result -> {
 
                 Document document = factory.createDoc((String) result.getFieldValue(Fieldname.ID));
 
+                //children returned by the [child] transformer
+                if (Objects.nonNull(childFactory) && result.hasChildDocuments()) {
+                    buildResultList(result.getChildDocuments(), null, childFactory, null, searchContext)
+                            .forEach(document::addChild);
+                }
+
                 if (childCounts != null) {
                     document.setChildCount(ObjectUtils.defaultIfNull(childCounts.get(document.getId()), 0));
                 }
@@ -927,7 +1391,7 @@ public class SolrUtils {
                         .forEach(name -> {
                             final Object o = result.get(name);
                             final String contextPrefix = searchContext != null ? searchContext + "_" : "";
-                            final Matcher internalPrefixMatcher = Pattern.compile(INTERNAL_FIELD_PREFIX).matcher(name);
+                            final Matcher internalPrefixMatcher = INTERNAL_FIELD_PATTERN.matcher(name);
                             final String contextualizedName = internalPrefixMatcher.replaceFirst("");
                             final boolean contextualized = Objects.nonNull(searchContext) && contextualizedName.contains(contextPrefix);
                             final String fname = contextualizedName.replace(contextPrefix, "");
@@ -1004,6 +1468,23 @@ public class SolrUtils {
             }).collect(Collectors.toList());
         }
 
+        public static List<ResultGroup> buildResultGroups(QueryResponse response, List<Document> documents, DocumentFactory factory, String searchContext) {
+            final Map<String, SolrDocumentList> expandedResults =
+                    ObjectUtils.defaultIfNull(response.getExpandedResults(), Collections.<String, SolrDocumentList>emptyMap());
+            final List<ResultGroup> groups = new ArrayList<>(documents.size());
+            for (int i = 0; i < documents.size(); i++) {
+                final Object value = response.getResults().get(i).getFieldValue(Fieldname.COLLAPSE);
+                //the expanded results are keyed by the string form of solr, e.g. an ISO instant for dates
+                final SolrDocumentList expanded = Objects.nonNull(value) ? expandedResults.get(Query.buildSolrQueryValue(value)) : null;
+                if (Objects.nonNull(expanded)) {
+                    groups.add(new ResultGroup(value, documents.get(i), buildResultList(expanded, null, factory, searchContext), expanded.getNumFound()));
+                } else {
+                    groups.add(new ResultGroup(value, documents.get(i), Collections.emptyList(), 0));
+                }
+            }
+            return groups;
+        }
+
         private static HashMap<FieldDescriptor, TermFacetResult<?>> getTermFacetResults(QueryResponse response, DocumentFactory factory, DocumentFactory childFactory, Map<String,Facet>  facetsQuery, String searchContext) {
             final HashMap<FieldDescriptor, TermFacetResult<?>> facets = new HashMap<>();
             //term facets
@@ -1020,18 +1501,19 @@ public class SolrUtils {
                             }
                             final FieldDescriptor<?> descriptor = fieldDesc;
 
-                            final ArrayList<SimpleOrderedMap> termFacet =
-                                    ((ArrayList<SimpleOrderedMap>) ((SimpleOrderedMap) jsonFacetResult.get(facetName)).get("buckets"));
+                            final List<NamedList<Object>> termFacet =
+                                    ((List<NamedList<Object>>) ((SimpleOrderedMap) jsonFacetResult.get(facetName)).get("buckets"));
 
                             if (Objects.nonNull(descriptor)) {
-                                final UseCase useCase = UseCase.valueOf(facetsQuery.get(fieldName).getScope().name());
+                                final Facet termFacetQuery = facetsQuery.get(fieldName);
+                                final UseCase useCase = UseCase.valueOf(termFacetQuery.getScope().name());
                                 final TermFacetResult<?> facet = new TermFacetResult(termFacet.stream()
-                                        .map(f ->
-                                            new FacetValue<>(
+                                        .map(f -> buildJsonFacetValue(
                                                     castForDescriptor(f.get("val"), descriptor, useCase),
-                                                    NumberUtils.toLong(f.get("count").toString(),0))
+                                                    f, termFacetQuery, factory, childFactory, searchContext)
                                         )
-                                        .collect(Collectors.toList()));
+                                        .collect(Collectors.toList()),
+                                        getNumBuckets((NamedList<Object>) jsonFacetResult.get(facetName)));
 
                                 facets.put(descriptor, facet);
                             } else {
@@ -1045,7 +1527,7 @@ public class SolrUtils {
             return facets;
         }
 
-        private static TermFacetResult<String> getTypeFacetResults(QueryResponse response) {
+        private static TermFacetResult<String> getTypeFacetResults(QueryResponse response, DocumentFactory factory, DocumentFactory childFactory, Map<String,Facet> facetsQuery, String searchContext) {
             final TermFacetResult typeFacetResults = new TermFacetResult();
             //term facets
             if (Objects.nonNull(response.getResponse())) {
@@ -1053,13 +1535,17 @@ public class SolrUtils {
                 if (Objects.nonNull(jsonFacetResult)) {
                     for (int i = 0; i < jsonFacetResult.size(); i++) {
                         if (jsonFacetResult.getName(i).equals(Fieldname.TYPE)) {
-                            final ArrayList<SimpleOrderedMap> termFacet =
-                                    ((ArrayList<SimpleOrderedMap>) ((SimpleOrderedMap) jsonFacetResult.get(jsonFacetResult.getName(i))).get("buckets"));
+                            final List<NamedList<Object>> termFacet =
+                                    ((List<NamedList<Object>>) ((SimpleOrderedMap) jsonFacetResult.get(jsonFacetResult.getName(i))).get("buckets"));
 
+                            final Facet typeFacet = facetsQuery.values().stream()
+                                    .filter(facet -> facet instanceof TypeFacet)
+                                    .findFirst()
+                                    .orElseGet(TypeFacet::new);
                             termFacet.stream().forEach(f -> typeFacetResults
-                                    .addFacetValue(new FacetValue<>(
+                                    .addFacetValue(buildJsonFacetValue(
                                             (String) f.get("val"),
-                                            NumberUtils.toLong(f.get("count").toString(),0))));
+                                            f, typeFacet, factory, childFactory, searchContext)));
                         }
                     }
                 }
@@ -1072,7 +1558,7 @@ public class SolrUtils {
             final HashMap<FieldDescriptor, TermFacetResult<?>> facets =
                     getTermFacetResults(response, factory, childFactory, facetsQuery, searchContext);
 
-            final TermFacetResult<String> typeFacetResults = getTypeFacetResults(response);
+            final TermFacetResult<String> typeFacetResults = getTypeFacetResults(response, factory, childFactory, facetsQuery, searchContext);
 
             HashMap<String, QueryFacetResult<?>> queryFacetResults = new HashMap<>();
             if(response.getFacetQuery()!=null) {
@@ -1084,6 +1570,27 @@ public class SolrUtils {
                 rangeFacetResults = getRangeFacetResult(response.getFacetRanges(),response,factory,facetsQuery, searchContext);
             }
 
+            final HashMap<String, HeatmapFacetResult> heatmapFacetResults = new HashMap<>();
+            //query, range and heatmap facets from the JSON facet response
+            if (Objects.nonNull(response.getResponse()) && Objects.nonNull(response.getResponse().get("facets"))) {
+                final NamedList<Object> jsonFacetResult = (NamedList<Object>) response.getResponse().get("facets");
+                for (Facet facet : facetsQuery.values()) {
+                    if (Query.isJsonFacet(facet) && !(facet instanceof TermFacet) && !(facet instanceof TypeFacet)) {
+                        final Object facetResult = jsonFacetResult.get(facet.getFacetName());
+                        if (facetResult instanceof NamedList) {
+                            final FacetResult<?> result = buildJsonFacetResult(facet, (NamedList<Object>) facetResult, factory, childFactory, searchContext);
+                            if (result instanceof QueryFacetResult) {
+                                queryFacetResults.put(facet.getFacetName(), (QueryFacetResult<?>) result);
+                            } else if (result instanceof HeatmapFacetResult) {
+                                heatmapFacetResults.put(facet.getFacetName(), (HeatmapFacetResult) result);
+                            } else {
+                                rangeFacetResults.put(facet.getFacetName(), (RangeFacetResult<?>) result);
+                            }
+                        }
+                    }
+                }
+            }
+
             HashMap<String, IntervalFacetResult> intervalFacetResults = new HashMap<>();
             if(response.getIntervalFacets() != null) {
                 intervalFacetResults = getIntervalFacetResult(response.getIntervalFacets(),response,factory);
@@ -1119,7 +1626,141 @@ public class SolrUtils {
                 subDocumentFacet = Collections.emptyList();
             }
 
-            return new FacetResults(factory, facets, typeFacetResults, queryFacetResults, rangeFacetResults, intervalFacetResults, statsResults, pivotFacetResults,subDocumentFacet);
+            return new FacetResults(factory, facets, typeFacetResults, queryFacetResults, rangeFacetResults, intervalFacetResults, statsResults, pivotFacetResults,subDocumentFacet, heatmapFacetResults);
+        }
+
+        private static Long getNumBuckets(NamedList<Object> jsonResult) {
+            final Object numBuckets = jsonResult.get("numBuckets");
+            return numBuckets instanceof Number ? ((Number) numBuckets).longValue() : null;
+        }
+
+        private static FacetResult<?> buildJsonFacetResult(Facet facet, NamedList<Object> jsonResult, DocumentFactory factory, DocumentFactory childFactory, String searchContext) {
+
+            if (facet instanceof QueryFacet) {
+                return new QueryFacetResult<>(((QueryFacet) facet).getFilter(),
+                        NumberUtils.toInt(String.valueOf(jsonResult.get("count")), 0),
+                        buildJsonAggregationResults(facet, jsonResult),
+                        buildJsonSubFacetResults(facet, jsonResult, factory, childFactory, searchContext));
+            }
+
+            if (facet instanceof HeatmapFacet) {
+                return buildHeatmapFacetResult(jsonResult);
+            }
+
+            final List<NamedList<Object>> buckets = ObjectUtils.defaultIfNull(
+                    (List<NamedList<Object>>) jsonResult.get("buckets"), Collections.<NamedList<Object>>emptyList());
+
+            if (facet instanceof TypeFacet) {
+                return new TermFacetResult<>(buckets.stream()
+                        .map(bucket -> buildJsonFacetValue((String) bucket.get("val"), bucket, facet, factory, childFactory, searchContext))
+                        .collect(Collectors.toList()));
+            }
+
+            final UseCase useCase = UseCase.valueOf(facet.getScope().name());
+            if (facet instanceof TermFacet) {
+                final TermFacet<?> termFacet = (TermFacet<?>) facet;
+                FieldDescriptor<?> descriptor = factory.getField(termFacet.getFieldName());
+                if (Objects.isNull(descriptor) && Objects.nonNull(childFactory)) {
+                    descriptor = childFactory.getField(termFacet.getFieldName());
+                }
+                if (Objects.isNull(descriptor)) {
+                    log.error("Unable to create a facet result: the field '{}' is not configured as facet.", termFacet.getFieldName());
+                    throw new RuntimeException("Unable to create a faceted result: the field '" + termFacet.getFieldName() + "' is not configured as facet.");
+                }
+                final FieldDescriptor<?> field = descriptor;
+                return new TermFacetResult(buckets.stream()
+                        .map(bucket -> buildJsonFacetValue(castForDescriptor(bucket.get("val"), field, useCase), bucket, facet, factory, childFactory, searchContext))
+                        .collect(Collectors.toList()),
+                        getNumBuckets(jsonResult));
+            }
+
+            final FieldDescriptor<?> descriptor;
+            final Object start;
+            final Object end;
+            final long gap;
+            if (facet instanceof NumericRangeFacet) {
+                final NumericRangeFacet<?> rangeFacet = (NumericRangeFacet<?>) facet;
+                descriptor = rangeFacet.getFieldDescriptor();
+                start = castForDescriptor(rangeFacet.getStart(), descriptor, useCase);
+                end = castForDescriptor(rangeFacet.getEnd(), descriptor, useCase);
+                gap = rangeFacet.getGap().longValue();
+            } else {
+                final DateRangeFacet<?> rangeFacet = (DateRangeFacet<?>) facet;
+                descriptor = rangeFacet.getFieldDescriptor();
+                start = castForDescriptor(toDate(rangeFacet.getStart()), descriptor, useCase);
+                end = castForDescriptor(toDate(rangeFacet.getEnd()), descriptor, useCase);
+                gap = rangeFacet.getGap();
+            }
+            final List<FacetValue> values = buckets.stream()
+                    .map(bucket -> buildJsonFacetValue(castForDescriptor(bucket.get("val"), descriptor, useCase), bucket, facet, factory, childFactory, searchContext))
+                    .collect(Collectors.toList());
+            return new RangeFacetResult(values, start, end, gap);
+        }
+
+        private static HeatmapFacetResult buildHeatmapFacetResult(NamedList<Object> jsonResult) {
+            final int rows = NumberUtils.toInt(String.valueOf(jsonResult.get("rows")), 0);
+            final int columns = NumberUtils.toInt(String.valueOf(jsonResult.get("columns")), 0);
+            final List<List<Number>> solrCounts = (List<List<Number>>) jsonResult.get("counts_ints2D");
+            final int[][] counts = new int[rows][];
+            if (Objects.nonNull(solrCounts)) {
+                for (int row = 0; row < solrCounts.size() && row < rows; row++) {
+                    final List<Number> solrRow = solrCounts.get(row);
+                    //rows without documents are returned as null
+                    if (Objects.nonNull(solrRow)) {
+                        counts[row] = solrRow.stream().mapToInt(Number::intValue).toArray();
+                    }
+                }
+            }
+            return new HeatmapFacetResult(
+                    NumberUtils.toInt(String.valueOf(jsonResult.get("gridLevel")), 0),
+                    rows,
+                    columns,
+                    new LatLng(((Number) jsonResult.get("maxY")).doubleValue(), ((Number) jsonResult.get("minX")).doubleValue()),
+                    new LatLng(((Number) jsonResult.get("minY")).doubleValue(), ((Number) jsonResult.get("maxX")).doubleValue()),
+                    counts);
+        }
+
+        private static Date toDate(Object date) {
+            if (date instanceof ZonedDateTime) {
+                return Date.from(((ZonedDateTime) date).toInstant());
+            }
+            if (date instanceof DateMathExpression) {
+                return Date.from(Instant.ofEpochSecond(((DateMathExpression) date).getTimeStamp()));
+            }
+            return (Date) date;
+        }
+
+        private static <T> FacetValue<T> buildJsonFacetValue(T value, NamedList<Object> bucket, Facet facet, DocumentFactory factory, DocumentFactory childFactory, String searchContext) {
+            final long count = NumberUtils.toLong(String.valueOf(bucket.get("count")), 0);
+            if (!facet.isNested()) {
+                return new FacetValue<>(value, count);
+            }
+            return new FacetValue<>(value, count,
+                    buildJsonAggregationResults(facet, bucket),
+                    buildJsonSubFacetResults(facet, bucket, factory, childFactory, searchContext));
+        }
+
+        private static Map<String, Object> buildJsonAggregationResults(Facet facet, NamedList<Object> bucket) {
+            final Map<String, Object> aggregations = new LinkedHashMap<>();
+            facet.getAggregations().keySet().forEach(name -> {
+                //buckets without documents do not return aggregations
+                final Object aggregation = bucket.get(name);
+                if (Objects.nonNull(aggregation)) {
+                    aggregations.put(name, aggregation);
+                }
+            });
+            return aggregations;
+        }
+
+        private static Map<String, FacetResult<?>> buildJsonSubFacetResults(Facet facet, NamedList<Object> bucket, DocumentFactory factory, DocumentFactory childFactory, String searchContext) {
+            final Map<String, FacetResult<?>> subFacets = new LinkedHashMap<>();
+            facet.getSubFacets().forEach((name, subFacet) -> {
+                final Object subFacetResult = bucket.get(name);
+                if (subFacetResult instanceof NamedList) {
+                    subFacets.put(name, buildJsonFacetResult(subFacet, (NamedList<Object>) subFacetResult, factory, childFactory, searchContext));
+                }
+            });
+            return subFacets;
         }
 
         private static HashMap<String, StatsFacetResult<?>> getStatsFacetsResults(Set<Map.Entry<String, FieldStatsInfo>> entries, Map<String, Facet> facetsQuery) {
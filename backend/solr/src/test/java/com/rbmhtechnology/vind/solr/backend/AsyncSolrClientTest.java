@@ -0,0 +1,195 @@
+package com.rbmhtechnology.vind.solr.backend;
+
+import com.rbmhtechnology.vind.InvalidRequestException;
+import com.rbmhtechnology.vind.SearchServerException;
+import com.rbmhtechnology.vind.api.CompletableSearchServer;
+import com.rbmhtechnology.vind.api.query.Search;
+import com.rbmhtechnology.vind.api.result.SearchResult;
+import com.rbmhtechnology.vind.model.DocumentFactory;
+import com.rbmhtechnology.vind.model.DocumentFactoryBuilder;
+import com.rbmhtechnology.vind.model.FieldDescriptorBuilder;
+import com.rbmhtechnology.vind.model.SingleValueFieldDescriptor;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.impl.HttpSolrClient;
+import org.apache.solr.client.solrj.request.QueryRequest;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.util.JavaBinCodec;
+import org.apache.solr.common.util.NamedList;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class AsyncSolrClientTest {
+
+    private HttpServer httpServer;
+    private String baseUrl;
+
+    private volatile String lastPath;
+    private volatile String lastBody;
+    private volatile String lastAuthorization;
+    private volatile int status = 200;
+
+    @Before
+    public void setUp() throws IOException {
+        httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        httpServer.createContext("/solr/core", this::handle);
+        httpServer.setExecutor(Executors.newSingleThreadExecutor());
+        httpServer.start();
+        baseUrl = "http://localhost:" + httpServer.getAddress().getPort() + "/solr/core";
+    }
+
+    @After
+    public void tearDown() {
+        httpServer.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        lastPath = exchange.getRequestURI().getPath();
+        lastBody = IOUtils.toString(exchange.getRequestBody(), StandardCharsets.UTF_8);
+        lastAuthorization = exchange.getRequestHeaders().getFirst("Authorization");
+
+        final NamedList<Object> header = new NamedList<>();
+        header.add("status", status == 200 ? 0 : status);
+        header.add("QTime", 3);
+        final NamedList<Object> response = new NamedList<>();
+        response.add("responseHeader", header);
+        if (status == 200) {
+            final SolrDocumentList documents = new SolrDocumentList();
+            final SolrDocument document = new SolrDocument();
+            document.setField("_id_", "1");
+            document.setField("_type_", "asset");
+            document.setField("dynamic_single_string_title", "Hello World");
+            documents.add(document);
+            documents.setNumFound(1);
+            response.add("response", documents);
+        } else {
+            final NamedList<Object> error = new NamedList<>();
+            error.add("msg", "undefined field foo");
+            error.add("code", status);
+            response.add("error", error);
+        }
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (JavaBinCodec codec = new JavaBinCodec()) {
+            codec.marshal(response, bytes);
+        }
+        exchange.getResponseHeaders().add("Content-Type", "application/octet-stream");
+        exchange.sendResponseHeaders(status, bytes.size());
+        try (OutputStream out = exchange.getResponseBody()) {
+            bytes.writeTo(out);
+        }
+    }
+
+    @Test
+    public void testQuery() throws Exception {
+        try (AsyncSolrClient client = new AsyncSolrClient(baseUrl + "/")) {
+            final SolrQuery query = new SolrQuery("hello world");
+            query.setRequestHandler("/vind");
+
+            final QueryResponse response = client.query(query).get(10, TimeUnit.SECONDS);
+
+            assertEquals("/solr/core/vind", lastPath);
+            assertThat(lastBody, containsString("q=hello+world"));
+            assertThat(lastBody, containsString("wt=javabin"));
+            assertEquals(3, response.getQTime());
+            assertEquals(1, response.getResults().getNumFound());
+            assertEquals("Hello World", response.getResults().get(0).getFieldValue("dynamic_single_string_title"));
+        }
+    }
+
+    @Test
+    public void testClientConfiguration() throws Exception {
+        final ModifiableSolrParams invariants = new ModifiableSolrParams();
+        invariants.set("shards.tolerant", "true");
+        try (HttpSolrClient solrClient = new HttpSolrClient.Builder(baseUrl).withInvariantParams(invariants).build();
+             AsyncSolrClient client = new AsyncSolrClient(solrClient)) {
+            final QueryRequest request = new QueryRequest(new SolrQuery("hello world"), SolrRequest.METHOD.POST);
+            request.setBasicAuthCredentials("user", "secret");
+
+            client.request(request).get(10, TimeUnit.SECONDS);
+
+            assertEquals(baseUrl, client.getBaseUrl());
+            assertThat(lastBody, containsString("shards.tolerant=true"));
+            assertEquals("Basic " + Base64.getEncoder().encodeToString("user:secret".getBytes(StandardCharsets.UTF_8)), lastAuthorization);
+
+            client.query(new SolrQuery("hello")).get(10, TimeUnit.SECONDS);
+            assertNull(lastAuthorization);
+        }
+    }
+
+    @Test
+    public void testRemoteError() throws Exception {
+        status = 400;
+        try (AsyncSolrClient client = new AsyncSolrClient(baseUrl)) {
+            client.query(new SolrQuery("foo:bar")).get(10, TimeUnit.SECONDS);
+            fail("the query should have failed");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(HttpSolrClient.RemoteSolrException.class));
+            assertEquals(400, ((HttpSolrClient.RemoteSolrException) e.getCause()).code());
+            assertThat(e.getCause().getMessage(), containsString("undefined field foo"));
+        }
+    }
+
+    @Test
+    public void testExecuteAsync() throws Exception {
+        final SingleValueFieldDescriptor.TextFieldDescriptor<String> title = new FieldDescriptorBuilder<String>()
+                .buildTextField("title");
+        final DocumentFactory assets = new DocumentFactoryBuilder("asset").addField(title).build();
+
+        try (CompletableSearchServer server = new CompletableSearchServer(
+                new SolrSearchServer(new HttpSolrClient.Builder(baseUrl).build(), false), Runnable::run)) {
+
+            final CompletableFuture<SearchResult> future = server.executeAsync(Search.fulltext("hello"), assets);
+            final SearchResult result = future.get(10, TimeUnit.SECONDS);
+
+            assertEquals("/solr/core/select", lastPath);
+            assertEquals(1, result.getNumOfResults());
+            assertEquals("Hello World", result.getResults().get(0).getValue(title));
+
+            status = 500;
+            try {
+                server.executeAsync(Search.fulltext("hello"), assets).get(10, TimeUnit.SECONDS);
+                fail("the search should have failed");
+            } catch (ExecutionException e) {
+                assertThat(e.getCause(), instanceOf(SearchServerException.class));
+                assertThat(e.getCause(), not(instanceOf(InvalidRequestException.class)));
+            }
+
+            //requests rejected by solr are invalid
+            status = 400;
+            try {
+                server.executeAsync(Search.fulltext("hello"), assets).get(10, TimeUnit.SECONDS);
+                fail("the search should have failed");
+            } catch (ExecutionException e) {
+                assertThat(e.getCause(), instanceOf(InvalidRequestException.class));
+                assertThat(e.getCause().getMessage(), containsString("undefined field foo"));
+            }
+        }
+    }
+}
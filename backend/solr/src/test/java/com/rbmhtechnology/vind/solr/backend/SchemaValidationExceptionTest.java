@@ -30,6 +30,7 @@ public class SchemaValidationExceptionTest {
 
     private static final String TEST_SOLR_SCHEMA = "schema.xml";
     private Path solrSchemaPath;
+    private final List<Map<String, Object>> fields = new ArrayList<>();
 
     @Mock
     private SchemaResponse schemaResponse;
@@ -142,6 +143,13 @@ public class SchemaValidationExceptionTest {
         fieldTypeDefinitions.add(pathFieldTypeDefinition);
         when(schemaRepresentation.getFieldTypes()).thenReturn(fieldTypeDefinitions);
 
+        Map<String, Object> versionFieldAttributes = new HashMap<>();
+        versionFieldAttributes.put("name","_version_");
+        versionFieldAttributes.put("type","long");
+        versionFieldAttributes.put("docValues",true);
+        fields.add(versionFieldAttributes);
+        when(schemaRepresentation.getFields()).thenReturn(fields);
+
         when(schemaResponse.getSchemaRepresentation()).thenReturn(schemaRepresentation);
     }
     @Test
@@ -149,4 +157,17 @@ public class SchemaValidationExceptionTest {
         SolrSchemaChecker.checkSchema(solrSchemaPath,schemaResponse);
     }
 
+    @Test(expected = SchemaValidationException.class)
+    public void checkVersionWithoutDocValuesTest() throws IOException, SchemaValidationException {
+        fields.get(0).put("docValues",false);
+        SolrSchemaChecker.checkSchema(solrSchemaPath,schemaResponse);
+    }
+
+    @Test
+    public void checkVersionWithDocValuesOfTypeTest() throws IOException, SchemaValidationException {
+        fields.get(0).remove("docValues");
+        longFieldTypeDefinition.getAttributes().put("docValues",true);
+        SolrSchemaChecker.checkSchema(solrSchemaPath,schemaResponse);
+    }
+
 }
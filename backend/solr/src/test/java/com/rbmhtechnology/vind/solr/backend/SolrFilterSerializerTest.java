@@ -0,0 +1,74 @@
+package com.rbmhtechnology.vind.solr.backend;
+
+import com.rbmhtechnology.vind.api.query.datemath.DateMathExpression;
+import com.rbmhtechnology.vind.model.DocumentFactory;
+import com.rbmhtechnology.vind.model.DocumentFactoryBuilder;
+import com.rbmhtechnology.vind.model.FieldDescriptorBuilder;
+import com.rbmhtechnology.vind.model.SingleValueFieldDescriptor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static com.rbmhtechnology.vind.api.query.datemath.DateMathExpression.Rounding.UP;
+import static com.rbmhtechnology.vind.api.query.datemath.DateMathExpression.TimeUnit.*;
+import static org.junit.Assert.assertEquals;
+
+public class SolrFilterSerializerTest {
+
+    private DocumentFactory factory;
+    private SingleValueFieldDescriptor.DateFieldDescriptor<ZonedDateTime> created;
+
+    @Before
+    public void before() {
+        created = new FieldDescriptorBuilder<>()
+                .setFacet(true)
+                .buildDateField("created");
+
+        factory = new DocumentFactoryBuilder("asset")
+                .addField(created)
+                .build();
+    }
+
+    @Test
+    public void testDateFilterWithoutRounding() {
+        final SolrFilterSerializer serializer = new SolrFilterSerializer(factory, true, null);
+
+        assertEquals("dynamic_single_facet_date_created:[NOW-24HOURS TO *]",
+                serializer.serialize(created.after(new DateMathExpression().sub(24, HOURS)), null));
+    }
+
+    @Test
+    public void testDateFilterRounding() {
+        final SolrFilterSerializer serializer = new SolrFilterSerializer(factory, true, MINUTE);
+
+        //lower bounds are rounded down
+        assertEquals("dynamic_single_facet_date_created:[NOW-24HOURS/MINUTE TO *]",
+                serializer.serialize(created.after(new DateMathExpression().sub(24, HOURS)), null));
+
+        //upper bounds are rounded up
+        final SolrFilterSerializer hourSerializer = new SolrFilterSerializer(factory, true, HOUR);
+        assertEquals("dynamic_single_facet_date_created:[* TO NOW/HOUR+1HOUR]",
+                hourSerializer.serialize(created.before(new DateMathExpression()), null));
+    }
+
+    @Test
+    public void testBetweenDatesRounding() {
+        final SolrFilterSerializer serializer = new SolrFilterSerializer(factory, true, HOUR);
+
+        //the end lies inside of the hour, documents up to the end must still match
+        final ZonedDateTime start = ZonedDateTime.of(2016, 1, 1, 10, 15, 30, 0, ZoneId.of("UTC"));
+        final ZonedDateTime end = start.plusMinutes(30);
+        assertEquals("dynamic_single_facet_date_created:[2016-01-01T10:15:30Z/HOUR TO 2016-01-01T10:45:30Z/HOUR+1HOUR]",
+                serializer.serialize(created.between(start, end), null));
+    }
+
+    @Test
+    public void testExplicitDateRoundingIsKept() {
+        final SolrFilterSerializer serializer = new SolrFilterSerializer(factory, true, MINUTE);
+
+        assertEquals("dynamic_single_facet_date_created:[NOW-1DAY/DAY+1DAY TO *]",
+                serializer.serialize(created.after(new DateMathExpression().sub(1, DAY).round(DAY, UP)), null));
+    }
+}
@@ -0,0 +1,182 @@
+package com.rbmhtechnology.vind.solr.backend;
+
+import com.rbmhtechnology.vind.annotations.language.Language;
+import com.rbmhtechnology.vind.api.query.FulltextSearch;
+import com.rbmhtechnology.vind.api.query.Search;
+import com.rbmhtechnology.vind.model.DocumentFactory;
+import com.rbmhtechnology.vind.model.DocumentFactoryBuilder;
+import com.rbmhtechnology.vind.model.FieldDescriptor;
+import com.rbmhtechnology.vind.model.FieldDescriptorBuilder;
+import com.rbmhtechnology.vind.solr.backend.CompiledSchema.CopyField;
+import com.rbmhtechnology.vind.solr.backend.CompiledSchema.Field;
+import com.rbmhtechnology.vind.solr.backend.SolrUtils.Fieldname.UseCase;
+import org.apache.solr.client.solrj.SolrClient;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class SolrSchemaCompilerTest {
+
+    private FieldDescriptor<?> title;
+    private FieldDescriptor<?> tags;
+    private FieldDescriptor<?> created;
+    private FieldDescriptor<?> category;
+    private DocumentFactory factory;
+
+    @Before
+    public void before() {
+        title = new FieldDescriptorBuilder<>().setFullText(true).setLanguage(Language.English).setFacet(true).buildTextField("title");
+        tags = new FieldDescriptorBuilder<>().setFacet(true).buildMultivaluedNumericField("tags", Integer.class);
+        created = new FieldDescriptorBuilder<>().setStored(false).setFacet(true).buildDateField("created");
+        category = new FieldDescriptorBuilder<>().setFacet(true).buildTextField("category");
+        category.setContextualized(true);
+
+        factory = new DocumentFactoryBuilder("asset")
+                .addField(title, tags, created)
+                .build();
+    }
+
+    @Test
+    public void testSharedDocValuesField() {
+        final CompiledSchema schema = SolrSchemaCompiler.compile(factory);
+
+        assertEquals("dynamic_single_string_title", schema.getFieldname(title, UseCase.Stored));
+        assertEquals("dynamic_single_string_title", schema.getFieldname(title, UseCase.Facet));
+        assertEquals("dynamic_single_string_title", schema.getFieldname(title, UseCase.Sort));
+        assertEquals("dynamic_single_en_title", schema.getFieldname(title, UseCase.Fulltext));
+        assertNull(schema.getFieldname(title, UseCase.Suggest));
+
+        final Field value = getField(schema, "dynamic_single_string_title");
+        assertEquals("string", value.getType());
+        assertTrue(value.isDocValues());
+        assertTrue(value.isUseDocValuesAsStored());
+        assertTrue(value.isIndexed());
+        assertFalse(value.isStored());
+
+        final Field fulltext = getField(schema, "dynamic_single_en_title");
+        assertEquals("text_en", fulltext.getType());
+        assertTrue(fulltext.isIndexed());
+        assertFalse(fulltext.isStored());
+        assertFalse(fulltext.isDocValues());
+        assertEquals(Boolean.FALSE, fulltext.getOmitNorms());
+
+        assertTrue(schema.getCopyFields().contains(new CopyField("dynamic_single_string_title", "facets")));
+    }
+
+    @Test
+    public void testMultivaluedField() {
+        final CompiledSchema schema = SolrSchemaCompiler.compile(factory);
+
+        assertEquals("dynamic_multi_int_tags", schema.getFieldname(tags, UseCase.Stored));
+        assertEquals("dynamic_multi_int_tags", schema.getFieldname(tags, UseCase.Facet));
+        assertEquals("dynamic_single_sort_int_tags", schema.getFieldname(tags, UseCase.Sort));
+
+        //docValues do not keep the order of multiple values
+        final Field value = getField(schema, "dynamic_multi_int_tags");
+        assertTrue(value.isMultiValued());
+        assertTrue(value.isDocValues());
+        assertTrue(value.isStored());
+        assertFalse(value.isUseDocValuesAsStored());
+
+        final Field sort = getField(schema, "dynamic_single_sort_int_tags");
+        assertFalse(sort.isMultiValued());
+        assertTrue(sort.isDocValues());
+        assertFalse(sort.isIndexed());
+        assertFalse(sort.isUseDocValuesAsStored());
+    }
+
+    @Test
+    public void testNonStoredField() {
+        final CompiledSchema schema = SolrSchemaCompiler.compile(factory);
+
+        assertNull(schema.getFieldname(created, UseCase.Stored));
+        assertEquals("dynamic_single_facet_date_created", schema.getFieldname(created, UseCase.Facet));
+        assertEquals("dynamic_single_facet_date_created", schema.getFieldname(created, UseCase.Sort));
+
+        final Field value = getField(schema, "dynamic_single_facet_date_created");
+        assertTrue(value.isDocValues());
+        assertFalse(value.isStored());
+        assertFalse(value.isUseDocValuesAsStored());
+
+        //the generic schema already copies the facet fields
+        assertFalse(schema.getCopyFields().stream().anyMatch(c -> c.getSource().equals(value.getName())));
+    }
+
+    @Test
+    public void testFieldsAreMergedAcrossFactories() {
+        final FieldDescriptor<?> storedTitle = new FieldDescriptorBuilder<>().buildTextField("title");
+        final DocumentFactory other = new DocumentFactoryBuilder("other")
+                .addField(storedTitle, category)
+                .build();
+
+        final CompiledSchema schema = SolrSchemaCompiler.compile(factory, other);
+
+        assertEquals(schema.getFieldname(title, UseCase.Stored), schema.getFieldname(storedTitle, UseCase.Stored));
+        final Field value = getField(schema, "dynamic_single_string_title");
+        assertTrue(value.isIndexed());
+        assertTrue(value.isDocValues());
+        assertEquals(1, schema.getFields().stream().filter(f -> f.getName().equals(value.getName())).count());
+
+        assertFalse(schema.isCompiled(category));
+        assertThat(schema.getFields().stream().map(Field::getName).collect(Collectors.toList()), containsInAnyOrder(
+                "dynamic_single_string_title", "dynamic_single_en_title",
+                "dynamic_multi_int_tags", "dynamic_single_sort_int_tags",
+                "dynamic_single_facet_date_created"));
+    }
+
+    @Test
+    public void testUseSchema() {
+        final CompiledSchema schema = SolrSchemaCompiler.compile(factory);
+        assertEquals("dynamic_single_facet_string_title", SolrUtils.Fieldname.getFieldname(title, UseCase.Facet, null));
+
+        try (SolrUtils.Fieldname.SchemaScope scope = SolrUtils.Fieldname.useSchema(schema)) {
+            assertEquals("dynamic_single_string_title", SolrUtils.Fieldname.getFieldname(title, UseCase.Facet, null));
+            assertEquals(2, SolrUtils.Fieldname.getFieldnames(title, null).size());
+
+            //a nested scope without schema resolves the dynamic field names
+            try (SolrUtils.Fieldname.SchemaScope nested = SolrUtils.Fieldname.useSchema(null)) {
+                assertEquals("dynamic_single_facet_string_title", SolrUtils.Fieldname.getFieldname(title, UseCase.Facet, null));
+            }
+            assertEquals("dynamic_single_string_title", SolrUtils.Fieldname.getFieldname(title, UseCase.Facet, null));
+        }
+        assertEquals("dynamic_single_facet_string_title", SolrUtils.Fieldname.getFieldname(title, UseCase.Facet, null));
+    }
+
+    @Test
+    public void testServerSchema() {
+        final SolrSearchServer server = new SolrSearchServer(Mockito.mock(SolrClient.class), false)
+                .setCompiledSchema(SolrSchemaCompiler.compile(factory));
+        final SolrSearchServer other = new SolrSearchServer(Mockito.mock(SolrClient.class), false);
+
+        final FulltextSearch search = Search.fulltext().facet(title);
+        assertThat(server.buildSolrQuery(search, factory).toString(), containsString("dynamic_single_string_title"));
+        assertThat(other.buildSolrQuery(search, factory).toString(), containsString("dynamic_single_facet_string_title"));
+        //the schema is only used while the server builds its requests
+        assertEquals("dynamic_single_facet_string_title", SolrUtils.Fieldname.getFieldname(title, UseCase.Facet, null));
+    }
+
+    @Test
+    public void testToXml() {
+        final String xml = SolrSchemaCompiler.compile(factory).toXml();
+
+        assertThat(xml, containsString("<field name=\"dynamic_single_string_title\" type=\"string\" multiValued=\"false\" indexed=\"true\" stored=\"false\" docValues=\"true\" useDocValuesAsStored=\"true\"/>"));
+        assertThat(xml, containsString("<copyField source=\"dynamic_single_string_title\" dest=\"facets\"/>"));
+    }
+
+    private Field getField(CompiledSchema schema, String name) {
+        return schema.getFields().stream()
+                .filter(f -> f.getName().equals(name))
+                .findAny()
+                .orElseThrow(() -> new AssertionError("Missing field " + name));
+    }
+}
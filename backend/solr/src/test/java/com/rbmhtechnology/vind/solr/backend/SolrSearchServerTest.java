@@ -2,15 +2,25 @@ package com.rbmhtechnology.vind.solr.backend;
 
 import com.rbmhtechnology.vind.api.Document;
 import com.rbmhtechnology.vind.api.SearchServer;
+import com.rbmhtechnology.vind.api.query.FulltextSearch;
 import com.rbmhtechnology.vind.api.query.Search;
+import com.rbmhtechnology.vind.api.query.facet.Aggregation;
+import com.rbmhtechnology.vind.api.query.facet.Facet;
+import com.rbmhtechnology.vind.api.query.facet.Facets;
+import com.rbmhtechnology.vind.api.query.facet.TermFacetOption;
+import com.rbmhtechnology.vind.api.query.rerank.Rerank;
 import com.rbmhtechnology.vind.api.query.sort.Sort;
 import com.rbmhtechnology.vind.api.result.SearchResult;
 import com.rbmhtechnology.vind.model.*;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.solr.client.solrj.ResponseParser;
 import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.SolrRequest;
 import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.impl.HttpSolrClient;
+import org.apache.solr.client.solrj.request.AbstractUpdateRequest;
+import org.apache.solr.client.solrj.request.JavaBinUpdateRequestCodec;
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.client.solrj.response.SolrPingResponse;
 import org.apache.solr.client.solrj.response.UpdateResponse;
@@ -19,6 +29,7 @@ import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.common.SolrInputField;
 import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.NamedList;
 import org.hamcrest.*;
 import org.junit.Before;
 import org.junit.Test;
@@ -26,19 +37,26 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.net.URLDecoder;
+import java.time.Duration;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import static com.rbmhtechnology.vind.api.query.filter.Filter.eq;
 import static com.rbmhtechnology.vind.api.query.filter.Filter.or;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -75,8 +93,12 @@ public class SolrSearchServerTest {
         when(response.getResults()).thenReturn(new SolrDocumentList());
         when(response.getResults()).thenReturn(new SolrDocumentList());
 
-        when(solrClient.add(org.mockito.Matchers.<Collection<SolrInputDocument>>any())).thenReturn(iResponse);
-        when(solrClient.add(any(SolrInputDocument.class))).thenReturn(iResponse);
+        final NamedList<Object> responseHeader = new NamedList<>();
+        responseHeader.add("status", 0);
+        responseHeader.add("QTime", 10);
+        final NamedList<Object> updateResponse = new NamedList<>();
+        updateResponse.add("responseHeader", responseHeader);
+        when(solrClient.request(any(SolrRequest.class), any())).thenReturn(updateResponse);
         when(iResponse.getQTime()).thenReturn(10);
         when(iResponse.getElapsedTime()).thenReturn(15l);
 
@@ -108,6 +130,165 @@ public class SolrSearchServerTest {
     }
 
 
+    @Test
+    public void testCount() throws Exception {
+
+        final DocumentFactoryBuilder docFactoryBuilder = new DocumentFactoryBuilder("asset");
+        FieldDescriptor descriptor = new FieldDescriptorBuilder().setFacet(true).buildTextField("text");
+        docFactoryBuilder.addField(descriptor);
+        DocumentFactory documents = docFactoryBuilder.build();
+
+        final SolrDocumentList results = new SolrDocumentList();
+        results.setNumFound(42);
+        when(response.getResults()).thenReturn(results);
+
+        final long count = server.count(Search.fulltext("hello world").filter(eq("text", "123")).facet("text").sort("id", Sort.Direction.Desc).page(3, 20), documents);
+        assertEquals(42, count);
+
+        ArgumentCaptor<SolrQuery> argument = ArgumentCaptor.forClass(SolrQuery.class);
+        verify(solrClient).query(argument.capture(), any(SolrRequest.METHOD.class));
+
+        SolrQuery query = argument.getValue();
+        assertEquals("hello world", query.getQuery());
+        assertEquals(Integer.valueOf(0), query.getRows());
+        assertEquals(Integer.valueOf(0), query.getStart());
+        assertEquals(SolrUtils.Fieldname.ID, query.getFields());
+        assertEquals(2, query.getFilterQueries().length);
+        assertEquals(null, query.get(CommonParams.SORT));
+        assertEquals(null, query.get("json.facet"));
+    }
+
+    @Test
+    public void testFacets() throws Exception {
+
+        final DocumentFactoryBuilder docFactoryBuilder = new DocumentFactoryBuilder("asset");
+        FieldDescriptor descriptor = new FieldDescriptorBuilder().setFacet(true).buildTextField("text");
+        docFactoryBuilder.addField(descriptor);
+        DocumentFactory documents = docFactoryBuilder.build();
+
+        server.facets(Search.fulltext("hello world").facet("text").sort("id", Sort.Direction.Desc), documents);
+
+        ArgumentCaptor<SolrQuery> argument = ArgumentCaptor.forClass(SolrQuery.class);
+        verify(solrClient).query(argument.capture(), any(SolrRequest.METHOD.class));
+
+        SolrQuery query = argument.getValue();
+        assertEquals(Integer.valueOf(0), query.getRows());
+        assertEquals(null, query.get(CommonParams.SORT));
+        assertThat(query.get("json.facet"), Matchers.containsString("dynamic_single_facet_string_text"));
+    }
+
+    @Test
+    public void testTaggedFilters() throws Exception {
+
+        final DocumentFactoryBuilder docFactoryBuilder = new DocumentFactoryBuilder("asset");
+        FieldDescriptor<String> color = new FieldDescriptorBuilder<>().setFacet(true).buildTextField("color");
+        SingleValueFieldDescriptor.NumericFieldDescriptor<Integer> size = new FieldDescriptorBuilder<>().setFacet(true).buildNumericField("size", Integer.class);
+        DocumentFactory documents = docFactoryBuilder.addField(color).addField(size).build();
+
+        final String rawQuery = URLDecoder.decode(server.getRawQuery(Search.fulltext()
+                .filter(eq("color", "red"), "color")
+                .filter(size.between(1, 5), "size")
+                .facet(new Facet.TermFacet<>(color).setExcludeTags("color"))
+                .facet(Facets.range("sizes", size, 0, 10, 2).setExcludeTags("size")), documents), "UTF-8");
+
+        assertThat(rawQuery, Matchers.containsString("fq={!tag=color}dynamic_single_facet_string_color:\"red\""));
+        assertThat(rawQuery, Matchers.containsString("fq={!tag=size}dynamic_single_facet_int_size:[1 TO 5]"));
+        assertThat(rawQuery, Matchers.containsString("\"excludeTags\":\"color\""));
+        assertThat(rawQuery, Matchers.containsString("\"sizes\":{\"type\":\"range\""));
+        assertThat(rawQuery, Matchers.containsString("\"domain\":{\"excludeTags\":\"size\"}"));
+    }
+
+    @Test
+    public void testTaggedFiltersWithOrChildrenSearch() throws Exception {
+
+        FieldDescriptor<String> color = new FieldDescriptorBuilder<>().setFacet(true).buildTextField("color");
+        DocumentFactory documents = new DocumentFactoryBuilder("asset").addField(color).build();
+        DocumentFactory children = new DocumentFactoryBuilder("marker").addField(color).build();
+
+        final String rawQuery = URLDecoder.decode(server.getRawQuery(Search.fulltext()
+                .filter(eq("color", "red"), "color")
+                .orChildrenSearch(Search.fulltext().filter(eq("color", "blue")), children), documents), "UTF-8");
+
+        assertThat(rawQuery, Matchers.containsString("fq={!tag=color}(dynamic_single_facet_string_color:\"red\") OR ("));
+    }
+
+    @Test
+    public void testNestedJsonFacets() throws Exception {
+
+        final DocumentFactoryBuilder docFactoryBuilder = new DocumentFactoryBuilder("asset");
+        FieldDescriptor<String> color = new FieldDescriptorBuilder<>().setFacet(true).buildTextField("color");
+        SingleValueFieldDescriptor.NumericFieldDescriptor<Integer> size = new FieldDescriptorBuilder<>().setFacet(true).buildNumericField("size", Integer.class);
+        SingleValueFieldDescriptor.DateFieldDescriptor<ZonedDateTime> created = new FieldDescriptorBuilder<>().setFacet(true).buildDateField("created");
+        DocumentFactory documents = docFactoryBuilder.addField(color).addField(size).addField(created).build();
+
+        final ZonedDateTime start = ZonedDateTime.of(2016, 1, 1, 0, 0, 0, 0, ZoneId.of("UTC"));
+        final String rawQuery = URLDecoder.decode(server.getRawQuery(Search.fulltext()
+                .facet(new Facet.TermFacet<>(color)
+                        .subFacet(Facets.range("created", created, start, start.plusDays(7), Duration.ofDays(1)))
+                        .aggregate(Aggregation.avg("avgSize", size), Aggregation.percentile("sizes", size, 50d, 90d)))
+                .facet(Facets.query("small", size.between(0, 2))), documents), "UTF-8");
+
+        assertThat(rawQuery, Matchers.containsString("\"dynamic_single_facet_string_color\":{\"type\":\"terms\""));
+        assertThat(rawQuery, Matchers.containsString("\"facet\":{\"avgSize\":\"avg(dynamic_single_facet_int_size)\"," +
+                "\"sizes\":\"percentile(dynamic_single_facet_int_size,50.0,90.0)\"," +
+                "\"created\":{\"type\":\"range\",\"field\":\"dynamic_single_facet_date_created\"," +
+                "\"start\":\"2016-01-01T00:00:00Z\",\"end\":\"2016-01-08T00:00:00Z\",\"gap\":\"+86400000MILLISECOND\""));
+        assertThat(rawQuery, Matchers.containsString("\"small\":{\"type\":\"query\",\"q\":\"+_type_:asset +dynamic_single_facet_int_size:[0 TO 2]\"}"));
+        assertThat(rawQuery, Matchers.not(Matchers.containsString("facet.range")));
+        assertThat(rawQuery, Matchers.not(Matchers.containsString("facet.query")));
+    }
+
+    @Test
+    public void testTermFacetOptions() throws Exception {
+
+        final DocumentFactoryBuilder docFactoryBuilder = new DocumentFactoryBuilder("asset");
+        FieldDescriptor<String> author = new FieldDescriptorBuilder<>().setFacet(true).buildTextField("author");
+        DocumentFactory documents = docFactoryBuilder.addField(author).build();
+
+        final FulltextSearch search = Search.fulltext()
+                .facet(new TermFacetOption()
+                        .setOffset(20)
+                        .setLimit(10)
+                        .setPrefix("Jo")
+                        .setSort(TermFacetOption.FacetSort.INDEX, Sort.Direction.Asc)
+                        .setMethod(TermFacetOption.FacetMethod.DV)
+                        .setNumBuckets(true)
+                        .setRefine(true), author);
+        final String rawQuery = URLDecoder.decode(server.getRawQuery(search.copy(), documents), "UTF-8");
+
+        assertThat(rawQuery, Matchers.containsString("\"field\":\"dynamic_single_facet_string_author\",\"limit\":10,\"prefix\":\"Jo\""));
+        assertThat(rawQuery, Matchers.containsString("\"method\":\"dv\""));
+        assertThat(rawQuery, Matchers.containsString("\"offset\":20"));
+        assertThat(rawQuery, Matchers.containsString("\"sort\":\"index asc\""));
+        assertThat(rawQuery, Matchers.containsString("\"numBuckets\":true"));
+        assertThat(rawQuery, Matchers.containsString("\"refine\":true"));
+    }
+
+    @Test
+    public void testRerank() throws Exception {
+
+        final DocumentFactoryBuilder docFactoryBuilder = new DocumentFactoryBuilder("asset");
+        SingleValueFieldDescriptor.DateFieldDescriptor<ZonedDateTime> created = new FieldDescriptorBuilder<>().setFacet(true).buildDateField("created");
+        DocumentFactory documents = docFactoryBuilder.addField(created).build();
+
+        String rawQuery = URLDecoder.decode(server.getRawQuery(Search.fulltext("hello")
+                .rerank(Rerank.sort(Sort.SpecialSort.scoredDate(created)).docs(50).weight(2)).copy(), documents), "UTF-8");
+
+        assertThat(rawQuery, Matchers.containsString("rq={!rerank reRankQuery=$rrq reRankDocs=50 reRankWeight=2.0}"));
+        assertThat(rawQuery, Matchers.containsString("rrq={!func}recip(abs(ms(NOW/HOUR,dynamic_single_date_created)),3.16e-11,1,.1)"));
+
+        rawQuery = URLDecoder.decode(server.getRawQuery(Search.fulltext("hello")
+                .rerank(Rerank.model("popularity").docs(100).feature("q", "hello 'world'")), documents), "UTF-8");
+
+        assertThat(rawQuery, Matchers.containsString("rq={!ltr model=popularity reRankDocs=100 efi.q='hello \\'world\\''}"));
+        assertThat(rawQuery, Matchers.not(Matchers.containsString("rrq=")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testModelRerankWeight() {
+        Rerank.model("popularity").weight(2);
+    }
+
     @Test
     public void testIndex() throws Exception {
 
@@ -130,10 +311,11 @@ public class SolrSearchServerTest {
                 .setValue(category, 4);
 
         server.index(d1);
-        ArgumentCaptor<ArrayList<SolrInputDocument>> argument = ArgumentCaptor.forClass((Class)ArrayList.class);
-        verify(solrClient).add(argument.capture());
+        ArgumentCaptor<SolrRequest> argument = ArgumentCaptor.forClass(SolrRequest.class);
+        verify(solrClient).request(argument.capture(), any());
 
-        ArrayList<SolrInputDocument> docs = argument.getValue();
+        final List<SolrInputDocument> docs = readDocuments(argument.getValue());
+        assertEquals(1, docs.size());
         SolrInputDocument doc = docs.get(0);
         assertThat(doc.get(SolrUtils.Fieldname.ID), solrInputField(SolrUtils.Fieldname.ID, "1"));
         assertThat(doc.get(SolrUtils.Fieldname.TYPE), solrInputField(SolrUtils.Fieldname.TYPE, "asset"));
@@ -149,6 +331,58 @@ public class SolrSearchServerTest {
                 , documents);
     }
     
+    @Test
+    public void testResponseParserOfCustomClient() throws Exception {
+        try (HttpSolrClient client = new HttpSolrClient.Builder("http://localhost:8983/solr/core").build()) {
+            final ResponseParser parser = client.getParser();
+
+            //the client of the caller is not changed
+            new SolrSearchServer(client, false);
+            assertSame(parser, client.getParser());
+
+            //unless the instrumentation of the responses is enabled
+            new SolrSearchServer(client, false, true);
+            assertThat(client.getParser(), Matchers.instanceOf(InstrumentedResponseParser.class));
+        }
+    }
+
+    @Test
+    public void testIndexChildren() throws Exception {
+
+        FieldDescriptor<String> title = new FieldDescriptorBuilder<>().setFullText(true).buildTextField("title");
+        DocumentFactory parents = new DocumentFactoryBuilder("asset").addField(title).build();
+        DocumentFactory children = new DocumentFactoryBuilder("marker").addField(title).build();
+
+        Document parent = parents.createDoc("p1").setValue(title, "Parent");
+        parent.addChild(children.createDoc("c1").setValue(title, "Child 1"));
+        parent.addChild(children.createDoc("c2").setValue(title, "Child 2"));
+
+        server.indexWithin(Arrays.asList(parent, parents.createDoc("p2")), 1000);
+        ArgumentCaptor<SolrRequest> argument = ArgumentCaptor.forClass(SolrRequest.class);
+        verify(solrClient).request(argument.capture(), any());
+
+        final List<SolrInputDocument> docs = readDocuments(argument.getValue());
+        assertEquals(2, docs.size());
+        assertEquals("p1", docs.get(0).getFieldValue(SolrUtils.Fieldname.ID));
+        assertEquals("Parent", docs.get(0).getFieldValue("dynamic_single_string_title"));
+        assertEquals(2, docs.get(0).getChildDocuments().size());
+        assertThat(docs.get(0).getChildDocuments().stream().map(c -> c.getFieldValue(SolrUtils.Fieldname.ID)).collect(Collectors.toList()),
+                containsInAnyOrder("c1", "c2"));
+        assertEquals("marker", docs.get(0).getChildDocuments().get(0).getFieldValue(SolrUtils.Fieldname.TYPE));
+        assertEquals("p2", docs.get(1).getFieldValue(SolrUtils.Fieldname.ID));
+        assertEquals(1000, ((AbstractUpdateRequest) argument.getValue()).getCommitWithin());
+    }
+
+    private static List<SolrInputDocument> readDocuments(SolrRequest request) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        request.getContentWriter(CommonParams.JAVABIN_MIME).write(out);
+
+        final List<SolrInputDocument> docs = new ArrayList<>();
+        new JavaBinUpdateRequestCodec().unmarshal(new ByteArrayInputStream(out.toByteArray()),
+                (document, req, commitWithin, override) -> docs.add(document));
+        return docs;
+    }
+
     public static <T> Matcher<SolrInputField> solrInputField(String fieldName, T value) {
         return new TypeSafeMatcher<SolrInputField>() {
             @Override
@@ -1,13 +1,31 @@
 package com.rbmhtechnology.vind.solr.backend;
 
+import com.rbmhtechnology.vind.api.query.Search;
+import com.rbmhtechnology.vind.api.query.filter.Filter;
+import com.rbmhtechnology.vind.api.result.ResultGroup;
+import com.rbmhtechnology.vind.model.DocumentFactory;
+import com.rbmhtechnology.vind.model.DocumentFactoryBuilder;
 import com.rbmhtechnology.vind.model.FieldDescriptor;
 import com.rbmhtechnology.vind.model.FieldDescriptorBuilder;
 import com.rbmhtechnology.vind.solr.backend.SolrUtils;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.util.NamedList;
 import org.junit.Test;
 
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 
 /**
@@ -38,4 +56,70 @@ public class SolrUtilsTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testInPlaceFieldName() {
+
+        FieldDescriptor views = new FieldDescriptorBuilder().setInPlace(true).buildNumericField("views", Long.class);
+        assertEquals("dynamic_inplace_long_views", SolrUtils.Fieldname.getFieldname(views, SolrUtils.Fieldname.UseCase.Stored, null));
+        assertEquals("dynamic_inplace_long_views", SolrUtils.Fieldname.getFieldname(views, SolrUtils.Fieldname.UseCase.Sort, null));
+        assertEquals("dynamic_inplace_long_views", SolrUtils.Fieldname.getFieldname(views, SolrUtils.Fieldname.UseCase.Facet, null));
+        assertEquals("dynamic_inplace_long_views", SolrUtils.Fieldname.getFieldname(views, SolrUtils.Fieldname.UseCase.Filter, null));
+        assertNull(SolrUtils.Fieldname.getFieldname(views, SolrUtils.Fieldname.UseCase.Fulltext, null));
+        assertNull(SolrUtils.Fieldname.getFieldname(views, SolrUtils.Fieldname.UseCase.Suggest, null));
+        assertThat(SolrUtils.Fieldname.getFieldnames(views, null), contains("dynamic_inplace_long_views"));
+    }
+
+    @Test
+    public void testResultGroupsOfDates() {
+
+        final FieldDescriptor<?> published = new FieldDescriptorBuilder().setFacet(true).buildDateField("published");
+        final DocumentFactory factory = new DocumentFactoryBuilder("asset").addField(published).build();
+        final Date day = Date.from(ZonedDateTime.of(2018, 3, 1, 10, 15, 30, 0, ZoneId.of("UTC")).toInstant());
+
+        final SolrDocumentList results = new SolrDocumentList();
+        results.add(solrDocument("1", factory.getType(), day));
+        final SolrDocumentList expanded = new SolrDocumentList();
+        expanded.add(solrDocument("2", factory.getType(), null));
+        expanded.setNumFound(1);
+
+        //solr keys the expanded results by the string form of the collapse value
+        final NamedList<Object> expandedResults = new NamedList<>();
+        expandedResults.add("2018-03-01T10:15:30Z", expanded);
+        final NamedList<Object> values = new NamedList<>();
+        values.add("response", results);
+        values.add("expanded", expandedResults);
+        final QueryResponse response = new QueryResponse();
+        response.setResponse(values);
+
+        final List<ResultGroup> groups = SolrUtils.Result.buildResultGroups(response,
+                Collections.singletonList(factory.createDoc("1")), factory, null);
+        assertEquals(1, groups.size());
+        assertEquals(day, groups.get(0).getValue());
+        assertEquals(1, groups.get(0).getNumOfExpanded());
+        assertEquals("2", groups.get(0).getExpanded().get(0).getId());
+    }
+
+    private static SolrDocument solrDocument(String id, String type, Object collapse) {
+        final SolrDocument document = new SolrDocument();
+        document.setField(SolrUtils.Fieldname.ID, id);
+        document.setField(SolrUtils.Fieldname.TYPE, type);
+        if (collapse != null) {
+            document.setField(SolrUtils.Fieldname.COLLAPSE, collapse);
+        }
+        return document;
+    }
+
+    @Test
+    public void testChildFilter() {
+
+        final FieldDescriptor<String> color = new FieldDescriptorBuilder().setFacet(true).buildTextField("color");
+        final DocumentFactory children = new DocumentFactoryBuilder("variant").addField(color).build();
+
+        assertEquals("_type_:variant", SolrUtils.Query.buildChildFilter(Search.fulltext().withChildren(children, 5)));
+
+        final String childFilter = SolrUtils.Query.buildChildFilter(
+                Search.fulltext().withChildren(children, 5, Filter.eq("color", "red")));
+        assertThat(childFilter, startsWith("(_type_:variant AND ("));
+        assertThat(childFilter, containsString("red"));
+    }
+}
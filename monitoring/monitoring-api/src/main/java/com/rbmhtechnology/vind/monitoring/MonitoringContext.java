@@ -0,0 +1,148 @@
+package com.rbmhtechnology.vind.monitoring;
+
+import com.rbmhtechnology.vind.monitoring.model.session.Session;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable session and metadata of monitored requests. A context can be given to the
+ * {@link MonitoringSearchServer} on creation, as defaults for all requests, or opened for the requests of the current
+ * thread, e.g. for the duration of a web request:
+ * <pre>
+ * try (MonitoringContext.Scope scope = MonitoringContext.of(session).withMetadata("module", "search").open()) {
+ *     monitoringServer.execute(Search.fulltext("hello"), factory);
+ * }
+ * </pre>
+ * Sessions and metadata given as arguments of a request take precedence over the opened context, which takes
+ * precedence over the defaults of the server.
+ *
+ * @since 2.4.0
+ */
+public final class MonitoringContext {
+
+    private static final MonitoringContext EMPTY = new MonitoringContext(null, Collections.emptyMap());
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private final Session session;
+    private final Map<String, Object> metadata;
+
+    private MonitoringContext(Session session, Map<String, Object> metadata) {
+        this.session = session;
+        this.metadata = metadata;
+    }
+
+    public static MonitoringContext empty() {
+        return EMPTY;
+    }
+
+    public static MonitoringContext of(Session session) {
+        return EMPTY.withSession(session);
+    }
+
+    /**
+     * @return the context opened on the current thread, or an empty context.
+     */
+    public static MonitoringContext current() {
+        final Scope scope = CURRENT.get();
+        return scope != null ? scope.context : EMPTY;
+    }
+
+    public Session getSession() {
+        return session;
+    }
+
+    /**
+     * @return the unmodifiable metadata.
+     */
+    public Map<String, Object> getMetadata() {
+        return metadata;
+    }
+
+    /**
+     * @return a copy of this context with the given session.
+     */
+    public MonitoringContext withSession(Session session) {
+        return new MonitoringContext(session, metadata);
+    }
+
+    /**
+     * @return a copy of this context with the given metadata property added, or this context if the key is null.
+     */
+    public MonitoringContext withMetadata(String key, Object value) {
+        if (Objects.isNull(key)) {
+            return this;
+        }
+        return withMetadata(Collections.singletonMap(key, value));
+    }
+
+    /**
+     * @return a copy of this context with the given metadata properties added.
+     */
+    public MonitoringContext withMetadata(Map<String, ?> metadata) {
+        if (Objects.isNull(metadata) || metadata.isEmpty()) {
+            return this;
+        }
+        final Map<String, Object> merged = new HashMap<>(this.metadata);
+        merged.putAll(metadata);
+        return new MonitoringContext(session, Collections.unmodifiableMap(merged));
+    }
+
+    /**
+     * @return a copy of this context overridden by the session, if set, and the metadata of the given context.
+     */
+    public MonitoringContext merge(MonitoringContext other) {
+        if (other == null || other == EMPTY) {
+            return this;
+        }
+        return (other.session != null ? withSession(other.session) : this).withMetadata(other.metadata);
+    }
+
+    /**
+     * Opens this context for the requests of the current thread, merged into the context opened before.
+     * @return the {@link Scope} to be closed when the requests are done.
+     */
+    public Scope open() {
+        final Scope scope = new Scope(current().merge(this), CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    @Override
+    public String toString() {
+        return "MonitoringContext{" +
+                "session=" + session +
+                ", metadata=" + metadata +
+                '}';
+    }
+
+    /**
+     * Context opened on the current thread.
+     */
+    public static class Scope implements AutoCloseable {
+
+        private final MonitoringContext context;
+        private final Scope previous;
+
+        private Scope(MonitoringContext context, Scope previous) {
+            this.context = context;
+            this.previous = previous;
+        }
+
+        public MonitoringContext getContext() {
+            return context;
+        }
+
+        @Override
+        public void close() {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
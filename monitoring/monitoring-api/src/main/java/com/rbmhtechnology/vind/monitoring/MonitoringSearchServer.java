@@ -16,18 +16,30 @@ import com.rbmhtechnology.vind.monitoring.logger.MonitoringWriter;
 import com.rbmhtechnology.vind.monitoring.logger.entry.*;
 import com.rbmhtechnology.vind.monitoring.model.application.Application;
 import com.rbmhtechnology.vind.monitoring.model.application.SimpleApplication;
+import com.rbmhtechnology.vind.monitoring.logger.entry.MonitoringEntry.EntryType;
 import com.rbmhtechnology.vind.monitoring.model.session.Session;
+import com.rbmhtechnology.vind.monitoring.sampling.Sampling;
+import com.rbmhtechnology.vind.monitoring.sampling.SamplingPolicies;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
+ * Search server wrapper writing an entry per request to a {@link MonitoringWriter}. A single instance can be shared by
+ * all threads: the session and metadata of the requests are either given as arguments or taken from the
+ * {@link MonitoringContext} opened on the calling thread, falling back to the defaults of the server.
+ *
  * @author Thomas Kurz (tkurz@apache.org)
  * @since 13.07.16.
  */
@@ -40,11 +52,11 @@ public class MonitoringSearchServer extends SearchServer {
 
     private final SearchServer server;
 
-    private Session session;
-    private Application application;
-    private HashMap<String, Object> monitoringMetadata = new HashMap<>();
+    private final Application application;
+    private volatile MonitoringContext defaults;
 
-    private boolean silent = false;
+    private volatile boolean silent = false;
+    private volatile SamplingPolicies sampling = SamplingPolicies.fromConfiguration();
 
     private final MonitoringWriter logger;
 
@@ -69,8 +81,19 @@ public class MonitoringSearchServer extends SearchServer {
     }
 
     public MonitoringSearchServer(SearchServer server, Application application, Session session, MonitoringWriter logger) {
+        this(server, application, logger, MonitoringContext.of(session));
+    }
+
+    /**
+     * @param server the monitored {@link SearchServer}.
+     * @param application the monitored {@link Application}, if null it is created from the configuration property
+     *                    <code>search.monitoring.application.id</code>.
+     * @param logger the {@link MonitoringWriter} of the entries.
+     * @param defaults the {@link MonitoringContext} used for requests without session or metadata.
+     */
+    public MonitoringSearchServer(SearchServer server, Application application, MonitoringWriter logger, MonitoringContext defaults) {
         this.server = server;
-        this.session = session;
+        this.defaults = defaults != null ? defaults : MonitoringContext.empty();
         this.logger = logger;
 
         if(application == null) {
@@ -103,7 +126,7 @@ public class MonitoringSearchServer extends SearchServer {
 
     @Override
     public IndexResult index(List<Document> docs) {
-        return index(docs,this.session);
+        return index(docs, null);
     }
 
     @Override
@@ -117,72 +140,72 @@ public class MonitoringSearchServer extends SearchServer {
     }
 
     public IndexResult index(List<Document> docs, Session session) {
+        final MonitoringContext context = resolve(session, null);
         final ZonedDateTime start = ZonedDateTime.now();
         log.debug("Monitoring server is indexing document'{}' at {}:{}:{} - {}.{}.{} ", docs.stream().map(Document::getId).collect(Collectors.toList()),
                 start.getHour(),start.getMinute(),start.getSecond(),start.getDayOfMonth(),start.getMonth(),start.getYear());
         final IndexResult result =  server.index(docs);
         final ZonedDateTime end = ZonedDateTime.now();
-        try {
-            final IndexEntry entry =
-                    new IndexEntry( application, start, end, result.getQueryTime(), result.getElapsedTime(), session, docs);
-            entry.setMetadata(this.monitoringMetadata);
-            log.debug("Monitoring is adding an Index entry");
-            logger.log(entry);
-        } catch (Exception e) {
-            log.error("Index monitoring error: {}", e.getMessage(), e);
-            if (!silent) {
-                throw e;
-            }
-        }
-
-        return server.index(docs);
+        addMonitoringEntry(EntryType.index, start, end, false, context, s ->
+                new IndexEntry( application, start, end, result.getQueryTime(), result.getElapsedTime(), s, docs));
+        return result;
     }
 
     @Override
     public boolean execute(Update update, DocumentFactory factory) {
-        return execute(update, factory, this.session);
+        return execute(update, factory, (Session) null);
+    }
+
+    @Override
+    public boolean execute(List<Update> updates, DocumentFactory factory) {
+        return execute(updates, factory, (Session) null);
+    }
+
+    public boolean execute(List<Update> updates, DocumentFactory factory, Session session) {
+        final MonitoringContext context = resolve(session, null);
+        final ZonedDateTime start = ZonedDateTime.now();
+        log.debug("Monitoring server is updating {} documents at {}:{}:{} - {}.{}.{} ", updates.size(),
+                start.getHour(),start.getMinute(),start.getSecond(),start.getDayOfMonth(),start.getMonth(),start.getYear());
+        final Boolean result =  server.execute(updates, factory);
+        final ZonedDateTime end = ZonedDateTime.now();
+
+        for (Update update : updates) {
+            addMonitoringEntry(EntryType.update, start, end, !result, context, s -> new UpdateEntry( application, start, end, s, update,result));
+        }
+        return result;
     }
 
     public boolean execute(Update update, DocumentFactory factory, Session session) {
+        final MonitoringContext context = resolve(session, null);
         final ZonedDateTime start = ZonedDateTime.now();
         log.debug("Monitoring server is updating document'{}' at {}:{}:{} - {}.{}.{} ", update.getId(),
                 start.getHour(),start.getMinute(),start.getSecond(),start.getDayOfMonth(),start.getMonth(),start.getYear());
         final Boolean result =  server.execute(update, factory);
         final ZonedDateTime end = ZonedDateTime.now();
 
-        try {
-            final UpdateEntry entry =
-                    new UpdateEntry( application, start, end, session, update,result);
-            entry.setMetadata(this.monitoringMetadata);
-            log.debug("Monitoring is adding an Update entry");
-            logger.log(entry);
-        } catch (Exception e) {
-            log.error("Update monitoring error: {}", e.getMessage(), e);
-            if (!silent) {
-                throw e;
-            }
-        }
+        addMonitoringEntry(EntryType.update, start, end, !result, context, s -> new UpdateEntry( application, start, end, s, update,result));
         return result;
     }
 
     @Override
     public DeleteResult execute(Delete delete, DocumentFactory factory) {
-        return execute(delete,factory,this.session);
+        return execute(delete, factory, (Session) null);
     }
 
     public DeleteResult execute(Delete delete, DocumentFactory factory, Session session) {
+        final MonitoringContext context = resolve(session, null);
         final ZonedDateTime start = ZonedDateTime.now();
         log.debug("Monitoring server is deleting at {}:{}:{} - {}.{}.{} ",
                 start.getHour(),start.getMinute(),start.getSecond(),start.getDayOfMonth(),start.getMonth(),start.getYear());
         final DeleteResult result = server.execute(delete, factory);
         final ZonedDateTime end = ZonedDateTime.now();
-        addDeleteMonitoringEntry(session, start, result, end);
+        addDeleteMonitoringEntry(context, start, result, end);
         return result;
     }
 
     @Override
     public DeleteResult delete(Document doc) {
-        return delete(doc,this.session);
+        return delete(doc, null);
     }
 
     @Override
@@ -191,13 +214,14 @@ public class MonitoringSearchServer extends SearchServer {
     }
 
     public DeleteResult delete(Document doc, Session session) {
+        final MonitoringContext context = resolve(session, null);
         final ZonedDateTime start = ZonedDateTime.now();
         log.debug("Monitoring server is deleting at {}:{}:{} - {}.{}.{} ",
                 start.getHour(),start.getMinute(),start.getSecond(),start.getDayOfMonth(),start.getMonth(),start.getYear());
         final DeleteResult result = server.delete(doc);
         final ZonedDateTime end = ZonedDateTime.now();
 
-        addDeleteMonitoringEntry(session, start, result, end);
+        addDeleteMonitoringEntry(context, start, result, end);
         return result;
     }
 
@@ -209,109 +233,85 @@ public class MonitoringSearchServer extends SearchServer {
 
     @Override
     public <T> BeanSearchResult<T> execute(FulltextSearch search, Class<T> c) {
-        return execute(search,c,this.session);
+        return execute(search, c, null, null);
     }
 
     public <T> BeanSearchResult<T> execute(FulltextSearch search, Class<T> c, Session session) {
-        final ZonedDateTime start = ZonedDateTime.now();
-        log.debug("Monitoring server is executing FulltextSearch at {}:{}:{} - {}.{}.{} ",
-                start.getHour(),start.getMinute(),start.getSecond(),start.getDayOfMonth(),start.getMonth(),start.getYear());
-        final BeanSearchResult<T> result = server.execute(search, c);
-        final ZonedDateTime end = ZonedDateTime.now();
-        try {
-            final FullTextEntry entry =
-                    new FullTextEntry(this.server, AnnotationUtil.createDocumentFactory(c), application, search, result, start, end, result.getQueryTime(), result.getElapsedTime(), session);
-            entry.setMetadata(this.monitoringMetadata);
-            log.debug("Monitoring is adding a FulltextSearch entry");
-            logger.log(entry);
-        } catch (Exception e) {
-            log.error("Fulltext monitoring error: {}", e.getMessage(), e);
-            if (!silent) {
-                throw e;
-            }
-        }
-        return result;
+        return execute(search, c, session, null);
     }
 
     public <T> BeanSearchResult<T> execute(FulltextSearch search, Class<T> c, HashMap<String, Object> metadata) {
-        return execute(search, c, session, metadata);
+        return execute(search, c, null, metadata);
     }
 
     public <T> BeanSearchResult<T> execute(FulltextSearch search, Class<T> c, Session session, HashMap<String, Object> metadata) {
+        final MonitoringContext context = resolve(session, metadata);
         final ZonedDateTime start = ZonedDateTime.now();
         log.debug("Monitoring server is executing FulltextSearch at {}:{}:{} - {}.{}.{} ",
                 start.getHour(),start.getMinute(),start.getSecond(),start.getDayOfMonth(),start.getMonth(),start.getYear());
         final BeanSearchResult<T> result = server.execute(search, c);
         final ZonedDateTime end = ZonedDateTime.now();
-        try {
-            final FullTextEntry entry =
-                    new FullTextEntry(this.server, AnnotationUtil.createDocumentFactory(c), application, search, result, start, end, result.getQueryTime(), result.getElapsedTime(), session);
-            final HashMap<String, Object> mergedMetadata = new HashMap<>();
-            mergedMetadata.putAll(this.monitoringMetadata);
-            mergedMetadata.putAll(metadata);
-            entry.setMetadata(mergedMetadata);
-            log.debug("Monitoring is adding a FulltextSearch entry");
-            logger.log(entry);
-        } catch (Exception e) {
-            log.error("Fulltext monitoring error: {}", e.getMessage(), e);
-            if (!silent) {
-                throw e;
-            }
-        }
+        addMonitoringEntry(EntryType.fulltext, start, end, false, context, s ->
+                new FullTextEntry(this.server, AnnotationUtil.createDocumentFactory(c), application, search, result, start, end, result.getQueryTime(), result.getElapsedTime(), s));
         return result;
     }
 
     @Override
     public SearchResult execute(FulltextSearch search, DocumentFactory factory) {
-        return execute(search,factory,this.session);
+        return execute(search, factory, null, null);
     }
 
     public SearchResult execute(FulltextSearch search, DocumentFactory factory, Session session) {
+        return execute(search, factory, session, null);
+    }
+
+    @Override
+    public long count(FulltextSearch search, DocumentFactory factory) {
+        return count(search, factory, null);
+    }
+
+    public long count(FulltextSearch search, DocumentFactory factory, Session session) {
+        final MonitoringContext context = resolve(session, null);
         final ZonedDateTime start = ZonedDateTime.now();
-        log.debug("Monitoring server is executing FulltextSearch at {}:{}:{} - {}.{}.{} ",
+        log.debug("Monitoring server is counting FulltextSearch at {}:{}:{} - {}.{}.{} ",
                 start.getHour(),start.getMinute(),start.getSecond(),start.getDayOfMonth(),start.getMonth(),start.getYear());
-        final SearchResult result = server.execute(search, factory);
+        final long result = server.count(search, factory);
         final ZonedDateTime end = ZonedDateTime.now();
+        addMonitoringEntry(EntryType.fulltext, start, end, false, context, s ->
+                new FullTextEntry(this.server, factory, application, search, FullTextEntry.Mode.count, result, start, end, s));
+        return result;
+    }
 
-        try {
-            final FullTextEntry entry = new FullTextEntry(this.server, factory, application, search, result, start, end, result.getQueryTime(), result.getElapsedTime(), session);
-            entry.setMetadata(this.monitoringMetadata);
-            log.debug("Monitoring is adding a FulltextSearch entry");
-            logger.log(entry);
-        } catch (Exception e) {
-            log.error("Fulltext monitoring error: {}", e.getMessage(), e);
-            if (!silent) {
-                throw e;
-            }
-        }
+    @Override
+    public FacetResults facets(FulltextSearch search, DocumentFactory factory) {
+        return facets(search, factory, null);
+    }
+
+    public FacetResults facets(FulltextSearch search, DocumentFactory factory, Session session) {
+        final MonitoringContext context = resolve(session, null);
+        final ZonedDateTime start = ZonedDateTime.now();
+        log.debug("Monitoring server is executing facets of FulltextSearch at {}:{}:{} - {}.{}.{} ",
+                start.getHour(),start.getMinute(),start.getSecond(),start.getDayOfMonth(),start.getMonth(),start.getYear());
+        final FacetResults result = server.facets(search, factory);
+        final ZonedDateTime end = ZonedDateTime.now();
+        addMonitoringEntry(EntryType.fulltext, start, end, false, context, s ->
+                new FullTextEntry(this.server, factory, application, search, FullTextEntry.Mode.facets, 0, start, end, s));
         return result;
     }
 
     public SearchResult execute(FulltextSearch search, DocumentFactory factory, HashMap<String, Object> metadata) {
-        return execute(search,factory,this.session,metadata);
+        return execute(search, factory, null, metadata);
     }
 
     public SearchResult execute(FulltextSearch search, DocumentFactory factory, Session session, HashMap<String, Object> metadata) {
+        final MonitoringContext context = resolve(session, metadata);
         final ZonedDateTime start = ZonedDateTime.now();
         log.debug("Monitoring server is executing FulltextSearch at {}:{}:{} - {}.{}.{} ",
                 start.getHour(),start.getMinute(),start.getSecond(),start.getDayOfMonth(),start.getMonth(),start.getYear());
         final SearchResult result = server.execute(search, factory);
         final ZonedDateTime end = ZonedDateTime.now();
-        try {
-            final FullTextEntry entry = new FullTextEntry(this.server, factory, application, search, result, start, end, result.getQueryTime(), result.getElapsedTime(), session);
-
-            final HashMap<String, Object> mergedMetadata = new HashMap<>();
-            mergedMetadata.putAll(this.monitoringMetadata);
-            mergedMetadata.putAll(metadata);
-            entry.setMetadata(mergedMetadata);
-            log.debug("Monitoring is adding a FulltextSearch entry");
-            logger.log(entry);
-        } catch (Exception e) {
-            log.error("Fulltext monitoring error: {}", e.getMessage(), e);
-            if (!silent) {
-                throw e;
-            }
-        }
+        addMonitoringEntry(EntryType.fulltext, start, end, false, context, s ->
+                new FullTextEntry(this.server, factory, application, search, result, start, end, result.getQueryTime(), result.getElapsedTime(), s));
         return result;
     }
 
@@ -329,91 +329,74 @@ public class MonitoringSearchServer extends SearchServer {
 
     @Override
     public <T> SuggestionResult execute(ExecutableSuggestionSearch search, Class<T> c) {
-        return execute(search, c, this.session);
+        return execute(search, c, null, null);
     }
 
     public <T> SuggestionResult execute(ExecutableSuggestionSearch search, Class<T> c, Session session) {
-        final ZonedDateTime start = ZonedDateTime.now();
-        log.debug("Monitoring server is executing SuggestionSearch at {}:{}:{} - {}.{}.{} ",
-                start.getHour(),start.getMinute(),start.getSecond(),start.getDayOfMonth(),start.getMonth(),start.getYear());
-        final SuggestionResult result = server.execute(search, c);
-        final ZonedDateTime end = ZonedDateTime.now();
-
-        addSuggestionMonitoringEntry(search, AnnotationUtil.createDocumentFactory(c), session, start, result, end);
-        return result;
+        return execute(search, c, session, null);
     }
 
     public <T> SuggestionResult execute(ExecutableSuggestionSearch search, Class<T> c, HashMap<String, Object> metadata) {
-        return execute(search,c,this.session,metadata);
+        return execute(search, c, null, metadata);
     }
 
     public <T> SuggestionResult execute(ExecutableSuggestionSearch search, Class<T> c, Session session, HashMap<String, Object> metadata) {
+        final MonitoringContext context = resolve(session, metadata);
         final ZonedDateTime start = ZonedDateTime.now();
         log.debug("Monitoring server is executing SuggestionSearch at {}:{}:{} - {}.{}.{} ",
                 start.getHour(),start.getMinute(),start.getSecond(),start.getDayOfMonth(),start.getMonth(),start.getYear());
         final SuggestionResult result = server.execute(search, c);
         final ZonedDateTime end = ZonedDateTime.now();
-        addSuggestionMonitoringEntry(search, AnnotationUtil.createDocumentFactory(c), session, metadata, start, result, end);
+        addSuggestionMonitoringEntry(search, AnnotationUtil.createDocumentFactory(c), context, start, result, end);
         return result;
     }
 
     @Override
     public SuggestionResult execute(ExecutableSuggestionSearch search, DocumentFactory factory) {
-        return execute(search, factory, this.session);
+        return execute(search, factory, (Session) null, null);
     }
 
     public SuggestionResult execute(ExecutableSuggestionSearch search, DocumentFactory factory, Session session) {
-        final ZonedDateTime start = ZonedDateTime.now();
-        log.debug("Monitoring server is executing SuggestionSearch at {}:{}:{} - {}.{}.{} ",
-                start.getHour(),start.getMinute(),start.getSecond(),start.getDayOfMonth(),start.getMonth(),start.getYear());
-        final SuggestionResult result = server.execute(search, factory);
-        final ZonedDateTime end = ZonedDateTime.now();
-        addSuggestionMonitoringEntry(search, factory, session, start, result, end);
-        return result;
+        return execute(search, factory, session, null);
     }
 
     public SuggestionResult execute(ExecutableSuggestionSearch search, DocumentFactory factory, HashMap<String, Object> metadata) {
-        return execute(search, factory, this.session, metadata);
+        return execute(search, factory, (Session) null, metadata);
     }
 
     public SuggestionResult execute(ExecutableSuggestionSearch search, DocumentFactory factory, Session session, HashMap<String, Object> metadata) {
+        final MonitoringContext context = resolve(session, metadata);
         final ZonedDateTime start = ZonedDateTime.now();
         log.debug("Monitoring server is executing SuggestionSearch at {}:{}:{} - {}.{}.{} ",
                 start.getHour(),start.getMinute(),start.getSecond(),start.getDayOfMonth(),start.getMonth(),start.getYear());
         final SuggestionResult result = server.execute(search, factory);
         final ZonedDateTime end = ZonedDateTime.now();
-        addSuggestionMonitoringEntry(search, factory, session, metadata, start, result, end);
+        addSuggestionMonitoringEntry(search, factory, context, start, result, end);
         return result;
     }
 
     @Override
     public SuggestionResult execute(ExecutableSuggestionSearch search, DocumentFactory factory, DocumentFactory childFactory) {
-        return execute(search, factory, childFactory, this.session);
+        return execute(search, factory, childFactory, null, null);
     }
 
     public SuggestionResult execute(ExecutableSuggestionSearch search, DocumentFactory factory, DocumentFactory childFactory, Session session) {
-        final ZonedDateTime start = ZonedDateTime.now();
-        log.debug("Monitoring server is executing SuggestionSearch at {}:{}:{} - {}.{}.{} ",
-                start.getHour(),start.getMinute(),start.getSecond(),start.getDayOfMonth(),start.getMonth(),start.getYear());
-        final SuggestionResult result = server.execute(search, factory, childFactory);
-        final ZonedDateTime end = ZonedDateTime.now();
-
-        addSuggestionMonitoringEntry(search, factory, session, start, result, end);
-        return result;
+        return execute(search, factory, childFactory, session, null);
     }
 
     public SuggestionResult execute(ExecutableSuggestionSearch search, DocumentFactory factory, DocumentFactory childFactory, HashMap<String, Object> metadata) {
-        return execute(search, factory, childFactory, this.session, metadata);
+        return execute(search, factory, childFactory, null, metadata);
     }
 
     public SuggestionResult execute(ExecutableSuggestionSearch search, DocumentFactory factory, DocumentFactory childFactory, Session session, HashMap<String, Object> metadata) {
+        final MonitoringContext context = resolve(session, metadata);
         final ZonedDateTime start = ZonedDateTime.now();
         log.debug("Monitoring server is executing SuggestionSearch at {}:{}:{} - {}.{}.{} ",
                 start.getHour(),start.getMinute(),start.getSecond(),start.getDayOfMonth(),start.getMonth(),start.getYear());
         final SuggestionResult result = server.execute(search, factory, childFactory);
         final ZonedDateTime end = ZonedDateTime.now();
 
-        addSuggestionMonitoringEntry(search, factory, session, metadata, start, result, end);
+        addSuggestionMonitoringEntry(search, factory, context, start, result, end);
         return result;
     }
 
@@ -436,33 +419,35 @@ public class MonitoringSearchServer extends SearchServer {
 
     @Override
     public <T> BeanGetResult<T> execute(RealTimeGet search, Class<T> c) {
-        return execute(search, c ,this.session);
+        return execute(search, c, null);
     }
 
     public <T> BeanGetResult<T> execute(RealTimeGet search, Class<T> c, Session session) {
+        final MonitoringContext context = resolve(session, null);
         final ZonedDateTime start = ZonedDateTime.now();
         log.debug("Monitoring server is executing Real time get at {}:{}:{} - {}.{}.{} ",
                 start.getHour(),start.getMinute(),start.getSecond(),start.getDayOfMonth(),start.getMonth(),start.getYear());
         final BeanGetResult<T> result = server.execute(search, c);
         final ZonedDateTime end = ZonedDateTime.now();
 
-        addRealTimeGetMonitoringEntry(search, start, end, result.getQueryTime(), result.getElapsedTime(), result.getNumOfResults(), session);
+        addRealTimeGetMonitoringEntry(search, start, end, result.getQueryTime(), result.getElapsedTime(), result.getNumOfResults(), context);
         return result;
     }
 
     @Override
     public GetResult execute(RealTimeGet search, DocumentFactory factory) {
-        return execute(search, factory, this.session);
+        return execute(search, factory, (Session) null);
     }
 
     public GetResult execute(RealTimeGet search, DocumentFactory factory, Session session) {
+        final MonitoringContext context = resolve(session, null);
         final ZonedDateTime start = ZonedDateTime.now();
         log.debug("Monitoring server is executing Real time get at {}:{}:{} - {}.{}.{} ",
                 start.getHour(),start.getMinute(),start.getSecond(),start.getDayOfMonth(),start.getMonth(),start.getYear());
         final GetResult result = server.execute(search, factory);
         final ZonedDateTime end = ZonedDateTime.now();
 
-        addRealTimeGetMonitoringEntry(search, start, end, result.getQueryTime(), result.getElapsedTime(), result.getNumOfResults(), session);
+        addRealTimeGetMonitoringEntry(search, start, end, result.getQueryTime(), result.getElapsedTime(), result.getNumOfResults(), context);
         return result;
     }
 
@@ -481,75 +466,124 @@ public class MonitoringSearchServer extends SearchServer {
         return this.server.getServiceProviderClass();
     }
 
-    private void addDeleteMonitoringEntry(Session session, ZonedDateTime start, DeleteResult result, ZonedDateTime end) {
-        try {
-            final DeleteEntry entry =
-                    new DeleteEntry(application, start, end, result.getQueryTime(), result.getElapsedTime(), session);
-            entry.setMetadata(this.monitoringMetadata);
-            log.debug("Monitoring is adding a Delete entry");
-            logger.log(entry);
-        } catch (Exception e) {
-            log.error("Delete monitoring error: {}", e.getMessage(), e);
-            if (!silent) {
-                throw e;
+    /*----------------------------Async------------------------------------*/
+
+    //the context of the calling thread is opened on the executor
+
+    @Override
+    public CompletableFuture<IndexResult> indexAsync(Executor executor, List<Document> docs) {
+        final MonitoringContext context = MonitoringContext.current();
+        return CompletableFuture.supplyAsync(() -> {
+            try (MonitoringContext.Scope scope = context.open()) {
+                return this.index(docs);
             }
-        }
+        }, executor);
     }
 
-    private void addSuggestionMonitoringEntry(ExecutableSuggestionSearch search, DocumentFactory factory, Session session, ZonedDateTime start, SuggestionResult result, ZonedDateTime end) {
-        try {
-            final SuggestionEntry entry = new SuggestionEntry(this.server, factory, application, search, result, start, end, result.getQueryTime(), result.getElapsedTime(), session);
-            entry.setMetadata(this.monitoringMetadata);
-            log.debug("Monitoring is adding a Suggestion entry");
-            logger.log(entry);
-        } catch (Exception e) {
-            log.error("Suggestion monitoring error: {}", e.getMessage(), e);
-            if (!silent) {
-                throw e;
+    @Override
+    public CompletableFuture<SearchResult> executeAsync(FulltextSearch search, DocumentFactory factory, Executor executor) {
+        final MonitoringContext context = MonitoringContext.current();
+        return CompletableFuture.supplyAsync(() -> {
+            try (MonitoringContext.Scope scope = context.open()) {
+                return this.execute(search, factory);
             }
-        }
+        }, executor);
     }
 
-    private void addSuggestionMonitoringEntry(ExecutableSuggestionSearch search, DocumentFactory factory, Session session, HashMap<String, Object> metadata, ZonedDateTime start, SuggestionResult result, ZonedDateTime end) {
-        try {
-            final SuggestionEntry entry = new SuggestionEntry(this.server, factory, application, search, result, start, end, result.getQueryTime(), result.getElapsedTime(), session);
-            // Adding execution metadata to server metadata
-            final HashMap<String, Object> mergedMetadata = new HashMap<>();
-            mergedMetadata.putAll(this.monitoringMetadata);
-            mergedMetadata.putAll(metadata);
-            entry.setMetadata(mergedMetadata);
-            log.debug("Monitoring is adding a Suggestion entry");
-            logger.log(entry);
-        } catch (Exception e) {
-            log.error("Suggestion monitoring error: {}", e.getMessage(), e);
-            if (!silent) {
-                throw e;
+    @Override
+    public CompletableFuture<SuggestionResult> executeAsync(ExecutableSuggestionSearch search, DocumentFactory assets, Executor executor) {
+        final MonitoringContext context = MonitoringContext.current();
+        return CompletableFuture.supplyAsync(() -> {
+            try (MonitoringContext.Scope scope = context.open()) {
+                return this.execute(search, assets);
             }
-        }
+        }, executor);
     }
 
-    private <T> void addRealTimeGetMonitoringEntry(RealTimeGet search, ZonedDateTime start, ZonedDateTime end, long queryTime, long elapsedTime, long numOfResults, Session session) {
+    /**
+     * Resolves the context of a request: the defaults of the server, overridden by the context opened on the current
+     * thread, overridden by the arguments of the request.
+     */
+    private MonitoringContext resolve(Session session, Map<String, ?> metadata) {
+        final MonitoringContext context = defaults.merge(MonitoringContext.current()).withMetadata(metadata);
+        return session != null ? context.withSession(session) : context;
+    }
+
+    private void addMonitoringEntry(EntryType type, ZonedDateTime start, ZonedDateTime end, boolean failed, MonitoringContext context, Function<Session, MonitoringEntry> entryFactory) {
         try {
-            final GetEntry entry = new GetEntry(application, start, end, queryTime, elapsedTime, session, search.getValues(), numOfResults);
-            entry.setMetadata(this.monitoringMetadata);
-            log.debug("Monitoring is adding a Get entry");
+            final Sampling decision = sampling.sample(application, type, start.until(end, ChronoUnit.MILLIS), failed);
+            if (!decision.isKept()) {
+                log.trace("Monitoring is dropping a {} entry, sampled by {}", type, decision.getPolicy());
+                return;
+            }
+            final MonitoringEntry entry = entryFactory.apply(context.getSession());
+            //every entry gets its own copy of the metadata
+            entry.setMetadata(new HashMap<>(context.getMetadata()));
+            if (decision != Sampling.ALL) {
+                entry.setSampling(decision);
+            }
+            log.debug("Monitoring is adding a {} entry", type);
             logger.log(entry);
         } catch (Exception e) {
-            log.error("Get monitoring error: {}", e.getMessage(), e);
+            log.error("{} monitoring error: {}", type, e.getMessage(), e);
             if (!silent) {
                 throw e;
             }
         }
     }
 
-    public void setSession(Session session) {
-        this.session = session;
+    private void addDeleteMonitoringEntry(MonitoringContext context, ZonedDateTime start, DeleteResult result, ZonedDateTime end) {
+        addMonitoringEntry(EntryType.delete, start, end, false, context, s ->
+                new DeleteEntry(application, start, end, result.getQueryTime(), result.getElapsedTime(), s));
     }
 
-    public void addMetadata(String key, Object value) {
-        if (Objects.nonNull(key)) {
-            this. monitoringMetadata.put(key, value);
-        }
+    private void addSuggestionMonitoringEntry(ExecutableSuggestionSearch search, DocumentFactory factory, MonitoringContext context, ZonedDateTime start, SuggestionResult result, ZonedDateTime end) {
+        addMonitoringEntry(EntryType.suggestion, start, end, false, context, s ->
+                new SuggestionEntry(this.server, factory, application, search, result, start, end, result.getQueryTime(), result.getElapsedTime(), s));
+    }
+
+    private void addRealTimeGetMonitoringEntry(RealTimeGet search, ZonedDateTime start, ZonedDateTime end, long queryTime, long elapsedTime, long numOfResults, MonitoringContext context) {
+        addMonitoringEntry(EntryType.get, start, end, false, context, s ->
+                new GetEntry(application, start, end, queryTime, elapsedTime, s, search.getValues(), numOfResults));
+    }
+
+    /**
+     * @return the {@link MonitoringContext} used for requests without session or metadata.
+     */
+    public MonitoringContext getDefaults() {
+        return defaults;
+    }
+
+    /**
+     * Changes the default session of all requests of this server.
+     * @deprecated the session is shared by all threads using this server, use a {@link MonitoringContext} or the
+     * methods taking a session instead.
+     */
+    @Deprecated
+    public synchronized void setSession(Session session) {
+        this.defaults = defaults.withSession(session);
+    }
+
+    /**
+     * Adds a metadata property to all requests of this server.
+     * @deprecated use a {@link MonitoringContext} for the defaults of the server instead.
+     */
+    @Deprecated
+    public synchronized void addMetadata(String key, Object value) {
+        this.defaults = defaults.withMetadata(key, value);
+    }
+
+    public SamplingPolicies getSampling() {
+        return sampling;
+    }
+
+    /**
+     * Changes the sampling of the monitoring entries, by default configured with the SearchConfiguration parameters
+     * <code>search.monitoring.sampling.*</code>.
+     */
+    public MonitoringSearchServer setSampling(SamplingPolicies sampling) {
+        this.sampling = Objects.requireNonNull(sampling);
+        return this;
     }
 
     public boolean isSilent() {
@@ -3,6 +3,7 @@
  */
 package com.rbmhtechnology.vind.monitoring.logger.entry;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.rbmhtechnology.vind.api.SearchServer;
 import com.rbmhtechnology.vind.api.query.FulltextSearch;
 import com.rbmhtechnology.vind.api.query.sort.Sort;
@@ -33,6 +34,14 @@ public class FullTextEntry extends MonitoringEntry {
     private Response response;
     private List<Sort> sorting;
     private Paging paging;
+    private Mode mode;
+
+    /**
+     * Kind of a search without documents in the response.
+     */
+    public enum Mode {
+        count, facets
+    }
 
     public FullTextEntry() {
     }
@@ -81,6 +90,22 @@ public class FullTextEntry extends MonitoringEntry {
         this.paging = new Paging(search.getResultSet());
     }
 
+    /**
+     * Creates the entry of a search without documents, like {@link SearchServer#count(FulltextSearch, DocumentFactory)}
+     * or {@link SearchServer#facets(FulltextSearch, DocumentFactory)}. The number of results of a facets search is
+     * not known and recorded as 0.
+     */
+    public FullTextEntry(SearchServer server, DocumentFactory factory, Application application, FulltextSearch search, Mode mode, long numOfResults, ZonedDateTime start, ZonedDateTime end, Session session) {
+        this.application = application;
+        this.session = session;
+        this.timeStamp = start;
+        this.mode = mode;
+        this.request = new FullTextRequest(search.copy(), server.getRawQuery(search,factory));
+        this.response = new Response(numOfResults, 0, start.until(end, ChronoUnit.MILLIS));
+        this.sorting = search.getSorting();
+        this.paging = new Paging(search.getResultSet());
+    }
+
     @Override
     public Application getApplication() {
         return application;
@@ -117,6 +142,14 @@ public class FullTextEntry extends MonitoringEntry {
         return paging;
     }
 
+    /**
+     * @return the {@link Mode} of a search without documents, null for a search with documents.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Mode getMode() {
+        return mode;
+    }
+
     @Override
     public String toString() {
         return toJson();
@@ -3,6 +3,7 @@
  */
 package com.rbmhtechnology.vind.monitoring.logger.entry;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
@@ -22,6 +23,7 @@ import com.rbmhtechnology.vind.monitoring.model.request.RootTimeMixIn;
 import com.rbmhtechnology.vind.monitoring.model.request.facet.*;
 import com.rbmhtechnology.vind.monitoring.model.request.filter.*;
 import com.rbmhtechnology.vind.monitoring.model.session.Session;
+import com.rbmhtechnology.vind.monitoring.sampling.Sampling;
 import com.rbmhtechnology.vind.monitoring.model.request.sort.SortMixIn;
 
 import java.io.IOException;
@@ -38,6 +40,7 @@ public abstract class MonitoringEntry {
 
 
     public HashMap<String,Object> metadata = new HashMap<>();
+    private Sampling sampling;
 
     public abstract Application getApplication();
     public abstract Session getSession();
@@ -62,6 +65,18 @@ public abstract class MonitoringEntry {
         }
     }
 
+    /**
+     * @return the {@link Sampling} decision which has kept this entry, null if the entry has not been sampled.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Sampling getSampling() {
+        return sampling;
+    }
+
+    public void setSampling(Sampling sampling) {
+        this.sampling = sampling;
+    }
+
     public String toJson(){
         try {
             return MonitoringEntry.getMapper().writeValueAsString(this);
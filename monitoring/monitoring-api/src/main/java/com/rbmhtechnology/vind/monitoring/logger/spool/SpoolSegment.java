@@ -0,0 +1,216 @@
+package com.rbmhtechnology.vind.monitoring.logger.spool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Memory-mapped, append-only segment file of a {@link SpoolingWriter}. A segment starts with a header (magic number
+ * and version) followed by records:
+ * <pre>
+ * int length | int crc | byte type | long timestamp | byte[] json
+ * </pre>
+ * The length and the checksum cover the payload after the checksum. The length is written last, so a record
+ * interrupted by a crash reads as the end of the segment. Records are published to the reader by
+ * {@link #getLimit() the limit}, which is only moved after the record is complete.
+ */
+class SpoolSegment {
+
+    private static final Logger log = LoggerFactory.getLogger(SpoolSegment.class);
+
+    static final int MAGIC = 0x5653504c; //VSPL
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final int RECORD_HEADER_SIZE = 4 + 4;
+    static final int PAYLOAD_HEADER_SIZE = 1 + 8;
+
+    static final String SUFFIX = ".spool";
+
+    private final long sequence;
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    private volatile int limit;
+    private volatile boolean sealed;
+
+    private SpoolSegment(long sequence, Path file, FileChannel channel, MappedByteBuffer buffer, int limit, boolean sealed) {
+        this.sequence = sequence;
+        this.file = file;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.limit = limit;
+        this.sealed = sealed;
+    }
+
+    static Path fileName(Path directory, long sequence) {
+        return directory.resolve(String.format("%020d%s", sequence, SUFFIX));
+    }
+
+    static long sequenceOf(Path file) {
+        final String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * Creates a new segment file for appending.
+     */
+    static SpoolSegment create(Path directory, long sequence, int size) throws IOException {
+        final Path file = fileName(directory, sequence);
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        return new SpoolSegment(sequence, file, channel, buffer, HEADER_SIZE, false);
+    }
+
+    /**
+     * Opens a segment file of a previous run for reading. The records are verified up to the first incomplete or
+     * corrupt one, which ends the segment.
+     */
+    static SpoolSegment open(Path file) throws IOException {
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            channel.close();
+            throw new IOException("Invalid spool segment " + file);
+        }
+        int limit = HEADER_SIZE;
+        while (true) {
+            final int length = recordLength(buffer, limit);
+            if (length == 0) {
+                break;
+            } else if (length < 0) {
+                log.warn("Spool segment {} is corrupt at offset {}, ignoring the rest of the segment", file, limit);
+                break;
+            }
+            limit += length;
+        }
+        return new SpoolSegment(sequenceOf(file), file, channel, buffer, limit, true);
+    }
+
+    /**
+     * @return the size of the valid record at the offset including its header, 0 for the end of the segment, -1 for
+     * a corrupt record.
+     */
+    private static int recordLength(ByteBuffer buffer, int offset) {
+        if (offset + RECORD_HEADER_SIZE > buffer.capacity()) {
+            return 0;
+        }
+        final int length = buffer.getInt(offset);
+        if (length == 0) {
+            return 0;
+        }
+        if (length < PAYLOAD_HEADER_SIZE || offset + RECORD_HEADER_SIZE + length > buffer.capacity()) {
+            return -1;
+        }
+        final ByteBuffer payload = buffer.duplicate();
+        payload.position(offset + RECORD_HEADER_SIZE).limit(offset + RECORD_HEADER_SIZE + length);
+        final CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue() == buffer.getInt(offset + 4) ? RECORD_HEADER_SIZE + length : -1;
+    }
+
+    static int recordSize(byte[] json) {
+        return RECORD_HEADER_SIZE + PAYLOAD_HEADER_SIZE + json.length;
+    }
+
+    /**
+     * Appends a record, must only be called by a single writer at a time.
+     * @return false if the record does not fit into the segment.
+     */
+    boolean append(byte type, long timestamp, byte[] json) {
+        final int offset = limit;
+        final int size = recordSize(json);
+        if (sealed || offset + size > buffer.capacity()) {
+            return false;
+        }
+        final ByteBuffer record = buffer.duplicate();
+        record.position(offset + RECORD_HEADER_SIZE);
+        record.put(type).putLong(timestamp).put(json);
+
+        final ByteBuffer payload = buffer.duplicate();
+        payload.position(offset + RECORD_HEADER_SIZE).limit(offset + size);
+        final CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        buffer.putInt(offset + 4, (int) crc.getValue());
+        buffer.putInt(offset, size - RECORD_HEADER_SIZE);
+        limit = offset + size;
+        return true;
+    }
+
+    /**
+     * @return the record at the offset, or null if there is no complete record at the offset yet.
+     */
+    SpooledEntry read(int offset) {
+        if (offset >= limit) {
+            return null;
+        }
+        final int length = buffer.getInt(offset);
+        final ByteBuffer payload = buffer.duplicate();
+        payload.position(offset + RECORD_HEADER_SIZE);
+        final byte type = payload.get();
+        final long timestamp = payload.getLong();
+        final byte[] json = new byte[length - PAYLOAD_HEADER_SIZE];
+        payload.get(json);
+        return new SpooledEntry(type, timestamp, json, offset + RECORD_HEADER_SIZE + length);
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    int getLimit() {
+        return limit;
+    }
+
+    boolean isSealed() {
+        return sealed;
+    }
+
+    /**
+     * Closes the segment for appending, the records written so far stay readable.
+     */
+    void seal() {
+        sealed = true;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Error closing spool segment {}: {}", file, e.getMessage());
+        }
+    }
+
+    void delete() {
+        close();
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Error deleting spool segment {}: {}", file, e.getMessage());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SpoolSegment{" +
+                "file=" + file +
+                ", limit=" + limit +
+                ", sealed=" + sealed +
+                '}';
+    }
+}
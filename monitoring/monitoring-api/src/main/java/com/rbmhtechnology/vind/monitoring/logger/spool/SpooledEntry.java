@@ -0,0 +1,68 @@
+package com.rbmhtechnology.vind.monitoring.logger.spool;
+
+import com.rbmhtechnology.vind.monitoring.logger.entry.MonitoringEntry;
+import com.rbmhtechnology.vind.monitoring.model.application.Application;
+import com.rbmhtechnology.vind.monitoring.model.session.Session;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+/**
+ * Monitoring entry replayed from the spool. It carries the serialized entry as written to the spool: the Json is
+ * returned as is by {@link #toJson()}, the application and the session are only available as part of the Json.
+ *
+ * @since 2.4.0
+ */
+public class SpooledEntry extends MonitoringEntry {
+
+    private final EntryType type;
+    private final ZonedDateTime timeStamp;
+    private final byte[] json;
+    private final int next;
+
+    SpooledEntry(byte type, long timestamp, byte[] json, int next) {
+        this.type = type >= 0 && type < EntryType.values().length ? EntryType.values()[type] : null;
+        this.timeStamp = ZonedDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneOffset.UTC);
+        this.json = json;
+        this.next = next;
+    }
+
+    @Override
+    public Application getApplication() {
+        return null;
+    }
+
+    @Override
+    public Session getSession() {
+        return null;
+    }
+
+    @Override
+    public EntryType getType() {
+        return type;
+    }
+
+    @Override
+    public ZonedDateTime getTimeStamp() {
+        return timeStamp;
+    }
+
+    @Override
+    public String toJson() {
+        return new String(json, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the offset of the next record in the segment.
+     */
+    int getNext() {
+        return next;
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+}
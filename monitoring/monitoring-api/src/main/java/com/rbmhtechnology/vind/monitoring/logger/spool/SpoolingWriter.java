@@ -0,0 +1,377 @@
+package com.rbmhtechnology.vind.monitoring.logger.spool;
+
+import com.rbmhtechnology.vind.monitoring.logger.MonitoringWriter;
+import com.rbmhtechnology.vind.monitoring.logger.entry.MonitoringEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Monitoring writer spooling the entries to disk before they are written to a downstream writer, e.g. an
+ * ElasticWriter. Entries are appended to memory-mapped segment files, which costs little more than copying the Json,
+ * and survive restarts of the process. A background thread replays the entries into the downstream writer; while it
+ * fails, the replay is retried with an increasing delay and the entries are kept in the spool, however long the
+ * downstream writer is unavailable.
+ * <p>
+ * Entries are delivered at least once: after a crash, the entries replayed since the last update of the read
+ * position may be delivered again. The downstream writer has to throw an exception if an entry cannot be written
+ * for the time being, otherwise the entry is lost as without the spool. An entry the downstream writer rejects with an
+ * {@link IllegalArgumentException} would fail again, so it is skipped instead of blocking the spool. Corrupt records,
+ * failing their checksum when a segment is opened, are skipped with the rest of their segment. Segments are deleted
+ * once replayed. If the spool is full or a segment cannot be created, new entries are dropped.
+ * <p>
+ * The spool locks its directory, a directory can only be used by a single spool at a time.
+ *
+ * @since 2.4.0
+ */
+public class SpoolingWriter extends MonitoringWriter implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(SpoolingWriter.class);
+
+    public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+    public static final long DEFAULT_MAX_SIZE = 1024L * 1024 * 1024;
+
+    private static final String CURSOR_FILE = "cursor";
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long MAX_RETRY_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final MonitoringWriter downstream;
+    private final Path directory;
+    private final int segmentSize;
+    private final long maxSegments;
+    private final long retryMillis;
+
+    private final ConcurrentLinkedDeque<SpoolSegment> segments = new ConcurrentLinkedDeque<>();
+    private final Object appendLock = new Object();
+    private SpoolSegment active;
+
+    private final FileChannel cursorChannel;
+    private final FileLock directoryLock;
+    private final MappedByteBuffer cursor;
+
+    private final Thread replay;
+    private volatile boolean running = true;
+
+    private final AtomicLong spooled = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    /**
+     * Creates a spool with segments of 16MB, at most 1GB in total, retrying a failing downstream writer after a
+     * second.
+     * @param downstream the {@link MonitoringWriter} the entries are replayed into.
+     * @param directory the directory of the spool files, created if it does not exist.
+     */
+    public SpoolingWriter(MonitoringWriter downstream, Path directory) {
+        this(downstream, directory, DEFAULT_SEGMENT_SIZE, DEFAULT_MAX_SIZE, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @param downstream the {@link MonitoringWriter} the entries are replayed into.
+     * @param directory the directory of the spool files, created if it does not exist.
+     * @param segmentSize size of a segment file in bytes, the max. size of an entry.
+     * @param maxSize max. size of all segment files in bytes.
+     * @param retryDelay first delay of a retry after the downstream writer has failed, doubled up to a minute.
+     * @param unit {@link TimeUnit} of the retry delay.
+     */
+    public SpoolingWriter(MonitoringWriter downstream, Path directory, int segmentSize, long maxSize, long retryDelay, TimeUnit unit) {
+        if (segmentSize <= SpoolSegment.HEADER_SIZE) {
+            throw new IllegalArgumentException("Segment size is too small: " + segmentSize);
+        }
+        this.downstream = Objects.requireNonNull(downstream);
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = Math.max(2, maxSize / segmentSize);
+        this.retryMillis = unit.toMillis(retryDelay);
+
+        try {
+            Files.createDirectories(directory);
+            this.cursorChannel = FileChannel.open(directory.resolve(CURSOR_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            log.error("Error opening monitoring spool in {}: {}", directory, e.getMessage(), e);
+            throw new RuntimeException("Error opening monitoring spool in " + directory + ": " + e.getMessage(), e);
+        }
+        this.directoryLock = lock(cursorChannel, directory);
+
+        try {
+            this.cursor = cursorChannel.map(FileChannel.MapMode.READ_WRITE, 0, 12);
+
+            final long cursorSequence = cursor.getLong(0);
+            long sequence = cursorSequence;
+            for (Path file : listSegments(directory)) {
+                final long fileSequence = SpoolSegment.sequenceOf(file);
+                if (fileSequence < cursorSequence) {
+                    Files.delete(file);
+                    continue;
+                }
+                try {
+                    segments.add(SpoolSegment.open(file));
+                } catch (IOException e) {
+                    log.warn("Skipping spool segment {}: {}", file, e.getMessage());
+                }
+                sequence = Math.max(sequence, fileSequence);
+            }
+            this.active = SpoolSegment.create(directory, sequence + 1, segmentSize);
+            segments.add(active);
+            if (segments.peekFirst().getSequence() != cursorSequence) {
+                moveCursor(segments.peekFirst().getSequence(), SpoolSegment.HEADER_SIZE);
+            }
+        } catch (IOException e) {
+            closeQuietly(cursorChannel);
+            log.error("Error opening monitoring spool in {}: {}", directory, e.getMessage(), e);
+            throw new RuntimeException("Error opening monitoring spool in " + directory + ": " + e.getMessage(), e);
+        }
+
+        this.replay = new Thread(this::replay, "monitoring-spool-replay");
+        this.replay.setDaemon(true);
+        this.replay.start();
+    }
+
+    private static FileLock lock(FileChannel channel, Path directory) {
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            //locked by another spool of this process
+            lock = null;
+        } catch (IOException e) {
+            closeQuietly(channel);
+            log.error("Error locking monitoring spool in {}: {}", directory, e.getMessage(), e);
+            throw new RuntimeException("Error locking monitoring spool in " + directory + ": " + e.getMessage(), e);
+        }
+        if (lock == null) {
+            closeQuietly(channel);
+            log.error("Monitoring spool in {} is used by another spool", directory);
+            throw new IllegalStateException("Monitoring spool in " + directory + " is used by another spool");
+        }
+        return lock;
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Error closing monitoring spool cursor: {}", e.getMessage());
+        }
+    }
+
+    private static List<Path> listSegments(Path directory) throws IOException {
+        final List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SpoolSegment.SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        //names are zero-padded sequences
+        Collections.sort(files);
+        return files;
+    }
+
+    @Override
+    public void log(MonitoringEntry entry) {
+        final byte[] json = entry.toJson().getBytes(StandardCharsets.UTF_8);
+        if (SpoolSegment.HEADER_SIZE + SpoolSegment.recordSize(json) > segmentSize) {
+            dropped.incrementAndGet();
+            log.error("Dropping monitoring entry of {} bytes, exceeding the spool segment size of {} bytes", json.length, segmentSize);
+            return;
+        }
+        final byte type = entry.getType() != null ? (byte) entry.getType().ordinal() : -1;
+        final long timestamp = entry.getTimeStamp() != null ? entry.getTimeStamp().toInstant().toEpochMilli() : System.currentTimeMillis();
+
+        synchronized (appendLock) {
+            if (!running) {
+                throw new IllegalStateException("Monitoring spool is closed");
+            }
+            if (!active.append(type, timestamp, json)) {
+                if (segments.size() >= maxSegments) {
+                    if (dropped.getAndIncrement() % 1000 == 0) {
+                        log.warn("Monitoring spool in {} is full, dropping entries ({} so far)", directory, dropped.get());
+                    }
+                    return;
+                }
+                if (!rotate()) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+                active.append(type, timestamp, json);
+            }
+        }
+        spooled.incrementAndGet();
+    }
+
+    /**
+     * @return false if the next segment cannot be created, e.g. because the disk is full.
+     */
+    private boolean rotate() {
+        final SpoolSegment previous = active;
+        try {
+            active = SpoolSegment.create(directory, previous.getSequence() + 1, segmentSize);
+        } catch (IOException e) {
+            log.error("Error creating monitoring spool segment in {}, dropping entry: {}", directory, e.getMessage(), e);
+            return false;
+        }
+        segments.add(active);
+        //the next segment has to exist before the reader may leave this one
+        previous.seal();
+        return true;
+    }
+
+    private void replay() {
+        long delay = retryMillis;
+        boolean failing = false;
+        while (running) {
+            final SpoolSegment segment = segments.peekFirst();
+            final int offset = segment.getSequence() == cursor.getLong(0) ? cursor.getInt(8) : SpoolSegment.HEADER_SIZE;
+
+            final boolean sealed = segment.isSealed();
+            final SpooledEntry entry = segment.read(offset);
+            if (entry == null) {
+                if (sealed && segments.size() > 1) {
+                    segments.pollFirst();
+                    moveCursor(segments.peekFirst().getSequence(), SpoolSegment.HEADER_SIZE);
+                    segment.delete();
+                } else {
+                    LockSupport.parkNanos(IDLE_NANOS);
+                }
+                continue;
+            }
+
+            try {
+                downstream.log(entry);
+            } catch (IllegalArgumentException e) {
+                //the entry is rejected and would fail again
+                failures.incrementAndGet();
+                skipped.incrementAndGet();
+                log.error("Skipping monitoring entry rejected by writer {}: {}", downstream.getClass().getSimpleName(), e.getMessage());
+                moveCursor(segment.getSequence(), entry.getNext());
+                continue;
+            } catch (Exception e) {
+                failures.incrementAndGet();
+                if (!failing) {
+                    log.warn("Monitoring writer {} is failing, keeping entries in the spool: {}", downstream.getClass().getSimpleName(), e.getMessage());
+                    failing = true;
+                }
+                await(delay);
+                delay = Math.min(delay * 2, MAX_RETRY_MILLIS);
+                continue;
+            }
+            if (failing) {
+                log.info("Monitoring writer {} has recovered, replaying spooled entries", downstream.getClass().getSimpleName());
+                failing = false;
+                delay = retryMillis;
+            }
+            replayed.incrementAndGet();
+            moveCursor(segment.getSequence(), entry.getNext());
+        }
+    }
+
+    private void moveCursor(long sequence, int offset) {
+        //the offset is written first, so a crash in between replays a segment again instead of skipping entries
+        cursor.putInt(8, offset);
+        cursor.putLong(0, sequence);
+    }
+
+    private void await(long millis) {
+        final long deadline = System.currentTimeMillis() + millis;
+        while (running && System.currentTimeMillis() < deadline) {
+            LockSupport.parkNanos(IDLE_NANOS);
+        }
+    }
+
+    /**
+     * Forces the spooled entries to the disk. Without a flush, the entries survive a crash of the process, but not of
+     * the operating system.
+     */
+    public void flush() {
+        synchronized (appendLock) {
+            segments.forEach(SpoolSegment::force);
+        }
+        cursor.force();
+    }
+
+    /**
+     * @return true if all spooled entries have been replayed.
+     */
+    public boolean isDrained() {
+        final SpoolSegment segment = segments.peekFirst();
+        return segments.size() == 1 && segment.getSequence() == cursor.getLong(0) && cursor.getInt(8) >= segment.getLimit();
+    }
+
+    public long getSpooledCount() {
+        return spooled.get();
+    }
+
+    public long getReplayedCount() {
+        return replayed.get();
+    }
+
+    /**
+     * @return the number of entries dropped because the spool was full, a segment could not be created or the entry
+     * exceeded the segment size.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * @return the number of failed attempts to write an entry to the downstream writer.
+     */
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    /**
+     * @return the number of entries skipped because the downstream writer has rejected them.
+     */
+    public long getSkippedCount() {
+        return skipped.get();
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Stops the replay and closes the spool. Entries not yet replayed are replayed by the next spool opened on the
+     * directory.
+     */
+    @Override
+    public void close() {
+        synchronized (appendLock) {
+            running = false;
+        }
+        try {
+            replay.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            log.warn("Got interrupted while waiting for the spool replay to stop.", e);
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        segments.forEach(SpoolSegment::close);
+        try {
+            directoryLock.release();
+        } catch (IOException e) {
+            log.warn("Error unlocking monitoring spool: {}", e.getMessage());
+        }
+        closeQuietly(cursorChannel);
+    }
+}
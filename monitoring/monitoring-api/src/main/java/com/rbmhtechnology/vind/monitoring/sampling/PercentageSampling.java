@@ -0,0 +1,32 @@
+package com.rbmhtechnology.vind.monitoring.sampling;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Keeps a random fixed share of the entries.
+ *
+ * @since 2.4.0
+ */
+public class PercentageSampling implements SamplingPolicy {
+
+    private final double rate;
+
+    public PercentageSampling(double rate) {
+        if (rate < 0 || rate > 1) {
+            throw new IllegalArgumentException("Sampling rate must be between 0 and 1: " + rate);
+        }
+        this.rate = rate;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    @Override
+    public Sampling sample(long latency, boolean failed) {
+        if (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate) {
+            return Sampling.kept(rate, "percentage");
+        }
+        return Sampling.dropped(rate, "percentage");
+    }
+}
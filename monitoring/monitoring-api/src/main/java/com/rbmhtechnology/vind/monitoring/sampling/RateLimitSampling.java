@@ -0,0 +1,62 @@
+package com.rbmhtechnology.vind.monitoring.sampling;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps at most a number of entries per second, with bursts up to one second, using a token bucket. As the share of
+ * kept entries depends on the traffic, the rate recorded in the entries is the share kept during the last full second.
+ *
+ * @since 2.4.0
+ */
+public class RateLimitSampling implements SamplingPolicy {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final double perSecond;
+    private final double burst;
+
+    private double tokens;
+    private long refilled;
+
+    private long windowStart;
+    private long windowSeen;
+    private long windowKept;
+    private double lastRate = 1;
+
+    public RateLimitSampling(double perSecond) {
+        if (perSecond < 0) {
+            throw new IllegalArgumentException("Rate must not be negative: " + perSecond);
+        }
+        this.perSecond = perSecond;
+        this.burst = perSecond > 0 ? Math.max(1, perSecond) : 0;
+        this.tokens = burst;
+        this.refilled = System.nanoTime();
+        this.windowStart = refilled;
+    }
+
+    public double getPerSecond() {
+        return perSecond;
+    }
+
+    @Override
+    public synchronized Sampling sample(long latency, boolean failed) {
+        final long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - refilled) * perSecond / SECOND);
+        refilled = now;
+
+        if (now - windowStart >= SECOND) {
+            lastRate = windowSeen > 0 ? Math.max((double) windowKept / windowSeen, Double.MIN_VALUE) : 1;
+            windowStart = now;
+            windowSeen = 0;
+            windowKept = 0;
+        }
+        windowSeen++;
+
+        if (tokens >= 1) {
+            tokens--;
+            windowKept++;
+            return Sampling.kept(lastRate, "rate");
+        }
+        return Sampling.dropped(lastRate, "rate");
+    }
+}
@@ -0,0 +1,62 @@
+package com.rbmhtechnology.vind.monitoring.sampling;
+
+/**
+ * Decision of a {@link SamplingPolicy} on a monitoring entry. Kept entries record the decision, so that reports can
+ * scale the counts back up by the {@link #getWeight() weight} of the entries.
+ *
+ * @since 2.4.0
+ */
+public class Sampling {
+
+    public static final Sampling ALL = new Sampling(true, 1, "all");
+
+    private final boolean kept;
+    private final double rate;
+    private final String policy;
+
+    private Sampling(boolean kept, double rate, String policy) {
+        this.kept = kept;
+        this.rate = rate;
+        this.policy = policy;
+    }
+
+    /**
+     * @param rate the share of the entries which are kept by the policy, between 0 (exclusive) and 1.
+     * @param policy the name of the policy.
+     */
+    public static Sampling kept(double rate, String policy) {
+        return new Sampling(true, rate, policy);
+    }
+
+    public static Sampling dropped(double rate, String policy) {
+        return new Sampling(false, rate, policy);
+    }
+
+    public boolean isKept() {
+        return kept;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    /**
+     * @return the number of operations represented by a kept entry.
+     */
+    public double getWeight() {
+        return rate > 0 ? 1 / rate : 0;
+    }
+
+    public String getPolicy() {
+        return policy;
+    }
+
+    @Override
+    public String toString() {
+        return "Sampling{" +
+                "kept=" + kept +
+                ", rate=" + rate +
+                ", policy='" + policy + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,127 @@
+package com.rbmhtechnology.vind.monitoring.sampling;
+
+import com.rbmhtechnology.vind.configure.SearchConfiguration;
+import com.rbmhtechnology.vind.monitoring.logger.entry.MonitoringEntry.EntryType;
+import com.rbmhtechnology.vind.monitoring.model.application.Application;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@link SamplingPolicy} of the monitoring entries per {@link EntryType} and {@link Application}. A policy set for
+ * an application and entry type takes precedence over a policy set for the entry type, which takes precedence over
+ * the default policy.
+ * <p>
+ * The policies can be configured with the SearchConfiguration parameters <code>search.monitoring.sampling.*</code>:
+ * a percentage (<code>.rate</code>, between 0 and 1) or a max. number of entries per second
+ * (<code>.per.second</code>), either as default or per entry type, e.g.
+ * <code>search.monitoring.sampling.fulltext.rate</code>. Slow and failed operations are always kept if
+ * <code>search.monitoring.sampling.tail.latency</code> is set.
+ *
+ * @since 2.4.0
+ */
+public class SamplingPolicies {
+
+    private static final Logger log = LoggerFactory.getLogger(SamplingPolicies.class);
+
+    public static final String SAMPLING_PREFIX = "search.monitoring.sampling.";
+    public static final String SAMPLING_RATE = "rate";
+    public static final String SAMPLING_PER_SECOND = "per.second";
+    public static final String SAMPLING_TAIL_LATENCY = SAMPLING_PREFIX + "tail.latency";
+
+    private final Map<List<Object>, SamplingPolicy> policies = new ConcurrentHashMap<>();
+    private volatile SamplingPolicy defaultPolicy;
+
+    public SamplingPolicies() {
+        this(SamplingPolicy.all());
+    }
+
+    public SamplingPolicies(SamplingPolicy defaultPolicy) {
+        this.defaultPolicy = Objects.requireNonNull(defaultPolicy);
+    }
+
+    /**
+     * @return policies keeping all entries.
+     */
+    public static SamplingPolicies all() {
+        return new SamplingPolicies();
+    }
+
+    /**
+     * @return the policies configured with the SearchConfiguration parameters
+     * <code>search.monitoring.sampling.*</code>, keeping all entries if none is set.
+     */
+    public static SamplingPolicies fromConfiguration() {
+        final int tailLatency = SearchConfiguration.get(SAMPLING_TAIL_LATENCY, -1);
+        final SamplingPolicies policies = new SamplingPolicies(withTail(fromConfiguration(SAMPLING_PREFIX), tailLatency));
+        for (EntryType type : EntryType.values()) {
+            final SamplingPolicy policy = fromConfiguration(SAMPLING_PREFIX + type.name() + '.');
+            if (policy != null) {
+                policies.setPolicy(type, withTail(policy, tailLatency));
+            }
+        }
+        return policies;
+    }
+
+    private static SamplingPolicy fromConfiguration(String prefix) {
+        final String rate = SearchConfiguration.get(prefix + SAMPLING_RATE);
+        final String perSecond = SearchConfiguration.get(prefix + SAMPLING_PER_SECOND);
+        try {
+            if (rate != null) {
+                return SamplingPolicy.percentage(Double.parseDouble(rate));
+            } else if (perSecond != null) {
+                return SamplingPolicy.rate(Double.parseDouble(perSecond));
+            }
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid monitoring sampling configuration '{}': {}", prefix, e.getMessage());
+            throw new RuntimeException("Invalid monitoring sampling configuration '" + prefix + "': " + e.getMessage(), e);
+        }
+        return null;
+    }
+
+    private static SamplingPolicy withTail(SamplingPolicy policy, int tailLatency) {
+        if (policy == null) {
+            return SamplingPolicy.all();
+        }
+        return tailLatency >= 0 ? policy.keepTail(tailLatency) : policy;
+    }
+
+    public SamplingPolicy getDefaultPolicy() {
+        return defaultPolicy;
+    }
+
+    public SamplingPolicies setDefaultPolicy(SamplingPolicy policy) {
+        this.defaultPolicy = Objects.requireNonNull(policy);
+        return this;
+    }
+
+    public SamplingPolicies setPolicy(EntryType type, SamplingPolicy policy) {
+        policies.put(Arrays.asList(type), Objects.requireNonNull(policy));
+        return this;
+    }
+
+    public SamplingPolicies setPolicy(String applicationId, EntryType type, SamplingPolicy policy) {
+        policies.put(Arrays.asList(applicationId, type), Objects.requireNonNull(policy));
+        return this;
+    }
+
+    /**
+     * @return the {@link SamplingPolicy} of the entries of the given type and application.
+     */
+    public SamplingPolicy getPolicy(Application application, EntryType type) {
+        SamplingPolicy policy = application != null ? policies.get(Arrays.asList(application.getId(), type)) : null;
+        if (policy == null) {
+            policy = policies.get(Arrays.asList(type));
+        }
+        return policy != null ? policy : defaultPolicy;
+    }
+
+    public Sampling sample(Application application, EntryType type, long latency, boolean failed) {
+        return getPolicy(application, type).sample(latency, failed);
+    }
+}
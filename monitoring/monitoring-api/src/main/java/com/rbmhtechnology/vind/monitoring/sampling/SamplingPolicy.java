@@ -0,0 +1,49 @@
+package com.rbmhtechnology.vind.monitoring.sampling;
+
+/**
+ * Decides which monitoring entries are written. The decision is taken before the entry is created, so dropped
+ * operations cost neither the copy of the search nor the serialization.
+ *
+ * @since 2.4.0
+ */
+@FunctionalInterface
+public interface SamplingPolicy {
+
+    /**
+     * @param latency the latency of the operation in milliseconds.
+     * @param failed whether the operation has failed.
+     * @return the {@link Sampling} decision.
+     */
+    Sampling sample(long latency, boolean failed);
+
+    /**
+     * @return a policy keeping all entries.
+     */
+    static SamplingPolicy all() {
+        return (latency, failed) -> Sampling.ALL;
+    }
+
+    /**
+     * @param rate share of the entries to be kept, between 0 and 1.
+     * @return a policy keeping a random fixed share of the entries.
+     */
+    static SamplingPolicy percentage(double rate) {
+        return new PercentageSampling(rate);
+    }
+
+    /**
+     * @param perSecond max. number of entries kept per second.
+     * @return a policy limiting the entries with a token bucket.
+     */
+    static SamplingPolicy rate(double perSecond) {
+        return new RateLimitSampling(perSecond);
+    }
+
+    /**
+     * @param latency latency in milliseconds from which on entries are always kept, 0 to keep only failures.
+     * @return a policy keeping all slow and failed operations and sampling the others with this policy.
+     */
+    default SamplingPolicy keepTail(long latency) {
+        return new TailSampling(latency, this);
+    }
+}
@@ -0,0 +1,33 @@
+package com.rbmhtechnology.vind.monitoring.sampling;
+
+/**
+ * Keeps all failed operations and all operations at or above a latency threshold, the others are sampled by the
+ * delegate policy. The kept slow and failed entries have a rate of 1, so they are not scaled up.
+ *
+ * @since 2.4.0
+ */
+public class TailSampling implements SamplingPolicy {
+
+    private final long latency;
+    private final SamplingPolicy delegate;
+
+    /**
+     * @param latency latency in milliseconds from which on entries are always kept, 0 to keep only failures.
+     * @param delegate the {@link SamplingPolicy} of the other entries.
+     */
+    public TailSampling(long latency, SamplingPolicy delegate) {
+        this.latency = latency;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Sampling sample(long latency, boolean failed) {
+        if (failed) {
+            return Sampling.kept(1, "failed");
+        }
+        if (this.latency > 0 && latency >= this.latency) {
+            return Sampling.kept(1, "slow");
+        }
+        return delegate.sample(latency, failed);
+    }
+}
@@ -15,6 +15,8 @@ import com.rbmhtechnology.vind.monitoring.logger.entry.MonitoringEntry;
 import com.rbmhtechnology.vind.monitoring.model.NewsItem;
 import com.rbmhtechnology.vind.monitoring.model.application.SimpleApplication;
 import com.rbmhtechnology.vind.monitoring.model.session.SimpleSession;
+import com.rbmhtechnology.vind.monitoring.sampling.SamplingPolicies;
+import com.rbmhtechnology.vind.monitoring.sampling.SamplingPolicy;
 import com.rbmhtechnology.vind.test.SearchTestcase;
 import org.junit.Rule;
 import org.junit.Test;
@@ -23,9 +25,18 @@ import org.junit.rules.ExpectedException;
 import java.io.IOException;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static com.rbmhtechnology.vind.api.query.filter.Filter.*;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author Thomas Kurz (tkurz@apache.org)
@@ -96,9 +107,126 @@ public class MonitoringSearchServerTest extends SearchTestcase {
 
     }
 
+    @Test
+    public void testSharedServerWithMonitoringContext() throws Exception {
+        TestMonitoringWriter logger = new TestMonitoringWriter();
+
+        MonitoringSearchServer server = new MonitoringSearchServer(testSearchServer.getSearchServer(), new SimpleApplication("app"), logger,
+                MonitoringContext.empty().withMetadata("module", "test"));
+
+        final SingleValueFieldDescriptor.TextFieldDescriptor<String> textField = new FieldDescriptorBuilder<String>()
+                .buildTextField("textField");
+
+        final DocumentFactory factory = new DocumentFactoryBuilder("asset").
+                addField(textField)
+                .build();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<?>> requests = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                final String sessionId = String.valueOf(i);
+                requests.add(executor.submit(() -> {
+                    try (MonitoringContext.Scope scope = MonitoringContext.of(new SimpleSession(sessionId)).withMetadata("request", sessionId).open()) {
+                        server.execute(Search.fulltext(), factory);
+                    }
+                }));
+            }
+            for (Future<?> request : requests) {
+                request.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(20, logger.logs.size());
+        for (MonitoringEntry entry : logger.logs) {
+            assertEquals(entry.getSession().getSessionId(), entry.getMetadata().get("request"));
+            assertEquals("test", entry.getMetadata().get("module"));
+        }
+
+        //arguments take precedence over the opened context
+        final HashMap<String, Object> metadata = new HashMap<>();
+        metadata.put("module", "override");
+        try (MonitoringContext.Scope scope = MonitoringContext.of(new SimpleSession("scope")).open()) {
+            server.execute(Search.fulltext(), factory, new SimpleSession("argument"), metadata);
+        }
+        final MonitoringEntry entry = logger.logs.get(20);
+        assertEquals("argument", entry.getSession().getSessionId());
+        assertEquals("override", entry.getMetadata().get("module"));
+
+        //entries hold their own copy of the metadata
+        metadata.put("module", "changed");
+        assertEquals("override", entry.getMetadata().get("module"));
+        entry.addMetadata("module", "entry");
+        assertEquals("test", logger.logs.get(0).getMetadata().get("module"));
+        server.execute(Search.fulltext(), factory);
+        assertEquals("test", logger.logs.get(21).getMetadata().get("module"));
+        assertEquals(MonitoringContext.empty(), MonitoringContext.current());
+    }
+
+    @Test
+    public void testSampledMonitoring() {
+        TestMonitoringWriter logger = new TestMonitoringWriter();
+
+        MonitoringSearchServer server = new MonitoringSearchServer(testSearchServer.getSearchServer(), new SimpleApplication("app"), logger)
+                .setSampling(new SamplingPolicies(SamplingPolicy.all())
+                        .setPolicy(MonitoringEntry.EntryType.fulltext, SamplingPolicy.percentage(0)));
+
+        final SingleValueFieldDescriptor.TextFieldDescriptor<String> textField = new FieldDescriptorBuilder<String>()
+                .buildTextField("textField");
+
+        final DocumentFactory factory = new DocumentFactoryBuilder("asset").
+                addField(textField)
+                .build();
+
+        server.index(factory.createDoc("1").setValue(textField, "Hello World"));
+        server.commit();
+        server.execute(Search.fulltext(), factory);
+
+        assertEquals(1, logger.logs.size());
+        assertEquals(MonitoringEntry.EntryType.index, logger.logs.get(0).getType());
+        assertNull(logger.logs.get(0).getSampling());
+
+        server.setSampling(new SamplingPolicies(SamplingPolicy.percentage(1)));
+        server.execute(Search.fulltext(), factory);
+        assertEquals(2, logger.logs.size());
+        assertEquals("percentage", logger.logs.get(1).getSampling().getPolicy());
+        assertTrue(logger.logs.get(1).toJson().contains("\"sampling\""));
+    }
+
+    @Test
+    public void testCountAndFacetsMonitoring() {
+        TestMonitoringWriter logger = new TestMonitoringWriter();
+
+        MonitoringSearchServer server = new MonitoringSearchServer(testSearchServer.getSearchServer(), new SimpleApplication("app"), new SimpleSession("123"), logger);
+
+        final SingleValueFieldDescriptor.TextFieldDescriptor<String> textField = new FieldDescriptorBuilder<String>()
+                .setFacet(true)
+                .buildTextField("textField");
+
+        final DocumentFactory factory = new DocumentFactoryBuilder("asset").
+                addField(textField)
+                .build();
+
+        server.index(factory.createDoc("1").setValue(textField, "Hello World"));
+        server.commit();
+
+        assertEquals(1, server.count(Search.fulltext(), factory));
+        server.facets(Search.fulltext().facet(textField), factory);
+
+        assertEquals(3, logger.logs.size());
+        final FullTextEntry count = (FullTextEntry) logger.logs.get(1);
+        assertEquals(FullTextEntry.Mode.count, count.getMode());
+        assertEquals(1, count.getResponse().getResults());
+        assertEquals("123", count.getSession().getSessionId());
+        assertEquals(FullTextEntry.Mode.facets, ((FullTextEntry) logger.logs.get(2)).getMode());
+        assertTrue(logger.logs.get(2).toJson().contains("\"mode\":\"facets\""));
+    }
+
     public class TestMonitoringWriter extends MonitoringWriter {
 
-        public ArrayList<MonitoringEntry> logs = new ArrayList<>();
+        public List<MonitoringEntry> logs = Collections.synchronizedList(new ArrayList<>());
 
         @Override
         public void log(MonitoringEntry log) {
@@ -0,0 +1,264 @@
+package com.rbmhtechnology.vind.monitoring.logger.spool;
+
+import com.rbmhtechnology.vind.monitoring.logger.MonitoringWriter;
+import com.rbmhtechnology.vind.monitoring.logger.entry.MonitoringEntry;
+import com.rbmhtechnology.vind.monitoring.model.application.Application;
+import com.rbmhtechnology.vind.monitoring.model.session.Session;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SpoolingWriterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReplay() throws Exception {
+        final TestWriter downstream = new TestWriter();
+        try (SpoolingWriter writer = new SpoolingWriter(downstream, folder.getRoot().toPath())) {
+            for (int i = 0; i < 100; i++) {
+                writer.log(new TestEntry(i));
+            }
+            await(writer::isDrained);
+
+            assertEquals(100, writer.getSpooledCount());
+            assertEquals(100, writer.getReplayedCount());
+        }
+        assertEquals(100, downstream.entries.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(new TestEntry(i).toJson(), downstream.entries.get(i).toJson());
+            assertEquals(MonitoringEntry.EntryType.fulltext, downstream.entries.get(i).getType());
+        }
+    }
+
+    @Test
+    public void testFailingDownstream() throws Exception {
+        final TestWriter downstream = new TestWriter();
+        downstream.failing = true;
+        try (SpoolingWriter writer = new SpoolingWriter(downstream, folder.getRoot().toPath(), 1024, 1024 * 1024, 1, TimeUnit.MILLISECONDS)) {
+            for (int i = 0; i < 10; i++) {
+                writer.log(new TestEntry(i));
+            }
+            //an outage of many attempts does not lose entries
+            await(() -> writer.getFailureCount() > 10);
+            assertEquals(0, downstream.entries.size());
+
+            downstream.failing = false;
+            await(writer::isDrained);
+            assertEquals(0, writer.getSkippedCount());
+        }
+        assertEquals(10, downstream.entries.size());
+        assertEquals(new TestEntry(0).toJson(), downstream.entries.get(0).toJson());
+    }
+
+    @Test
+    public void testPoisonEntry() throws Exception {
+        final TestWriter downstream = new TestWriter();
+        downstream.poison = new TestEntry(1).toJson();
+        try (SpoolingWriter writer = new SpoolingWriter(downstream, folder.getRoot().toPath(), 1024, 1024 * 1024, 1, TimeUnit.MILLISECONDS)) {
+            for (int i = 0; i < 3; i++) {
+                writer.log(new TestEntry(i));
+            }
+            await(writer::isDrained);
+            assertEquals(1, writer.getFailureCount());
+            assertEquals(1, writer.getSkippedCount());
+            assertEquals(2, writer.getReplayedCount());
+        }
+        assertEquals(2, downstream.entries.size());
+        assertEquals(new TestEntry(2).toJson(), downstream.entries.get(1).toJson());
+    }
+
+    @Test
+    public void testLockedDirectory() throws Exception {
+        try (SpoolingWriter writer = new SpoolingWriter(new TestWriter(), folder.getRoot().toPath())) {
+            try {
+                new SpoolingWriter(new TestWriter(), folder.getRoot().toPath());
+                fail("the directory should be locked");
+            } catch (IllegalStateException e) {
+                //expected
+            }
+        }
+        //the lock is released on close
+        new SpoolingWriter(new TestWriter(), folder.getRoot().toPath()).close();
+    }
+
+    @Test
+    public void testOversizedEntry() throws Exception {
+        try (SpoolingWriter writer = new SpoolingWriter(new TestWriter(), folder.getRoot().toPath(), 32, 1024, 10, TimeUnit.MILLISECONDS)) {
+            writer.log(new TestEntry(0));
+            assertEquals(1, writer.getDroppedCount());
+            assertEquals(0, writer.getSpooledCount());
+        }
+    }
+
+    @Test
+    public void testRotation() throws Exception {
+        final TestWriter downstream = new TestWriter();
+        try (SpoolingWriter writer = new SpoolingWriter(downstream, folder.getRoot().toPath(), 256, 1024 * 1024, 10, TimeUnit.MILLISECONDS)) {
+            for (int i = 0; i < 50; i++) {
+                writer.log(new TestEntry(i));
+            }
+            await(writer::isDrained);
+            assertEquals(1, writer.getSegmentCount());
+            assertEquals(1, segmentFiles().size());
+        }
+        assertEquals(50, downstream.entries.size());
+        assertEquals(new TestEntry(49).toJson(), downstream.entries.get(49).toJson());
+    }
+
+    @Test
+    public void testFullSpool() throws Exception {
+        final TestWriter downstream = new TestWriter();
+        downstream.failing = true;
+        try (SpoolingWriter writer = new SpoolingWriter(downstream, folder.getRoot().toPath(), 256, 512, 10, TimeUnit.MILLISECONDS)) {
+            for (int i = 0; i < 50; i++) {
+                writer.log(new TestEntry(i));
+            }
+            assertEquals(2, writer.getSegmentCount());
+            assertTrue(writer.getDroppedCount() > 0);
+            assertEquals(50, writer.getSpooledCount() + writer.getDroppedCount());
+        }
+    }
+
+    @Test
+    public void testRestart() throws Exception {
+        final TestWriter failing = new TestWriter();
+        failing.failing = true;
+        try (SpoolingWriter writer = new SpoolingWriter(failing, folder.getRoot().toPath(), 256, 1024 * 1024, 10, TimeUnit.MILLISECONDS)) {
+            for (int i = 0; i < 20; i++) {
+                writer.log(new TestEntry(i));
+            }
+        }
+
+        final TestWriter downstream = new TestWriter();
+        try (SpoolingWriter writer = new SpoolingWriter(downstream, folder.getRoot().toPath(), 256, 1024 * 1024, 10, TimeUnit.MILLISECONDS)) {
+            await(writer::isDrained);
+            writer.log(new TestEntry(20));
+            await(writer::isDrained);
+        }
+        assertEquals(21, downstream.entries.size());
+        for (int i = 0; i < 21; i++) {
+            assertEquals(new TestEntry(i).toJson(), downstream.entries.get(i).toJson());
+        }
+
+        //replayed entries are not replayed again
+        final TestWriter next = new TestWriter();
+        try (SpoolingWriter writer = new SpoolingWriter(next, folder.getRoot().toPath())) {
+            await(writer::isDrained);
+        }
+        assertEquals(0, next.entries.size());
+    }
+
+    @Test
+    public void testCorruptRecord() throws Exception {
+        final TestWriter failing = new TestWriter();
+        failing.failing = true;
+        try (SpoolingWriter writer = new SpoolingWriter(failing, folder.getRoot().toPath())) {
+            for (int i = 0; i < 3; i++) {
+                writer.log(new TestEntry(i));
+            }
+        }
+
+        //corrupt the json of the third record
+        final int recordSize = SpoolSegment.recordSize(new TestEntry(0).toJson().getBytes(StandardCharsets.UTF_8));
+        final long position = SpoolSegment.HEADER_SIZE + 2 * recordSize + SpoolSegment.RECORD_HEADER_SIZE + SpoolSegment.PAYLOAD_HEADER_SIZE + 1;
+        try (FileChannel channel = FileChannel.open(segmentFiles().get(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'x'}), position);
+        }
+
+        final TestWriter downstream = new TestWriter();
+        try (SpoolingWriter writer = new SpoolingWriter(downstream, folder.getRoot().toPath())) {
+            await(writer::isDrained);
+        }
+        assertEquals(2, downstream.entries.size());
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+            return files.filter(f -> f.toString().endsWith(SpoolSegment.SUFFIX)).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met within 10s");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static class TestWriter extends MonitoringWriter {
+
+        private final List<MonitoringEntry> entries = new CopyOnWriteArrayList<>();
+        private volatile boolean failing = false;
+        private volatile String poison;
+
+        @Override
+        public void log(MonitoringEntry log) {
+            if (failing) {
+                throw new RuntimeException("Writer is failing");
+            }
+            if (log.toJson().equals(poison)) {
+                throw new IllegalArgumentException("Entry is rejected");
+            }
+            entries.add(log);
+        }
+    }
+
+    private static class TestEntry extends MonitoringEntry {
+
+        private final int id;
+
+        private TestEntry(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public Application getApplication() {
+            return null;
+        }
+
+        @Override
+        public Session getSession() {
+            return null;
+        }
+
+        @Override
+        public EntryType getType() {
+            return EntryType.fulltext;
+        }
+
+        @Override
+        public ZonedDateTime getTimeStamp() {
+            return ZonedDateTime.now();
+        }
+
+        @Override
+        public String toJson() {
+            return String.format("{\"type\":\"fulltext\",\"id\":%03d}", id);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.rbmhtechnology.vind.monitoring.sampling;
+
+import com.rbmhtechnology.vind.monitoring.logger.entry.MonitoringEntry.EntryType;
+import com.rbmhtechnology.vind.monitoring.model.application.SimpleApplication;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SamplingPoliciesTest {
+
+    @Test
+    public void testPercentage() {
+        assertFalse(SamplingPolicy.percentage(0).sample(10, false).isKept());
+
+        final Sampling sampling = SamplingPolicy.percentage(1).sample(10, false);
+        assertTrue(sampling.isKept());
+        assertEquals(1, sampling.getWeight(), 0);
+
+        int kept = 0;
+        final SamplingPolicy policy = SamplingPolicy.percentage(0.25);
+        for (int i = 0; i < 10000; i++) {
+            if (policy.sample(10, false).isKept()) {
+                kept++;
+            }
+        }
+        assertTrue(kept > 2000 && kept < 3000);
+        assertEquals(4, policy.sample(10, false).getWeight(), 0);
+    }
+
+    @Test
+    public void testRateLimit() {
+        final SamplingPolicy policy = SamplingPolicy.rate(5);
+        int kept = 0;
+        for (int i = 0; i < 100; i++) {
+            if (policy.sample(10, false).isKept()) {
+                kept++;
+            }
+        }
+        assertTrue(kept >= 5 && kept < 10);
+        assertFalse(SamplingPolicy.rate(0).sample(10, false).isKept());
+    }
+
+    @Test
+    public void testTail() {
+        final SamplingPolicy policy = SamplingPolicy.percentage(0).keepTail(100);
+
+        assertFalse(policy.sample(99, false).isKept());
+
+        final Sampling slow = policy.sample(100, false);
+        assertTrue(slow.isKept());
+        assertEquals("slow", slow.getPolicy());
+        assertEquals(1, slow.getWeight(), 0);
+
+        final Sampling failed = policy.sample(1, true);
+        assertTrue(failed.isKept());
+        assertEquals("failed", failed.getPolicy());
+    }
+
+    @Test
+    public void testPolicyPrecedence() {
+        final SamplingPolicy fulltext = SamplingPolicy.percentage(0.5);
+        final SamplingPolicy appFulltext = SamplingPolicy.percentage(0.1);
+        final SamplingPolicies policies = new SamplingPolicies(SamplingPolicy.percentage(0))
+                .setPolicy(EntryType.fulltext, fulltext)
+                .setPolicy("app", EntryType.fulltext, appFulltext);
+
+        assertSame(appFulltext, policies.getPolicy(new SimpleApplication("app"), EntryType.fulltext));
+        assertSame(fulltext, policies.getPolicy(new SimpleApplication("other"), EntryType.fulltext));
+        assertSame(policies.getDefaultPolicy(), policies.getPolicy(new SimpleApplication("app"), EntryType.index));
+        assertTrue(SamplingPolicies.all().sample(null, EntryType.get, 0, false).isKept());
+    }
+}
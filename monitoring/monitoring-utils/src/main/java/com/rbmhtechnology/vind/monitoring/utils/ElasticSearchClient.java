@@ -231,8 +231,26 @@ public class ElasticSearchClient {
         throw new RuntimeException("Error in scroll request query: ES client has not been initialized, client is null.");
     }
 
-    public synchronized void put(String content) {
-        cacheResult(content);
+    /**
+     * Outcome of indexing a content.
+     */
+    public enum PutResult {
+        /** The content has been indexed. */
+        Indexed,
+        /** The content has been rejected by Elasticsearch, e.g. because it does not match the mapping. */
+        Rejected,
+        /** Elasticsearch is not reachable or overloaded, indexing may succeed later. */
+        Unavailable
+    }
+
+    /**
+     * Indexes the content.
+     *
+     * @param content
+     * @return the {@link PutResult} of indexing the content.
+     */
+    public synchronized PutResult put(String content) {
+        return cacheResult(content);
         //TODO: more?
     }
 
@@ -254,16 +272,25 @@ public class ElasticSearchClient {
      * Cache a result
      *
      * @param content
+     * @return the {@link PutResult} of caching the content.
      */
-    private void cacheResult(final String content) {
+    private PutResult cacheResult(final String content) {
         final JestClient client = getElasticSearchClient();
         if (client != null) {
             final Index contentIndex = new Index.Builder(content).index(elasticIndex).type("logEntry").build();
             try {
                 final DocumentResult result = client.execute(contentIndex);
                 log.debug("Completed indexation of content {} with succeeded={}", content, result.isSucceeded());
+                if (result.isSucceeded()) {
+                    return PutResult.Indexed;
+                }
+                log.error("Error indexing content {}: {}", content, result.getErrorMessage());
+                //too many requests and server errors are transient, other errors are caused by the content
+                final int status = result.getResponseCode();
+                return status == 429 || status >= 500 ? PutResult.Unavailable : PutResult.Rejected;
             } catch (IOException e) {
                 log.error("Error indexing content {}: {}", content, e.getMessage(), e);
+                return PutResult.Unavailable;
             }
             //TODO: move to async at some point
             /*client.executeAsync(contentIndex, new JestResultHandler<JestResult>() {
@@ -280,6 +307,7 @@ public class ElasticSearchClient {
 
         } else {
             log.warn("Content {} won't be cached, there is not target bucket", content);
+            return PutResult.Unavailable;
         }
     }
 
@@ -16,6 +16,7 @@ public class ElasticWriter extends MonitoringWriter {
 
     private static final Logger logger = LoggerFactory.getLogger(ElasticWriter.class);
     private ElasticSearchClient elasticClient;
+    private volatile boolean failOnError = false;
 
     public ElasticWriter(String elasticHost, String elasticPort, String elasticIndex) {
         logger.debug("ElasticWriter configured to write in: {}:{}/{}", elasticHost, elasticPort, elasticIndex);
@@ -26,6 +27,25 @@ public class ElasticWriter extends MonitoringWriter {
     @Override
     public void log(MonitoringEntry log) {
         logger.debug("Indexing log entry: {}", log.toJson());
-        elasticClient.put(log.toJson());
+        final ElasticSearchClient.PutResult result = elasticClient.put(log.toJson());
+        //entries rejected by Elasticsearch would fail again, so only unavailability is reported
+        if (result == ElasticSearchClient.PutResult.Unavailable && failOnError) {
+            throw new RuntimeException("Error indexing log entry in Elasticsearch: Elasticsearch is unavailable");
+        }
+    }
+
+    public boolean isFailOnError() {
+        return failOnError;
+    }
+
+    /**
+     * By default entries which cannot be indexed are dropped. If set, a {@link RuntimeException} is thrown instead
+     * while Elasticsearch is unavailable, e.g. for a
+     * {@link com.rbmhtechnology.vind.monitoring.logger.spool.SpoolingWriter} to replay the entry later. Entries
+     * rejected by Elasticsearch are still dropped, as they would fail again.
+     */
+    public ElasticWriter setFailOnError(boolean failOnError) {
+        this.failOnError = failOnError;
+        return this;
     }
 }
@@ -10,7 +10,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
  * @author Thomas Kurz (tkurz@apache.org)
@@ -60,6 +62,12 @@ public class RemoteSolrServerProvider implements SolrServerProvider {
                     client.setZkClientTimeout(Integer.valueOf(soTimeout));
                 }
 
+                if(SearchConfiguration.get(SearchConfiguration.SERVER_SOLR_REPLICA_ROUTING, false)) {
+                    log.info("Reading from the replicas of collection {}", collection);
+                    return ReplicaAwareSolrClient.forCloud(client, collection,
+                            SearchConfiguration.get(SearchConfiguration.SERVER_SOLR_HEDGING, false));
+                }
+
                 return client;
             } else {
                 log.error(SearchConfiguration.SERVER_COLLECTION + " has to be set");
@@ -72,7 +80,20 @@ public class RemoteSolrServerProvider implements SolrServerProvider {
                 host = String.join("/",host,collection);
             }
             log.info("Instantiating solr http client: {}", host);
-            return new HttpSolrClient.Builder(host).build();
+            final HttpSolrClient client = new HttpSolrClient.Builder(host).build();
+
+            final String replicas = SearchConfiguration.get(SearchConfiguration.SERVER_SOLR_REPLICAS);
+            if(StringUtils.isNotBlank(replicas)) {
+                final String core = collection;
+                final List<String> replicaUrls = Arrays.stream(StringUtils.split(replicas, ','))
+                        .map(String::trim)
+                        .map(replica -> core != null ? String.join("/", replica, core) : replica)
+                        .collect(Collectors.toList());
+                log.info("Reading from the replicas {}", replicaUrls);
+                return new ReplicaAwareSolrClient(client, replicaUrls,
+                        SearchConfiguration.get(SearchConfiguration.SERVER_SOLR_HEDGING, false));
+            }
+            return client;
 
         }
 
@@ -0,0 +1,452 @@
+package com.rbmhtechnology.vind.solr.backend;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.impl.CloudSolrClient;
+import org.apache.solr.client.solrj.impl.HttpSolrClient;
+import org.apache.solr.client.solrj.request.QueryRequest;
+import org.apache.solr.common.cloud.ClusterState;
+import org.apache.solr.common.cloud.DocCollection;
+import org.apache.solr.common.cloud.Replica;
+import org.apache.solr.common.util.NamedList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Solr client spreading the read requests over the replicas of a core or collection, while all other requests are
+ * sent to the client given for writes.
+ * <p>
+ * The latency of every replica is tracked as an exponentially weighted moving average and queries are sent to the
+ * fastest healthy replica, weighted by the requests it has in flight. Replicas without a sample yet, e.g. on startup or
+ * after a refresh, are scored with the median latency of the measured replicas and preferred on ties, so every replica
+ * is probed before the ranking settles. Replicas failing repeatedly are skipped for a
+ * while, requests failing because a replica cannot be reached are retried on the next one. With hedging enabled, a
+ * query not answered within the 95th percentile of the recent latencies is sent to the second best replica as well;
+ * the first response wins and the other request is aborted. This cuts the tail latency caused by a single slow replica,
+ * e.g. during garbage collection or segment merges.
+ * <p>
+ * Real time gets are not spread, as replicas may lag behind the leader.
+ *
+ * @since 2.4.0
+ */
+public class ReplicaAwareSolrClient extends SolrClient {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaAwareSolrClient.class);
+
+    private static final double EWMA_WEIGHT = 0.3;
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final long UNHEALTHY_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final long REFRESH_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final long DEFAULT_HEDGE_DELAY = 100;
+    private static final double HEDGE_PERCENTILE = 0.95;
+
+    private final SolrClient writeClient;
+    private final Supplier<List<String>> replicaUrls;
+    private final Function<String, AsyncSolrClient> clientFactory;
+    private final boolean hedging;
+
+    private volatile Map<String, Node> nodes = Collections.emptyMap();
+    private volatile long refreshedAt;
+    private final LatencyWindow latencies = new LatencyWindow(128, 20);
+    private final AtomicLong hedgedRequests = new AtomicLong();
+
+    /**
+     * @param writeClient client for all requests but queries.
+     * @param replicaUrls base urls of the replica cores.
+     * @param hedging true to send slow queries to a second replica.
+     */
+    public ReplicaAwareSolrClient(SolrClient writeClient, List<String> replicaUrls, boolean hedging) {
+        this(writeClient, () -> replicaUrls, AsyncSolrClient::new, hedging);
+    }
+
+    ReplicaAwareSolrClient(SolrClient writeClient, Supplier<List<String>> replicaUrls, Function<String, AsyncSolrClient> clientFactory, boolean hedging) {
+        this.writeClient = writeClient;
+        this.replicaUrls = replicaUrls;
+        this.clientFactory = clientFactory;
+        this.hedging = hedging;
+    }
+
+    /**
+     * Creates a client reading from the active replicas of a SolrCloud collection. The replicas are looked up in the
+     * cluster state and refreshed periodically.
+     * @param client {@link CloudSolrClient} used for writes and for the cluster state.
+     * @param collection name of the collection.
+     * @param hedging true to send slow queries to a second replica.
+     * @return the {@link ReplicaAwareSolrClient}.
+     */
+    public static ReplicaAwareSolrClient forCloud(CloudSolrClient client, String collection, boolean hedging) {
+        return new ReplicaAwareSolrClient(client, () -> getActiveReplicas(client, collection), AsyncSolrClient::new, hedging);
+    }
+
+    private static List<String> getActiveReplicas(CloudSolrClient client, String collection) {
+        client.connect();
+        final ClusterState clusterState = client.getZkStateReader().getClusterState();
+        final DocCollection docCollection = clusterState.getCollectionOrNull(collection);
+        if (docCollection == null) {
+            log.warn("Collection {} not found in cluster state, reading through the cloud client", collection);
+            return Collections.emptyList();
+        }
+        return docCollection.getReplicas().stream()
+                .filter(replica -> replica.getState() == Replica.State.ACTIVE)
+                .filter(replica -> clusterState.liveNodesContain(replica.getNodeName()))
+                .map(Replica::getCoreUrl)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public NamedList<Object> request(SolrRequest request, String collection) throws SolrServerException, IOException {
+        if (!isRead(request)) {
+            return writeClient.request(request, collection);
+        }
+
+        final List<Node> candidates = rank(getNodes().values());
+        if (candidates.isEmpty()) {
+            return writeClient.request(request, collection);
+        }
+
+        final Node primary = candidates.get(0);
+        CompletableFuture<NamedList<Object>> response = primary.request(request);
+        int used = 1;
+        if (hedging && candidates.size() > 1 && !await(response, getHedgeDelay())) {
+            final Node secondary = candidates.get(used++);
+            log.debug("Replica {} is slow, hedging on {}", primary.getUrl(), secondary.getUrl());
+            hedgedRequests.incrementAndGet();
+            response = firstSuccessful(response, secondary.request(request));
+        }
+
+        try {
+            return await(response);
+        } catch (SolrServerException e) {
+            if (candidates.size() <= used) {
+                throw e;
+            }
+            final Node next = candidates.get(used);
+            log.warn("Query failed on replica {}, retrying on {}", primary.getUrl(), next.getUrl(), e);
+            return await(next.request(request));
+        }
+    }
+
+    private static boolean isRead(SolrRequest<?> request) {
+        return request instanceof QueryRequest && !"/get".equals(request.getPath());
+    }
+
+    /**
+     * Waits for the response up to the given time.
+     * @return true if the request has been completed, successfully or not.
+     */
+    private static boolean await(CompletableFuture<NamedList<Object>> future, long timeoutMillis) throws SolrServerException {
+        try {
+            future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            return true;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new SolrServerException("Interrupted while waiting for the response", e);
+        }
+    }
+
+    /**
+     * Completes with the first successful response and aborts the other request. Errors reported by Solr, like invalid
+     * queries, are not waited out, as the other replica will answer the same.
+     */
+    static <T> CompletableFuture<T> firstSuccessful(CompletableFuture<T> first, CompletableFuture<T> second) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final AtomicInteger failures = new AtomicInteger();
+        for (CompletableFuture<T> future : Arrays.asList(first, second)) {
+            future.whenComplete((response, t) -> {
+                if (t == null) {
+                    result.complete(response);
+                } else if (unwrap(t) instanceof HttpSolrClient.RemoteSolrException || failures.incrementAndGet() == 2) {
+                    result.completeExceptionally(unwrap(t));
+                }
+            });
+        }
+        result.whenComplete((response, t) -> {
+            first.cancel(true);
+            second.cancel(true);
+        });
+        return result;
+    }
+
+    private static Throwable unwrap(Throwable t) {
+        return t instanceof ExecutionException || t instanceof CompletionException ? t.getCause() : t;
+    }
+
+    private static NamedList<Object> await(CompletableFuture<NamedList<Object>> future) throws SolrServerException, IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new SolrServerException("Interrupted while waiting for the response", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = unwrap(e);
+            if (cause instanceof SolrServerException) {
+                throw (SolrServerException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new SolrServerException(cause);
+        }
+    }
+
+    /**
+     * Healthy replicas first, ordered by their latency weighted with the requests in flight.
+     */
+    private static List<Node> rank(Collection<Node> nodes) {
+        final long now = System.nanoTime();
+        final double seed = medianLatency(nodes);
+        final List<Node> ranked = new ArrayList<>(nodes);
+        ranked.sort(Comparator.comparing((Node node) -> !node.isHealthy(now))
+                .thenComparingDouble(node -> node.getScore(seed))
+                .thenComparingLong(Node::getRequestCount));
+        return ranked;
+    }
+
+    /**
+     * @return the median latency of the replicas with a sample, or 1ms if there is none.
+     */
+    private static double medianLatency(Collection<Node> nodes) {
+        final double[] measured = nodes.stream().mapToDouble(Node::getLatency).filter(latency -> latency >= 0).sorted().toArray();
+        return measured.length == 0 ? 1 : measured[measured.length / 2];
+    }
+
+    long getHedgeDelay() {
+        final long percentile = latencies.percentile(HEDGE_PERCENTILE);
+        return percentile < 0 ? DEFAULT_HEDGE_DELAY : Math.max(1, percentile);
+    }
+
+    private Map<String, Node> getNodes() {
+        final long now = System.nanoTime();
+        if (refreshedAt == 0 || now - refreshedAt > REFRESH_NANOS) {
+            synchronized (this) {
+                if (refreshedAt == 0 || now - refreshedAt > REFRESH_NANOS) {
+                    refreshNodes();
+                    refreshedAt = now;
+                }
+            }
+        }
+        return nodes;
+    }
+
+    private void refreshNodes() {
+        final List<String> urls;
+        try {
+            urls = replicaUrls.get();
+        } catch (RuntimeException e) {
+            log.warn("Cannot refresh the replicas, keeping {}", nodes.keySet(), e);
+            return;
+        }
+
+        final Map<String, Node> current = nodes;
+        final Map<String, Node> refreshed = new LinkedHashMap<>();
+        for (String url : urls) {
+            refreshed.put(url, current.containsKey(url) ? current.get(url) : new Node(url, clientFactory.apply(url)));
+        }
+        nodes = Collections.unmodifiableMap(refreshed);
+
+        current.forEach((url, node) -> {
+            if (!refreshed.containsKey(url)) {
+                log.info("Replica {} has been removed", url);
+                node.close();
+            }
+        });
+    }
+
+    /**
+     * @return the statistics of the replicas currently known.
+     */
+    public List<Node> getReplicas() {
+        return new ArrayList<>(getNodes().values());
+    }
+
+    public long getHedgedRequestCount() {
+        return hedgedRequests.get();
+    }
+
+    public SolrClient getWriteClient() {
+        return writeClient;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            writeClient.close();
+        } finally {
+            nodes.values().forEach(Node::close);
+        }
+    }
+
+    /**
+     * Replica with its latency and health statistics.
+     */
+    public class Node {
+
+        private final String url;
+        private final AsyncSolrClient client;
+
+        private final AtomicInteger inflight = new AtomicInteger();
+        private final AtomicLong requests = new AtomicLong();
+        private volatile double latency = -1;
+        private int failures = 0;
+        private long unhealthyUntil = 0;
+
+        private Node(String url, AsyncSolrClient client) {
+            this.url = url;
+            this.client = client;
+        }
+
+        private CompletableFuture<NamedList<Object>> request(SolrRequest<?> request) {
+            inflight.incrementAndGet();
+            requests.incrementAndGet();
+            final long start = System.nanoTime();
+            final CompletableFuture<NamedList<Object>> future = client.request(request);
+            future.whenComplete((response, t) -> {
+                inflight.decrementAndGet();
+                final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                if (future.isCancelled()) {
+                    //the request lost a hedge: the replica took at least that long
+                    updateLatency(elapsed);
+                } else if (t == null || unwrap(t) instanceof HttpSolrClient.RemoteSolrException) {
+                    updateLatency(elapsed);
+                    latencies.add(elapsed);
+                    onSuccess();
+                } else {
+                    onFailure();
+                }
+            });
+            return future;
+        }
+
+        private synchronized void updateLatency(long elapsed) {
+            latency = latency < 0 ? elapsed : EWMA_WEIGHT * elapsed + (1 - EWMA_WEIGHT) * latency;
+        }
+
+        private synchronized void onSuccess() {
+            failures = 0;
+        }
+
+        private synchronized void onFailure() {
+            if (++failures >= FAILURE_THRESHOLD) {
+                log.warn("Replica {} failed {} times, skipping it for {}s", url, failures, TimeUnit.NANOSECONDS.toSeconds(UNHEALTHY_NANOS));
+                unhealthyUntil = System.nanoTime() + UNHEALTHY_NANOS;
+                //the replica is probed again after the period
+                failures = FAILURE_THRESHOLD - 1;
+            }
+        }
+
+        private synchronized boolean isHealthy(long now) {
+            return unhealthyUntil == 0 || now - unhealthyUntil >= 0;
+        }
+
+        /**
+         * @param seed latency assumed for a replica without a sample.
+         */
+        private double getScore(double seed) {
+            //sub millisecond latencies are rounded up, so the requests in flight are still weighted
+            return Math.max(1, latency < 0 ? seed : latency) * (inflight.get() + 1);
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        /**
+         * @return the moving average of the latency in milliseconds, or -1 if there is no sample yet.
+         */
+        public double getLatency() {
+            return latency;
+        }
+
+        public boolean isHealthy() {
+            return isHealthy(System.nanoTime());
+        }
+
+        public int getInflight() {
+            return inflight.get();
+        }
+
+        public long getRequestCount() {
+            return requests.get();
+        }
+
+        private void close() {
+            try {
+                client.close();
+            } catch (IOException e) {
+                log.warn("Cannot close client of replica {}", url, e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Node{" +
+                    "url='" + url + '\'' +
+                    ", latency=" + latency +
+                    ", inflight=" + inflight +
+                    ", healthy=" + isHealthy() +
+                    '}';
+        }
+    }
+
+    /**
+     * Ring buffer of the recent latencies of all replicas.
+     */
+    static class LatencyWindow {
+
+        private final long[] samples;
+        private final int minSamples;
+        private int count;
+        private int next;
+
+        LatencyWindow(int size, int minSamples) {
+            this.samples = new long[size];
+            this.minSamples = minSamples;
+        }
+
+        synchronized void add(long latency) {
+            samples[next] = latency;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+
+        /**
+         * @return the percentile of the latencies, or -1 if there are not enough samples yet.
+         */
+        synchronized long percentile(double percentile) {
+            if (count < minSamples) {
+                return -1;
+            }
+            final long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            return sorted[(int) Math.ceil(percentile * count) - 1];
+        }
+    }
+}
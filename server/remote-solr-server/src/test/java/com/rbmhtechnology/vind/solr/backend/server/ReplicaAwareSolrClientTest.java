@@ -0,0 +1,163 @@
+package com.rbmhtechnology.vind.solr.backend.server;
+
+import com.rbmhtechnology.vind.solr.backend.ReplicaAwareSolrClient;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.request.QueryRequest;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.util.JavaBinCodec;
+import org.apache.solr.common.util.NamedList;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.isA;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ReplicaAwareSolrClientTest {
+
+    private HttpServer slowReplica;
+    private HttpServer fastReplica;
+
+    private SolrClient writeClient;
+
+    @Before
+    public void setUp() throws Exception {
+        slowReplica = startReplica("slow", 2000);
+        fastReplica = startReplica("fast", 0);
+
+        final NamedList<Object> response = new NamedList<>();
+        response.add("response", new SolrDocumentList());
+        writeClient = mock(SolrClient.class);
+        when(writeClient.request(any(SolrRequest.class), any())).thenReturn(response);
+    }
+
+    @After
+    public void tearDown() {
+        slowReplica.stop(0);
+        fastReplica.stop(0);
+    }
+
+    private static HttpServer startReplica(String name, long delay) throws IOException {
+        final HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/solr/core", exchange -> respond(exchange, name, delay));
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        return server;
+    }
+
+    private static void respond(HttpExchange exchange, String name, long delay) throws IOException {
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        final SolrDocument document = new SolrDocument();
+        document.setField("_id_", name);
+        final SolrDocumentList documents = new SolrDocumentList();
+        documents.add(document);
+        documents.setNumFound(1);
+        final NamedList<Object> response = new NamedList<>();
+        response.add("response", documents);
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (JavaBinCodec codec = new JavaBinCodec()) {
+            codec.marshal(response, bytes);
+        }
+        exchange.sendResponseHeaders(200, bytes.size());
+        try (OutputStream out = exchange.getResponseBody()) {
+            bytes.writeTo(out);
+        } catch (IOException e) {
+            //the request has been aborted
+        }
+    }
+
+    private static String url(HttpServer server) {
+        return "http://localhost:" + server.getAddress().getPort() + "/solr/core";
+    }
+
+    private static String query(SolrClient client) throws Exception {
+        return (String) client.query(new SolrQuery("*:*"), SolrRequest.METHOD.POST).getResults().get(0).getFieldValue("_id_");
+    }
+
+    @Test
+    public void testHedging() throws Exception {
+        try (ReplicaAwareSolrClient client = new ReplicaAwareSolrClient(writeClient, Arrays.asList(url(slowReplica), url(fastReplica)), true)) {
+
+            //the first query goes to the slow replica and is answered by the hedge
+            assertEquals("fast", query(client));
+            assertEquals(1, client.getHedgedRequestCount());
+
+            //the slow replica is ranked down
+            assertEquals("fast", query(client));
+            assertEquals(1, client.getHedgedRequestCount());
+            assertEquals(1, client.getReplicas().get(0).getRequestCount());
+            assertEquals(2, client.getReplicas().get(1).getRequestCount());
+
+            verify(writeClient, never()).request(any(SolrRequest.class), any());
+        }
+    }
+
+    @Test
+    public void testUnmeasuredReplicas() throws Exception {
+        final HttpServer otherReplica = startReplica("other", 0);
+        try (ReplicaAwareSolrClient client = new ReplicaAwareSolrClient(writeClient, Arrays.asList(url(fastReplica), url(otherReplica)), false)) {
+
+            //the replica without a sample is probed, even if the measured one is fast
+            assertEquals("fast", query(client));
+            assertEquals("other", query(client));
+            assertEquals(1, client.getReplicas().get(0).getRequestCount());
+            assertEquals(1, client.getReplicas().get(1).getRequestCount());
+            assertTrue(client.getReplicas().get(1).getLatency() >= 0);
+        } finally {
+            otherReplica.stop(0);
+        }
+    }
+
+    @Test
+    public void testFailover() throws Exception {
+        final String unreachable = url(slowReplica);
+        slowReplica.stop(0);
+
+        try (ReplicaAwareSolrClient client = new ReplicaAwareSolrClient(writeClient, Arrays.asList(unreachable, url(fastReplica)), false)) {
+            assertEquals("fast", query(client));
+            assertEquals(1, client.getReplicas().get(0).getRequestCount());
+            assertEquals(0, client.getHedgedRequestCount());
+        }
+    }
+
+    @Test
+    public void testWrites() throws Exception {
+        try (ReplicaAwareSolrClient client = new ReplicaAwareSolrClient(writeClient, Arrays.asList(url(slowReplica), url(fastReplica)), true)) {
+            final SolrInputDocument document = new SolrInputDocument();
+            document.setField("_id_", "1");
+            client.add(document);
+            client.getById("1");
+
+            verify(writeClient).request(isA(UpdateRequest.class), any());
+            verify(writeClient).request(isA(QueryRequest.class), any());
+            assertEquals(0, client.getReplicas().get(0).getRequestCount());
+            assertEquals(0, client.getReplicas().get(1).getRequestCount());
+        }
+    }
+}
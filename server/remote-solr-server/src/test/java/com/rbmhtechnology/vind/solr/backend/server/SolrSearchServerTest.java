@@ -85,7 +85,12 @@ public class SolrSearchServerTest {
         when(responseObject.get("params")).thenReturn(responseObject);
         when(responseObject.get("suggestion.field")).thenReturn("category");
 
-        when(solrClient.add(org.mockito.Matchers.<Collection<SolrInputDocument>>any())).thenReturn(iResponse);
+        final NamedList<Object> responseHeader = new NamedList<>();
+        responseHeader.add("status", 0);
+        responseHeader.add("QTime", 10);
+        final NamedList<Object> updateResponse = new NamedList<>();
+        updateResponse.add("responseHeader", responseHeader);
+        when(solrClient.request(any(SolrRequest.class), any())).thenReturn(updateResponse);
         when(solrClient.add(any(SolrInputDocument.class))).thenReturn(iResponse);
         when(iResponse.getQTime()).thenReturn(10);
         when(iResponse.getElapsedTime()).thenReturn(15l);
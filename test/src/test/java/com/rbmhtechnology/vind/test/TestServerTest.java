@@ -1,26 +1,62 @@
 package com.rbmhtechnology.vind.test;
 
+import com.rbmhtechnology.vind.InvalidRequestException;
 import com.rbmhtechnology.vind.annotations.language.Language;
+import com.rbmhtechnology.vind.api.CoalescingSearchServer;
+import com.rbmhtechnology.vind.api.CompletableSearchServer;
 import com.rbmhtechnology.vind.api.Document;
+import com.rbmhtechnology.vind.api.GuardedSearchServer;
+import com.rbmhtechnology.vind.api.InstrumentedSearchServer;
+import com.rbmhtechnology.vind.api.LimitingSearchServer;
+import com.rbmhtechnology.vind.api.PrioritySearchServer;
 import com.rbmhtechnology.vind.api.SearchServer;
+import com.rbmhtechnology.vind.api.ServiceProvider;
+import com.rbmhtechnology.vind.api.guard.QueryGuard;
+import com.rbmhtechnology.vind.api.guard.QueryRejectedException;
+import com.rbmhtechnology.vind.api.limit.AdaptiveLimiter;
+import com.rbmhtechnology.vind.api.limit.AimdLimit;
+import com.rbmhtechnology.vind.api.limit.CircuitBreaker;
+import com.rbmhtechnology.vind.api.limit.RejectedRequestException;
+import com.rbmhtechnology.vind.api.metrics.InMemorySearchMetrics;
+import com.rbmhtechnology.vind.api.metrics.MetricsSnapshot;
+import com.rbmhtechnology.vind.api.metrics.Operation;
+import com.rbmhtechnology.vind.api.metrics.Phase;
 import com.rbmhtechnology.vind.api.query.FulltextSearch;
 import com.rbmhtechnology.vind.api.query.Search;
+import com.rbmhtechnology.vind.api.query.collapse.Collapse;
 import com.rbmhtechnology.vind.api.query.datemath.DateMathExpression;
 import com.rbmhtechnology.vind.api.query.delete.Delete;
+import com.rbmhtechnology.vind.api.query.facet.Aggregation;
+import com.rbmhtechnology.vind.api.query.facet.Facet.TermFacet;
 import com.rbmhtechnology.vind.api.query.facet.Interval;
 import com.rbmhtechnology.vind.api.query.facet.TermFacetOption;
 import com.rbmhtechnology.vind.api.query.filter.Filter;
+import com.rbmhtechnology.vind.api.query.get.RealTimeGet;
+import com.rbmhtechnology.vind.api.query.rerank.Rerank;
 import com.rbmhtechnology.vind.api.query.sort.Sort;
+import com.rbmhtechnology.vind.api.query.suggestion.ExecutableSuggestionSearch;
+import com.rbmhtechnology.vind.api.query.update.Update;
+import com.rbmhtechnology.vind.api.result.BeanGetResult;
+import com.rbmhtechnology.vind.api.result.BeanSearchResult;
+import com.rbmhtechnology.vind.api.result.DeleteResult;
 import com.rbmhtechnology.vind.api.result.GetResult;
+import com.rbmhtechnology.vind.api.result.IndexResult;
 import com.rbmhtechnology.vind.api.result.PageResult;
+import com.rbmhtechnology.vind.api.result.ResultGroup;
 import com.rbmhtechnology.vind.api.result.SearchResult;
 import com.rbmhtechnology.vind.api.result.SuggestionResult;
+import com.rbmhtechnology.vind.api.result.facet.FacetValue;
+import com.rbmhtechnology.vind.api.result.facet.HeatmapFacetResult;
+import com.rbmhtechnology.vind.api.result.facet.QueryFacetResult;
 import com.rbmhtechnology.vind.api.result.facet.RangeFacetResult;
+import com.rbmhtechnology.vind.api.result.facet.StatsFacetResult;
 import com.rbmhtechnology.vind.api.result.facet.TermFacetResult;
 import com.rbmhtechnology.vind.configure.SearchConfiguration;
 import com.rbmhtechnology.vind.model.*;
 import com.rbmhtechnology.vind.model.MultiValueFieldDescriptor.NumericFieldDescriptor;
 import com.rbmhtechnology.vind.model.value.LatLng;
+import com.rbmhtechnology.vind.solr.backend.SolrSearchServer;
+import com.rbmhtechnology.vind.solr.backend.SolrSchemaCompiler;
 import com.rbmhtechnology.vind.utils.mam.FacetMapper;
 
 import org.apache.solr.client.solrj.SolrClient;
@@ -48,8 +84,13 @@ import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static com.rbmhtechnology.vind.api.query.datemath.DateMathExpression.TimeUnit.*;
 import static com.rbmhtechnology.vind.api.query.facet.Facets.*;
@@ -59,6 +100,7 @@ import static com.rbmhtechnology.vind.api.query.sort.Sort.desc;
 import static com.rbmhtechnology.vind.model.MultiValueFieldDescriptor.*;
 
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.isA;
 import static org.junit.Assert.*;
 
@@ -403,6 +445,10 @@ public class TestServerTest {
 
         //TODO: confirm with Thomas
         Assert.assertEquals(3, orChildrenCustomSearch.getNumOfResults());
+
+        //tagged filters are combined with the children search like untagged filters
+        SearchResult orChildrenTaggedSearch = server.execute(Search.fulltext("1").filter(Filter.eq(color, "blue"), "color").orChildrenSearch(Search.fulltext().filter(Filter.eq(color, "red")), marker), asset);
+        Assert.assertEquals(orChildrenCustomSearch.getNumOfResults(), orChildrenTaggedSearch.getNumOfResults());
         //server.execute(Search.fulltext("some").facet(children(title)),asset); //get title facts for children
         //server.executdeepSearchResulte(Search.fulltext("some").facet(parent(title)),marker); //get title facets for parents
 
@@ -2160,6 +2206,57 @@ public class TestServerTest {
 
     }
 
+    @Test
+    public void testBlockPartialUpdates() {
+
+        SearchServer server = testSearchServer.getSearchServer();
+
+        SingleValueFieldDescriptor<String> title = new FieldDescriptorBuilder<String>()
+                .setFacet(true)
+                .buildTextField("title");
+
+        SingleValueFieldDescriptor.NumericFieldDescriptor<Integer> views = new FieldDescriptorBuilder<Integer>()
+                .buildNumericField("views", Integer.class);
+
+        MultiValueFieldDescriptor.TextFieldDescriptor<String> tags = new FieldDescriptorBuilder<String>()
+                .buildMultivaluedTextField("tags");
+
+        DocumentFactory series = new DocumentFactoryBuilder("series")
+                .setUpdatable(true)
+                .addField(title, views, tags)
+                .build();
+
+        DocumentFactory episode = new DocumentFactoryBuilder("episode")
+                .setUpdatable(true)
+                .addField(title)
+                .build();
+
+        server.index(
+                series.createDoc("S1").setValue(title, "Series 1").setValue(views, 10).setValues(tags, "action", "archive-2017", "drama")
+                        .addChild(episode.createDoc("E1").setValue(title, "Episode 1"), episode.createDoc("E2").setValue(title, "Episode 2")),
+                series.createDoc("S2").setValue(title, "Series 2").setValue(views, 1));
+        server.commit();
+
+        assertTrue(server.execute(Arrays.asList(
+                Search.update("S1").set(title, "Series One").increment(views, 5).add((String) null, tags, "comedy").remove((String) null, tags, "drama").removeRegex(tags, "archive-.*"),
+                Search.update("S2").increment(views, 1)), series));
+        server.commit();
+
+        final Document s1 = server.execute(Search.fulltext().filter(Filter.eq(title, "Series One")).withChildren(episode), series).getResults().get(0);
+        assertEquals(Integer.valueOf(15), s1.getValue(views));
+        assertThat((Collection<String>) s1.getValue(tags.getName()), containsInAnyOrder("action", "comedy"));
+        assertThat(s1.getChildren().stream().map(child -> child.getValue(title)).collect(Collectors.toList()), containsInAnyOrder("Episode 1", "Episode 2"));
+
+        assertEquals(Integer.valueOf(2), server.execute(Search.getById("S2"), series).getResults().get(0).getValue(views));
+        assertEquals(2, server.execute(Search.fulltext(), episode).getNumOfResults());
+
+        //updates are applied on the actual version of the block
+        assertTrue(server.execute(Search.update("S1").increment(views, 1), series));
+        server.commit();
+        assertEquals(Integer.valueOf(16), server.execute(Search.getById("S1"), series).getResults().get(0).getValue(views));
+        assertEquals(2, server.execute(Search.fulltext(), episode).getNumOfResults());
+    }
+
     @Test
     public void testSuggestionFiltering() {
 
@@ -2417,4 +2514,934 @@ public class TestServerTest {
 
         assertEquals(1, result.getFacetResults().getTermFacet(title).getValues().size());
     }
+
+    @Test
+    public void testTermFacetPaging() {
+
+        SingleValueFieldDescriptor.TextFieldDescriptor<String> author = new FieldDescriptorBuilder()
+                .setFacet(true)
+                .buildTextField("author");
+
+        DocumentFactory assets = new DocumentFactoryBuilder("asset")
+                .addField(author)
+                .build();
+
+        SearchServer server = testSearchServer.getSearchServer();
+
+        server.index(
+                assets.createDoc("1").setValue(author, "Anna"),
+                assets.createDoc("2").setValue(author, "Bert"),
+                assets.createDoc("3").setValue(author, "Carl"),
+                assets.createDoc("4").setValue(author, "Cecile"),
+                assets.createDoc("5").setValue(author, "Dora"));
+        server.commit();
+
+        final TermFacetResult<String> page = server.execute(Search.fulltext()
+                .facet(new TermFacetOption()
+                        .setOffset(1)
+                        .setLimit(2)
+                        .setSort(TermFacetOption.FacetSort.INDEX, Sort.Direction.Asc)
+                        .setNumBuckets(true), author), assets)
+                .getFacetResults().getTermFacet(author);
+
+        assertEquals(Long.valueOf(5), page.getNumBuckets());
+        assertEquals(2, page.getValues().size());
+        assertEquals("Bert", page.getValues().get(0).getValue());
+        assertEquals("Carl", page.getValues().get(1).getValue());
+
+        final TermFacetResult<String> prefixed = server.execute(Search.fulltext()
+                .facet(new TermFacetOption().setPrefix("C").setMethod(TermFacetOption.FacetMethod.ENUM), author), assets)
+                .getFacetResults().getTermFacet(author);
+
+        assertEquals(2, prefixed.getValues().size());
+        assertNull(prefixed.getNumBuckets());
+    }
+
+    @Test
+    public void testRerank() {
+
+        SingleValueFieldDescriptor.DateFieldDescriptor<ZonedDateTime> created = new FieldDescriptorBuilder()
+                .setFacet(true)
+                .buildDateField("created");
+
+        DocumentFactory assets = new DocumentFactoryBuilder("asset")
+                .addField(created)
+                .build();
+
+        SearchServer server = testSearchServer.getSearchServer();
+
+        final ZonedDateTime now = ZonedDateTime.now();
+        server.index(
+                assets.createDoc("old").setValue(created, now.minusYears(2)),
+                assets.createDoc("new").setValue(created, now.minusHours(1)),
+                assets.createDoc("older").setValue(created, now.minusYears(5)));
+        server.commit();
+
+        final SearchResult result = server.execute(Search.fulltext()
+                .rerank(Rerank.sort(Sort.SpecialSort.scoredDate(created)).docs(10).weight(100)), assets);
+
+        assertEquals(3, result.getNumOfResults());
+        assertEquals("new", result.getResults().get(0).getId());
+        assertEquals("old", result.getResults().get(1).getId());
+        assertEquals("older", result.getResults().get(2).getId());
+    }
+
+    @Test
+    public void testInPlaceUpdate() {
+
+        SingleValueFieldDescriptor<String> title = new FieldDescriptorBuilder()
+                .setFullText(true)
+                .setStored(false)
+                .buildTextField("title");
+
+        SingleValueFieldDescriptor.NumericFieldDescriptor<Long> views = new FieldDescriptorBuilder()
+                .setFacet(true)
+                .setInPlace(true)
+                .buildNumericField("views", Long.class);
+
+        SingleValueFieldDescriptor.NumericFieldDescriptor<Integer> likes = new FieldDescriptorBuilder()
+                .setInPlace(true)
+                .buildNumericField("likes", Integer.class);
+
+        DocumentFactory assets = new DocumentFactoryBuilder("asset")
+                .addField(title, views, likes)
+                .build();
+
+        SearchServer server = testSearchServer.getSearchServer();
+
+        server.index(
+                assets.createDoc("1").setValue(title, "Hello World").setValue(views, 0L),
+                assets.createDoc("2").setValue(title, "Hello Friends").setValue(views, 5L));
+        server.commit();
+
+        assertTrue(server.execute(Search.update("1").increment(views, 3L), assets));
+        assertTrue(server.execute(Search.update("1").increment(views, 4L), assets));
+        assertFalse(server.execute(Search.update("3").increment(views, 1L), assets));
+        server.commit();
+
+        final SearchResult result = server.execute(Search.fulltext("hello").sort(desc(views)), assets);
+        assertEquals(2, result.getNumOfResults());
+        assertEquals("1", result.getResults().get(0).getId());
+        assertEquals(Long.valueOf(7), result.getResults().get(0).getValue(views));
+        assertEquals(Long.valueOf(5), result.getResults().get(1).getValue(views));
+
+        assertEquals(1, server.execute(Search.fulltext().filter(views.between(6L, 10L)), assets).getNumOfResults());
+
+        //in place fields not flagged as facet can be filtered on as well
+        assertTrue(server.execute(Search.update("2").set(likes, 2), assets));
+        server.commit();
+        assertEquals(1, server.execute(Search.fulltext().filter(likes.greaterThan(1)), assets).getNumOfResults());
+        assertEquals(1, server.execute(Search.fulltext().filter(Filter.between(likes.getName(), 1, 3, Filter.Scope.Filter)), assets).getNumOfResults());
+    }
+
+    @Test
+    public void testCompiledSchema() {
+
+        SingleValueFieldDescriptor.TextFieldDescriptor<String> title = new FieldDescriptorBuilder()
+                .setFullText(true)
+                .setFacet(true)
+                .buildTextField("title");
+
+        NumericFieldDescriptor<Integer> ratings = new FieldDescriptorBuilder()
+                .setFacet(true)
+                .buildMultivaluedNumericField("ratings", Integer.class);
+
+        SingleValueFieldDescriptor.DateFieldDescriptor<ZonedDateTime> created = new FieldDescriptorBuilder()
+                .setStored(false)
+                .setFacet(true)
+                .buildDateField("created");
+
+        DocumentFactory assets = new DocumentFactoryBuilder("asset")
+                .addField(title, ratings, created)
+                .build();
+
+        final SolrSearchServer server = (SolrSearchServer) testSearchServer.getSearchServer();
+        server.setCompiledSchema(SolrSchemaCompiler.compile(assets));
+        try {
+
+            final ZonedDateTime now = ZonedDateTime.now(ZoneId.of("UTC"));
+            server.index(
+                    assets.createDoc("1").setValue(title, "Hello World").setValues(ratings, 3, 5).setValue(created, now.minusDays(1)),
+                    assets.createDoc("2").setValue(title, "Hello Friends").setValues(ratings, 4).setValue(created, now));
+            server.commit();
+
+            final SearchResult result = server.execute(Search.fulltext("hello")
+                    .facet(title, ratings)
+                    .sort(desc(created)), assets);
+            assertEquals(2, result.getNumOfResults());
+            assertEquals("2", result.getResults().get(0).getId());
+            assertEquals("Hello Friends", result.getResults().get(0).getValue(title));
+            assertThat((Collection<Integer>) result.getResults().get(1).getValue(ratings.getName()), containsInAnyOrder(3, 5));
+            assertEquals(2, result.getFacetResults().getTermFacet(title).getValues().size());
+            assertEquals(3, result.getFacetResults().getTermFacet(ratings).getValues().size());
+
+            assertEquals(1, server.execute(Search.fulltext().filter(title.equals("Hello World")), assets).getNumOfResults());
+        } finally {
+            server.setCompiledSchema(null);
+        }
+    }
+
+    @Test
+    public void testVindSearchHandler() {
+
+        SingleValueFieldDescriptor.TextFieldDescriptor<String> title = new FieldDescriptorBuilder()
+                .setFullText(true)
+                .setFacet(true)
+                .buildTextField("title");
+
+        NumericFieldDescriptor<Integer> ratings = new FieldDescriptorBuilder()
+                .buildMultivaluedNumericField("ratings", Integer.class);
+
+        SingleValueFieldDescriptor.DateFieldDescriptor<ZonedDateTime> created = new FieldDescriptorBuilder()
+                .buildDateField("created");
+
+        DocumentFactory assets = new DocumentFactoryBuilder("asset")
+                .addField(title, ratings, created)
+                .build();
+
+        SearchServer server = testSearchServer.getSearchServer();
+
+        final ZonedDateTime now = ZonedDateTime.now(ZoneId.of("UTC"));
+        server.index(
+                assets.createDoc("1").setValue(title, "Hello World").setValues(ratings, 3, 5).setValue(created, now),
+                assets.createDoc("2").setValue(title, "Hello Friends"));
+        server.commit();
+
+        final FulltextSearch search = Search.fulltext("hello").facet(title).sort(asc(title));
+
+        final SearchResult standard = server.execute(search, assets);
+
+        SearchConfiguration.set(SearchConfiguration.SERVER_SOLR_VIND_HANDLER, "/vind");
+        try {
+            final SearchResult compact = server.execute(search, assets);
+            assertEquals(2, compact.getNumOfResults());
+            assertEquals("2", compact.getResults().get(0).getId());
+            assertEquals("Hello Friends", compact.getResults().get(0).getValue(title));
+            assertNull(compact.getResults().get(0).getValue(ratings.getName()));
+            assertEquals("Hello World", compact.getResults().get(1).getValue(title));
+            assertThat((Collection<Integer>) compact.getResults().get(1).getValue(ratings.getName()), containsInAnyOrder(3, 5));
+            assertEquals(standard.getResults().get(1).getValue(created), compact.getResults().get(1).getValue(created));
+            assertEquals(standard.getResults().get(0).getScore(), compact.getResults().get(0).getScore(), 0.0001);
+            assertEquals(2, compact.getFacetResults().getTermFacet(title).getValues().size());
+        } finally {
+            SearchConfiguration.remove(SearchConfiguration.SERVER_SOLR_VIND_HANDLER);
+        }
+    }
+
+    @Test
+    public void testInlineChildren() {
+
+        SingleValueFieldDescriptor.TextFieldDescriptor<String> title = new FieldDescriptorBuilder()
+                .setFullText(true)
+                .setFacet(true)
+                .buildTextField("title");
+
+        SingleValueFieldDescriptor.TextFieldDescriptor<String> color = new FieldDescriptorBuilder()
+                .setFacet(true)
+                .buildTextField("color");
+
+        DocumentFactory asset = new DocumentFactoryBuilder("asset")
+                .addField(title)
+                .build();
+
+        DocumentFactory marker = new DocumentFactoryBuilder("marker")
+                .addField(title, color)
+                .build();
+
+        SearchServer server = testSearchServer.getSearchServer();
+
+        server.index(
+                asset.createDoc("A1").setValue(title, "A1"),
+                asset.createDoc("A2").setValue(title, "A2").addChild(
+                        marker.createDoc("M1").setValue(title, "M1").setValue(color, "blue"),
+                        marker.createDoc("M2").setValue(title, "M2").setValue(color, "red"),
+                        marker.createDoc("M3").setValue(title, "M3").setValue(color, "blue")));
+        server.commit();
+
+        final SearchResult withoutChildren = server.execute(Search.fulltext().sort(asc("_id_")), asset);
+        assertFalse(withoutChildren.getResults().get(1).hasChildren());
+
+        final SearchResult allChildren = server.execute(Search.fulltext().sort(asc("_id_")).withChildren(marker), asset);
+        assertEquals(2, allChildren.getNumOfResults());
+        assertFalse(allChildren.getResults().get(0).hasChildren());
+        final Document a2 = allChildren.getResults().get(1);
+        assertEquals("A2", a2.getValue(title));
+        assertEquals(3, a2.getChildren().size());
+        assertThat(a2.getChildren().stream().map(Document::getType).collect(Collectors.toList()), Matchers.everyItem(Matchers.equalTo("marker")));
+        assertThat(a2.getChildren().stream().map(child -> child.getValue(title)).collect(Collectors.toList()), containsInAnyOrder("M1", "M2", "M3"));
+
+        final SearchResult filteredChildren = server.execute(Search.fulltext().filter(Filter.eq(title, "A2"))
+                .withChildren(marker, 1, Filter.eq(color, "blue")), asset);
+        assertEquals(1, filteredChildren.getNumOfResults());
+        final Collection<Document> children = filteredChildren.getResults().get(0).getChildren();
+        assertEquals(1, children.size());
+        assertEquals("blue", children.iterator().next().getValue(color));
+
+        SearchConfiguration.set(SearchConfiguration.SERVER_SOLR_VIND_HANDLER, "/vind");
+        try {
+            final SearchResult compact = server.execute(Search.fulltext().filter(Filter.eq(title, "A2")).withChildren(marker), asset);
+            assertEquals(3, compact.getResults().get(0).getChildren().size());
+        } finally {
+            SearchConfiguration.remove(SearchConfiguration.SERVER_SOLR_VIND_HANDLER);
+        }
+    }
+
+    @Test
+    public void testCollapse() {
+
+        SingleValueFieldDescriptor.TextFieldDescriptor<String> story = new FieldDescriptorBuilder()
+                .setFacet(true)
+                .buildTextField("story");
+
+        FieldDescriptor<String> title = new FieldDescriptorBuilder()
+                .setFullText(true)
+                .buildTextField("title");
+
+        DocumentFactory assets = new DocumentFactoryBuilder("asset")
+                .addField(story)
+                .addField(title)
+                .build();
+
+        SearchServer server = testSearchServer.getSearchServer();
+
+        server.index(
+                assets.createDoc("en1").setValue(story, "s1").setValue(title, "Hello World"),
+                assets.createDoc("de1").setValue(story, "s1").setValue(title, "Hallo Welt"),
+                assets.createDoc("es1").setValue(story, "s1").setValue(title, "Hola Mundo"),
+                assets.createDoc("en2").setValue(story, "s2").setValue(title, "Hello Friends"),
+                assets.createDoc("none").setValue(title, "Hello Nobody"));
+        server.commit();
+
+        SearchResult result = server.execute(Search.fulltext().collapse(story), assets);
+        assertEquals(2, result.getNumOfResults());
+        assertEquals(2, result.getGroups().size());
+        assertTrue(result.getGroups().stream().allMatch(g -> g.getExpanded().isEmpty()));
+
+        result = server.execute(Search.fulltext().collapse(new Collapse(story).expand(5).setNullPolicy(Collapse.NullPolicy.expand)), assets);
+        assertEquals(3, result.getNumOfResults());
+        final ResultGroup s1 = result.getGroups().stream().filter(g -> "s1".equals(g.getValue())).findAny().get();
+        assertEquals(2, s1.getNumOfExpanded());
+        assertEquals(2, s1.getExpanded().size());
+        assertEquals("s1", s1.getHead().getValue(story));
+
+        assertEquals(2, server.count(Search.fulltext().collapse(story), assets));
+    }
+
+    @Test
+    public void testCollapseOnDate() {
+
+        SingleValueFieldDescriptor.DateFieldDescriptor<ZonedDateTime> published = new FieldDescriptorBuilder()
+                .setFacet(true)
+                .buildDateField("published");
+
+        DocumentFactory assets = new DocumentFactoryBuilder("asset")
+                .addField(published)
+                .build();
+
+        //solr does not collapse on 64 bit fields, so the search is rejected before it is sent
+        try {
+            testSearchServer.getSearchServer().execute(Search.fulltext().collapse(new Collapse(published).expand(5)), assets);
+            fail("Expected an exception for a collapse on a date field");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("published"));
+        }
+    }
+
+    @Test
+    public void testMultiSelectFacets() {
+
+        SingleValueFieldDescriptor.TextFieldDescriptor<String> color = new FieldDescriptorBuilder()
+                .setFacet(true)
+                .buildTextField("color");
+
+        SingleValueFieldDescriptor.NumericFieldDescriptor<Integer> size = new FieldDescriptorBuilder()
+                .setFacet(true)
+                .buildNumericField("size", Integer.class);
+
+        DocumentFactory assets = new DocumentFactoryBuilder("asset")
+                .addField(color)
+                .addField(size)
+                .build();
+
+        SearchServer server = testSearchServer.getSearchServer();
+
+        server.index(
+                assets.createDoc("1").setValue(color, "red").setValue(size, 1),
+                assets.createDoc("2").setValue(color, "red").setValue(size, 2),
+                assets.createDoc("3").setValue(color, "blue").setValue(size, 2),
+                assets.createDoc("4").setValue(color, "green").setValue(size, 3));
+        server.commit();
+
+        final SearchResult result = server.execute(Search.fulltext()
+                .filter(color.equals("red"), "color")
+                .facet(new TermFacet<>(color).setExcludeTags("color"))
+                .facet(interval("sizes", size, Interval.numericInterval("small", 0, 2, true, true)).setExcludeTags("color")), assets);
+
+        assertEquals(2, result.getNumOfResults());
+        assertEquals(3, result.getFacetResults().getTermFacet(color).getValues().size());
+        assertEquals(3, result.getFacetResults().getIntervalFacet("sizes").getValues().get(0).getCount());
+
+        final SearchResult restricted = server.execute(Search.fulltext()
+                .filter(color.equals("red"), "color")
+                .facet(color), assets);
+        assertEquals(1, restricted.getFacetResults().getTermFacet(color).getValues().size());
+    }
+
+    @Test
+    public void testNestedFacets() {
+
+        SingleValueFieldDescriptor.TextFieldDescriptor<String> color = new FieldDescriptorBuilder()
+                .setFacet(true)
+                .buildTextField("color");
+
+        SingleValueFieldDescriptor.NumericFieldDescriptor<Integer> size = new FieldDescriptorBuilder()
+                .setFacet(true)
+                .buildNumericField("size", Integer.class);
+
+        DocumentFactory assets = new DocumentFactoryBuilder("asset")
+                .addField(color)
+                .addField(size)
+                .build();
+
+        SearchServer server = testSearchServer.getSearchServer();
+
+        server.index(
+                assets.createDoc("1").setValue(color, "red").setValue(size, 1),
+                assets.createDoc("2").setValue(color, "red").setValue(size, 2),
+                assets.createDoc("3").setValue(color, "blue").setValue(size, 2),
+                assets.createDoc("4").setValue(color, "green").setValue(size, 3));
+        server.commit();
+
+        final SearchResult result = server.execute(Search.fulltext()
+                .facet(new TermFacet<>(color)
+                        .aggregate(Aggregation.avg("avgSize", size))
+                        .subFacet(range("sizes", size, 0, 4, 2)))
+                .facet(query("small", size.between(0, 2)).aggregate(Aggregation.sum("sumSize", size))), assets);
+
+        final FacetValue<String> red = result.getFacetResults().getTermFacet(color).getValues().get(0);
+        assertEquals("red", red.getValue());
+        assertEquals(2, red.getCount());
+        assertEquals(1.5, ((Number) red.getAggregation("avgSize")).doubleValue(), 0.001);
+        final RangeFacetResult<Integer> redSizes = red.getSubFacet("sizes");
+        assertEquals(2, redSizes.getValues().size());
+        assertEquals(Integer.valueOf(0), redSizes.getValues().get(0).getValue());
+        assertEquals(1, redSizes.getValues().get(0).getCount());
+
+        final QueryFacetResult<Object> small = result.getFacetResults().getQueryFacet("small", Object.class);
+        assertEquals(3, small.getCount());
+        assertEquals(5, ((Number) small.getAggregations().get("sumSize")).intValue());
+    }
+
+    @Test
+    public void testHeatmapFacet() {
+
+        SingleValueFieldDescriptor.LocationFieldDescriptor<LatLng> location = new FieldDescriptorBuilder()
+                .setFacet(true)
+                .buildLocationField("location");
+
+        DocumentFactory assets = new DocumentFactoryBuilder("asset")
+                .addField(location)
+                .build();
+
+        SearchServer server = testSearchServer.getSearchServer();
+
+        server.index(
+                assets.createDoc("1").setValue(location, new LatLng(47.8, 13.0)),
+                assets.createDoc("2").setValue(location, new LatLng(47.9, 13.1)),
+                assets.createDoc("3").setValue(location, new LatLng(-33.9, 151.2)));
+        server.commit();
+
+        final SearchResult result = server.execute(Search.fulltext()
+                .facet(heatmap("map", location, new LatLng(90, -180), new LatLng(-90, 180), 2)), assets);
+
+        final HeatmapFacetResult heatmap = result.getFacetResults().getHeatmapFacet("map");
+        assertNotNull(heatmap);
+        assertEquals(2, heatmap.getGridLevel());
+        assertTrue(heatmap.getRows() > 1);
+        assertTrue(heatmap.getColumns() > 1);
+
+        int total = 0;
+        int max = 0;
+        for (int row = 0; row < heatmap.getRows(); row++) {
+            for (int column = 0; column < heatmap.getColumns(); column++) {
+                total += heatmap.getCount(row, column);
+                max = Math.max(max, heatmap.getCount(row, column));
+            }
+        }
+        assertEquals(3, total);
+        assertEquals(2, max);
+    }
+
+    @Test
+    public void testApproximatedStats() {
+
+        SingleValueFieldDescriptor.NumericFieldDescriptor<Integer> size = new FieldDescriptorBuilder()
+                .setFacet(true)
+                .buildNumericField("size", Integer.class);
+
+        DocumentFactory assets = new DocumentFactoryBuilder("asset")
+                .addField(size)
+                .build();
+
+        SearchServer server = testSearchServer.getSearchServer();
+
+        for (int i = 1; i <= 10; i++) {
+            server.index(assets.createDoc(String.valueOf(i)).setValue(size, i));
+        }
+        server.commit();
+
+        final SearchResult result = server.execute(Search.fulltext()
+                .facet(stats("sizeStats", size).percentiles(50.0, 90.0).percentilesCompression(200).cardinality(0.5)), assets);
+
+        final StatsFacetResult<Integer> stats = result.getFacetResults().getStatsFacet("sizeStats", Integer.class);
+        assertEquals(Long.valueOf(10), stats.getCardinality());
+        assertEquals(5.5, stats.getPercentile(50.0), 1.0);
+        assertEquals(9.5, stats.getPercentile(90.0), 1.0);
+        assertNull(stats.getPercentile(99.0));
+    }
+
+    @Test
+    public void testLimitingSearchServer() {
+
+        SingleValueFieldDescriptor.TextFieldDescriptor<String> title = new FieldDescriptorBuilder()
+                .setFullText(true)
+                .buildTextField("title");
+
+        DocumentFactory assets = new DocumentFactoryBuilder("asset")
+                .addField(title)
+                .build();
+
+        final LimitingSearchServer server = new LimitingSearchServer(testSearchServer.getSearchServer(),
+                operation -> new AdaptiveLimiter(new AimdLimit(1, 1, 1), 0, TimeUnit.MILLISECONDS),
+                new CircuitBreaker(1, 1, TimeUnit.MINUTES));
+
+        server.index(assets.createDoc("1").setValue(title, "Hello World"));
+        server.commit();
+        assertEquals(1, server.execute(Search.fulltext("hello"), assets).getNumOfResults());
+        assertEquals(2, server.getLimiter(LimitingSearchServer.Operation.Index).getAcceptedCount());
+
+        //a search is rejected while the only slot is taken, other operations have their own limit
+        final AdaptiveLimiter.Permit permit = server.getLimiter(LimitingSearchServer.Operation.Search).acquire().get();
+        try {
+            server.execute(Search.fulltext("hello"), assets);
+            fail("the search should have been rejected");
+        } catch (RejectedRequestException e) {
+            assertEquals(1, server.getRejectedCount(LimitingSearchServer.Operation.Search));
+        }
+        assertEquals(1, server.execute(Search.getById("1"), assets).getNumOfResults());
+
+        //an asynchronous search is rejected with a failed future instead of an exception
+        final CompletableFuture<SearchResult> rejected = new CompletableSearchServer(server, Runnable::run)
+                .executeAsync(Search.fulltext("hello"), assets);
+        assertTrue(rejected.isCompletedExceptionally());
+        try {
+            rejected.join();
+            fail("the search should have been rejected");
+        } catch (CompletionException e) {
+            assertThat(e.getCause(), Matchers.instanceOf(RejectedRequestException.class));
+        }
+        permit.success();
+
+        assertEquals(1, server.execute(Search.fulltext("hello"), assets).getNumOfResults());
+        assertEquals(CircuitBreaker.State.Closed, server.getCircuitBreaker().getState());
+
+        //an invalid request as probe of an open circuit closes it, as the backend is responding
+        final LimitingSearchServer probing = new LimitingSearchServer(testSearchServer.getSearchServer(),
+                operation -> new AdaptiveLimiter(new AimdLimit(1, 1, 1), 0, TimeUnit.MILLISECONDS),
+                new CircuitBreaker(1, 0, TimeUnit.MILLISECONDS));
+        probing.getCircuitBreaker().onFailure();
+        assertEquals(CircuitBreaker.State.Open, probing.getCircuitBreaker().getState());
+        try {
+            probing.execute(Search.fulltext("hello").filter(Filter.eq("unknown", "value")), assets);
+            fail("Expected an exception for an unknown field");
+        } catch (IllegalArgumentException e) {
+            assertEquals(CircuitBreaker.State.Closed, probing.getCircuitBreaker().getState());
+        }
+
+        //so does a request the backend rejects as invalid
+        probing.getCircuitBreaker().onFailure();
+        assertEquals(CircuitBreaker.State.Open, probing.getCircuitBreaker().getState());
+        try {
+            probing.execute(Search.fulltext("hello").sort(Sort.desc("unknown")), assets);
+            fail("Expected an exception for a sort on an unknown field");
+        } catch (InvalidRequestException e) {
+            assertEquals(CircuitBreaker.State.Closed, probing.getCircuitBreaker().getState());
+        }
+    }
+
+    @Test
+    public void testPrioritySearchServer() throws Exception {
+
+        SingleValueFieldDescriptor.TextFieldDescriptor<String> title = new FieldDescriptorBuilder()
+                .setFullText(true)
+                .buildTextField("title");
+
+        DocumentFactory assets = new DocumentFactoryBuilder("asset")
+                .addField(title)
+                .build();
+
+        final SearchServer backend = testSearchServer.getSearchServer();
+        final PrioritySearchServer server = new PrioritySearchServer(backend, Runnable::run, backend, Runnable::run);
+
+        server.forBulk().indexAsync(assets.createDoc("1").setValue(title, "Hello World"),
+                assets.createDoc("2").setValue(title, "Hello Friends")).get();
+        server.forBulk().index(assets.createDoc("3").setValue(title, "Hello Bulk"));
+        server.forBulk().commit();
+
+        assertEquals(3, server.execute(Search.fulltext("hello"), assets).getNumOfResults());
+        assertEquals(3, server.executeAsync(Search.fulltext("hello"), assets).get().getNumOfResults());
+
+        final LimitingSearchServer interactiveLimits = server.getLimits(PrioritySearchServer.Lane.Interactive);
+        final LimitingSearchServer bulkLimits = server.getLimits(PrioritySearchServer.Lane.Bulk);
+        assertEquals(2, interactiveLimits.getLimiter(LimitingSearchServer.Operation.Search).getAcceptedCount());
+        assertEquals(0, interactiveLimits.getLimiter(LimitingSearchServer.Operation.Index).getAcceptedCount());
+        assertEquals(3, bulkLimits.getLimiter(LimitingSearchServer.Operation.Index).getAcceptedCount());
+        assertThat(server.getThrottle().getMaxLatency(), Matchers.is(0.0));
+    }
+
+    @Test
+    public void testPrioritySearchServerInstance() {
+
+        SingleValueFieldDescriptor.TextFieldDescriptor<String> title = new FieldDescriptorBuilder()
+                .setFullText(true)
+                .buildTextField("title");
+
+        DocumentFactory assets = new DocumentFactoryBuilder("asset")
+                .addField(title)
+                .build();
+
+        SearchConfiguration.set(SearchConfiguration.SERVER_PROVIDER, "com.rbmhtechnology.vind.solr.backend.EmbeddedSolrServerProvider");
+        final PrioritySearchServer server = PrioritySearchServer.getInstance();
+        try {
+            //documents written on the bulk lane are found by the searches of the interactive lane
+            server.forBulk().index(assets.createDoc("1").setValue(title, "Hello Bulk"));
+            server.forBulk().commit();
+
+            assertEquals(1, server.execute(Search.fulltext("hello"), assets).getNumOfResults());
+            assertSame(server.getLimits(PrioritySearchServer.Lane.Interactive).getBackend(),
+                    server.getLimits(PrioritySearchServer.Lane.Bulk).getBackend());
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void testInstrumentedSearchServer() {
+
+        SingleValueFieldDescriptor.TextFieldDescriptor<String> title = new FieldDescriptorBuilder()
+                .setFullText(true)
+                .setFacet(true)
+                .buildTextField("title");
+
+        DocumentFactory assets = new DocumentFactoryBuilder("asset")
+                .addField(title)
+                .build();
+
+        final InMemorySearchMetrics metrics = new InMemorySearchMetrics();
+        final InstrumentedSearchServer server = new InstrumentedSearchServer(testSearchServer.getSearchServer(), metrics);
+
+        server.index(assets.createDoc("1").setValue(title, "Hello World"),
+                assets.createDoc("2").setValue(title, "Hello Friends"));
+        server.commit();
+
+        assertEquals(2, server.execute(Search.fulltext("hello").facet(title), assets).getNumOfResults());
+        assertEquals(2, server.count(Search.fulltext("hello"), assets));
+
+        final MetricsSnapshot snapshot = server.snapshot();
+        assertEquals(1, snapshot.getLatency(Operation.Index, Phase.Total, "asset").getCount());
+        assertEquals(2, snapshot.getResults(Operation.Index, "asset").getMax());
+        assertEquals(1, snapshot.getLatency(Operation.Search, Phase.Total, "asset").getCount());
+        assertEquals(2, snapshot.getResults(Operation.Search, "asset").getMax());
+        for (Phase phase : Arrays.asList(Phase.QueryBuilding, Phase.Request, Phase.Server, Phase.ResultMapping, Phase.FacetMapping)) {
+            assertEquals(phase.name(), 1, snapshot.getLatency(Operation.Search, phase, "asset").getCount());
+        }
+        assertEquals(1, snapshot.getLatency(Operation.Count, Phase.Request, "asset").getCount());
+        assertNull(snapshot.getLatency(Operation.Count, Phase.ResultMapping, "asset"));
+
+        try {
+            server.execute(Search.fulltext("hello").filter(Filter.eq("unknown", "value")), assets);
+            fail("Expected an exception for an unknown field");
+        } catch (RuntimeException e) {
+            assertEquals(1, server.snapshot().getErrors(Operation.Search, "asset", e.getClass()));
+        }
+        assertThat(server.snapshot().toMap().keySet(), Matchers.hasItem("latency.Search.asset.Total.p99"));
+    }
+
+    @Test
+    public void testGuardedSearchServer() {
+
+        SingleValueFieldDescriptor.TextFieldDescriptor<String> title = new FieldDescriptorBuilder()
+                .setFullText(true)
+                .setFacet(true)
+                .buildTextField("title");
+
+        DocumentFactory assets = new DocumentFactoryBuilder("asset")
+                .addField(title)
+                .build();
+
+        final InMemorySearchMetrics metrics = new InMemorySearchMetrics();
+        final QueryGuard guard = new QueryGuard()
+                .setLimit(QueryGuard.Rule.FacetLimit, 1);
+        final GuardedSearchServer server = new GuardedSearchServer(testSearchServer.getSearchServer(), guard, metrics);
+
+        server.index(assets.createDoc("1").setValue(title, "Hello World"),
+                assets.createDoc("2").setValue(title, "Hello Friends"));
+        server.commit();
+
+        final FulltextSearch search = Search.fulltext("hello *orld").facet(title).setFacetLimit(-1);
+        final SearchResult result = server.execute(search, assets);
+        assertEquals(2, result.getNumOfResults());
+        assertEquals(1, result.getFacetResults().getTermFacet(title).getValues().size());
+        assertEquals(-1, search.getFacetLimit());
+
+        try {
+            server.execute(Search.fulltext().page(100000, 10), assets);
+            fail("Expected rejection of deep offset");
+        } catch (QueryRejectedException e) {
+            assertEquals(QueryGuard.Rule.Offset, e.getRule());
+        }
+
+        final MetricsSnapshot snapshot = metrics.snapshot();
+        assertEquals(1, snapshot.getInterventions(Operation.Search, "asset", "FacetLimit", "Clamp"));
+        assertEquals(1, snapshot.getInterventions(Operation.Search, "asset", "LeadingWildcard", "Clamp"));
+        assertEquals(1, snapshot.getInterventions(Operation.Search, "asset", "Offset", "Reject"));
+    }
+
+    @Test
+    public void testAsyncSearchServer() throws Exception {
+
+        SingleValueFieldDescriptor.TextFieldDescriptor<String> title = new FieldDescriptorBuilder()
+                .setFullText(true)
+                .buildTextField("title");
+
+        DocumentFactory assets = new DocumentFactoryBuilder("asset")
+                .addField(title)
+                .build();
+
+        //the non-blocking methods can be called on any search server
+        final SearchServer server = new LimitingSearchServer(testSearchServer.getSearchServer());
+        server.indexAsync(Runnable::run, Arrays.asList(assets.createDoc("1").setValue(title, "Hello World"),
+                assets.createDoc("2").setValue(title, "Hello Friends"))).get(10, TimeUnit.SECONDS);
+        server.commit();
+
+        assertEquals(2, server.executeAsync(Search.fulltext("hello"), assets, Runnable::run)
+                .get(10, TimeUnit.SECONDS).getNumOfResults());
+    }
+
+    @Test
+    public void testCoalescingSearchServer() throws Exception {
+
+        SingleValueFieldDescriptor.TextFieldDescriptor<String> title = new FieldDescriptorBuilder()
+                .setFullText(true)
+                .buildTextField("title");
+
+        DocumentFactory assets = new DocumentFactoryBuilder("asset")
+                .addField(title)
+                .build();
+
+        final BlockingSearchServer blocking = new BlockingSearchServer(testSearchServer.getSearchServer());
+        final CoalescingSearchServer server = new CoalescingSearchServer(blocking);
+
+        server.index(assets.createDoc("1").setValue(title, "Hello World"),
+                assets.createDoc("2").setValue(title, "Hello Friends"));
+        server.commit();
+
+        final FulltextSearch leaderSearch = Search.fulltext("hello").page(1, 1);
+        final CompletableFuture<SearchResult> first = CompletableFuture.supplyAsync(() -> server.execute(leaderSearch, assets));
+        while (server.getInFlightCount() == 0) {
+            Thread.sleep(10);
+        }
+        final List<CompletableFuture<SearchResult>> followers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            followers.add(CompletableFuture.supplyAsync(() -> server.execute(Search.fulltext("hello").page(1, 1), assets)));
+        }
+        while (server.getCoalescedCount() < 3) {
+            Thread.sleep(10);
+        }
+        blocking.release.countDown();
+
+        final SearchResult result = first.get(10, TimeUnit.SECONDS);
+        assertEquals(2, result.getNumOfResults());
+        //changing the search of the leader does not change the searches of the followers
+        leaderSearch.text("nothing");
+        for (CompletableFuture<SearchResult> follower : followers) {
+            final SearchResult other = follower.get(10, TimeUnit.SECONDS);
+            assertEquals(2, other.getNumOfResults());
+            assertNotSame(result, other);
+            assertNotSame(result.getResults().get(0), other.getResults().get(0));
+            assertEquals(2, ((PageResult) other).nextPage().getNumOfResults());
+        }
+        assertEquals(1, blocking.calls.get());
+        assertEquals(0, server.getInFlightCount());
+
+        //results are not cached
+        result.getResults().get(0).setValue(title, "changed");
+        final SearchResult next = server.execute(Search.fulltext("hello").page(1, 1), assets);
+        assertEquals(2, blocking.calls.get());
+        assertNotEquals("changed", next.getResults().get(0).getValue(title));
+
+        //requests with other factories of the same type are not coalesced
+        final DocumentFactory otherAssets = new DocumentFactoryBuilder("asset")
+                .addField(title)
+                .build();
+        blocking.release = new CountDownLatch(1);
+        final CompletableFuture<SearchResult> leader = CompletableFuture.supplyAsync(() -> server.execute(Search.fulltext("hello"), assets));
+        while (server.getInFlightCount() == 0) {
+            Thread.sleep(10);
+        }
+        final CompletableFuture<SearchResult> other = CompletableFuture.supplyAsync(() -> server.execute(Search.fulltext("hello"), otherAssets));
+        while (server.getInFlightCount() < 2) {
+            Thread.sleep(10);
+        }
+        blocking.release.countDown();
+        assertEquals(2, leader.get(10, TimeUnit.SECONDS).getNumOfResults());
+        assertEquals(2, other.get(10, TimeUnit.SECONDS).getNumOfResults());
+        assertEquals(4, blocking.calls.get());
+        assertEquals(3, server.getCoalescedCount());
+    }
+
+    /**
+     * Delegating server holding the searches until released.
+     */
+    private static class BlockingSearchServer extends SearchServer {
+
+        private final SearchServer backend;
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile CountDownLatch release = new CountDownLatch(1);
+
+        private BlockingSearchServer(SearchServer backend) {
+            this.backend = backend;
+        }
+
+        @Override
+        public SearchResult execute(FulltextSearch search, DocumentFactory factory) {
+            calls.incrementAndGet();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return backend.execute(search, factory);
+        }
+
+        @Override
+        public Object getBackend() {
+            return backend.getBackend();
+        }
+
+        @Override
+        public IndexResult index(Document... docs) {
+            return backend.index(docs);
+        }
+
+        @Override
+        public IndexResult index(List<Document> docs) {
+            return backend.index(docs);
+        }
+
+        @Override
+        public IndexResult indexWithin(Document doc, int withinMs) {
+            return backend.indexWithin(doc, withinMs);
+        }
+
+        @Override
+        public IndexResult indexWithin(List<Document> docs, int withinMs) {
+            return backend.indexWithin(docs, withinMs);
+        }
+
+        @Override
+        public DeleteResult delete(Document doc) {
+            return backend.delete(doc);
+        }
+
+        @Override
+        public DeleteResult deleteWithin(Document doc, int withinMs) {
+            return backend.deleteWithin(doc, withinMs);
+        }
+
+        @Override
+        public boolean execute(Update update, DocumentFactory factory) {
+            return backend.execute(update, factory);
+        }
+
+        @Override
+        public DeleteResult execute(Delete delete, DocumentFactory factory) {
+            return backend.execute(delete, factory);
+        }
+
+        @Override
+        public void commit(boolean optimize) {
+            backend.commit(optimize);
+        }
+
+        @Override
+        public <T> BeanSearchResult<T> execute(FulltextSearch search, Class<T> c) {
+            return backend.execute(search, c);
+        }
+
+        @Override
+        public String getRawQuery(FulltextSearch search, DocumentFactory factory) {
+            return backend.getRawQuery(search, factory);
+        }
+
+        @Override
+        public <T> String getRawQuery(FulltextSearch search, Class<T> c) {
+            return backend.getRawQuery(search, c);
+        }
+
+        @Override
+        public <T> SuggestionResult execute(ExecutableSuggestionSearch search, Class<T> c) {
+            return backend.execute(search, c);
+        }
+
+        @Override
+        public SuggestionResult execute(ExecutableSuggestionSearch search, DocumentFactory assets) {
+            return backend.execute(search, assets);
+        }
+
+        @Override
+        public SuggestionResult execute(ExecutableSuggestionSearch search, DocumentFactory assets, DocumentFactory childFactory) {
+            return backend.execute(search, assets, childFactory);
+        }
+
+        @Override
+        public String getRawQuery(ExecutableSuggestionSearch search, DocumentFactory factory) {
+            return backend.getRawQuery(search, factory);
+        }
+
+        @Override
+        public String getRawQuery(ExecutableSuggestionSearch search, DocumentFactory factory, DocumentFactory childFactory) {
+            return backend.getRawQuery(search, factory, childFactory);
+        }
+
+        @Override
+        public <T> String getRawQuery(ExecutableSuggestionSearch search, Class<T> c) {
+            return backend.getRawQuery(search, c);
+        }
+
+        @Override
+        public <T> BeanGetResult<T> execute(RealTimeGet search, Class<T> c) {
+            return backend.execute(search, c);
+        }
+
+        @Override
+        public GetResult execute(RealTimeGet search, DocumentFactory assets) {
+            return backend.execute(search, assets);
+        }
+
+        @Override
+        public void clearIndex() {
+            backend.clearIndex();
+        }
+
+        @Override
+        public void close() {
+            backend.close();
+        }
+
+        @Override
+        public Class<ServiceProvider> getServiceProviderClass() {
+            return backend.getServiceProviderClass();
+        }
+    }
 }